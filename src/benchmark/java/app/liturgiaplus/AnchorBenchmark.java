@@ -0,0 +1,114 @@
+package app.liturgiaplus;
+
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import static java.time.DayOfWeek.MONDAY;
+import static java.time.DayOfWeek.SUNDAY;
+
+/**
+ * <p>Compara el cálculo de las fechas ancla de un año (Pascua, Miércoles de Ceniza, Adviento, Epifanía
+ * y Bautismo del Señor) con {@link LocalDate} y <code>TemporalAdjusters</code>, como se hacía antes,
+ * con el cálculo sobre días enteros de {@link EpochDays}, para los años 1583-4099 con las dos opciones
+ * de la Epifanía, y comprueba que ambos dan las mismas fechas.</p>
+ *
+ * <pre>gradle anchorBenchmark</pre>
+ */
+public class AnchorBenchmark {
+    private static final int ROUNDS = 10;
+    private static final int ANCHORS = 5;
+
+    public static void main(String[] args) {
+        int theFrom = args.length > 0 ? Integer.parseInt(args[0]) : 1583;
+        int theTo = args.length > 1 ? Integer.parseInt(args[1]) : 4099;
+        int theCount = (theTo - theFrom + 1) * 2;
+        int[] theOld = new int[theCount * ANCHORS];
+        int[] theNew = new int[theCount * ANCHORS];
+
+        for (int r = 0; r < ROUNDS; r++) {
+            long start = System.nanoTime();
+            int n = 0;
+            for (int theYear = theFrom; theYear <= theTo; theYear++) {
+                n = withLocalDate(theYear, false, theOld, n);
+                n = withLocalDate(theYear, true, theOld, n);
+            }
+            long local = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            n = 0;
+            for (int theYear = theFrom; theYear <= theTo; theYear++) {
+                n = withEpochDays(theYear, false, theNew, n);
+                n = withEpochDays(theYear, true, theNew, n);
+            }
+            long epoch = System.nanoTime() - start;
+            System.out.printf("ronda %d: LocalDate %.1f ns/año, EpochDays %.1f ns/año (x%.1f)%n",
+                    r + 1, (double) local / theCount, (double) epoch / theCount, (double) local / epoch);
+        }
+        for (int i = 0; i < theOld.length; i++) {
+            if (theOld[i] != theNew[i]) {
+                throw new IllegalStateException("Diferencia en " + LocalDate.ofEpochDay(theOld[i])
+                        + " / " + LocalDate.ofEpochDay(theNew[i]));
+            }
+        }
+        System.out.printf("%d años × 2 configuraciones: %d fechas ancla iguales%n", theCount / 2, theOld.length);
+    }
+
+    /**
+     * El cálculo anterior de {@link LiturgicalCalendar}: Butcher-Meeus con {@link LocalDate#of(int, int, int)},
+     * el Adviento según el día de la semana de Navidad y la Epifanía y el Bautismo con <code>TemporalAdjusters</code>
+     */
+    private static int withLocalDate(int theYear, boolean onSunday, int[] theOut, int n) {
+        int a = theYear % 19;
+        int b = theYear / 100;
+        int c = theYear % 100;
+        int h = (19 * a + b - b / 4 - (b - (b + 8) / 25 + 1) / 3 + 15) % 30;
+        int l = (32 + 2 * (b % 4) + 2 * (c / 4) - h - c % 4) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        LocalDate thePascha = LocalDate.of(theYear, (h + l - 7 * m + 114) / 31, (h + l - 7 * m + 114) % 31 + 1);
+        LocalDate theAdvent = LocalDate.of(theYear, 12, 25).with(TemporalAdjusters.previous(SUNDAY)).minusWeeks(3);
+        LocalDate theEpiphany = onSunday
+                ? LocalDate.of(theYear, 1, 2).with(TemporalAdjusters.nextOrSame(SUNDAY))
+                : LocalDate.of(theYear, 1, 6);
+        LocalDate theSeventh = LocalDate.of(theYear, 1, 7);
+        LocalDate theEighth = LocalDate.of(theYear, 1, 8);
+        LocalDate theBaptism;
+        if (onSunday && theSeventh.getDayOfWeek() == SUNDAY) {
+            theBaptism = theSeventh.with(TemporalAdjusters.next(MONDAY));
+        } else if (onSunday && theEighth.getDayOfWeek() == SUNDAY) {
+            theBaptism = theEighth.with(TemporalAdjusters.next(MONDAY));
+        } else {
+            theBaptism = theEpiphany.with(TemporalAdjusters.next(SUNDAY));
+        }
+        theOut[n++] = (int) thePascha.toEpochDay();
+        theOut[n++] = (int) thePascha.minusDays(46).toEpochDay();
+        theOut[n++] = (int) theAdvent.toEpochDay();
+        theOut[n++] = (int) theEpiphany.toEpochDay();
+        theOut[n++] = (int) theBaptism.toEpochDay();
+        return n;
+    }
+
+    /**
+     * El cálculo actual: {@link Computus} y {@link EpochDays}, como en el constructor de {@link LiturgicalCalendar}
+     */
+    private static int withEpochDays(int theYear, boolean onSunday, int[] theOut, int n) {
+        int thePascha = Computus.easter(theYear);
+        int theEpiphany = onSunday
+                ? EpochDays.nextOrSame(EpochDays.of(theYear, 1, 2), EpochDays.SUNDAY)
+                : EpochDays.of(theYear, 1, 6);
+        int theSeventh = EpochDays.of(theYear, 1, 7);
+        int theBaptism;
+        if (onSunday && EpochDays.dayOfWeek(theSeventh) == EpochDays.SUNDAY) {
+            theBaptism = theSeventh + 1;
+        } else if (onSunday && EpochDays.dayOfWeek(theSeventh + 1) == EpochDays.SUNDAY) {
+            theBaptism = theSeventh + 2;
+        } else {
+            theBaptism = EpochDays.next(theEpiphany, EpochDays.SUNDAY);
+        }
+        theOut[n++] = thePascha;
+        theOut[n++] = thePascha - 46;
+        theOut[n++] = (int) Lectionary.primaAdventu(theYear);
+        theOut[n++] = theEpiphany;
+        theOut[n++] = theBaptism;
+        return n;
+    }
+}
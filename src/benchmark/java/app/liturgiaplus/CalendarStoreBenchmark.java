@@ -0,0 +1,81 @@
+package app.liturgiaplus;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Carga los años 1583-4099 de varios perfiles en un {@link CalendarStore} y mide
+ * el tiempo de carga, el heap ocupado después, la memoria fuera del heap, el heap del índice de códigos
+ * de un perfil, que sólo se construye al pedirlo, y las consultas por segundo.
+ * Las pausas de GC que se muestran son las acumuladas durante las consultas, que no crean objetos.</p>
+ *
+ * <pre>gradle calendarStoreBenchmark</pre>
+ */
+public class CalendarStoreBenchmark {
+    private static final int QUERIES = 50_000_000;
+
+    public static void main(String[] args) {
+        int theProfiles = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int theThreads = Runtime.getRuntime().availableProcessors();
+
+        List<ProperCalendar> theCalendars = new ArrayList<>();
+        for (int p = 0; p < theProfiles; p++) {
+            Map<String, Boolean> theSettings = new HashMap<>();
+            theSettings.put(LiturgicalCalendar.EPIPHANY_ON_SUNDAY, (p & 1) != 0);
+            theSettings.put(LiturgicalCalendar.CORPUS_ORIGINAL, (p & 2) != 0);
+            theSettings.put(LiturgicalCalendar.IMMACULATE_PREVAILS, (p & 4) != 0);
+            theCalendars.add(ProperCalendar.of("perfil-" + p, theSettings));
+        }
+
+        long start = System.nanoTime();
+        CalendarStore theStore = CalendarStore.build(1583, 4099, theCalendars, theThreads);
+        long buildNanos = System.nanoTime() - start;
+        long theHeap = usedHeap();
+        System.out.printf("carga: %d perfiles x %d días en %.1f s (%d hilos)%n",
+                theStore.getProfileCount(), theStore.getDays(), buildNanos / 1e9, theThreads);
+        System.out.printf("fuera del heap: %.1f MB, heap tras GC: %.1f MB%n",
+                theStore.getOffHeapBytes() / 1e6, theHeap / 1e6);
+
+        // El índice de códigos se construye al pedirlo y es lo único del almacén que ocupa heap
+        start = System.nanoTime();
+        CodeIndex theIndex = theStore.getCodeIndex(0);
+        long indexNanos = System.nanoTime() - start;
+        long theIndexHeap = usedHeap() - theHeap;
+        System.out.printf("índice de códigos de un perfil: %.2f s, %.1f MB de heap (%d días de San José)%n",
+                indexNanos / 1e9, theIndexHeap / 1e6, theIndex.getDays("PST03-19").length);
+
+        long gcBefore = gcMillis();
+        long theFirst = theStore.getFirstEpochDay();
+        int theDays = theStore.getDays();
+        long seed = 42;
+        long sink = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            int theProfile = (int) ((seed >>> 33) % theStore.getProfileCount());
+            long theDay = theFirst + (int) ((seed >>> 17) % theDays);
+            sink += DayRecord.rank(theStore.getRecord(theProfile, theDay));
+        }
+        long queryNanos = System.nanoTime() - start;
+        System.out.printf("consultas: %.1f M/s, pausas de GC durante las consultas: %d ms (%d)%n",
+                QUERIES / (queryNanos / 1e3), gcMillis() - gcBefore, sink % 10);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime theRuntime = Runtime.getRuntime();
+        return theRuntime.totalMemory() - theRuntime.freeMemory();
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean theBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += theBean.getCollectionTime();
+        }
+        return total;
+    }
+}
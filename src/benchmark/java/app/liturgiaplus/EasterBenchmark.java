@@ -0,0 +1,102 @@
+package app.liturgiaplus;
+
+import java.time.LocalDate;
+
+/**
+ * <p>Compara el cálculo de Pascua año a año con {@link LiturgicalCalendar#getDiePaschae(int)}
+ * con el cálculo en bloque de {@link Computus#computeEaster(int, int, int[])}, y comprueba con este
+ * último el ciclo de 5.700.000 años tras el que se repiten las fechas de Pascua.</p>
+ * <p>Después compara las estrategias de {@link EasterComputus}: el cálculo año a año con la lectura
+ * de su tabla, y los años en que Gauss y Butcher-Meeus no coinciden.</p>
+ *
+ * <pre>gradle easterBenchmark</pre>
+ */
+public class EasterBenchmark {
+    private static final int CYCLE = 5_700_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int theCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int[] theYears = new int[theCount];
+        for (int i = 0; i < theCount; i++) {
+            theYears[i] = Computus.FIRST_YEAR + i;
+        }
+        int[] theBulk = new int[theCount];
+        int[] theScalar = new int[theCount];
+
+        for (int r = 0; r < ROUNDS; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < theCount; i++) {
+                theScalar[i] = (int) LiturgicalCalendar.getDiePaschae(theYears[i]).toEpochDay();
+            }
+            long scalar = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Computus.computeEaster(theYears, theBulk);
+            long bulk = System.nanoTime() - start;
+            System.out.printf("ronda %d: getDiePaschae %.1f ns/año, computeEaster %.1f ns/año (x%.1f)%n",
+                    r + 1, (double) scalar / theCount, (double) bulk / theCount, (double) scalar / bulk);
+        }
+        for (int i = 0; i < theCount; i++) {
+            if (theBulk[i] != theScalar[i]) {
+                throw new IllegalStateException("Diferencia en el año " + theYears[i]);
+            }
+        }
+
+        // Ciclo completo; el mes y día de Pascua del año y coincide con el del año y + 5.700.000
+        // para todos los años cuyo día cabe en un int
+        long start = System.nanoTime();
+        int[] theCycle = new int[CYCLE];
+        Computus.computeEaster(Computus.FIRST_YEAR, CYCLE, theCycle);
+        long cycle = System.nanoTime() - start;
+        int theOverlap = Computus.LAST_YEAR - CYCLE - Computus.FIRST_YEAR + 1;
+        int[] theNext = new int[theOverlap];
+        Computus.computeEaster(Computus.FIRST_YEAR + CYCLE, theOverlap, theNext);
+        for (int i = 0; i < theOverlap; i++) {
+            LocalDate a = LocalDate.ofEpochDay(theCycle[i]);
+            LocalDate b = LocalDate.ofEpochDay(theNext[i]);
+            if (a.getMonthValue() != b.getMonthValue() || a.getDayOfMonth() != b.getDayOfMonth()) {
+                throw new IllegalStateException("El ciclo no se repite en el año " + a.getYear());
+            }
+        }
+        System.out.printf("ciclo de %d años en %.0f ms; repetición comprobada en %d años%n",
+                CYCLE, cycle / 1e6, theOverlap);
+
+        compareStrategies();
+    }
+
+    private static void compareStrategies() {
+        int theCount = EasterComputus.TABLE_LAST_YEAR - EasterComputus.TABLE_FIRST_YEAR + 1;
+        for (EasterComputus theComputus : EasterComputus.values()) {
+            long theSum = 0;
+            long direct = 0;
+            long table = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                long start = System.nanoTime();
+                for (int y = EasterComputus.TABLE_FIRST_YEAR; y <= EasterComputus.TABLE_LAST_YEAR; y++) {
+                    theSum += theComputus.compute(y);
+                }
+                direct = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int y = EasterComputus.TABLE_FIRST_YEAR; y <= EasterComputus.TABLE_LAST_YEAR; y++) {
+                    theSum -= theComputus.easter(y);
+                }
+                table = System.nanoTime() - start;
+            }
+            if (theSum != 0) {
+                throw new IllegalStateException("La tabla de " + theComputus + " no coincide con el cálculo");
+            }
+            System.out.printf("%s: cálculo %.1f ns/año, tabla %.1f ns/año%n",
+                    theComputus, (double) direct / theCount, (double) table / theCount);
+        }
+
+        int theDifferent = 0;
+        for (int y = Computus.FIRST_YEAR; y < Computus.FIRST_YEAR + CYCLE; y++) {
+            if (EasterComputus.GAUSS.compute(y) != Computus.easter(y)) {
+                theDifferent++;
+            }
+        }
+        System.out.printf("Gauss y Butcher-Meeus difieren en %d de %d años%n", theDifferent, CYCLE);
+    }
+}
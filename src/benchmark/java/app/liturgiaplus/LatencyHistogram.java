@@ -0,0 +1,82 @@
+package app.liturgiaplus;
+
+/**
+ * <p>Histograma de latencias con cubos log-lineales, como los de HdrHistogram: cada potencia de 2
+ * se divide en {@link #SUB_BUCKETS} cubos iguales, así que el error relativo de un percentil es menor del 3%
+ * desde 1 ns hasta cientos de segundos, con un arreglo fijo de contadores.</p>
+ * <p>No es seguro entre hilos: cada hilo registra en su propio histograma y se suman al final con
+ * {@link #add(LatencyHistogram)}.</p>
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] mCounts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    private long mTotal;
+    private long mMax;
+
+    void record(long theNanos) {
+        long v = Math.max(theNanos, 0);
+        mCounts[bucket(v)]++;
+        mTotal++;
+        if (v > mMax) {
+            mMax = v;
+        }
+    }
+
+    void add(LatencyHistogram theOther) {
+        for (int i = 0; i < mCounts.length; i++) {
+            mCounts[i] += theOther.mCounts[i];
+        }
+        mTotal += theOther.mTotal;
+        mMax = Math.max(mMax, theOther.mMax);
+    }
+
+    long getTotal() {
+        return mTotal;
+    }
+
+    long getMax() {
+        return mMax;
+    }
+
+    /**
+     * @param thePercentile De 0 a 100
+     * @return El límite superior del cubo en que cae el percentil, en nanosegundos
+     */
+    long percentile(double thePercentile) {
+        if (mTotal == 0) {
+            return 0;
+        }
+        long theRank = (long) Math.ceil(thePercentile / 100 * mTotal);
+        long seen = 0;
+        for (int i = 0; i < mCounts.length; i++) {
+            seen += mCounts[i];
+            if (seen >= Math.max(theRank, 1)) {
+                return Math.min(upperBound(i), mMax);
+            }
+        }
+        return mMax;
+    }
+
+    /**
+     * Los valores menores que {@link #SUB_BUCKETS} tienen un cubo cada uno; los demás, el cubo de su
+     * potencia de 2 y de sus {@link #SUB_BUCKET_BITS} bits siguientes al más alto
+     */
+    private static int bucket(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int theShift = 63 - Long.numberOfLeadingZeros(v) - SUB_BUCKET_BITS;
+        return (theShift + 1) * SUB_BUCKETS + (int) ((v >>> theShift) - SUB_BUCKETS);
+    }
+
+    private static long upperBound(int theBucket) {
+        if (theBucket < SUB_BUCKETS) {
+            return theBucket;
+        }
+        int theShift = theBucket / SUB_BUCKETS - 1;
+        long theSub = theBucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((theSub + 1) << theShift) - 1;
+    }
+}
@@ -0,0 +1,342 @@
+package app.liturgiaplus;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * <p>Carga concurrente de consultas de lectura, con una mezcla configurable de tipos de consulta,
+ * para ver cómo escala el calendario de 1 a N hilos y dónde aparece la contención.</p>
+ * <p>Tipos de consulta (todos sobre la API pública):</p>
+ * <ul>
+ *     <li><code>point</code>: un día de un perfil en {@link CalendarStore#getRecord(int, long)}</li>
+ *     <li><code>range</code>: 42 días consecutivos con {@link CalendarStore#copyRecords(int, long, int[], int, int)}</li>
+ *     <li><code>month</code>: un mes de {@link CalendarViews}, compartido por todos los hilos</li>
+ *     <li><code>today</code>: hoy en una zona horaria con {@link TodayService}</li>
+ *     <li><code>year</code>: un año generado con {@link LiturgicalCalendar#newCalendar(int, Map)}</li>
+ *     <li><code>static</code>: {@link LiturgicalCalendar#generateYearlyCalendar(int, HashMap)} y
+ *     {@link LiturgicalCalendar#getCalendar()}, el camino estático compartido</li>
+ * </ul>
+ * <p>Para cada número de hilos (1, 2, 4... hasta N) se calienta y luego se mide durante un tiempo fijo.
+ * Cada hilo registra las latencias en su propio {@link LatencyHistogram}, que se suman al final
+ * de cada paso: se muestran el rendimiento total, la escala respecto a 1 hilo y los percentiles por tipo.</p>
+ *
+ * <pre>
+ * gradle loadHarness
+ * gradle loadHarness --args="--threads 8 --seconds 10 --mix point=50,month=30,static=20"
+ * </pre>
+ */
+public class LoadHarness {
+    private static final String[] TYPES = {"point", "range", "month", "today", "year", "static"};
+    private static final int POINT = 0;
+    private static final int RANGE = 1;
+    private static final int MONTH = 2;
+    private static final int TODAY = 3;
+    private static final int YEAR = 4;
+    private static final int STATIC = 5;
+
+    private static final String[] ZONES = {"Pacific/Kiritimati", "Asia/Tokyo", "Asia/Kolkata", "Europe/Madrid",
+            "UTC", "America/Sao_Paulo", "America/Lima", "America/Los_Angeles", "Pacific/Pago_Pago"};
+    private static final int RANGE_DAYS = 42;
+
+    private final CalendarStore mStore;
+    private final CalendarViews[] mViews;
+    private final TodayService mToday;
+    private final ZoneId[] mZones;
+    private final int[] mCumulative;
+
+    private volatile boolean mRecording;
+    private volatile boolean mStopped;
+
+    private LoadHarness(CalendarStore theStore, int[] theMix) {
+        mStore = theStore;
+        mViews = new CalendarViews[theStore.getProfileCount()];
+        for (int p = 0; p < mViews.length; p++) {
+            mViews[p] = CalendarViews.of(theStore, p, DayOfWeek.MONDAY);
+        }
+        mToday = new TodayService();
+        mZones = new ZoneId[ZONES.length];
+        for (int i = 0; i < ZONES.length; i++) {
+            mZones[i] = ZoneId.of(ZONES[i]);
+        }
+        mCumulative = new int[theMix.length];
+        int theSum = 0;
+        for (int i = 0; i < theMix.length; i++) {
+            theSum += theMix[i];
+            mCumulative[i] = theSum;
+        }
+        if (theSum == 0) {
+            throw new IllegalArgumentException("La mezcla no tiene consultas");
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int theMaxThreads = Runtime.getRuntime().availableProcessors();
+        int theSeconds = 5;
+        int theWarmup = 2;
+        int theFromYear = 2000;
+        int theToYear = 2100;
+        int theProfiles = 4;
+        int[] theMix = {70, 15, 10, 4, 1, 0};
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String theValue = args[i + 1];
+            switch (args[i]) {
+                case "--threads":
+                    theMaxThreads = Integer.parseInt(theValue);
+                    break;
+                case "--seconds":
+                    theSeconds = Integer.parseInt(theValue);
+                    break;
+                case "--warmup":
+                    theWarmup = Integer.parseInt(theValue);
+                    break;
+                case "--years":
+                    theFromYear = Integer.parseInt(theValue.substring(0, theValue.indexOf('-')));
+                    theToYear = Integer.parseInt(theValue.substring(theValue.indexOf('-') + 1));
+                    break;
+                case "--profiles":
+                    theProfiles = Integer.parseInt(theValue);
+                    break;
+                case "--mix":
+                    theMix = parseMix(theValue);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+
+        List<ProperCalendar> theCalendars = new ArrayList<>();
+        for (int p = 0; p < theProfiles; p++) {
+            Map<String, Boolean> theSettings = new HashMap<>();
+            theSettings.put(LiturgicalCalendar.EPIPHANY_ON_SUNDAY, (p & 1) != 0);
+            theSettings.put(LiturgicalCalendar.CORPUS_ORIGINAL, (p & 2) != 0);
+            theCalendars.add(ProperCalendar.of("perfil-" + p, theSettings));
+        }
+        long start = System.nanoTime();
+        CalendarStore theStore = CalendarStore.build(theFromYear, theToYear, theCalendars,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("carga: %d perfiles, %d-%d en %.1f s; mezcla %s; %d s de calentamiento y %d s por paso%n",
+                theProfiles, theFromYear, theToYear, (System.nanoTime() - start) / 1e9, mixToString(theMix),
+                theWarmup, theSeconds);
+
+        LoadHarness theHarness = new LoadHarness(theStore, theMix);
+        double theBaseline = 0;
+        try {
+            for (int theThreads : steps(theMaxThreads)) {
+                double theThroughput = theHarness.step(theThreads, theWarmup, theSeconds);
+                if (theBaseline == 0) {
+                    theBaseline = theThroughput;
+                }
+                System.out.printf("  escala x%.2f respecto a 1 hilo (ideal x%d)%n", theThroughput / theBaseline, theThreads);
+            }
+        } finally {
+            theHarness.mToday.close();
+        }
+    }
+
+    /**
+     * Un paso de la escala: calienta, mide y muestra los resultados
+     *
+     * @return Consultas por segundo durante la medida
+     */
+    private double step(int theThreads, int theWarmup, int theSeconds) throws InterruptedException {
+        mRecording = false;
+        mStopped = false;
+        CountDownLatch theDone = new CountDownLatch(theThreads);
+        Worker[] theWorkers = new Worker[theThreads];
+        for (int t = 0; t < theThreads; t++) {
+            theWorkers[t] = new Worker(this, 0x9E3779B97F4A7C15L * (t + 1), theDone);
+            Thread theThread = new Thread(theWorkers[t], "load-" + t);
+            theThread.setDaemon(true);
+            theThread.start();
+        }
+        Thread.sleep(theWarmup * 1000L);
+        mRecording = true;
+        long start = System.nanoTime();
+        Thread.sleep(theSeconds * 1000L);
+        mRecording = false;
+        long theNanos = System.nanoTime() - start;
+        mStopped = true;
+        theDone.await();
+
+        LatencyHistogram[] theHistograms = new LatencyHistogram[TYPES.length];
+        LatencyHistogram theAll = new LatencyHistogram();
+        long theSink = 0;
+        for (int i = 0; i < TYPES.length; i++) {
+            theHistograms[i] = new LatencyHistogram();
+            for (Worker theWorker : theWorkers) {
+                theHistograms[i].add(theWorker.mHistograms[i]);
+            }
+            theAll.add(theHistograms[i]);
+        }
+        for (Worker theWorker : theWorkers) {
+            theSink += theWorker.mSink;
+        }
+        double theThroughput = theAll.getTotal() / (theNanos / 1e9);
+        System.out.printf("%d hilos: %.0f consultas/s (%d)%n", theThreads, theThroughput, theSink & 1);
+        print("total", theAll, theNanos);
+        for (int i = 0; i < TYPES.length; i++) {
+            if (theHistograms[i].getTotal() > 0) {
+                print(TYPES[i], theHistograms[i], theNanos);
+            }
+        }
+        return theThroughput;
+    }
+
+    private static void print(String theName, LatencyHistogram theHistogram, long theNanos) {
+        System.out.printf("  %-6s %12.0f/s  p50 %9s  p90 %9s  p99 %9s  p99.9 %9s  máx %9s%n",
+                theName, theHistogram.getTotal() / (theNanos / 1e9),
+                micros(theHistogram.percentile(50)), micros(theHistogram.percentile(90)),
+                micros(theHistogram.percentile(99)), micros(theHistogram.percentile(99.9)),
+                micros(theHistogram.getMax()));
+    }
+
+    private static String micros(long theNanos) {
+        return String.format("%.2f µs", theNanos / 1e3);
+    }
+
+    /**
+     * @return 1, 2, 4... hasta <code>theMax</code>, que siempre se incluye
+     */
+    private static List<Integer> steps(int theMax) {
+        List<Integer> theSteps = new ArrayList<>();
+        for (int n = 1; n < theMax; n *= 2) {
+            theSteps.add(n);
+        }
+        theSteps.add(theMax);
+        return theSteps;
+    }
+
+    /**
+     * @param theMix Pesos con la forma <code>point=70,range=15</code>; los tipos no nombrados pesan 0
+     */
+    private static int[] parseMix(String theMix) {
+        int[] theWeights = new int[TYPES.length];
+        for (String thePart : theMix.split(",")) {
+            int eq = thePart.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Mezcla sin peso en \"" + thePart + "\": se espera tipo=peso");
+            }
+            String theType = thePart.substring(0, eq).trim();
+            int theIndex = -1;
+            for (int i = 0; i < TYPES.length; i++) {
+                if (TYPES[i].equals(theType)) {
+                    theIndex = i;
+                }
+            }
+            if (theIndex < 0) {
+                throw new IllegalArgumentException("Tipo de consulta desconocido: " + theType);
+            }
+            theWeights[theIndex] = Integer.parseInt(thePart.substring(eq + 1).trim());
+            if (theWeights[theIndex] < 0) {
+                throw new IllegalArgumentException("Peso negativo en \"" + thePart + "\"");
+            }
+        }
+        return theWeights;
+    }
+
+    private static String mixToString(int[] theMix) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < TYPES.length; i++) {
+            if (theMix[i] > 0) {
+                sb.append(sb.length() == 0 ? "" : ",").append(TYPES[i]).append('=').append(theMix[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static final class Worker implements Runnable {
+        private final LoadHarness mHarness;
+        private final CountDownLatch mDone;
+        private final LatencyHistogram[] mHistograms = new LatencyHistogram[TYPES.length];
+        private final int[] mRange = new int[RANGE_DAYS];
+        private final SplittableRandom mRandom;
+        private long mSink;
+
+        Worker(LoadHarness theHarness, long theSeed, CountDownLatch theDone) {
+            mHarness = theHarness;
+            mRandom = new SplittableRandom(theSeed);
+            mDone = theDone;
+            for (int i = 0; i < TYPES.length; i++) {
+                mHistograms[i] = new LatencyHistogram();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                LoadHarness h = mHarness;
+                int theWeights = h.mCumulative[h.mCumulative.length - 1];
+                while (!h.mStopped) {
+                    int theType = type(mRandom.nextInt(theWeights));
+                    long theRandom = mRandom.nextLong() >>> 1;
+                    long start = System.nanoTime();
+                    mSink += query(theType, theRandom);
+                    long theNanos = System.nanoTime() - start;
+                    if (h.mRecording) {
+                        mHistograms[theType].record(theNanos);
+                    }
+                }
+            } finally {
+                mDone.countDown();
+            }
+        }
+
+        private int type(int theDraw) {
+            int[] theCumulative = mHarness.mCumulative;
+            int i = 0;
+            while (theDraw >= theCumulative[i]) {
+                i++;
+            }
+            return i;
+        }
+
+        private long query(int theType, long theRandom) {
+            CalendarStore theStore = mHarness.mStore;
+            int theProfile = (int) (theRandom % theStore.getProfileCount());
+            long theDay = theStore.getFirstEpochDay() + (theRandom >>> 8) % (theStore.getDays() - RANGE_DAYS);
+            switch (theType) {
+                case POINT:
+                    return theStore.getRecord(theProfile, theDay);
+                case RANGE:
+                    theStore.copyRecords(theProfile, theDay, mRange, 0, RANGE_DAYS);
+                    return mRange[RANGE_DAYS - 1];
+                case MONTH: {
+                    // Enero del primer año y Diciembre del último necesitan días fuera del rango cargado
+                    LocalDate theDate = LocalDate.ofEpochDay(theDay);
+                    int theYear = theDate.getYear();
+                    int theMonth = theDate.getMonthValue();
+                    if (theYear == theStore.getFromYear()) {
+                        theMonth = Math.max(theMonth, 2);
+                    }
+                    if (theYear == theStore.getToYear()) {
+                        theMonth = Math.min(theMonth, 11);
+                    }
+                    return mHarness.mViews[theProfile].getMonth(theYear, theMonth).getRecord(MonthView.CELLS / 2);
+                }
+                case TODAY:
+                    return mHarness.mToday.getToday(mHarness.mZones[(int) ((theRandom >>> 8) % mHarness.mZones.length)],
+                            theStore.getProfile(theProfile)).getRecord();
+                case YEAR: {
+                    int theYear = theStore.getFromYear() + (int) ((theRandom >>> 8) % (theStore.getToYear() - theStore.getFromYear() + 1));
+                    ProperCalendar theProper = theStore.getProfile(theProfile);
+                    return LiturgicalCalendar.newCalendar(theYear, theProper.getSettings())
+                            .getLiturgicalYear(theProper).getRecord(0);
+                }
+                case STATIC: {
+                    int theYear = theStore.getFromYear() + (int) ((theRandom >>> 8) % (theStore.getToYear() - theStore.getFromYear() + 1));
+                    LiturgicalCalendar.generateYearlyCalendar(theYear, new HashMap<>(theStore.getProfile(theProfile).getSettings()));
+                    return LiturgicalCalendar.getCalendar().size();
+                }
+                default:
+                    throw new IllegalStateException("Tipo de consulta " + theType);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package app.liturgiaplus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Mide el arranque de la línea de comandos en procesos de corta duración:
+ * el tiempo desde que se lanza la JVM hasta el primer byte en la salida estándar,
+ * y hasta que el proceso termina.</p>
+ * <p>Compara la JVM por defecto con el archivo AppCDS generado por la tarea <code>cdsArchive</code>.</p>
+ *
+ * <pre>gradle startupBenchmark</pre>
+ */
+public class StartupBenchmark {
+    private static final int WARMUP = 3;
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Uso: StartupBenchmark <jar> <archivo.jsa> [ejecuciones]");
+            System.exit(2);
+        }
+        String theJar = args[0];
+        String theArchive = args[1];
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : RUNS;
+        String theJava = ProcessHandle.current().info().command().orElse("java");
+
+        List<String> cliArgs = Arrays.asList("app.liturgiaplus.Main", "--year", "2022");
+        measure("por defecto", theJava, theJar, List.of(), cliArgs, runs);
+        measure("AppCDS", theJava, theJar,
+                List.of("-XX:SharedArchiveFile=" + theArchive), cliArgs, runs);
+        measure("AppCDS + C1", theJava, theJar,
+                List.of("-XX:SharedArchiveFile=" + theArchive, "-XX:TieredStopAtLevel=1", "-XX:+UseSerialGC"),
+                cliArgs, runs);
+    }
+
+    private static void measure(String theName, String theJava, String theJar, List<String> jvmArgs,
+                                List<String> cliArgs, int runs) throws IOException, InterruptedException {
+        List<String> theCommand = new ArrayList<>();
+        theCommand.add(theJava);
+        theCommand.addAll(jvmArgs);
+        theCommand.add("-cp");
+        theCommand.add(theJar);
+        theCommand.addAll(cliArgs);
+
+        long[] firstOutput = new long[runs];
+        long[] total = new long[runs];
+        for (int i = -WARMUP; i < runs; i++) {
+            long[] sample = run(theCommand);
+            if (i >= 0) {
+                firstOutput[i] = sample[0];
+                total[i] = sample[1];
+            }
+        }
+        System.out.printf("%-12s primera salida: %s | total: %s%n", theName, summary(firstOutput), summary(total));
+    }
+
+    /**
+     * @return nanosegundos hasta el primer byte y hasta el final del proceso
+     */
+    private static long[] run(List<String> theCommand) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process theProcess = new ProcessBuilder(theCommand)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        long first = -1;
+        byte[] buffer = new byte[8192];
+        try (InputStream in = theProcess.getInputStream()) {
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                if (first < 0 && n > 0) {
+                    first = System.nanoTime() - start;
+                }
+            }
+        }
+        int exit = theProcess.waitFor();
+        long end = System.nanoTime() - start;
+        if (exit != 0) {
+            throw new IllegalStateException("El proceso terminó con código " + exit + ": " + theCommand);
+        }
+        return new long[]{first, end};
+    }
+
+    private static String summary(long[] theSamples) {
+        long[] sorted = theSamples.clone();
+        Arrays.sort(sorted);
+        return String.format("min %.1f ms, mediana %.1f ms, p90 %.1f ms",
+                sorted[0] / 1e6, sorted[sorted.length / 2] / 1e6, sorted[(int) (sorted.length * 0.9)] / 1e6);
+    }
+}
@@ -0,0 +1,94 @@
+package app.liturgiaplus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * <p>Codifica con {@link YearCodec} los años 1583-4099 del Calendario Romano General, comprueba que
+ * al decodificarlos se obtienen los mismos registros, y compara el tamaño y el tiempo de codificación
+ * con la salida JSON Lines de {@link CalendarFormat#JSONL}.</p>
+ * <p>El JDK no trae un lector de JSON, así que para JSON sólo se mide la escritura.</p>
+ *
+ * <pre>gradle yearCodecBenchmark</pre>
+ */
+public class YearCodecBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int theFrom = args.length > 0 ? Integer.parseInt(args[0]) : 1583;
+        int theTo = args.length > 1 ? Integer.parseInt(args[1]) : 4099;
+        List<LiturgicalYear> theYears = new ArrayList<>();
+        for (int theYear = theFrom; theYear <= theTo; theYear++) {
+            theYears.add(LiturgicalCalendar.newCalendar(theYear, new HashMap<>()).getLiturgicalYear());
+        }
+
+        ByteBuffer theBuffer = ByteBuffer.allocate(16 * 1024);
+        int[] theRecords = new int[366];
+        int[] theExpected = new int[366];
+        long theBytes = 0;
+        int theMax = 0;
+        for (LiturgicalYear theYear : theYears) {
+            theBuffer.clear();
+            int theSize = YearCodec.encode(theYear, theBuffer);
+            theBuffer.flip();
+            if (YearCodec.decode(theBuffer, theRecords) != theYear.getYear() || theBuffer.hasRemaining()) {
+                throw new IllegalStateException("Año mal decodificado: " + theYear.getYear());
+            }
+            theYear.copyRecords(0, theExpected, 0, theYear.length());
+            for (int i = 0; i < theYear.length(); i++) {
+                if (theRecords[i] != theExpected[i]) {
+                    throw new IllegalStateException("Diferencia el " + theYear.dateOf(i));
+                }
+            }
+            theBytes += theSize;
+            theMax = Math.max(theMax, theSize);
+        }
+        StringBuilder theJson = new StringBuilder(128 * 1024);
+        long theJsonChars = 0;
+        for (LiturgicalYear theYear : theYears) {
+            theJson.setLength(0);
+            CalendarFormat.JSONL.writeYear(theJson, "universal", theYear.getYear(), theYear.getCelebrations());
+            theJsonChars += theJson.length();
+        }
+        System.out.printf("%d años verificados; binario %.0f bytes/año (máx. %d), JSON Lines %.0f caracteres/año%n",
+                theYears.size(), (double) theBytes / theYears.size(), theMax, (double) theJsonChars / theYears.size());
+
+        long sink = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            long start = System.nanoTime();
+            for (LiturgicalYear theYear : theYears) {
+                theBuffer.clear();
+                sink += YearCodec.encode(theYear, theBuffer);
+            }
+            long encode = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (LiturgicalYear theYear : theYears) {
+                theBuffer.clear();
+                YearCodec.encode(theYear, theBuffer);
+            }
+            theBuffer.flip();
+            int theLimit = theBuffer.limit();
+            start = System.nanoTime();
+            for (int i = 0; i < theYears.size(); i++) {
+                theBuffer.position(0).limit(theLimit);
+                sink += YearCodec.decode(theBuffer, theRecords);
+            }
+            long decode = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (LiturgicalYear theYear : theYears) {
+                theJson.setLength(0);
+                CalendarFormat.JSONL.writeYear(theJson, "universal", theYear.getYear(), theYear.getCelebrations());
+                sink += theJson.length();
+            }
+            long json = System.nanoTime() - start;
+            System.out.printf("ronda %d: codificar %.1f µs/año, decodificar %.1f µs/año, escribir JSON %.1f µs/año (%d)%n",
+                    r + 1, encode / 1e3 / theYears.size(), decode / 1e3 / theYears.size(),
+                    json / 1e3 / theYears.size(), sink % 10);
+        }
+    }
+}
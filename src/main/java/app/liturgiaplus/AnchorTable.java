@@ -0,0 +1,288 @@
+package app.liturgiaplus;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.Arrays;
+
+/**
+ * <p>Tabla de las fechas ancla de cada año del calendario gregoriano (1583-9999), guardadas en columnas
+ * de primitivos: día del año de Pascua, día de la semana del 1 de Enero, año bisiesto y día del año
+ * del Primer Domingo de Adviento.</p>
+ * <p>Permite buscar años por condiciones sin generar ningún calendario. Cada condición de una
+ * {@link Query consulta} recorre una columna y descarta años de un mapa de bits, de modo que una
+ * consulta sobre todo el rango se resuelve en microsegundos.</p>
+ *
+ * <pre>
+ * // Años en los que Navidad cae en Domingo
+ * int[] a = AnchorTable.query().weekday(MonthDay.of(12, 25), DayOfWeek.SUNDAY).years();
+ * // Años en los que San José cae en Semana Santa y se traslada (ver fillSanIoseph)
+ * int[] b = AnchorTable.query().fromEaster(MonthDay.of(3, 19), -7, -1).years();
+ * // Años con Pascua el 25 de Abril
+ * int[] c = AnchorTable.query().easter(MonthDay.of(4, 25)).years();
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class AnchorTable {
+    public static final int FIRST_YEAR = 1583;
+    public static final int LAST_YEAR = 9999;
+
+    private static final int YEARS = LAST_YEAR - FIRST_YEAR + 1;
+
+    /**
+     * Condición sobre las columnas de un año, para lo que no cubren los filtros de {@link Query}
+     */
+    public interface YearFilter {
+        /**
+         * @param theYear         El año
+         * @param theEaster       Día del año de Pascua (1 = 1 de Enero)
+         * @param theJanuaryFirst Día de la semana del 1 de Enero (1 = Lunes ... 7 = Domingo)
+         * @param isLeap          Si el año es bisiesto
+         * @param theAdvent       Día del año del Primer Domingo de Adviento
+         */
+        boolean test(int theYear, int theEaster, int theJanuaryFirst, boolean isLeap, int theAdvent);
+    }
+
+    private final short[] mEaster = new short[YEARS];
+    private final byte[] mJanuaryFirst = new byte[YEARS];
+    private final boolean[] mLeap = new boolean[YEARS];
+    private final short[] mAdvent = new short[YEARS];
+
+    private AnchorTable() {
+        int[] theEaster = new int[YEARS];
+        Computus.computeEaster(FIRST_YEAR, YEARS, theEaster);
+        for (int i = 0; i < YEARS; i++) {
+            int theYear = FIRST_YEAR + i;
+            int theJanuary = EpochDays.of(theYear, 1, 1);
+            mEaster[i] = (short) (theEaster[i] - theJanuary + 1);
+            mJanuaryFirst[i] = (byte) EpochDays.dayOfWeek(theJanuary);
+            mLeap[i] = EpochDays.isLeap(theYear);
+            mAdvent[i] = (short) (Lectionary.primaAdventu(theYear) - theJanuary + 1);
+        }
+    }
+
+    private static final class Holder {
+        static final AnchorTable INSTANCE = new AnchorTable();
+    }
+
+    /**
+     * @return La tabla, que se calcula la primera vez que se usa
+     */
+    public static AnchorTable get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * @return Una consulta nueva sobre todos los años de la tabla
+     */
+    public static Query query() {
+        return new Query(get());
+    }
+
+    /**
+     * @return El día del año de Pascua (1 = 1 de Enero)
+     */
+    public int getEaster(int theYear) {
+        return mEaster[indexOf(theYear)];
+    }
+
+    public LocalDate getEasterDate(int theYear) {
+        return LocalDate.ofYearDay(theYear, getEaster(theYear));
+    }
+
+    /**
+     * @return El día de la semana del 1 de Enero
+     */
+    public DayOfWeek getJanuaryFirst(int theYear) {
+        return DayOfWeek.of(mJanuaryFirst[indexOf(theYear)]);
+    }
+
+    public boolean isLeap(int theYear) {
+        return mLeap[indexOf(theYear)];
+    }
+
+    /**
+     * @return El día del año del Primer Domingo de Adviento
+     */
+    public int getAdvent(int theYear) {
+        return mAdvent[indexOf(theYear)];
+    }
+
+    private static int indexOf(int theYear) {
+        if (theYear < FIRST_YEAR || theYear > LAST_YEAR) {
+            throw new IllegalArgumentException("Año fuera del calendario gregoriano: " + theYear);
+        }
+        return theYear - FIRST_YEAR;
+    }
+
+    /**
+     * @return El día del año de un mes y día, o <code>0</code> para el 29 de Febrero de un año no bisiesto
+     */
+    private static int dayOfYear(int theMonthDaySlot, boolean isLeap) {
+        return Sanctorale.indexOf(theMonthDaySlot, isLeap) + 1;
+    }
+
+    private static int slotOf(MonthDay theMonthDay) {
+        return LocalDate.of(2000, theMonthDay.getMonth(), theMonthDay.getDayOfMonth()).getDayOfYear() - 1;
+    }
+
+    /**
+     * <p>Consulta de años: cada condición se aplica sobre una columna y se acumula con las anteriores (y lógico).</p>
+     * <p>No es segura para varios hilos; la tabla sí.</p>
+     */
+    public static final class Query {
+        private final AnchorTable mTable;
+        private final long[] mMatches = new long[(YEARS + 63) >>> 6];
+
+        private Query(AnchorTable theTable) {
+            mTable = theTable;
+            Arrays.fill(mMatches, -1L);
+            mMatches[mMatches.length - 1] = -1L >>> (64 - (YEARS & 63));
+        }
+
+        /**
+         * Sólo los años entre dos, incluidos
+         */
+        public Query between(int theFrom, int theTo) {
+            for (int i = 0; i < YEARS; i++) {
+                int theYear = FIRST_YEAR + i;
+                if (theYear < theFrom || theYear > theTo) {
+                    clear(i);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Pascua en una fecha
+         */
+        public Query easter(MonthDay theDate) {
+            return easterBetween(theDate, theDate);
+        }
+
+        /**
+         * Pascua entre dos fechas, incluidas
+         */
+        public Query easterBetween(MonthDay theFrom, MonthDay theTo) {
+            int from = slotOf(theFrom);
+            int to = slotOf(theTo);
+            short[] theEaster = mTable.mEaster;
+            boolean[] theLeap = mTable.mLeap;
+            for (int i = 0; i < YEARS; i++) {
+                // Posición mes-día de Pascua, comparable en años bisiestos y no bisiestos
+                int theSlot = Sanctorale.slotOf(theEaster[i] - 1, theLeap[i]);
+                if (theSlot < from || theSlot > to) {
+                    clear(i);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Un mes y día cae en un día de la semana (p.e. Navidad en Domingo)
+         */
+        public Query weekday(MonthDay theDate, DayOfWeek theDayOfWeek) {
+            int theSlot = slotOf(theDate);
+            int theWeekDay = theDayOfWeek.getValue();
+            byte[] theJanuaryFirst = mTable.mJanuaryFirst;
+            boolean[] theLeap = mTable.mLeap;
+            for (int i = 0; i < YEARS; i++) {
+                int theDay = dayOfYear(theSlot, theLeap[i]);
+                if (theDay == 0 || (theJanuaryFirst[i] - 1 + theDay - 1) % 7 + 1 != theWeekDay) {
+                    clear(i);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Un mes y día cae entre dos distancias a Pascua, incluidas
+         * (p.e. <code>-7, -1</code> es la Semana Santa, del Domingo de Ramos al Sábado Santo)
+         */
+        public Query fromEaster(MonthDay theDate, int theFrom, int theTo) {
+            int theSlot = slotOf(theDate);
+            short[] theEaster = mTable.mEaster;
+            boolean[] theLeap = mTable.mLeap;
+            for (int i = 0; i < YEARS; i++) {
+                int theDay = dayOfYear(theSlot, theLeap[i]);
+                int theDistance = theDay - theEaster[i];
+                if (theDay == 0 || theDistance < theFrom || theDistance > theTo) {
+                    clear(i);
+                }
+            }
+            return this;
+        }
+
+        public Query leap(boolean isLeap) {
+            boolean[] theLeap = mTable.mLeap;
+            for (int i = 0; i < YEARS; i++) {
+                if (theLeap[i] != isLeap) {
+                    clear(i);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * El Primer Domingo de Adviento en una fecha
+         */
+        public Query advent(MonthDay theDate) {
+            int theSlot = slotOf(theDate);
+            short[] theAdvent = mTable.mAdvent;
+            boolean[] theLeap = mTable.mLeap;
+            for (int i = 0; i < YEARS; i++) {
+                if (theAdvent[i] != dayOfYear(theSlot, theLeap[i])) {
+                    clear(i);
+                }
+            }
+            return this;
+        }
+
+        public Query where(YearFilter theFilter) {
+            for (int i = 0; i < YEARS; i++) {
+                if (isSet(i) && !theFilter.test(FIRST_YEAR + i, mTable.mEaster[i], mTable.mJanuaryFirst[i],
+                        mTable.mLeap[i], mTable.mAdvent[i])) {
+                    clear(i);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * @return El número de años que cumplen todas las condiciones
+         */
+        public int count() {
+            int n = 0;
+            for (long theWord : mMatches) {
+                n += Long.bitCount(theWord);
+            }
+            return n;
+        }
+
+        /**
+         * @return Los años que cumplen todas las condiciones, en orden
+         */
+        public int[] years() {
+            int[] theYears = new int[count()];
+            int n = 0;
+            for (int w = 0; w < mMatches.length; w++) {
+                long theWord = mMatches[w];
+                while (theWord != 0) {
+                    theYears[n++] = FIRST_YEAR + (w << 6) + Long.numberOfTrailingZeros(theWord);
+                    theWord &= theWord - 1;
+                }
+            }
+            return theYears;
+        }
+
+        private boolean isSet(int i) {
+            return (mMatches[i >>> 6] & 1L << i) != 0;
+        }
+
+        private void clear(int i) {
+            mMatches[i >>> 6] &= ~(1L << i);
+        }
+    }
+}
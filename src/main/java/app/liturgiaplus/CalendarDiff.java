@@ -0,0 +1,165 @@
+package app.liturgiaplus;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Diferencias entre dos calendarios, día a día.</p>
+ * <p>Los dos años se recorren a la vez, alineados por mes y día (el 29 de Febrero sólo existe
+ * en uno de ellos cuando se comparan un año bisiesto y uno que no lo es; ver {@link Sanctorale#indexOf(int, boolean)}),
+ * comparando los {@link DayRecord registros compactos} de cada día sin los ciclos del Leccionario
+ * ({@link DayRecord#CELEBRATION_MASK}), que cambian de un año a otro. Sólo se guardan los días distintos,
+ * con sus registros completos.</p>
+ *
+ * <pre>
+ * ProperCalendar spain = ProperCalendar.load("es", ProperCalendar.universal(),
+ *         Map.of(LiturgicalCalendar.IMMACULATE_PREVAILS, true), "proper-es.txt");
+ * CalendarDiff theDiff = CalendarDiff.diff(2024, ProperCalendar.universal(), 2024, spain);
+ * for (int i = 0; i &lt; theDiff.size(); i++) {
+ *     System.out.println(theDiff.getDateA(i) + " " + theDiff.getCodeA(i) + " -&gt; " + theDiff.getCodeB(i));
+ * }
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class CalendarDiff {
+    private final int mYearA;
+    private final int mYearB;
+    private final short[] mSlots;
+    private final int[] mRecordsA;
+    private final int[] mRecordsB;
+
+    private CalendarDiff(int theYearA, int theYearB, short[] theSlots, int[] theRecordsA, int[] theRecordsB) {
+        mYearA = theYearA;
+        mYearB = theYearB;
+        mSlots = theSlots;
+        mRecordsA = theRecordsA;
+        mRecordsB = theRecordsB;
+    }
+
+    /**
+     * Genera los dos calendarios con el santoral universal y los compara. Si el año es el mismo, los segmentos comunes
+     * se calculan una sola vez (ver {@link LiturgicalCalendar#newCalendars(int, List)}).
+     */
+    public static CalendarDiff diff(int theYearA, Map<String, Boolean> theSettingsA,
+                                    int theYearB, Map<String, Boolean> theSettingsB) {
+        LiturgicalCalendar a;
+        LiturgicalCalendar b;
+        if (theYearA == theYearB) {
+            List<LiturgicalCalendar> theCalendars =
+                    LiturgicalCalendar.newCalendars(theYearA, List.of(theSettingsA, theSettingsB));
+            a = theCalendars.get(0);
+            b = theCalendars.get(1);
+        } else {
+            a = LiturgicalCalendar.newCalendar(theYearA, theSettingsA);
+            b = LiturgicalCalendar.newCalendar(theYearB, theSettingsB);
+        }
+        return diff(a.getLiturgicalYear(), b.getLiturgicalYear());
+    }
+
+    /**
+     * Genera los dos años con su calendario propio y los compara: cada uno con la configuración
+     * y el santoral de su propio. Si el año es el mismo, los propios comparten los segmentos comunes
+     * (ver {@link LiturgicalCalendar#newLiturgicalYears(int, List)}).
+     */
+    public static CalendarDiff diff(int theYearA, ProperCalendar theProperA, int theYearB, ProperCalendar theProperB) {
+        if (theYearA == theYearB) {
+            List<LiturgicalYear> theYears = LiturgicalCalendar.newLiturgicalYears(theYearA, List.of(theProperA, theProperB));
+            return diff(theYears.get(0), theYears.get(1));
+        }
+        return diff(LiturgicalCalendar.newCalendar(theYearA, theProperA.getSettings()).getLiturgicalYear(theProperA),
+                LiturgicalCalendar.newCalendar(theYearB, theProperB.getSettings()).getLiturgicalYear(theProperB));
+    }
+
+    public static CalendarDiff diff(LiturgicalYear a, LiturgicalYear b) {
+        short[] theSlots = new short[Sanctorale.SLOTS];
+        int[] theRecordsA = new int[Sanctorale.SLOTS];
+        int[] theRecordsB = new int[Sanctorale.SLOTS];
+        int n = 0;
+        for (int theSlot = 0; theSlot < Sanctorale.SLOTS; theSlot++) {
+            int i = Sanctorale.indexOf(theSlot, a.isLeap());
+            int j = Sanctorale.indexOf(theSlot, b.isLeap());
+            int x = i < 0 ? DayRecord.EMPTY : a.getRecord(i);
+            int y = j < 0 ? DayRecord.EMPTY : b.getRecord(j);
+            if ((x & DayRecord.CELEBRATION_MASK) != (y & DayRecord.CELEBRATION_MASK) || (i < 0) != (j < 0)) {
+                theSlots[n] = (short) theSlot;
+                theRecordsA[n] = x;
+                theRecordsB[n] = y;
+                n++;
+            }
+        }
+        return new CalendarDiff(a.getYear(), b.getYear(),
+                Arrays.copyOf(theSlots, n), Arrays.copyOf(theRecordsA, n), Arrays.copyOf(theRecordsB, n));
+    }
+
+    /**
+     * @return El número de días distintos
+     */
+    public int size() {
+        return mSlots.length;
+    }
+
+    public boolean isEmpty() {
+        return mSlots.length == 0;
+    }
+
+    /**
+     * @return El mes y día del cambio <code>i</code>
+     */
+    public MonthDay getMonthDay(int i) {
+        LocalDate theDate = LocalDate.ofYearDay(2000, mSlots[i] + 1);
+        return MonthDay.of(theDate.getMonthValue(), theDate.getDayOfMonth());
+    }
+
+    /**
+     * @return La fecha del cambio <code>i</code> en el primer calendario, o <code>null</code> si no tiene ese día
+     */
+    public LocalDate getDateA(int i) {
+        return dateOf(mYearA, mSlots[i]);
+    }
+
+    /**
+     * @return La fecha del cambio <code>i</code> en el segundo calendario, o <code>null</code> si no tiene ese día
+     */
+    public LocalDate getDateB(int i) {
+        return dateOf(mYearB, mSlots[i]);
+    }
+
+    private static LocalDate dateOf(int theYear, int theSlot) {
+        int theIndex = Sanctorale.indexOf(theSlot, EpochDays.isLeap(theYear));
+        return theIndex < 0 ? null : LocalDate.ofYearDay(theYear, theIndex + 1);
+    }
+
+    public int getRecordA(int i) {
+        return mRecordsA[i];
+    }
+
+    public int getRecordB(int i) {
+        return mRecordsB[i];
+    }
+
+    /**
+     * @return El código de la celebración del cambio <code>i</code> en el primer calendario
+     */
+    public String getCodeA(int i) {
+        return DayRecord.codeName(mRecordsA[i]);
+    }
+
+    public String getCodeB(int i) {
+        return DayRecord.codeName(mRecordsB[i]);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size(); i++) {
+            sb.append(getMonthDay(i)).append(": ")
+                    .append(getCodeA(i)).append(" -> ").append(getCodeB(i)).append('\n');
+        }
+        return sb.toString();
+    }
+}
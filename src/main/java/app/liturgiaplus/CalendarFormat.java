@@ -0,0 +1,131 @@
+package app.liturgiaplus;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <p>Formatos de salida del calendario generado por lotes desde {@link Main}.</p>
+ * <p>Cada formato escribe directamente sobre un {@link Appendable}, sin construir
+ * representaciones intermedias del año completo.</p>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public enum CalendarFormat {
+    /**
+     * El mismo texto de {@link LiturgicalCalendar#printCalendar()},
+     * precedido por una línea <code># perfil año</code>
+     */
+    TEXT {
+        @Override
+        void writeHeader(Appendable out) {
+        }
+
+        @Override
+        void writeYear(Appendable out, String theProfile, int theYear, List<Celebration> theCelebrations) throws IOException {
+            out.append("# ").append(theProfile).append(' ').append(String.valueOf(theYear)).append('\n');
+            for (Celebration mCelebration : theCelebrations) {
+                out.append(mCelebration.toString()).append('\n');
+            }
+        }
+    },
+
+    /**
+     * Valores separados por comas, una fila por celebración
+     */
+    CSV {
+        @Override
+        void writeHeader(Appendable out) throws IOException {
+            out.append("profile,date,name,time,color,psalter\n");
+        }
+
+        @Override
+        void writeYear(Appendable out, String theProfile, int theYear, List<Celebration> theCelebrations) throws IOException {
+            for (Celebration mCelebration : theCelebrations) {
+                appendCsv(out, theProfile).append(',');
+                out.append(mCelebration.getDate().toString()).append(',');
+                appendCsv(out, mCelebration.getName()).append(',');
+                out.append(String.valueOf(mCelebration.getTime())).append(',');
+                out.append(String.valueOf(mCelebration.getColor())).append(',');
+                out.append(String.valueOf(mCelebration.getPsalterWeek())).append('\n');
+            }
+        }
+    },
+
+    /**
+     * JSON Lines: un objeto JSON por celebración y por línea
+     */
+    JSONL {
+        @Override
+        void writeHeader(Appendable out) {
+        }
+
+        @Override
+        void writeYear(Appendable out, String theProfile, int theYear, List<Celebration> theCelebrations) throws IOException {
+            for (Celebration mCelebration : theCelebrations) {
+                out.append("{\"profile\":");
+                appendJson(out, theProfile);
+                out.append(",\"date\":\"").append(mCelebration.getDate().toString());
+                out.append("\",\"name\":");
+                appendJson(out, mCelebration.getName());
+                out.append(",\"time\":").append(String.valueOf(mCelebration.getTime()));
+                out.append(",\"color\":").append(String.valueOf(mCelebration.getColor()));
+                out.append(",\"psalter\":").append(String.valueOf(mCelebration.getPsalterWeek()));
+                out.append("}\n");
+            }
+        }
+    };
+
+    /**
+     * Escribe la cabecera del fichero, si el formato la tiene
+     */
+    abstract void writeHeader(Appendable out) throws IOException;
+
+    /**
+     * Escribe las celebraciones de un año generado con un perfil dado
+     */
+    abstract void writeYear(Appendable out, String theProfile, int theYear, List<Celebration> theCelebrations) throws IOException;
+
+    private static Appendable appendCsv(Appendable out, String theValue) throws IOException {
+        if (theValue.indexOf(',') < 0 && theValue.indexOf('"') < 0 && theValue.indexOf('\n') < 0) {
+            return out.append(theValue);
+        }
+        out.append('"');
+        for (int i = 0; i < theValue.length(); i++) {
+            char c = theValue.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        return out.append('"');
+    }
+
+    private static void appendJson(Appendable out, String theValue) throws IOException {
+        out.append('"');
+        for (int i = 0; i < theValue.length(); i++) {
+            char c = theValue.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,221 @@
+package app.liturgiaplus;
+
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Publica los días de un rango de fechas, uno a uno y en orden, como {@link Flow.Publisher}.</p>
+ * <p>Los años se generan a medida que el suscriptor pide días ({@link Flow.Subscription#request(long)}):
+ * nunca hay más de un año generado por suscripción, de modo que recorrer siglos ocupa la memoria de un año,
+ * y el primer día llega en cuanto se genera su año, sin esperar al resto del rango.
+ * Un suscriptor lento no acumula días pendientes: si no pide, no se genera nada.</p>
+ * <p>Los días se entregan en el hilo que llama a <code>request</code>. Si el suscriptor vuelve a pedir
+ * desde {@link Flow.Subscriber#onNext(Object)}, la petición se suma a la demanda y la entrega sigue en el
+ * mismo bucle, sin recursión. Cada suscripción es independiente y recorre el rango desde el principio.</p>
+ *
+ * <pre>
+ * CalendarPublisher.of(LocalDate.of(1583, 1, 1), LocalDate.of(4099, 12, 31), spain)
+ *         .subscribe(theIndexer);
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class CalendarPublisher implements Flow.Publisher<LiturgicalDay> {
+    private final LocalDate mFrom;
+    private final LocalDate mTo;
+    private final ProperCalendar mProper;
+
+    private CalendarPublisher(LocalDate theFrom, LocalDate theTo, ProperCalendar theProper) {
+        mFrom = theFrom;
+        mTo = theTo;
+        mProper = theProper;
+    }
+
+    /**
+     * @param theFrom   Primer día, incluido
+     * @param theTo     Último día, incluido
+     * @param theProper Calendario propio cuyo santoral y configuración se usan
+     */
+    public static CalendarPublisher of(LocalDate theFrom, LocalDate theTo, ProperCalendar theProper) {
+        if (theFrom.isAfter(theTo)) {
+            throw new IllegalArgumentException("Rango de fechas vacío: " + theFrom + " - " + theTo);
+        }
+        return new CalendarPublisher(theFrom, theTo, Objects.requireNonNull(theProper));
+    }
+
+    /**
+     * @return Los días de un rango con el Calendario Romano General
+     */
+    public static CalendarPublisher of(LocalDate theFrom, LocalDate theTo) {
+        return of(theFrom, theTo, ProperCalendar.universal());
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super LiturgicalDay> theSubscriber) {
+        Objects.requireNonNull(theSubscriber);
+        DaySubscription theSubscription = new DaySubscription(this, theSubscriber);
+        theSubscriber.onSubscribe(theSubscription);
+        // Lo pedido durante onSubscribe se entrega ahora, después de que onSubscribe haya terminado
+        theSubscription.subscribed();
+    }
+
+    static final class DaySubscription implements Flow.Subscription {
+        private final ProperCalendar mProper;
+        private final Flow.Subscriber<? super LiturgicalDay> mSubscriber;
+        private final long mLast;
+
+        /**
+         * Días pedidos y aún no entregados; {@link Long#MAX_VALUE} equivale a demanda ilimitada
+         */
+        private final AtomicLong mRequested = new AtomicLong();
+
+        /**
+         * Número de llamadas pendientes al bucle de entrega: sólo entrega quien lo pasa de 0 a 1
+         */
+        private final AtomicInteger mWip = new AtomicInteger(1);
+
+        private volatile boolean mCancelled;
+        private volatile Throwable mError;
+
+        /*
+            Estado del recorrido, sólo accesible desde el bucle de entrega
+         */
+        private long mNext;
+        private LiturgicalYear mYear;
+        private boolean mDone;
+
+        DaySubscription(CalendarPublisher thePublisher, Flow.Subscriber<? super LiturgicalDay> theSubscriber) {
+            mProper = thePublisher.mProper;
+            mSubscriber = theSubscriber;
+            mNext = thePublisher.mFrom.toEpochDay();
+            mLast = thePublisher.mTo.toEpochDay();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                mError = new IllegalArgumentException("Se deben pedir días positivos: " + n);
+            } else {
+                long r;
+                do {
+                    r = mRequested.get();
+                    if (r == Long.MAX_VALUE) {
+                        break;
+                    }
+                } while (!mRequested.compareAndSet(r, r + n < 0 ? Long.MAX_VALUE : r + n));
+            }
+            drain();
+        }
+
+        /**
+         * Deja de entregar días; el año generado se libera en el bucle de entrega, si no está ocupado ya
+         */
+        @Override
+        public void cancel() {
+            mCancelled = true;
+            drain();
+        }
+
+        /**
+         * @return El único año generado que retiene la suscripción, o <code>null</code> si no retiene ninguno
+         */
+        LiturgicalYear getYear() {
+            return mYear;
+        }
+
+        /**
+         * Libera el bucle de entrega, que queda retenido hasta que termina onSubscribe
+         */
+        void subscribed() {
+            if (mWip.decrementAndGet() != 0) {
+                loop();
+            }
+        }
+
+        private void drain() {
+            if (mWip.getAndIncrement() == 0) {
+                loop();
+            }
+        }
+
+        private void loop() {
+            int missed = 1;
+            while (true) {
+                if (mDone || mCancelled) {
+                    mYear = null;
+                    return;
+                }
+                if (mError != null) {
+                    finish(mError);
+                    return;
+                }
+                long r = mRequested.get();
+                long e = 0;
+                while (e != r && mNext <= mLast) {
+                    if (mCancelled) {
+                        mYear = null;
+                        return;
+                    }
+                    if (mError != null) {
+                        finish(mError);
+                        return;
+                    }
+                    LiturgicalDay theDay;
+                    try {
+                        theDay = next();
+                    } catch (RuntimeException ex) {
+                        finish(ex);
+                        return;
+                    }
+                    mSubscriber.onNext(theDay);
+                    e++;
+                }
+                if (mNext > mLast) {
+                    finish(null);
+                    return;
+                }
+                if (e != 0 && r != Long.MAX_VALUE) {
+                    mRequested.addAndGet(-e);
+                }
+                missed = mWip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return El siguiente día, generando su año si es el primero que se pide de ese año
+         */
+        private LiturgicalDay next() {
+            LiturgicalYear theYear = mYear;
+            if (theYear == null || mNext >= theYear.getFirstEpochDay() + theYear.length()) {
+                int theYearNumber = LocalDate.ofEpochDay(mNext).getYear();
+                theYear = LiturgicalCalendar.newCalendar(theYearNumber, mProper.getSettings())
+                        .getLiturgicalYear(mProper);
+                mYear = theYear;
+            }
+            LiturgicalDay theDay = LiturgicalDay.of(theYear, (int) (mNext - theYear.getFirstEpochDay()));
+            mNext++;
+            return theDay;
+        }
+
+        private void finish(Throwable theError) {
+            mDone = true;
+            mYear = null;
+            if (mCancelled) {
+                return;
+            }
+            mCancelled = true;
+            if (theError == null) {
+                mSubscriber.onComplete();
+            } else {
+                mSubscriber.onError(theError);
+            }
+        }
+    }
+}
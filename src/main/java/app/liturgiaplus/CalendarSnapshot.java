@@ -0,0 +1,214 @@
+package app.liturgiaplus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>Un conjunto inmutable de datos del calendario: el santoral universal, los calendarios propios
+ * con su configuración y, si se pide, los días de un rango de años ya generados en un {@link CalendarStore}.</p>
+ * <p>Se construye completo con un {@link Builder} y no cambia después, así que puede leerse desde
+ * cualquier hilo sin sincronización. Para cambiar de datos se construye otro y se publica con
+ * {@link CalendarSnapshots#reload(Builder)}.</p>
+ *
+ * <pre>
+ * CalendarSnapshot.Builder theBuilder = CalendarSnapshot.builder()
+ *         .universal(Sanctorale.read(Files.newBufferedReader(theUniversalFile)))
+ *         .profile("es", null, Map.of(LiturgicalCalendar.IMMACULATE_PREVAILS, true), theSpain)
+ *         .years(1583, 4099, 8);
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class CalendarSnapshot {
+    private final long mVersion;
+    private final Instant mCreated;
+    private final Map<String, ProperCalendar> mProfiles;
+    private final List<ProperCalendar> mProfileList;
+    private final CalendarStore mStore;
+
+    private CalendarSnapshot(long theVersion, Map<String, ProperCalendar> theProfiles, CalendarStore theStore) {
+        mVersion = theVersion;
+        mCreated = Instant.now();
+        mProfiles = Collections.unmodifiableMap(theProfiles);
+        mProfileList = List.copyOf(theProfiles.values());
+        mStore = theStore;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return El número de versión, que crece con cada publicación de {@link CalendarSnapshots}
+     */
+    public long getVersion() {
+        return mVersion;
+    }
+
+    public Instant getCreated() {
+        return mCreated;
+    }
+
+    /**
+     * @return El calendario universal de estos datos, con el santoral leído o el del recurso del paquete
+     */
+    public ProperCalendar getUniversal() {
+        return mProfileList.get(0);
+    }
+
+    /**
+     * @return Todos los calendarios, empezando por el universal, en el orden en que se declararon
+     */
+    public List<ProperCalendar> getProfiles() {
+        return mProfileList;
+    }
+
+    /**
+     * @return Un calendario por su nombre, o <code>null</code> si no existe
+     */
+    public ProperCalendar getProfile(String theName) {
+        return mProfiles.get(theName);
+    }
+
+    /**
+     * @return Los días ya generados de todos los calendarios, en el orden de {@link #getProfiles()},
+     * o <code>null</code> si no se pidió un rango de años
+     */
+    public CalendarStore getStore() {
+        return mStore;
+    }
+
+    /**
+     * @return El año de un calendario de estos datos; se genera en cada llamada
+     */
+    public LiturgicalYear getLiturgicalYear(String theProfile, int theYear) {
+        ProperCalendar theProper = mProfiles.get(theProfile);
+        if (theProper == null) {
+            throw new IllegalArgumentException("Calendario desconocido: " + theProfile);
+        }
+        return LiturgicalCalendar.newCalendar(theYear, theProper.getSettings()).getLiturgicalYear(theProper);
+    }
+
+    @Override
+    public String toString() {
+        return "CalendarSnapshot " + mVersion + " " + mProfiles.keySet() + (mStore == null ? ""
+                : " " + mStore.getFromYear() + "-" + mStore.getToYear());
+    }
+
+    /**
+     * Describe unos datos; el trabajo (combinar santorales, generar los años) se hace al construirlos
+     */
+    public static final class Builder {
+        private Sanctorale mUniversal;
+        private Map<String, Boolean> mUniversalSettings = Map.of();
+        private final List<ProfileSpec> mProfiles = new ArrayList<>();
+        private int mFromYear;
+        private int mToYear = -1;
+        private int mThreads = 1;
+
+        private Builder() {
+        }
+
+        /**
+         * @param theSanctorale El santoral universal completo; sin él se usa {@link Sanctorale#universal()}
+         */
+        public Builder universal(Sanctorale theSanctorale) {
+            mUniversal = Objects.requireNonNull(theSanctorale);
+            return this;
+        }
+
+        /**
+         * @param theSettings La configuración del calendario universal
+         */
+        public Builder universalSettings(Map<String, Boolean> theSettings) {
+            mUniversalSettings = Map.copyOf(theSettings);
+            return this;
+        }
+
+        /**
+         * Añade un calendario propio
+         *
+         * @param theParent   El nombre de un calendario ya añadido, o <code>null</code> para el universal
+         * @param theSettings Las claves de configuración que cambian respecto al padre
+         * @param thePatch    El santoral propio, o <code>null</code> si sólo cambia la configuración
+         */
+        public Builder profile(String theName, String theParent, Map<String, Boolean> theSettings, Sanctorale thePatch) {
+            mProfiles.add(new ProfileSpec(Objects.requireNonNull(theName), theParent, Map.copyOf(theSettings),
+                    thePatch == null ? Sanctorale.empty() : thePatch));
+            return this;
+        }
+
+        /**
+         * Genera también todos los días de un rango de años para todos los calendarios
+         *
+         * @param theThreads Hilos de generación (ver {@link CalendarStore#build(int, int, List, int)})
+         */
+        public Builder years(int theFromYear, int theToYear, int theThreads) {
+            if (theFromYear > theToYear) {
+                throw new IllegalArgumentException("Rango de años vacío: " + theFromYear + "-" + theToYear);
+            }
+            mFromYear = theFromYear;
+            mToYear = theToYear;
+            mThreads = theThreads;
+            return this;
+        }
+
+        /**
+         * @return Una copia, para que los cambios posteriores en este constructor no afecten a una recarga en curso
+         */
+        Builder copy() {
+            Builder theCopy = new Builder();
+            theCopy.mUniversal = mUniversal;
+            theCopy.mUniversalSettings = mUniversalSettings;
+            theCopy.mProfiles.addAll(mProfiles);
+            theCopy.mFromYear = mFromYear;
+            theCopy.mToYear = mToYear;
+            theCopy.mThreads = mThreads;
+            return theCopy;
+        }
+
+        CalendarSnapshot build(long theVersion) {
+            ProperCalendar theUniversal = mUniversal == null && mUniversalSettings.isEmpty()
+                    ? ProperCalendar.universal()
+                    : ProperCalendar.root("universal", mUniversalSettings,
+                    mUniversal == null ? Sanctorale.universal() : mUniversal);
+            LinkedHashMap<String, ProperCalendar> theProfiles = new LinkedHashMap<>();
+            theProfiles.put(theUniversal.getName(), theUniversal);
+            for (ProfileSpec theSpec : mProfiles) {
+                ProperCalendar theParent = theSpec.mParent == null ? theUniversal : theProfiles.get(theSpec.mParent);
+                if (theParent == null) {
+                    throw new IllegalArgumentException("El padre de " + theSpec.mName + " debe añadirse antes: "
+                            + theSpec.mParent);
+                }
+                if (theProfiles.containsKey(theSpec.mName)) {
+                    throw new IllegalArgumentException("Calendario repetido: " + theSpec.mName);
+                }
+                theProfiles.put(theSpec.mName,
+                        ProperCalendar.of(theSpec.mName, theParent, theSpec.mSettings, theSpec.mPatch));
+            }
+            CalendarStore theStore = mToYear < mFromYear ? null
+                    : CalendarStore.build(mFromYear, mToYear, new ArrayList<>(theProfiles.values()), mThreads);
+            return new CalendarSnapshot(theVersion, theProfiles, theStore);
+        }
+    }
+
+    private static final class ProfileSpec {
+        private final String mName;
+        private final String mParent;
+        private final Map<String, Boolean> mSettings;
+        private final Sanctorale mPatch;
+
+        ProfileSpec(String theName, String theParent, Map<String, Boolean> theSettings, Sanctorale thePatch) {
+            mName = theName;
+            mParent = theParent;
+            mSettings = theSettings;
+            mPatch = thePatch;
+        }
+    }
+}
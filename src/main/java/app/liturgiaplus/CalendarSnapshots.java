@@ -0,0 +1,155 @@
+package app.liturgiaplus;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>Publica los datos del calendario como {@link CalendarSnapshot instantáneas} inmutables,
+ * para cambiar el santoral o la configuración de las regiones sin reiniciar el proceso.</p>
+ * <p>Los lectores obtienen los datos vigentes con {@link #current()}, que es una sola lectura volátil:
+ * nunca se bloquean ni ven unos datos a medio construir. {@link #reload(CalendarSnapshot.Builder)}
+ * construye los nuevos datos en un hilo de fondo y los publica de una vez; hasta entonces, y si la
+ * construcción falla, los lectores siguen viendo los anteriores. Las recargas se construyen de una en una,
+ * en el orden en que se piden, así que la última pedida es la que queda publicada.
+ * {@link #close()} cancela las recargas que aún no se han publicado.</p>
+ * <p>Un lector que hace varias consultas relacionadas debe tomar la instantánea una vez y usarla para todas,
+ * para no mezclar datos de dos versiones.</p>
+ *
+ * <pre>
+ * CalendarSnapshots theCalendars = CalendarSnapshots.create(theBuilder);
+ * ...
+ * CalendarSnapshot theSnapshot = theCalendars.current();
+ * int theRecord = theSnapshot.getStore().getRecord(theProfile, theEpochDay);
+ * ...
+ * theCalendars.reload(theNewBuilder).thenAccept(s -&gt; log("Calendario " + s.getVersion()));
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class CalendarSnapshots implements AutoCloseable {
+    private final AtomicReference<CalendarSnapshot> mCurrent;
+    private final AtomicLong mVersions;
+    private final ExecutorService mLoader;
+
+    /*
+        Recargas pedidas y aún sin terminar, que close() cancela; el monitor ordena close() y las publicaciones
+     */
+    private final Set<CompletableFuture<CalendarSnapshot>> mPending = ConcurrentHashMap.newKeySet();
+    private boolean mClosed;
+
+    private CalendarSnapshots(CalendarSnapshot theFirst) {
+        mCurrent = new AtomicReference<>(theFirst);
+        mVersions = new AtomicLong(theFirst.getVersion());
+        mLoader = Executors.newSingleThreadExecutor(new LoaderThreadFactory());
+    }
+
+    /**
+     * Construye los primeros datos en el hilo que llama
+     */
+    public static CalendarSnapshots create(CalendarSnapshot.Builder theBuilder) {
+        return new CalendarSnapshots(theBuilder.copy().build(1));
+    }
+
+    /**
+     * @return Los datos publicados más recientes
+     */
+    public CalendarSnapshot current() {
+        return mCurrent.get();
+    }
+
+    /**
+     * Construye unos datos nuevos en segundo plano y los publica cuando están completos
+     *
+     * @return Los datos publicados, o el error de construcción (los datos vigentes no cambian);
+     * se cancela si se llama a {@link #close()} antes de publicar, y falla con {@link IllegalStateException}
+     * si ya se había llamado
+     */
+    public CompletableFuture<CalendarSnapshot> reload(CalendarSnapshot.Builder theBuilder) {
+        CompletableFuture<CalendarSnapshot> theResult = new CompletableFuture<>();
+        mPending.add(theResult);
+        try {
+            mLoader.execute(new ReloadTask(this, theBuilder.copy(), theResult));
+        } catch (RejectedExecutionException e) {
+            mPending.remove(theResult);
+            theResult.completeExceptionally(new IllegalStateException("Las recargas están cerradas", e));
+        }
+        return theResult;
+    }
+
+    /**
+     * Sólo se llama desde el hilo de recarga, así que las versiones publicadas son consecutivas
+     *
+     * @return <code>false</code> si la recarga se ha cancelado y no se publica
+     */
+    private synchronized boolean publish(CalendarSnapshot theSnapshot, CompletableFuture<CalendarSnapshot> theResult) {
+        if (mClosed || theResult.isDone()) {
+            return false;
+        }
+        mVersions.set(theSnapshot.getVersion());
+        mCurrent.set(theSnapshot);
+        return true;
+    }
+
+    /**
+     * Detiene el hilo de recarga y cancela las recargas sin publicar, que terminan con
+     * {@link java.util.concurrent.CancellationException}; los datos vigentes siguen disponibles
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            mClosed = true;
+        }
+        mLoader.shutdownNow();
+        for (CompletableFuture<CalendarSnapshot> theResult : mPending) {
+            theResult.cancel(false);
+        }
+        mPending.clear();
+    }
+
+    private static final class ReloadTask implements Runnable {
+        private final CalendarSnapshots mSnapshots;
+        private final CalendarSnapshot.Builder mBuilder;
+        private final CompletableFuture<CalendarSnapshot> mResult;
+
+        ReloadTask(CalendarSnapshots theSnapshots, CalendarSnapshot.Builder theBuilder,
+                   CompletableFuture<CalendarSnapshot> theResult) {
+            mSnapshots = theSnapshots;
+            mBuilder = theBuilder;
+            mResult = theResult;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (mResult.isDone()) {
+                    return;
+                }
+                CalendarSnapshot theSnapshot = mBuilder.build(mSnapshots.mVersions.get() + 1);
+                if (mSnapshots.publish(theSnapshot, mResult)) {
+                    mResult.complete(theSnapshot);
+                }
+            } catch (Throwable e) {
+                mResult.completeExceptionally(e);
+            } finally {
+                mSnapshots.mPending.remove(mResult);
+            }
+        }
+    }
+
+    private static final class LoaderThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(Runnable theTask) {
+            Thread theThread = new Thread(theTask, "calendar-reload");
+            theThread.setDaemon(true);
+            return theThread;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package app.liturgiaplus;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Calendario de muchos años y muchos perfiles (calendarios propios) guardado fuera del heap.</p>
+ * <p>Cada día es un {@link DayRecord registro compacto} de 4 bytes, y los días de un perfil son
+ * contiguos: el registro de una fecha está en la posición <code>epochDay - primer día</code>
+ * del bloque de su perfil. Cada perfil ocupa un bloque de memoria directa
+ * ({@link ByteBuffer#allocateDirect(int)}): los años 1583-4099 son unos 3,7 MB por perfil.</p>
+ * <p>Las consultas leen los registros sin crear objetos {@link Celebration} ni {@link LocalDate}
+ * (ver los métodos que reciben un <code>epochDay</code>), de modo que el tamaño del conjunto de datos
+ * no afecta a la recolección de basura: para el heap cada perfil es un solo objeto.</p>
+ * <p>Los identificadores de código de los registros son los de {@link CelebrationCodes} en este proceso.</p>
+ * <p>El {@link CodeIndex índice invertido} de los días de cada celebración de un perfil, que sí está en el heap
+ * (un <code>int</code> por día), se construye la primera vez que se pide (ver {@link #getCodeIndex(int)}),
+ * de modo que los perfiles que sólo se consultan por fecha no lo ocupan.</p>
+ *
+ * <pre>
+ * CalendarStore theStore = CalendarStore.build(1583, 4099, thePropers, 8);
+ * int theRecord = theStore.getRecord(theStore.indexOfProfile("es"), LocalDate.now().toEpochDay());
+ * String theCode = DayRecord.codeName(theRecord);
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class CalendarStore {
+    /**
+     * Bytes de un registro
+     */
+    public static final int RECORD_SIZE = Integer.BYTES;
+
+    private final int mFromYear;
+    private final int mToYear;
+    private final long mFirstEpochDay;
+    private final int mDays;
+    private final List<ProperCalendar> mProfiles;
+    private final IntBuffer[] mRecords;
+    /**
+     * Índice de códigos de cada perfil, o <code>null</code> si todavía no se ha pedido
+     */
+    private final AtomicReferenceArray<CodeIndex> mIndexes;
+
+    private CalendarStore(int theFromYear, int theToYear, List<ProperCalendar> theProfiles) {
+        mFromYear = theFromYear;
+        mToYear = theToYear;
+        mFirstEpochDay = LocalDate.of(theFromYear, 1, 1).toEpochDay();
+        mDays = (int) (LocalDate.of(theToYear, 12, 31).toEpochDay() - mFirstEpochDay + 1);
+        mProfiles = List.copyOf(theProfiles);
+        mRecords = new IntBuffer[theProfiles.size()];
+        mIndexes = new AtomicReferenceArray<>(theProfiles.size());
+        for (int p = 0; p < mRecords.length; p++) {
+            mRecords[p] = ByteBuffer.allocateDirect(mDays * RECORD_SIZE)
+                    .order(ByteOrder.nativeOrder())
+                    .asIntBuffer();
+        }
+    }
+
+    /**
+     * Genera todos los años de un rango para varios perfiles y los guarda fuera del heap.
+     * Cada año se genera una sola vez para todos los perfiles
+     * (ver {@link LiturgicalCalendar#newLiturgicalYears(int, List)}).
+     *
+     * @param theThreads Hilos de generación; con <code>1</code> se genera en el hilo que llama
+     */
+    public static CalendarStore build(int theFromYear, int theToYear, List<ProperCalendar> theProfiles,
+                                      int theThreads) {
+        if (theFromYear > theToYear) {
+            throw new IllegalArgumentException("Rango de años vacío: " + theFromYear + "-" + theToYear);
+        }
+        if (theProfiles.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos un perfil");
+        }
+        CalendarStore theStore = new CalendarStore(theFromYear, theToYear, theProfiles);
+        if (theThreads <= 1) {
+            for (int theYear = theFromYear; theYear <= theToYear; theYear++) {
+                theStore.fill(theYear);
+            }
+            return theStore;
+        }
+        ExecutorService thePool = Executors.newFixedThreadPool(theThreads);
+        try {
+            List<Future<Void>> theJobs = new ArrayList<>();
+            for (int theYear = theFromYear; theYear <= theToYear; theYear++) {
+                theJobs.add(thePool.submit(new YearJob(theStore, theYear)));
+            }
+            for (Future<Void> theJob : theJobs) {
+                theJob.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error generando el calendario", e.getCause());
+        } finally {
+            thePool.shutdownNow();
+        }
+        return theStore;
+    }
+
+    /**
+     * Genera un año y escribe sus registros. Los años ocupan posiciones distintas de cada bloque
+     * y se escriben con accesos absolutos, así que varios años pueden escribirse a la vez.
+     */
+    private void fill(int theYear) {
+        List<LiturgicalYear> theYears = LiturgicalCalendar.newLiturgicalYears(theYear, mProfiles);
+        for (int p = 0; p < theYears.size(); p++) {
+            LiturgicalYear theLiturgicalYear = theYears.get(p);
+            IntBuffer theRecords = mRecords[p];
+            int theBase = (int) (theLiturgicalYear.getFirstEpochDay() - mFirstEpochDay);
+            for (int i = 0; i < theLiturgicalYear.length(); i++) {
+                theRecords.put(theBase + i, theLiturgicalYear.getRecord(i));
+            }
+        }
+    }
+
+    /**
+     * Construye el índice de códigos de un perfil leyendo sus registros año a año, en orden
+     */
+    private CodeIndex index(int theProfile) {
+        CodeIndex.Builder theIndex = new CodeIndex.Builder();
+        int[] theRecords = new int[366];
+        for (int theYear = mFromYear; theYear <= mToYear; theYear++) {
+            long theFirst = LocalDate.of(theYear, 1, 1).toEpochDay();
+            int theLength = LocalDate.of(theYear, 1, 1).lengthOfYear();
+            copyRecords(theProfile, theFirst, theRecords, 0, theLength);
+            theIndex.add(theFirst, theRecords, 0, theLength);
+        }
+        return theIndex.build();
+    }
+
+    private static final class YearJob implements Callable<Void> {
+        private final CalendarStore mStore;
+        private final int mYear;
+
+        YearJob(CalendarStore theStore, int theYear) {
+            mStore = theStore;
+            mYear = theYear;
+        }
+
+        @Override
+        public Void call() {
+            mStore.fill(mYear);
+            return null;
+        }
+    }
+
+    public int getFromYear() {
+        return mFromYear;
+    }
+
+    public int getToYear() {
+        return mToYear;
+    }
+
+    /**
+     * @return El primer día guardado (1 de Enero del primer año), contado desde 1970-01-01
+     */
+    public long getFirstEpochDay() {
+        return mFirstEpochDay;
+    }
+
+    /**
+     * @return El número de días guardados por perfil
+     */
+    public int getDays() {
+        return mDays;
+    }
+
+    public int getProfileCount() {
+        return mRecords.length;
+    }
+
+    public ProperCalendar getProfile(int theProfile) {
+        return mProfiles.get(theProfile);
+    }
+
+    /**
+     * El índice se construye la primera vez que se pide para el perfil y se guarda en el heap.
+     * Si dos hilos lo piden a la vez, se publica uno de los dos, que son iguales.
+     *
+     * @return El índice de códigos de un perfil: los días de cada celebración en todo el rango de años
+     */
+    public CodeIndex getCodeIndex(int theProfile) {
+        CodeIndex theIndex = mIndexes.get(theProfile);
+        if (theIndex == null) {
+            mIndexes.compareAndSet(theProfile, null, index(theProfile));
+            theIndex = mIndexes.get(theProfile);
+        }
+        return theIndex;
+    }
+
+    /**
+     * @return La posición de un perfil por su nombre, o <code>-1</code> si no existe
+     */
+    public int indexOfProfile(String theName) {
+        for (int p = 0; p < mProfiles.size(); p++) {
+            if (mProfiles.get(p).getName().equals(theName)) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return La memoria fuera del heap ocupada por los registros, en bytes
+     */
+    public long getOffHeapBytes() {
+        return (long) mDays * RECORD_SIZE * mRecords.length;
+    }
+
+    /**
+     * @return Si el día está dentro del rango de años guardado
+     */
+    public boolean contains(long theEpochDay) {
+        return theEpochDay >= mFirstEpochDay && theEpochDay < mFirstEpochDay + mDays;
+    }
+
+    /**
+     * @return El registro de un día, o {@link DayRecord#EMPTY} si no tiene celebración
+     * @throws IndexOutOfBoundsException Si el día está fuera del rango de años guardado
+     */
+    public int getRecord(int theProfile, long theEpochDay) {
+        return mRecords[theProfile].get(indexOf(theEpochDay));
+    }
+
+    public int getRecord(int theProfile, LocalDate theDate) {
+        return getRecord(theProfile, theDate.toEpochDay());
+    }
+
+    /**
+     * @return El código de la celebración de un día, o <code>null</code> si no tiene
+     */
+    public String getCode(int theProfile, long theEpochDay) {
+        return DayRecord.codeName(getRecord(theProfile, theEpochDay));
+    }
+
+    public int getColor(int theProfile, long theEpochDay) {
+        return DayRecord.color(getRecord(theProfile, theEpochDay));
+    }
+
+    public int getRank(int theProfile, long theEpochDay) {
+        return DayRecord.rank(getRecord(theProfile, theEpochDay));
+    }
+
+    public int getPsalterWeek(int theProfile, long theEpochDay) {
+        return DayRecord.psalterWeek(getRecord(theProfile, theEpochDay));
+    }
+
+    /**
+     * Copia los registros de <code>theLength</code> días consecutivos en <code>theTarget</code>
+     */
+    public void copyRecords(int theProfile, long theFromEpochDay, int[] theTarget, int theOffset, int theLength) {
+        int theFrom = indexOf(theFromEpochDay);
+        if (theLength < 0 || theFrom + theLength > mDays) {
+            throw new IndexOutOfBoundsException("Rango fuera del calendario: " + theLength + " días desde " + theFromEpochDay);
+        }
+        IntBuffer theRecords = mRecords[theProfile].duplicate();
+        theRecords.position(theFrom);
+        theRecords.get(theTarget, theOffset, theLength);
+    }
+
+    private int indexOf(long theEpochDay) {
+        long i = theEpochDay - mFirstEpochDay;
+        if (i < 0 || i >= mDays) {
+            throw new IndexOutOfBoundsException(LocalDate.ofEpochDay(theEpochDay) + " fuera del calendario "
+                    + mFromYear + "-" + mToYear);
+        }
+        return (int) i;
+    }
+}
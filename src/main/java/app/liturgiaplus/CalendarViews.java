@@ -0,0 +1,188 @@
+package app.liturgiaplus;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>Vistas de mes y de semana listas para pintar, conservadas en caché.</p>
+ * <p>Cada {@link MonthView} o {@link WeekView} se construye una vez, directamente de los registros de los días
+ * (sin ordenar celebraciones ni repartirlas en semanas), y las siguientes peticiones de la misma vista
+ * devuelven el mismo objeto inmutable. Las vistas se leen de un {@link CalendarStore} o, si no lo hay,
+ * de los años generados para un {@link ProperCalendar}, de los que se conservan los últimos usados:
+ * pasar de un mes al siguiente no vuelve a generar el año, y Enero y Diciembre generan además
+ * el año vecino para completar su rejilla.</p>
+ * <p>Las cachés son de tamaño fijo y descartan las vistas usadas hace más tiempo.
+ * Se puede usar desde varios hilos: los años y las vistas se construyen fuera del monitor, así que generar
+ * un año no bloquea las lecturas de las vistas ya construidas. Si dos hilos piden a la vez la misma vista
+ * que falta, ambos la construyen y todos reciben la primera que se publica.</p>
+ *
+ * <pre>
+ * CalendarViews theViews = CalendarViews.of(spain);
+ * MonthView theMonth = theViews.getMonth(2023, 4);
+ * for (int i = 0; i &lt; MonthView.CELLS; i++) {
+ *     paint(theMonth.getDayOfMonth(i), theMonth.getColor(i), theMonth.isInMonth(i));
+ * }
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class CalendarViews {
+    private static final int CACHED_YEARS = 3;
+    private static final int CACHED_MONTHS = 24;
+    private static final int CACHED_WEEKS = 16;
+
+    private final ProperCalendar mProper;
+    private final CalendarStore mStore;
+    private final int mProfile;
+    private final DayOfWeek mFirstDayOfWeek;
+
+    /*
+        Cachés, protegidas por el monitor de esta instancia, que sólo se retiene para consultarlas y publicar en ellas
+     */
+    private final Map<Integer, int[]> mYears = new LruMap<>(CACHED_YEARS);
+    private final Map<Integer, MonthView> mMonths = new LruMap<>(CACHED_MONTHS);
+    private final Map<Long, WeekView> mWeeks = new LruMap<>(CACHED_WEEKS);
+
+    private CalendarViews(ProperCalendar theProper, CalendarStore theStore, int theProfile,
+                          DayOfWeek theFirstDayOfWeek) {
+        mProper = theProper;
+        mStore = theStore;
+        mProfile = theProfile;
+        mFirstDayOfWeek = Objects.requireNonNull(theFirstDayOfWeek);
+    }
+
+    /**
+     * @return Las vistas de un calendario propio, con semanas que empiezan el Lunes
+     */
+    public static CalendarViews of(ProperCalendar theProper) {
+        return of(theProper, DayOfWeek.MONDAY);
+    }
+
+    /**
+     * @param theFirstDayOfWeek El día de la semana de la primera columna
+     */
+    public static CalendarViews of(ProperCalendar theProper, DayOfWeek theFirstDayOfWeek) {
+        return new CalendarViews(Objects.requireNonNull(theProper), null, -1, theFirstDayOfWeek);
+    }
+
+    /**
+     * @return Las vistas de un perfil de un calendario ya cargado; las vistas deben caber en su rango de años
+     */
+    public static CalendarViews of(CalendarStore theStore, int theProfile, DayOfWeek theFirstDayOfWeek) {
+        return new CalendarViews(theStore.getProfile(theProfile), theStore, theProfile, theFirstDayOfWeek);
+    }
+
+    public ProperCalendar getProper() {
+        return mProper;
+    }
+
+    public DayOfWeek getFirstDayOfWeek() {
+        return mFirstDayOfWeek;
+    }
+
+    /**
+     * @param theMonth El mes, de 1 (Enero) a 12
+     */
+    public MonthView getMonth(int theYear, int theMonth) {
+        Integer theKey = theYear * 12 + theMonth - 1;
+        MonthView theView;
+        synchronized (this) {
+            theView = mMonths.get(theKey);
+        }
+        if (theView == null) {
+            long theFirst = MonthView.firstEpochDay(theYear, theMonth, mFirstDayOfWeek);
+            theView = publish(mMonths, theKey,
+                    new MonthView(theYear, theMonth, mFirstDayOfWeek, theFirst, records(theFirst, MonthView.CELLS)));
+        }
+        return theView;
+    }
+
+    /**
+     * @return El mes de una fecha
+     */
+    public MonthView getMonth(LocalDate theDate) {
+        return getMonth(theDate.getYear(), theDate.getMonthValue());
+    }
+
+    /**
+     * @return La semana que contiene una fecha
+     */
+    public WeekView getWeek(LocalDate theDate) {
+        Long theKey = WeekView.firstEpochDay(theDate, mFirstDayOfWeek);
+        WeekView theView;
+        synchronized (this) {
+            theView = mWeeks.get(theKey);
+        }
+        if (theView == null) {
+            theView = publish(mWeeks, theKey, new WeekView(theKey, records(theKey, WeekView.CELLS)));
+        }
+        return theView;
+    }
+
+    /**
+     * @return El valor ya publicado para la clave por otro hilo o, si no lo hay, <code>theValue</code>, que se publica
+     */
+    private synchronized <K, V> V publish(Map<K, V> theCache, K theKey, V theValue) {
+        V thePublished = theCache.putIfAbsent(theKey, theValue);
+        return thePublished != null ? thePublished : theValue;
+    }
+
+    /**
+     * @return Los registros de <code>theLength</code> días consecutivos, que pueden ser de dos años
+     */
+    private int[] records(long theFrom, int theLength) {
+        int[] theRecords = new int[theLength];
+        if (mStore != null) {
+            mStore.copyRecords(mProfile, theFrom, theRecords, 0, theLength);
+            return theRecords;
+        }
+        int i = 0;
+        while (i < theLength) {
+            LocalDate theDate = LocalDate.ofEpochDay(theFrom + i);
+            int[] theYear = year(theDate.getYear());
+            int theIndex = theDate.getDayOfYear() - 1;
+            int n = Math.min(theLength - i, theYear.length - theIndex);
+            System.arraycopy(theYear, theIndex, theRecords, i, n);
+            i += n;
+        }
+        return theRecords;
+    }
+
+    private int[] year(int theYear) {
+        int[] theRecords;
+        synchronized (this) {
+            theRecords = mYears.get(theYear);
+        }
+        if (theRecords == null) {
+            LiturgicalYear theLiturgicalYear = LiturgicalCalendar.newCalendar(theYear, mProper.getSettings())
+                    .getLiturgicalYear(mProper);
+            theRecords = new int[theLiturgicalYear.length()];
+            theLiturgicalYear.copyRecords(0, theRecords, 0, theRecords.length);
+            theRecords = publish(mYears, theYear, theRecords);
+        }
+        return theRecords;
+    }
+
+    /**
+     * Mapa en orden de uso que descarta la entrada usada hace más tiempo al superar su capacidad
+     */
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int mCapacity;
+
+        LruMap(int theCapacity) {
+            super(16, 0.75f, true);
+            mCapacity = theCapacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> theEldest) {
+            return size() > mCapacity;
+        }
+    }
+}
@@ -13,29 +13,77 @@ import java.time.LocalDate;
  * @author cedano
  */
 public class Celebration {
-    private int id;
+    /*
+        Colores litúrgicos
+     */
+    public static final int COLOR_WHITE = 1;
+    public static final int COLOR_RED = 2;
+    public static final int COLOR_GREEN = 3;
+    public static final int COLOR_VIOLET = 4;
+    public static final int COLOR_ROSE = 5;
+    public static final int COLOR_BLACK = 6;
+
+    /*
+        Rango de la celebración según la Tabla de los días litúrgicos
+        (Normas universales sobre el año litúrgico y el calendario, n. 59).
+        Un número menor tiene precedencia sobre uno mayor; 0 indica que no se conoce.
+     */
+    /** 1. Triduo Pascual */
+    public static final int RANK_TRIDUUM = 1;
+    /** 2. Navidad, Epifanía, Ascensión, Pentecostés, Domingos de Adviento, Cuaresma y Pascua, Miércoles de Ceniza, Semana Santa, Octava de Pascua */
+    public static final int RANK_PRIVILEGED = 2;
+    /** 3. Solemnidades del Señor, de la Virgen y de los Santos del Calendario General; Fieles Difuntos */
+    public static final int RANK_SOLEMNITY = 3;
+    /** 4. Solemnidades propias */
+    public static final int RANK_PROPER_SOLEMNITY = 4;
+    /** 5. Fiestas del Señor del Calendario General */
+    public static final int RANK_FEAST_OF_THE_LORD = 5;
+    /** 6. Domingos del Tiempo de Navidad y del Tiempo Ordinario */
+    public static final int RANK_SUNDAY = 6;
+    /** 7. Fiestas de la Virgen y de los Santos del Calendario General */
+    public static final int RANK_FEAST = 7;
+    /** 8. Fiestas propias */
+    public static final int RANK_PROPER_FEAST = 8;
+    /** 9. Ferias de Adviento del 17 al 24 de Diciembre, días de la Octava de Navidad, ferias de Cuaresma */
+    public static final int RANK_PRIVILEGED_WEEKDAY = 9;
+    /** 10. Memorias obligatorias del Calendario General */
+    public static final int RANK_MEMORIAL = 10;
+    /** 11. Memorias obligatorias propias */
+    public static final int RANK_PROPER_MEMORIAL = 11;
+    /** 12. Memorias libres */
+    public static final int RANK_OPTIONAL_MEMORIAL = 12;
+    /** 13. Ferias */
+    public static final int RANK_WEEKDAY = 13;
+
+    /*
+        Inmutable: los calendarios de varios perfiles, los años derivados y los LiturgicalDay comparten instancias
+     */
+    private final int id;
     private final int mTime;
     private final int mColor;
-    private int psalterWeek;
-    private int timeWeek;
-    private String mName;
+    private final int mRank;
+    private final int psalterWeek;
+    private final int timeWeek;
+    private final String mName;
     private final LocalDate mDate;
 
     public Celebration(int id, LocalDate theDate,String mName, int mTime, int mColor) {
-        this.id = id;
-        this.mDate=theDate;
-        this.mName = mName;
-        this.mTime = mTime;
-        this.mColor=mColor;
+        this(id, theDate, mName, mTime, mColor, 0);
     }
 
     public Celebration(int id, LocalDate theDate,String mName, int mTime, int mColor, int timeWeek) {
+        this(id, theDate, mName, mTime, mColor, timeWeek, 0);
+    }
+
+    public Celebration(int id, LocalDate theDate,String mName, int mTime, int mColor, int timeWeek, int mRank) {
         this.id = id;
         this.mDate=theDate;
         this.mName = mName;
         this.mTime = mTime;
         this.mColor=mColor;
         this.timeWeek=timeWeek;
+        this.psalterWeek=psalterWeekOf(timeWeek);
+        this.mRank = mRank;
     }
 
 
@@ -47,34 +95,52 @@ public class Celebration {
         return mName;
     }
 
-    public void setName(String mName) {
-        this.mName = mName;
+    /**
+     * @return El nombre sin los espacios ni tabuladores de depuración, usado como código de la celebración
+     */
+    public String getCode() {
+        return mName.trim();
     }
+
+    public int getTime() {
+        return mTime;
+    }
+
     public int getColor() {
         return mColor;
     }
 
-    public int getId() {
-        return id;
+    /**
+     * @return El rango según la Tabla de los días litúrgicos (ver {@link #RANK_TRIDUUM} y siguientes), 0 si no se conoce
+     */
+    public int getRank() {
+        return mRank;
     }
 
-    public void setId(int id) {
-        this.id = id;
+    int getTimeWeek() {
+        return timeWeek;
     }
 
-    public void setTimeWeek(int timeWeek){
-        psalterWeek= timeWeek % 4 == 0 ? 4 : timeWeek % 4;
+    public int getId() {
+        return id;
     }
 
+    /**
+     * @return La semana del salterio (1-4) que corresponde a la semana del tiempo,
+     * o 0 si la celebración no tiene semana (Triduo, Navidad, solemnidades...).
+     * La semana del salterio de cada día del año, tenga o no semana la celebración,
+     * está en {@link LiturgicalYear#getHours(int)}
+     */
     public int getPsalterWeek(){
-        //System.out.println("...."+timeWeek % 4);
-        this.psalterWeek=timeWeek % 4 == 0 ? 4 : timeWeek % 4;
         return psalterWeek;
     }
 
+    private static int psalterWeekOf(int timeWeek) {
+        return timeWeek == 0 ? 0 : (timeWeek - 1) % 4 + 1;
+    }
+
     @Override
     public String toString(){
-        return
-                String.format("%s - %s - %s PSalter: %d",mDate,this.mName,this.mColor,getPsalterWeek());
+        return mDate + " - " + this.mName + " - " + this.mColor + " PSalter: " + getPsalterWeek();
     }
 }
@@ -0,0 +1,83 @@
+package app.liturgiaplus;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Tabla de códigos de celebración (p.e. <code>"PST03-19"</code>, <code>"ORD-36-CORPUS"</code>).</p>
+ * <p>Cada código distinto recibe un identificador entero pequeño y estable durante la vida del proceso,
+ * que es el que se guarda en los registros de {@link DayRecord}. El identificador <code>0</code>
+ * está reservado para "sin celebración".</p>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class CelebrationCodes {
+    /**
+     * Identificador de un día sin celebración
+     */
+    public static final int NONE = 0;
+
+    private static final ConcurrentHashMap<String, Integer> sIds = new ConcurrentHashMap<>();
+
+    /**
+     * Códigos por identificador. Se reemplaza (nunca se modifica en sitio) al crecer,
+     * de modo que la lectura no necesita bloqueo.
+     */
+    private static volatile String[] sCodes = new String[512];
+
+    private static int sCount = 1;
+
+    private CelebrationCodes() {
+    }
+
+    /**
+     * @return El identificador de un código, que se registra si no existía
+     */
+    public static int idOf(String theCode) {
+        Integer theId = sIds.get(theCode);
+        if (theId != null) {
+            return theId;
+        }
+        synchronized (CelebrationCodes.class) {
+            theId = sIds.get(theCode);
+            if (theId != null) {
+                return theId;
+            }
+            if (sCount > DayRecord.MAX_CODE) {
+                throw new IllegalStateException("Demasiados códigos de celebración: " + sCount);
+            }
+            String[] theCodes = sCodes;
+            if (sCount == theCodes.length) {
+                theCodes = Arrays.copyOf(theCodes, theCodes.length * 2);
+            }
+            int theNewId = sCount++;
+            theCodes[theNewId] = theCode;
+            sCodes = theCodes;
+            sIds.put(theCode, theNewId);
+            return theNewId;
+        }
+    }
+
+    /**
+     * @return El identificador de un código ya registrado, o {@link #NONE} si no existe
+     */
+    public static int find(String theCode) {
+        Integer theId = sIds.get(theCode);
+        return theId == null ? NONE : theId;
+    }
+
+    /**
+     * @return El código de un identificador, o <code>null</code> para {@link #NONE}
+     */
+    public static String codeOf(int theId) {
+        String[] theCodes = sCodes;
+        if (theId <= NONE || theId >= theCodes.length || theCodes[theId] == null) {
+            if (theId == NONE) {
+                return null;
+            }
+            throw new IllegalArgumentException("Código de celebración desconocido: " + theId);
+        }
+        return theCodes[theId];
+    }
+}
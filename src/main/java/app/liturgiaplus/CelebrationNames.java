@@ -0,0 +1,348 @@
+package app.liturgiaplus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Nombres de las celebraciones en un idioma, por código de celebración.</p>
+ * <p>Cada idioma es un recurso de texto del paquete (<code>names-es.txt</code>, <code>names-en.txt</code>,
+ * <code>names-es-MX.txt</code>...) con un nombre por línea. La clave es el código de la celebración
+ * hasta el primer espacio, o un patrón con <code>{w}</code> (un número) y <code>{d}</code>
+ * (un día de la semana, 1 = Domingo ... 7 = Sábado), que se prueban en el orden del archivo después
+ * de las claves exactas:</p>
+ * <pre>
+ * &#64;days     Domingo Lunes Martes Miércoles Jueves Viernes Sábado
+ * PST01-24        San Francisco de Sales
+ * ADV0{w}01       Domingo {r} de Adviento
+ * ADV0{w}0{d}     {d} de la semana {r} de Adviento
+ * </pre>
+ * <p>En el nombre, <code>{w}</code> es el número, <code>{r}</code> el número en romanos,
+ * <code>{o}</code> el ordinal de la lista <code>&#64;ordinals</code> y <code>{d}</code> el día de la lista
+ * <code>&#64;days</code>.</p>
+ * <p>Los idiomas se cargan la primera vez que se piden y se conservan. Cada código se resuelve una vez
+ * y su nombre se guarda en una tabla por identificador ({@link CelebrationCodes}), de modo que nombrar
+ * los días de un año ya generado es una consulta por día. Un código sin nombre en un país usa el de
+ * su idioma, y uno sin nombre en un idioma usa el español ({@link #BASE}); si tampoco existe,
+ * el nombre es el propio código.</p>
+ *
+ * <pre>
+ * String[] theNames = CelebrationNames.of(Locale.ENGLISH).getNames(theYear);
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class CelebrationNames {
+    /**
+     * El idioma de los nombres de referencia
+     */
+    public static final Locale BASE = new Locale("es");
+
+    /**
+     * Los idiomas que trae el paquete
+     */
+    public static final List<Locale> LOCALES = List.of(BASE, Locale.ENGLISH);
+
+    private static final String[] ROMAN = {"", "I", "II", "III", "IV", "V", "VI", "VII", "VIII", "IX"};
+    private static final String[] ROMAN_TENS = {"", "X", "XX", "XXX"};
+
+    private static final ConcurrentHashMap<String, CelebrationNames> sLoaded = new ConcurrentHashMap<>();
+
+    private final String mTag;
+    private final CelebrationNames mParent;
+    private final HashMap<String, String> mExact;
+    private final List<Template> mTemplates;
+    private final String[] mDays;
+    private final String[] mOrdinals;
+
+    /**
+     * Nombres resueltos por identificador de código; <code>null</code> si aún no se ha resuelto.
+     * Se reemplaza (nunca se modifica el tamaño en sitio) al crecer, como en {@link CelebrationCodes}
+     */
+    private volatile String[] mNames = new String[512];
+
+    private CelebrationNames(String theTag, CelebrationNames theParent, HashMap<String, String> theExact,
+                             List<Template> theTemplates, String[] theDays, String[] theOrdinals) {
+        mTag = theTag;
+        mParent = theParent;
+        mExact = theExact;
+        mTemplates = theTemplates;
+        mDays = theDays;
+        mOrdinals = theOrdinals;
+    }
+
+    /**
+     * @return Los nombres de un idioma (p.e. <code>Locale.ENGLISH</code>, <code>new Locale("es", "MX")</code>)
+     */
+    public static CelebrationNames of(Locale theLocale) {
+        String theTag = theLocale.getCountry().isEmpty()
+                ? theLocale.getLanguage()
+                : theLocale.getLanguage() + "-" + theLocale.getCountry();
+        return of(theTag);
+    }
+
+    private static CelebrationNames of(String theTag) {
+        CelebrationNames theNames = sLoaded.get(theTag);
+        if (theNames != null) {
+            return theNames;
+        }
+        int theDash = theTag.indexOf('-');
+        String theBase = BASE.getLanguage();
+        CelebrationNames theParent = theDash > 0 ? of(theTag.substring(0, theDash))
+                : theTag.equals(theBase) ? null : of(theBase);
+        // La carga puede repetirse si dos hilos piden a la vez el mismo idioma; se conserva la primera
+        return sLoaded.computeIfAbsent(theTag, t -> load(t, theParent));
+    }
+
+    private static CelebrationNames load(String theTag, CelebrationNames theParent) {
+        InputStream in = CelebrationNames.class.getResourceAsStream("names-" + theTag + ".txt");
+        if (in == null) {
+            if (theParent == null) {
+                throw new IllegalStateException("No se encuentran los nombres de referencia names-" + theTag + ".txt");
+            }
+            return theParent;
+        }
+        try (Reader theReader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return read(theTag, theParent, theReader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lee una tabla de nombres fuera de los recursos del paquete
+     *
+     * @param theParent Los nombres que se usan para los códigos que no están en esta tabla, o <code>null</code>
+     */
+    public static CelebrationNames read(String theTag, CelebrationNames theParent, Reader theReader) throws IOException {
+        BufferedReader in = new BufferedReader(theReader);
+        HashMap<String, String> theExact = new HashMap<>();
+        List<Template> theTemplates = new ArrayList<>();
+        String[] theDays = theParent == null ? null : theParent.mDays;
+        String[] theOrdinals = theParent == null ? null : theParent.mOrdinals;
+        int lineNumber = 0;
+        String theLine;
+        while ((theLine = in.readLine()) != null) {
+            lineNumber++;
+            theLine = theLine.trim();
+            if (theLine.isEmpty() || theLine.startsWith("#")) {
+                continue;
+            }
+            String[] theFields = theLine.split("\\s+", 2);
+            if (theFields.length != 2) {
+                throw new IllegalArgumentException("Línea " + lineNumber + ": se esperaba 'código nombre'");
+            }
+            if (theFields[0].equals("@days")) {
+                theDays = theFields[1].split("\\s+");
+                if (theDays.length != 7) {
+                    throw new IllegalArgumentException("Línea " + lineNumber + ": se esperaban 7 días");
+                }
+            } else if (theFields[0].equals("@ordinals")) {
+                theOrdinals = theFields[1].split("\\s+");
+            } else if (theFields[0].indexOf('{') >= 0) {
+                theTemplates.add(new Template(theFields[0], theFields[1]));
+            } else {
+                theExact.put(theFields[0], theFields[1]);
+            }
+        }
+        return new CelebrationNames(theTag, theParent, theExact, theTemplates, theDays, theOrdinals);
+    }
+
+    /**
+     * @return La etiqueta del idioma de la tabla, p.e. <code>"en"</code> o <code>"es-MX"</code>
+     */
+    public String getTag() {
+        return mTag;
+    }
+
+    /**
+     * @param theCode Identificador de un código ({@link DayRecord#code(int)})
+     * @return El nombre de la celebración, o <code>null</code> para {@link CelebrationCodes#NONE}
+     */
+    public String getName(int theCode) {
+        String[] theNames = mNames;
+        if (theCode < theNames.length) {
+            String theName = theNames[theCode];
+            if (theName != null) {
+                return theName;
+            }
+        }
+        if (theCode == CelebrationCodes.NONE) {
+            return null;
+        }
+        return store(theCode, resolve(CelebrationCodes.codeOf(theCode)));
+    }
+
+    /**
+     * @return El nombre de la celebración de un registro de {@link DayRecord}, o <code>null</code> si está vacío
+     */
+    public String getRecordName(int theRecord) {
+        return getName(DayRecord.code(theRecord));
+    }
+
+    /**
+     * @return El nombre de un código de celebración, p.e. <code>"PST01-24"</code>
+     */
+    public String getName(String theCode) {
+        return getName(CelebrationCodes.idOf(theCode));
+    }
+
+    /**
+     * @return Si esta tabla o las de sus padres tienen un nombre para un código, sin contar el propio código
+     */
+    public boolean hasName(int theCode) {
+        return theCode != CelebrationCodes.NONE && find(keyOf(CelebrationCodes.codeOf(theCode))) != null;
+    }
+
+    /**
+     * @return Los nombres de todos los días de un año, en el orden de {@link LiturgicalYear#dateOf(int)}
+     */
+    public String[] getNames(LiturgicalYear theYear) {
+        int[] theRecords = new int[theYear.length()];
+        theYear.copyRecords(0, theRecords, 0, theRecords.length);
+        String[] theNames = new String[theRecords.length];
+        copyNames(theRecords, 0, theNames, 0, theRecords.length);
+        return theNames;
+    }
+
+    /**
+     * Copia los nombres de <code>theLength</code> registros de {@link DayRecord} a partir de <code>theFrom</code>
+     */
+    public void copyNames(int[] theRecords, int theFrom, String[] theTarget, int theOffset, int theLength) {
+        for (int i = 0; i < theLength; i++) {
+            theTarget[theOffset + i] = getRecordName(theRecords[theFrom + i]);
+        }
+    }
+
+    private String resolve(String theCode) {
+        String theName = find(keyOf(theCode));
+        return theName == null ? theCode : theName;
+    }
+
+    private String find(String theKey) {
+        String theName = mExact.get(theKey);
+        if (theName != null) {
+            return theName;
+        }
+        for (Template theTemplate : mTemplates) {
+            theName = theTemplate.apply(theKey, mDays, mOrdinals);
+            if (theName != null) {
+                return theName;
+            }
+        }
+        return mParent == null ? null : mParent.find(theKey);
+    }
+
+    /**
+     * Dos hilos pueden resolver el mismo código a la vez; ambos obtienen el mismo nombre
+     */
+    private String store(int theCode, String theName) {
+        String[] theNames = mNames;
+        if (theCode >= theNames.length) {
+            synchronized (this) {
+                theNames = mNames;
+                if (theCode >= theNames.length) {
+                    theNames = Arrays.copyOf(theNames, Math.max(theNames.length * 2, theCode + 1));
+                    mNames = theNames;
+                }
+            }
+        }
+        theNames[theCode] = theName;
+        return theName;
+    }
+
+    /**
+     * @return La parte del código que identifica la celebración: sin espacios al principio y hasta el primer espacio
+     */
+    static String keyOf(String theCode) {
+        String theKey = theCode.trim();
+        for (int i = 0; i < theKey.length(); i++) {
+            if (Character.isWhitespace(theKey.charAt(i))) {
+                return theKey.substring(0, i);
+            }
+        }
+        return theKey;
+    }
+
+    static String roman(int theNumber) {
+        return theNumber <= 0 || theNumber >= 40 ? String.valueOf(theNumber)
+                : ROMAN_TENS[theNumber / 10] + ROMAN[theNumber % 10];
+    }
+
+    @Override
+    public String toString() {
+        return "CelebrationNames " + mTag;
+    }
+
+    /**
+     * Una clave con <code>{w}</code> o <code>{d}</code> y el nombre que le corresponde
+     */
+    private static final class Template {
+        private final Pattern mPattern;
+        private final String[] mGroups;
+        private final String mName;
+
+        Template(String theKey, String theName) {
+            StringBuilder theRegex = new StringBuilder();
+            List<String> theGroups = new ArrayList<>();
+            int i = 0;
+            while (i < theKey.length()) {
+                int theOpen = theKey.indexOf('{', i);
+                if (theOpen < 0) {
+                    theRegex.append(Pattern.quote(theKey.substring(i)));
+                    break;
+                }
+                int theClose = theKey.indexOf('}', theOpen);
+                String theGroup = theClose < 0 ? "" : theKey.substring(theOpen + 1, theClose);
+                if (!theGroup.equals("w") && !theGroup.equals("d")) {
+                    throw new IllegalArgumentException("Se esperaba {w} o {d} en " + theKey);
+                }
+                if (theOpen > i) {
+                    theRegex.append(Pattern.quote(theKey.substring(i, theOpen)));
+                }
+                theRegex.append(theGroup.equals("w") ? "(\\d+)" : "([1-7])");
+                theGroups.add(theGroup);
+                i = theClose + 1;
+            }
+            mPattern = Pattern.compile(theRegex.toString());
+            mGroups = theGroups.toArray(new String[0]);
+            mName = theName;
+        }
+
+        /**
+         * @return El nombre de una clave, o <code>null</code> si la clave no encaja
+         */
+        String apply(String theKey, String[] theDays, String[] theOrdinals) {
+            Matcher theMatcher = mPattern.matcher(theKey);
+            if (!theMatcher.matches()) {
+                return null;
+            }
+            String theName = mName;
+            for (int g = 0; g < mGroups.length; g++) {
+                int theValue = Integer.parseInt(theMatcher.group(g + 1));
+                if (mGroups[g].equals("d")) {
+                    theName = theName.replace("{d}", theDays == null ? String.valueOf(theValue) : theDays[theValue - 1]);
+                } else {
+                    theName = theName.replace("{w}", String.valueOf(theValue))
+                            .replace("{r}", roman(theValue))
+                            .replace("{o}", theOrdinals == null || theValue > theOrdinals.length
+                                    ? String.valueOf(theValue) : theOrdinals[theValue - 1]);
+                }
+            }
+            return theName;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package app.liturgiaplus;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * <p>Índice invertido de un calendario de muchos años: para cada código de celebración,
+ * los días en los que es la celebración principal, como un arreglo ordenado de días
+ * contados desde 1970-01-01 (epoch day).</p>
+ * <p>Se construye incrementalmente, año a año y en orden, la primera vez que se pide
+ * (ver {@link CalendarStore#getCodeIndex(int)}), de modo que los arreglos quedan
+ * ordenados sin ordenarlos. Las consultas por rango son búsquedas binarias.</p>
+ *
+ * <pre>
+ * // Años 2000-2100 en los que el Corpus Christi cae en Junio
+ * int[] theDays = theIndex.getDays("ORD-36-CORPUS", LocalDate.of(2000, 1, 1), LocalDate.of(2100, 12, 31));
+ * for (int theDay : theDays) {
+ *     if (LocalDate.ofEpochDay(theDay).getMonthValue() == 6) ...
+ * }
+ * // Fechas de San José, ya trasladado
+ * int[] theJoseph = theIndex.getDays("PST03-19");
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class CodeIndex {
+    private static final int[] NONE = new int[0];
+
+    /**
+     * Días de cada código, por identificador de {@link CelebrationCodes}
+     */
+    private final int[][] mDays;
+
+    private CodeIndex(int[][] theDays) {
+        mDays = theDays;
+    }
+
+    /**
+     * @return Todos los días en los que un código es la celebración principal, ordenados
+     */
+    public int[] getDays(String theCode) {
+        return days(CelebrationCodes.find(theCode)).clone();
+    }
+
+    /**
+     * @return Los días entre dos fechas, incluidas, en los que un código es la celebración principal
+     */
+    public int[] getDays(String theCode, LocalDate theFrom, LocalDate theTo) {
+        int[] theDays = days(CelebrationCodes.find(theCode));
+        int from = lowerBound(theDays, theFrom.toEpochDay());
+        int to = lowerBound(theDays, theTo.toEpochDay() + 1);
+        return Arrays.copyOfRange(theDays, from, Math.max(from, to));
+    }
+
+    /**
+     * @return El número de días entre dos fechas, incluidas, en los que un código es la celebración principal
+     */
+    public int count(String theCode, LocalDate theFrom, LocalDate theTo) {
+        int[] theDays = days(CelebrationCodes.find(theCode));
+        return Math.max(0, lowerBound(theDays, theTo.toEpochDay() + 1) - lowerBound(theDays, theFrom.toEpochDay()));
+    }
+
+    public boolean contains(String theCode, LocalDate theDate) {
+        return Arrays.binarySearch(days(CelebrationCodes.find(theCode)), (int) theDate.toEpochDay()) >= 0;
+    }
+
+    /**
+     * @return El primer día en o después de una fecha en el que un código es la celebración principal,
+     * o <code>null</code> si no hay
+     */
+    public LocalDate next(String theCode, LocalDate theDate) {
+        int[] theDays = days(CelebrationCodes.find(theCode));
+        int i = lowerBound(theDays, theDate.toEpochDay());
+        return i < theDays.length ? LocalDate.ofEpochDay(theDays[i]) : null;
+    }
+
+    /**
+     * @return Los días comunes a dos arreglos ordenados, p.e. los de un código en dos perfiles distintos
+     */
+    public static int[] intersect(int[] a, int[] b) {
+        if (a.length > b.length) {
+            int[] t = a;
+            a = b;
+            b = t;
+        }
+        int[] theResult = new int[a.length];
+        int n = 0;
+        int from = 0;
+        // Cada día del arreglo corto se busca en el largo, empezando donde terminó la búsqueda anterior
+        for (int theDay : a) {
+            int i = Arrays.binarySearch(b, from, b.length, theDay);
+            if (i >= 0) {
+                theResult[n++] = theDay;
+                from = i + 1;
+            } else {
+                from = -i - 1;
+            }
+            if (from == b.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(theResult, n);
+    }
+
+    private int[] days(int theCode) {
+        return theCode > 0 && theCode < mDays.length && mDays[theCode] != null ? mDays[theCode] : NONE;
+    }
+
+    private static int lowerBound(int[] theDays, long theEpochDay) {
+        int lo = 0;
+        int hi = theDays.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (theDays[mid] < theEpochDay) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Construye el índice a partir de los registros de días consecutivos, que deben añadirse en orden.
+     */
+    public static final class Builder {
+        private int[][] mDays = new int[1024][];
+        private int[] mCounts = new int[1024];
+        private long mLast = Long.MIN_VALUE;
+
+        /**
+         * Añade los registros de <code>theLength</code> días consecutivos desde <code>theFirstEpochDay</code>
+         */
+        public Builder add(long theFirstEpochDay, int[] theRecords, int theOffset, int theLength) {
+            if (theFirstEpochDay <= mLast) {
+                throw new IllegalArgumentException("Los días deben añadirse en orden: "
+                        + LocalDate.ofEpochDay(theFirstEpochDay) + " después de " + LocalDate.ofEpochDay(mLast));
+            }
+            for (int i = 0; i < theLength; i++) {
+                int theCode = DayRecord.code(theRecords[theOffset + i]);
+                if (theCode != CelebrationCodes.NONE) {
+                    append(theCode, (int) (theFirstEpochDay + i));
+                }
+            }
+            mLast = theFirstEpochDay + theLength - 1;
+            return this;
+        }
+
+        public Builder add(LiturgicalYear theYear) {
+            int[] theRecords = new int[theYear.length()];
+            theYear.copyRecords(0, theRecords, 0, theRecords.length);
+            return add(theYear.getFirstEpochDay(), theRecords, 0, theRecords.length);
+        }
+
+        private void append(int theCode, int theEpochDay) {
+            if (theCode >= mDays.length) {
+                int theLength = Math.max(theCode + 1, mDays.length * 2);
+                mDays = Arrays.copyOf(mDays, theLength);
+                mCounts = Arrays.copyOf(mCounts, theLength);
+            }
+            int[] theDays = mDays[theCode];
+            int n = mCounts[theCode];
+            if (theDays == null) {
+                theDays = mDays[theCode] = new int[16];
+            } else if (n == theDays.length) {
+                theDays = mDays[theCode] = Arrays.copyOf(theDays, n * 2);
+            }
+            theDays[n] = theEpochDay;
+            mCounts[theCode] = n + 1;
+        }
+
+        public CodeIndex build() {
+            int[][] theDays = new int[mDays.length][];
+            for (int i = 0; i < theDays.length; i++) {
+                if (mDays[i] != null) {
+                    theDays[i] = Arrays.copyOf(mDays[i], mCounts[i]);
+                }
+            }
+            return new CodeIndex(theDays);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package app.liturgiaplus;
+
+/**
+ * <p>Cálculo de la fecha de Pascua (cómputo) para muchos años a la vez.</p>
+ * <p>Usa el mismo algoritmo de Butcher-Meeus que {@link LiturgicalCalendar#getDiePaschae(int)}, pero da el
+ * resultado como día contado desde 1970-01-01 (epoch day) y sin crear objetos {@link java.time.LocalDate}:
+ * el bucle de {@link #computeEaster(int[], int[])} es sólo aritmética entera sobre arreglos, sin saltos
+ * y sin reservas de memoria, con lo que el JIT lo compila a un bucle compacto.</p>
+ * <p>Los días caben en un <code>int</code> hasta el año 5.879.610, lo que permite recorrer,
+ * por ejemplo, el ciclo completo de 5.700.000 años tras el cual se repiten las fechas de Pascua.</p>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class Computus {
+    /**
+     * Primer año del calendario gregoriano
+     */
+    public static final int FIRST_YEAR = 1583;
+
+    /**
+     * Último año cuyo día de Pascua cabe en un <code>int</code> contado desde 1970-01-01
+     */
+    public static final int LAST_YEAR = 5_879_610;
+
+    private Computus() {
+    }
+
+    /**
+     * @return El día de Pascua de un año, contado desde 1970-01-01
+     */
+    public static int easterEpochDay(int theYear) {
+        checkYear(theYear);
+        return easter(theYear);
+    }
+
+    /**
+     * Calcula la Pascua de muchos años.
+     *
+     * @param theYears         Los años, entre {@link #FIRST_YEAR} y {@link #LAST_YEAR}
+     * @param theOutEpochDays  El día de Pascua de cada año, contado desde 1970-01-01;
+     *                         al menos tan largo como <code>theYears</code>
+     */
+    public static void computeEaster(int[] theYears, int[] theOutEpochDays) {
+        if (theOutEpochDays.length < theYears.length) {
+            throw new IllegalArgumentException("El arreglo de salida es más corto que el de años");
+        }
+        for (int theYear : theYears) {
+            checkYear(theYear);
+        }
+        for (int i = 0; i < theYears.length; i++) {
+            theOutEpochDays[i] = easter(theYears[i]);
+        }
+    }
+
+    /**
+     * Calcula la Pascua de <code>theCount</code> años consecutivos desde <code>theFirstYear</code>
+     *
+     * @param theOutEpochDays Al menos de <code>theCount</code> elementos
+     */
+    public static void computeEaster(int theFirstYear, int theCount, int[] theOutEpochDays) {
+        checkRange(theFirstYear, theCount, theOutEpochDays);
+        for (int i = 0; i < theCount; i++) {
+            theOutEpochDays[i] = easter(theFirstYear + i);
+        }
+    }
+
+    /**
+     * Butcher-Meeus, seguido del día desde 1970-01-01 ({@link EpochDays#of(int, int, int)}).
+     * No comprueba el rango de años: {@link LiturgicalCalendar#getDiePaschae(int)} lo usa para cualquier año
+     */
+    static int easter(int theYear) {
+        int a = theYear % 19;
+        int b = theYear / 100;
+        int c = theYear % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int n = h + l - 7 * m + 114;
+        return EpochDays.of(theYear, n / 31, n % 31 + 1);
+    }
+
+    /**
+     * Comprueba, antes de escribir nada, los argumentos de un cálculo de <code>theCount</code> años consecutivos
+     */
+    static void checkRange(int theFirstYear, int theCount, int[] theOutEpochDays) {
+        if (theCount < 0) {
+            throw new IllegalArgumentException("Número de años negativo: " + theCount);
+        }
+        if (theOutEpochDays.length < theCount) {
+            throw new IllegalArgumentException("El arreglo de salida es más corto que el número de años");
+        }
+        checkYear(theFirstYear);
+        // Comparado como diferencia para que theFirstYear + theCount no desborde
+        if (theCount > 0 && theCount - 1 > LAST_YEAR - theFirstYear) {
+            throw new IllegalArgumentException("Año fuera del rango del cómputo: " + ((long) theFirstYear + theCount - 1));
+        }
+    }
+
+    static void checkYear(int theYear) {
+        if (theYear < FIRST_YEAR || theYear > LAST_YEAR) {
+            throw new IllegalArgumentException("Año fuera del rango del cómputo: " + theYear);
+        }
+    }
+}
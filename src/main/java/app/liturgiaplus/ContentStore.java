@@ -0,0 +1,304 @@
+package app.liturgiaplus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>Almacén de sólo lectura de los textos de cada celebración (lecturas de la Misa, Liturgia de las Horas...),
+ * indexados por código de celebración y semana del salterio del día ({@link DayRecord#psalterWeek(int)}),
+ * que en Navidad, el Triduo o las solemnidades no es la de la celebración.</p>
+ * <p>Es un único archivo que se proyecta en memoria ({@link FileChannel#map}): buscar los textos de un día
+ * es una búsqueda binaria en el índice proyectado y devuelve un trozo del archivo, sin leerlo ni
+ * decodificarlo entero. El texto sólo se decodifica si se pide con {@link #getText(String, int)}.</p>
+ * <p>Un texto guardado con semana <code>0</code> vale para cualquier semana del salterio, y se usa
+ * cuando no hay uno propio de la semana pedida.</p>
+ * <pre>
+ *  cabecera   "LPCS", versión (int), número de entradas (int)
+ *  índice     por entrada, ordenado por (hash, semana):
+ *             hash FNV-1a del código (long), semana (int), posición del código (int),
+ *             posición del texto (int), longitud del texto (int)
+ *  datos      por entrada: longitud del código (short), código y texto en UTF-8
+ * </pre>
+ *
+ * <pre>
+ * try (ContentStore theStore = ContentStore.open(Path.of("liturgia.lpcs"))) {
+ *     String theReadings = theStore.getText(theDay);
+ * }
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class ContentStore implements Closeable {
+    private static final int MAGIC = 0x4C504353;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int ENTRY_SIZE = 24;
+
+    private final FileChannel mChannel;
+    private final ByteBuffer mBuffer;
+    private final int mSize;
+
+    private ContentStore(FileChannel theChannel, ByteBuffer theBuffer) {
+        mChannel = theChannel;
+        mBuffer = theBuffer;
+        if (theBuffer.capacity() < HEADER_SIZE || theBuffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("No es un almacén de textos");
+        }
+        if (theBuffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Versión de almacén no soportada: " + theBuffer.getInt(4));
+        }
+        mSize = theBuffer.getInt(8);
+        validate();
+    }
+
+    /**
+     * Comprueba que el índice y todos los códigos y textos a los que apunta están dentro del archivo,
+     * para que un archivo truncado o corrupto falle al abrirlo y no en una consulta posterior
+     */
+    private void validate() {
+        int theCapacity = mBuffer.capacity();
+        if (mSize < 0 || HEADER_SIZE + (long) mSize * ENTRY_SIZE > theCapacity) {
+            throw new IllegalArgumentException("Almacén truncado: índice de " + mSize + " entradas");
+        }
+        for (int i = 0; i < mSize; i++) {
+            int theEntry = HEADER_SIZE + i * ENTRY_SIZE;
+            int theCode = mBuffer.getInt(theEntry + 12);
+            int theText = mBuffer.getInt(theEntry + 16);
+            int theLength = mBuffer.getInt(theEntry + 20);
+            if (theCode < HEADER_SIZE || theCode > theCapacity - 2
+                    || (long) theCode + 2 + mBuffer.getShort(theCode) > theCapacity || mBuffer.getShort(theCode) < 0
+                    || theText < HEADER_SIZE || theLength < 0 || (long) theText + theLength > theCapacity) {
+                throw new IllegalArgumentException("Almacén corrupto en la entrada " + i);
+            }
+        }
+    }
+
+    public static ContentStore open(Path thePath) throws IOException {
+        FileChannel theChannel = FileChannel.open(thePath, StandardOpenOption.READ);
+        try {
+            ByteBuffer theBuffer = theChannel.map(FileChannel.MapMode.READ_ONLY, 0, theChannel.size());
+            theBuffer.order(ByteOrder.BIG_ENDIAN);
+            return new ContentStore(theChannel, theBuffer);
+        } catch (IOException | RuntimeException e) {
+            theChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return El número de textos del almacén
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return El texto de una celebración en una semana del salterio, sin decodificar,
+     * o <code>null</code> si no hay
+     */
+    public ByteBuffer getBytes(String theCode, int thePsalterWeek) {
+        byte[] theKey = theCode.getBytes(StandardCharsets.UTF_8);
+        long theHash = hash(theKey);
+        int i = find(theKey, theHash, thePsalterWeek);
+        if (i < 0 && thePsalterWeek != 0) {
+            i = find(theKey, theHash, 0);
+        }
+        if (i < 0) {
+            return null;
+        }
+        int theEntry = HEADER_SIZE + i * ENTRY_SIZE;
+        ByteBuffer theSlice = mBuffer.duplicate();
+        int theOffset = mBuffer.getInt(theEntry + 16);
+        theSlice.position(theOffset).limit(theOffset + mBuffer.getInt(theEntry + 20));
+        return theSlice.slice().asReadOnlyBuffer();
+    }
+
+    public String getText(String theCode, int thePsalterWeek) {
+        ByteBuffer theBytes = getBytes(theCode, thePsalterWeek);
+        return theBytes == null ? null : StandardCharsets.UTF_8.decode(theBytes).toString();
+    }
+
+    /**
+     * @return El texto de un día, o <code>null</code> si no hay
+     */
+    public String getText(LiturgicalDay theDay) {
+        return getText(theDay.getRecord());
+    }
+
+    /**
+     * @return El texto del día <code>theIndex</code> de un año, o <code>null</code> si no hay
+     */
+    public String getText(LiturgicalYear theYear, int theIndex) {
+        return getText(theYear.getRecord(theIndex));
+    }
+
+    private String getText(int theRecord) {
+        if (theRecord == DayRecord.EMPTY) {
+            return null;
+        }
+        return getText(DayRecord.codeName(theRecord), DayRecord.psalterWeek(theRecord));
+    }
+
+    /**
+     * Búsqueda binaria por (hash, semana) en el índice; el código se compara sólo al coincidir el hash
+     */
+    private int find(byte[] theKey, long theHash, int theWeek) {
+        int lo = 0;
+        int hi = mSize - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int theEntry = HEADER_SIZE + mid * ENTRY_SIZE;
+            int c = compare(mBuffer.getLong(theEntry), mBuffer.getInt(theEntry + 8), theHash, theWeek);
+            if (c < 0) {
+                lo = mid + 1;
+            } else if (c > 0) {
+                hi = mid - 1;
+            } else {
+                // Colisiones de hash: entradas contiguas con el mismo (hash, semana)
+                while (mid > 0 && compare(mBuffer.getLong(theEntry - ENTRY_SIZE),
+                        mBuffer.getInt(theEntry - ENTRY_SIZE + 8), theHash, theWeek) == 0) {
+                    mid--;
+                    theEntry -= ENTRY_SIZE;
+                }
+                for (; mid < mSize; mid++, theEntry += ENTRY_SIZE) {
+                    if (compare(mBuffer.getLong(theEntry), mBuffer.getInt(theEntry + 8), theHash, theWeek) != 0) {
+                        break;
+                    }
+                    if (keyEquals(mBuffer.getInt(theEntry + 12), theKey)) {
+                        return mid;
+                    }
+                }
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean keyEquals(int theOffset, byte[] theKey) {
+        if (mBuffer.getShort(theOffset) != theKey.length) {
+            return false;
+        }
+        for (int i = 0; i < theKey.length; i++) {
+            if (mBuffer.get(theOffset + 2 + i) != theKey[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compare(long theHashA, int theWeekA, long theHashB, int theWeekB) {
+        int c = Long.compare(theHashA, theHashB);
+        return c != 0 ? c : Integer.compare(theWeekA, theWeekB);
+    }
+
+    /**
+     * FNV-1a de 64 bits
+     */
+    private static long hash(byte[] theKey) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : theKey) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mChannel.close();
+    }
+
+    /**
+     * Construye el archivo de un almacén.
+     *
+     * <pre>
+     * new ContentStore.Writer()
+     *         .add("PST01-24", 0, "...")
+     *         .add("ORD0[1]*02 F1", 1, "...")
+     *         .write(Path.of("liturgia.lpcs"));
+     * </pre>
+     */
+    public static final class Writer {
+        private final List<byte[]> mCodes = new ArrayList<>();
+        private final List<byte[]> mTexts = new ArrayList<>();
+        private final List<Integer> mWeeks = new ArrayList<>();
+        private final Set<String> mKeys = new HashSet<>();
+
+        /**
+         * @param thePsalterWeek Semana del salterio (1-4), o <code>0</code> si el texto vale para todas
+         * @throws IllegalArgumentException Si ya hay un texto con el mismo código y semana
+         */
+        public Writer add(String theCode, int thePsalterWeek, String theText) {
+            byte[] theKey = theCode.getBytes(StandardCharsets.UTF_8);
+            if (theKey.length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Código demasiado largo: " + theCode);
+            }
+            if (!mKeys.add(thePsalterWeek + " " + theCode)) {
+                throw new IllegalArgumentException("Texto repetido: " + theCode + " semana " + thePsalterWeek);
+            }
+            mCodes.add(theKey);
+            mWeeks.add(thePsalterWeek);
+            mTexts.add(theText.getBytes(StandardCharsets.UTF_8));
+            return this;
+        }
+
+        public void write(Path thePath) throws IOException {
+            int n = mCodes.size();
+            long[] theHashes = new long[n];
+            for (int i = 0; i < n; i++) {
+                theHashes[i] = hash(mCodes.get(i));
+            }
+            Integer[] theIndexes = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                theIndexes[i] = i;
+            }
+            Arrays.sort(theIndexes, (a, b) -> compare(theHashes[a], mWeeks.get(a), theHashes[b], mWeeks.get(b)));
+
+            long theDataSize = 0;
+            for (int i = 0; i < n; i++) {
+                theDataSize += 2 + mCodes.get(i).length + mTexts.get(i).length;
+            }
+            long theFileSize = HEADER_SIZE + (long) n * ENTRY_SIZE + theDataSize;
+            if (theFileSize > Integer.MAX_VALUE) {
+                throw new IllegalStateException("El almacén supera los 2 GB");
+            }
+            ByteBuffer theBuffer = ByteBuffer.allocate((int) theFileSize);
+            theBuffer.putInt(MAGIC).putInt(VERSION).putInt(n);
+            int theData = HEADER_SIZE + n * ENTRY_SIZE;
+            for (int k = 0; k < n; k++) {
+                int i = theIndexes[k];
+                byte[] theKey = mCodes.get(i);
+                byte[] theText = mTexts.get(i);
+                int theEntry = HEADER_SIZE + k * ENTRY_SIZE;
+                theBuffer.putLong(theEntry, theHashes[i])
+                        .putInt(theEntry + 8, mWeeks.get(i))
+                        .putInt(theEntry + 12, theData)
+                        .putInt(theEntry + 16, theData + 2 + theKey.length)
+                        .putInt(theEntry + 20, theText.length);
+                theBuffer.putShort(theData, (short) theKey.length);
+                theBuffer.position(theData + 2);
+                theBuffer.put(theKey).put(theText);
+                theData = theBuffer.position();
+            }
+            theBuffer.position(0);
+            try (FileChannel theChannel = FileChannel.open(thePath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (theBuffer.hasRemaining()) {
+                    theChannel.write(theBuffer);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package app.liturgiaplus;
+
+import java.time.LocalDate;
+
+/**
+ * <p>Una rejilla de días consecutivos ya resuelta para pintarla: cada celda guarda su
+ * {@link DayRecord registro} y, precalculados, el día del mes, el color, el rango y la semana del salterio.</p>
+ * <p>Es inmutable: los arreglos se copian al construirla y ningún método los expone.
+ * Las celdas se numeran desde <code>0</code>, de izquierda a derecha y de arriba abajo.</p>
+ *
+ * @author A. Cedano
+ * @version beta
+ * @see MonthView
+ * @see WeekView
+ */
+public abstract class DayGrid {
+    private final long mFirstEpochDay;
+    private final int[] mRecords;
+    private final byte[] mDaysOfMonth;
+    private final byte[] mColors;
+    private final byte[] mRanks;
+    private final byte[] mPsalterWeeks;
+
+    /**
+     * @param theFirstEpochDay El día de la primera celda
+     * @param theRecords       Los registros de cada celda; se copian
+     */
+    DayGrid(long theFirstEpochDay, int[] theRecords) {
+        mFirstEpochDay = theFirstEpochDay;
+        mRecords = theRecords.clone();
+        int n = theRecords.length;
+        mDaysOfMonth = new byte[n];
+        mColors = new byte[n];
+        mRanks = new byte[n];
+        mPsalterWeeks = new byte[n];
+        LocalDate theDate = LocalDate.ofEpochDay(theFirstEpochDay);
+        for (int i = 0; i < n; i++) {
+            int theRecord = theRecords[i];
+            mDaysOfMonth[i] = (byte) theDate.getDayOfMonth();
+            mColors[i] = (byte) DayRecord.color(theRecord);
+            mRanks[i] = (byte) DayRecord.rank(theRecord);
+            mPsalterWeeks[i] = (byte) DayRecord.psalterWeek(theRecord);
+            theDate = theDate.plusDays(1);
+        }
+    }
+
+    /**
+     * @return El número de celdas
+     */
+    public int size() {
+        return mRecords.length;
+    }
+
+    /**
+     * @return El día de la primera celda, contado desde 1970-01-01
+     */
+    public long getFirstEpochDay() {
+        return mFirstEpochDay;
+    }
+
+    public long getEpochDay(int theCell) {
+        checkCell(theCell);
+        return mFirstEpochDay + theCell;
+    }
+
+    public LocalDate getDate(int theCell) {
+        return LocalDate.ofEpochDay(getEpochDay(theCell));
+    }
+
+    /**
+     * @return La celda de una fecha, o <code>-1</code> si la fecha no está en la rejilla
+     */
+    public int indexOf(LocalDate theDate) {
+        long i = theDate.toEpochDay() - mFirstEpochDay;
+        return i >= 0 && i < mRecords.length ? (int) i : -1;
+    }
+
+    public int getDayOfMonth(int theCell) {
+        return mDaysOfMonth[theCell];
+    }
+
+    /**
+     * @return El registro de la celda, o {@link DayRecord#EMPTY} si el día no tiene celebración
+     */
+    public int getRecord(int theCell) {
+        return mRecords[theCell];
+    }
+
+    /**
+     * @return El código de la celebración principal de la celda, o <code>null</code> si no tiene
+     */
+    public String getCode(int theCell) {
+        return DayRecord.codeName(mRecords[theCell]);
+    }
+
+    public int getColor(int theCell) {
+        return mColors[theCell];
+    }
+
+    public int getRank(int theCell) {
+        return mRanks[theCell];
+    }
+
+    public int getPsalterWeek(int theCell) {
+        return mPsalterWeeks[theCell];
+    }
+
+    private void checkCell(int theCell) {
+        if (theCell < 0 || theCell >= mRecords.length) {
+            throw new IndexOutOfBoundsException("Celda " + theCell + " fuera de la rejilla de " + mRecords.length);
+        }
+    }
+}
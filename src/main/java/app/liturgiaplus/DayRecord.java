@@ -0,0 +1,126 @@
+package app.liturgiaplus;
+
+/**
+ * <p>Registro compacto de un día del calendario, empaquetado en un <code>int</code>.</p>
+ * <pre>
+ *  bits  0-13  identificador del código de la celebración ({@link CelebrationCodes})
+ *  bits 14-17  color
+ *  bits 18-21  rango (0 si no se conoce)
+ *  bits 22-24  semana del salterio (1-4, 0 si no tiene)
+ *  bits 25-27  tiempo litúrgico
+ *  bits 28-29  ciclo dominical del Leccionario (1-3: A, B, C; ver {@link Lectionary})
+ *  bits 30-31  ciclo ferial del Leccionario (1-2: I, II)
+ * </pre>
+ * <p>El registro <code>0</code> ({@link #EMPTY}) representa un día sin celebración.
+ * Dos días con el mismo registro son iguales a efectos del calendario.</p>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class DayRecord {
+    public static final int EMPTY = 0;
+
+    static final int MAX_CODE = (1 << 14) - 1;
+
+    private static final int COLOR_SHIFT = 14;
+    private static final int RANK_SHIFT = 18;
+    private static final int PSALTER_SHIFT = 22;
+    private static final int TIME_SHIFT = 25;
+    private static final int SUNDAY_CYCLE_SHIFT = 28;
+    private static final int WEEKDAY_CYCLE_SHIFT = 30;
+
+    /**
+     * Bits del registro que identifican la celebración (código, color, rango, semana del salterio y tiempo),
+     * sin los ciclos del Leccionario
+     */
+    public static final int CELEBRATION_MASK = (1 << SUNDAY_CYCLE_SHIFT) - 1;
+
+    private DayRecord() {
+    }
+
+    /**
+     * @return El registro de una celebración, con los ciclos del Leccionario de su fecha
+     */
+    public static int of(Celebration theCelebration) {
+        int theLiturgicalYear = Lectionary.liturgicalYearOf(theCelebration.getDate());
+        return of(theCelebration, Lectionary.sundayCycle(theLiturgicalYear), Lectionary.weekdayCycle(theLiturgicalYear));
+    }
+
+    /**
+     * @return El registro de una celebración con unos ciclos del Leccionario ya calculados
+     */
+    public static int of(Celebration theCelebration, int theSundayCycle, int theWeekdayCycle) {
+        return of(theCelebration, theCelebration.getPsalterWeek(), theSundayCycle, theWeekdayCycle);
+    }
+
+    /**
+     * @param thePsalterWeek La semana del salterio del día, que puede no ser la de la celebración
+     *                       (ver {@link HoursRecord})
+     */
+    public static int of(Celebration theCelebration, int thePsalterWeek, int theSundayCycle, int theWeekdayCycle) {
+        return pack(CelebrationCodes.idOf(theCelebration.getCode()),
+                theCelebration.getColor(),
+                theCelebration.getRank(),
+                thePsalterWeek,
+                theCelebration.getTime(),
+                theSundayCycle,
+                theWeekdayCycle);
+    }
+
+    public static int pack(int theCode, int theColor, int theRank, int thePsalterWeek, int theTime) {
+        return pack(theCode, theColor, theRank, thePsalterWeek, theTime, 0, 0);
+    }
+
+    public static int pack(int theCode, int theColor, int theRank, int thePsalterWeek, int theTime,
+                           int theSundayCycle, int theWeekdayCycle) {
+        return (theCode & MAX_CODE)
+                | (theColor & 0xF) << COLOR_SHIFT
+                | (theRank & 0xF) << RANK_SHIFT
+                | (thePsalterWeek & 0x7) << PSALTER_SHIFT
+                | (theTime & 0x7) << TIME_SHIFT
+                | (theSundayCycle & 0x3) << SUNDAY_CYCLE_SHIFT
+                | (theWeekdayCycle & 0x3) << WEEKDAY_CYCLE_SHIFT;
+    }
+
+    public static int code(int theRecord) {
+        return theRecord & MAX_CODE;
+    }
+
+    public static int color(int theRecord) {
+        return (theRecord >>> COLOR_SHIFT) & 0xF;
+    }
+
+    public static int rank(int theRecord) {
+        return (theRecord >>> RANK_SHIFT) & 0xF;
+    }
+
+    public static int psalterWeek(int theRecord) {
+        return (theRecord >>> PSALTER_SHIFT) & 0x7;
+    }
+
+    public static int time(int theRecord) {
+        return (theRecord >>> TIME_SHIFT) & 0x7;
+    }
+
+    /**
+     * @return El ciclo dominical ({@link Lectionary#SUNDAY_CYCLE_A} y siguientes), 0 si el día está vacío
+     */
+    public static int sundayCycle(int theRecord) {
+        return (theRecord >>> SUNDAY_CYCLE_SHIFT) & 0x3;
+    }
+
+    /**
+     * @return El ciclo ferial ({@link Lectionary#WEEKDAY_CYCLE_I} o {@link Lectionary#WEEKDAY_CYCLE_II}),
+     * 0 si el día está vacío
+     */
+    public static int weekdayCycle(int theRecord) {
+        return (theRecord >>> WEEKDAY_CYCLE_SHIFT) & 0x3;
+    }
+
+    /**
+     * @return El código de la celebración del registro, o <code>null</code> si está vacío
+     */
+    public static String codeName(int theRecord) {
+        return CelebrationCodes.codeOf(code(theRecord));
+    }
+}
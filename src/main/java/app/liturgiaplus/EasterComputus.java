@@ -0,0 +1,168 @@
+package app.liturgiaplus;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * <p>Estrategias de cómputo de la fecha de Pascua. Todas dan el día en el calendario gregoriano,
+ * contado desde 1970-01-01, para poder combinarlas con el resto del calendario.</p>
+ * <ul>
+ *     <li>{@link #GREGORIAN}: la Pascua latina, con el algoritmo de Butcher-Meeus ({@link Computus})</li>
+ *     <li>{@link #JULIAN}: la Pascua de las Iglesias que siguen el calendario juliano (algoritmo juliano de Meeus),
+ *     pasada al calendario gregoriano</li>
+ *     <li>{@link #GAUSS}: la Pascua latina con el algoritmo de Gauss y sus dos excepciones, para compararlo
+ *     con Butcher-Meeus</li>
+ * </ul>
+ * <p>Cada estrategia guarda una tabla con la Pascua de los años {@link #TABLE_FIRST_YEAR}-{@link #TABLE_LAST_YEAR},
+ * que se calcula la primera vez que se usa; fuera de ese rango se calcula cada vez.
+ * Un calendario elige su estrategia por la configuración (ver {@link #of(Map)}), de modo que regiones de
+ * distinto rito conviven en el mismo proceso y en las mismas cachés, que ya distinguen por configuración.</p>
+ *
+ * <pre>
+ * ProperCalendar theEastern = ProperCalendar.of("oriental", ProperCalendar.universal(),
+ *         Map.of(LiturgicalCalendar.JULIAN_EASTER, true), Sanctorale.empty());
+ * LocalDate theEaster = EasterComputus.JULIAN.getDiePaschae(2024); // 2024-05-05
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public enum EasterComputus {
+    /**
+     * Pascua latina, algoritmo de Butcher-Meeus
+     */
+    GREGORIAN {
+        @Override
+        int compute(int theYear) {
+            return Computus.easter(theYear);
+        }
+    },
+    /**
+     * Pascua juliana, algoritmo juliano de Meeus
+     */
+    JULIAN {
+        @Override
+        int compute(int theYear) {
+            int a = theYear % 4;
+            int b = theYear % 7;
+            int c = theYear % 19;
+            int d = (19 * c + 15) % 30;
+            int e = (2 * a + 4 * b - d + 34) % 7;
+            int n = d + e + 114;
+            // Fecha juliana, más los días que el juliano va retrasado ese siglo (constantes de Marzo a Mayo)
+            return EpochDays.of(theYear, n / 31, n % 31 + 1) + theYear / 100 - theYear / 400 - 2;
+        }
+    },
+    /**
+     * Pascua latina, algoritmo de Gauss con las excepciones del 26 y el 25 de Abril
+     */
+    GAUSS {
+        @Override
+        int compute(int theYear) {
+            int a = theYear % 19;
+            int b = theYear % 4;
+            int c = theYear % 7;
+            int k = theYear / 100;
+            int p = (13 + 8 * k) / 25;
+            int q = k / 4;
+            int m = (15 - p + k - q) % 30;
+            int n = (4 + k - q) % 7;
+            int d = (19 * a + m) % 30;
+            int e = (2 * b + 4 * c + 6 * d + n) % 7;
+            // Días desde el 1 de Marzo: el 22 de Marzo más d + e
+            int theDays = 21 + d + e;
+            if (d == 29 && e == 6) {
+                theDays -= 7;
+            } else if (d == 28 && e == 6 && (11 * m + 11) % 30 < 19) {
+                theDays -= 7;
+            }
+            return EpochDays.of(theYear, 3, 1) + theDays;
+        }
+    };
+
+    /**
+     * Primer año de las tablas
+     */
+    public static final int TABLE_FIRST_YEAR = Computus.FIRST_YEAR;
+
+    /**
+     * Último año de las tablas, el mismo que el de {@link AnchorTable}
+     */
+    public static final int TABLE_LAST_YEAR = AnchorTable.LAST_YEAR;
+
+    /**
+     * Pascua de cada año de la tabla. Si dos hilos la calculan a la vez, se publica una de las dos, que son iguales
+     */
+    private volatile int[] mTable;
+
+    /**
+     * @return La estrategia de una configuración: {@link LiturgicalCalendar#JULIAN_EASTER},
+     * si no {@link LiturgicalCalendar#GAUSS_EASTER}, y si no ninguna de las dos, {@link #GREGORIAN}
+     */
+    public static EasterComputus of(Map<String, Boolean> theSettings) {
+        if (Boolean.TRUE.equals(theSettings.get(LiturgicalCalendar.JULIAN_EASTER))) {
+            return JULIAN;
+        }
+        if (Boolean.TRUE.equals(theSettings.get(LiturgicalCalendar.GAUSS_EASTER))) {
+            return GAUSS;
+        }
+        return GREGORIAN;
+    }
+
+    /**
+     * @return El día de Pascua de un año, contado desde 1970-01-01
+     */
+    public int easterEpochDay(int theYear) {
+        Computus.checkYear(theYear);
+        return easter(theYear);
+    }
+
+    /**
+     * Como {@link LiturgicalCalendar#getDiePaschae(int)}, pero con esta estrategia
+     */
+    public LocalDate getDiePaschae(int theYear) {
+        return LocalDate.ofEpochDay(easter(theYear));
+    }
+
+    /**
+     * Copia la Pascua de <code>theCount</code> años consecutivos desde <code>theFirstYear</code>,
+     * con las mismas comprobaciones que {@link Computus#computeEaster(int, int, int[])}
+     */
+    public void computeEaster(int theFirstYear, int theCount, int[] theOutEpochDays) {
+        Computus.checkRange(theFirstYear, theCount, theOutEpochDays);
+        int[] theTable = table();
+        int theCopied = Math.max(0, Math.min(theCount, TABLE_LAST_YEAR - theFirstYear + 1));
+        if (theCopied > 0) {
+            System.arraycopy(theTable, theFirstYear - TABLE_FIRST_YEAR, theOutEpochDays, 0, theCopied);
+        }
+        for (int i = theCopied; i < theCount; i++) {
+            theOutEpochDays[i] = compute(theFirstYear + i);
+        }
+    }
+
+    /**
+     * Sin comprobar el rango de años: de la tabla si el año está en ella, si no calculado
+     */
+    int easter(int theYear) {
+        int[] theTable = table();
+        int i = theYear - TABLE_FIRST_YEAR;
+        return i >= 0 && i < theTable.length ? theTable[i] : compute(theYear);
+    }
+
+    /**
+     * @return El día de Pascua de un año, calculado sin la tabla
+     */
+    abstract int compute(int theYear);
+
+    private int[] table() {
+        int[] theTable = mTable;
+        if (theTable == null) {
+            theTable = new int[TABLE_LAST_YEAR - TABLE_FIRST_YEAR + 1];
+            for (int i = 0; i < theTable.length; i++) {
+                theTable[i] = compute(TABLE_FIRST_YEAR + i);
+            }
+            mTable = theTable;
+        }
+        return theTable;
+    }
+}
@@ -0,0 +1,86 @@
+package app.liturgiaplus;
+
+/**
+ * <p>Aritmética de fechas sobre días enteros contados desde 1970-01-01 (epoch day), para calcular
+ * las fechas ancla del año (Pascua, Adviento, Epifanía, Bautismo...) sin crear objetos
+ * {@link java.time.LocalDate} ni pasar por <code>TemporalAdjuster</code>.</p>
+ * <p>Los días de la semana siguen ISO-8601, como {@link java.time.DayOfWeek#getValue()}:
+ * 1 = Lunes ... 7 = Domingo.</p>
+ * <p>La conversión de fecha a día usa el calendario gregoriano proléptico contando los años
+ * desde el 1 de Marzo, de modo que el 29 de Febrero queda al final del año y no hace falta consultar
+ * si el año es bisiesto.</p>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+final class EpochDays {
+    static final int MONDAY = 1;
+    static final int TUESDAY = 2;
+    static final int WEDNESDAY = 3;
+    static final int THURSDAY = 4;
+    static final int FRIDAY = 5;
+    static final int SATURDAY = 6;
+    static final int SUNDAY = 7;
+
+    /**
+     * Días desde el 1 de Marzo del año 0 hasta el 1 de Enero de 1970
+     */
+    private static final int EPOCH_OFFSET = 719_468;
+
+    /**
+     * Días de un ciclo gregoriano de 400 años
+     */
+    private static final int DAYS_PER_ERA = 146_097;
+
+    private EpochDays() {
+    }
+
+    /**
+     * @param theMonth De 1 (Enero) a 12
+     * @return El día de una fecha, contado desde 1970-01-01
+     */
+    static int of(int theYear, int theMonth, int theDay) {
+        int y = theMonth <= 2 ? theYear - 1 : theYear;
+        int theEra = Math.floorDiv(y, 400);
+        int theYearOfEra = y - theEra * 400;
+        int theDayOfYear = (153 * (theMonth > 2 ? theMonth - 3 : theMonth + 9) + 2) / 5 + theDay - 1;
+        int theDayOfEra = theYearOfEra * 365 + theYearOfEra / 4 - theYearOfEra / 100 + theDayOfYear;
+        return theEra * DAYS_PER_ERA + theDayOfEra - EPOCH_OFFSET;
+    }
+
+    /**
+     * @return El día de la semana ISO: 1 = Lunes ... 7 = Domingo (1970-01-01 fue Jueves)
+     */
+    static int dayOfWeek(int theEpochDay) {
+        return Math.floorMod(theEpochDay + 3, 7) + 1;
+    }
+
+    /**
+     * @return El primer día <code>theDayOfWeek</code> posterior a un día
+     */
+    static int next(int theEpochDay, int theDayOfWeek) {
+        return theEpochDay + 1 + Math.floorMod(theDayOfWeek - dayOfWeek(theEpochDay) - 1, 7);
+    }
+
+    /**
+     * @return El mismo día si es <code>theDayOfWeek</code>, o el primero posterior
+     */
+    static int nextOrSame(int theEpochDay, int theDayOfWeek) {
+        return theEpochDay + Math.floorMod(theDayOfWeek - dayOfWeek(theEpochDay), 7);
+    }
+
+    /**
+     * @return El mismo día si es <code>theDayOfWeek</code>, o el último anterior
+     */
+    static int previousOrSame(int theEpochDay, int theDayOfWeek) {
+        return theEpochDay - Math.floorMod(dayOfWeek(theEpochDay) - theDayOfWeek, 7);
+    }
+
+    static boolean isLeap(int theYear) {
+        return (theYear & 3) == 0 && (theYear % 100 != 0 || theYear % 400 == 0);
+    }
+
+    static int lengthOfYear(int theYear) {
+        return isLeap(theYear) ? 366 : 365;
+    }
+}
@@ -0,0 +1,137 @@
+package app.liturgiaplus;
+
+/**
+ * <p>Datos de la Liturgia de las Horas de un día, empaquetados en un <code>byte</code>.</p>
+ * <pre>
+ *  bits 0-2  semana del salterio (1-4)
+ *  bits 3-5  tipo de oficio ({@link #OFFICE_WEEKDAY} y siguientes; 0 si el día no tiene celebración)
+ *  bit  6    las Vísperas de este día son las I Vísperas del día siguiente
+ *  bit  7    este día tiene I Vísperas: las Vísperas del día anterior son suyas
+ * </pre>
+ * <p>La semana del salterio se cuenta de forma continua en cada tiempo: la semana I empieza el Primer Domingo
+ * de Adviento, el de Cuaresma, el Domingo de Pascua y el Domingo de la semana I del Tiempo Ordinario;
+ * la Navidad sigue la cuenta del Adviento y del Miércoles de Ceniza al Sábado se usa la semana IV.</p>
+ * <p>Tienen I Vísperas los Domingos, las solemnidades y las fiestas del Señor que caen en Domingo.
+ * Cuando coinciden las II Vísperas de un día con las I Vísperas del siguiente, prevalecen las de la celebración
+ * de rango más alto en la Tabla de los días litúrgicos y, a igualdad de rango, las del día en curso
+ * (Ordenación General de la Liturgia de las Horas, n. 61), salvo los Domingos de Adviento, Cuaresma y Pascua,
+ * que empiezan con sus I Vísperas.</p>
+ * <p>Las tablas se calculan una vez al generar el año y se leen con {@link LiturgicalYear#getHours(int)}
+ * y {@link LiturgicalYear#copyHours(int, byte[], int, int)}.</p>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class HoursRecord {
+    /** Feria: salterio del día */
+    public static final int OFFICE_WEEKDAY = 1;
+    /** Memoria libre: salterio de la feria, con lo propio del santo si se celebra */
+    public static final int OFFICE_OPTIONAL_MEMORIAL = 2;
+    /** Memoria obligatoria: salterio de la feria y lo propio del santo */
+    public static final int OFFICE_MEMORIAL = 3;
+    /** Fiesta: salmodia propia o del común, sin I Vísperas salvo las fiestas del Señor en Domingo */
+    public static final int OFFICE_FEAST = 4;
+    /** Domingo: salterio del Domingo de la semana, con I Vísperas */
+    public static final int OFFICE_SUNDAY = 5;
+    /** Solemnidad, incluidos los días de la Octava de Pascua: salmodia propia, con I Vísperas */
+    public static final int OFFICE_SOLEMNITY = 6;
+    /** Triduo Pascual y Domingo de Pascua: oficio propio */
+    public static final int OFFICE_TRIDUUM = 7;
+
+    private static final int OFFICE_SHIFT = 3;
+    private static final int VESPERS_OF_NEXT_DAY = 1 << 6;
+    private static final int FIRST_VESPERS = 1 << 7;
+
+    private HoursRecord() {
+    }
+
+    public static byte pack(int thePsalterWeek, int theOffice, boolean isVespersOfNextDay, boolean hasFirstVespers) {
+        return (byte) (thePsalterWeek
+                | theOffice << OFFICE_SHIFT
+                | (isVespersOfNextDay ? VESPERS_OF_NEXT_DAY : 0)
+                | (hasFirstVespers ? FIRST_VESPERS : 0));
+    }
+
+    /**
+     * @return La semana del salterio, de 1 a 4
+     */
+    public static int psalterWeek(byte theHours) {
+        return theHours & 0x7;
+    }
+
+    /**
+     * @return El tipo de oficio ({@link #OFFICE_WEEKDAY} y siguientes), 0 si el día no tiene celebración
+     */
+    public static int office(byte theHours) {
+        return (theHours >>> OFFICE_SHIFT) & 0x7;
+    }
+
+    /**
+     * @return Si las Vísperas de este día son las I Vísperas del día siguiente
+     */
+    public static boolean isVespersOfNextDay(byte theHours) {
+        return (theHours & VESPERS_OF_NEXT_DAY) != 0;
+    }
+
+    /**
+     * @return Si este día empieza con sus I Vísperas la tarde del día anterior
+     */
+    public static boolean hasFirstVespers(byte theHours) {
+        return (theHours & FIRST_VESPERS) != 0;
+    }
+
+    /**
+     * @param theRank       El rango del registro del día ({@link DayRecord#rank(int)})
+     * @param isSunday      Si el día es Domingo
+     * @param theFromEaster Días desde el Domingo de Pascua (negativo antes)
+     * @return El tipo de oficio de un día
+     */
+    static int officeOf(int theRank, boolean isSunday, int theFromEaster) {
+        switch (theRank) {
+            case Celebration.RANK_TRIDUUM:
+                return OFFICE_TRIDUUM;
+            case Celebration.RANK_PRIVILEGED:
+                if (isSunday) {
+                    return OFFICE_SUNDAY;
+                }
+                // Miércoles de Ceniza y Lunes a Miércoles Santo; el resto son solemnidades y la Octava de Pascua
+                return theFromEaster == -46 || (theFromEaster >= -6 && theFromEaster <= -4)
+                        ? OFFICE_WEEKDAY : OFFICE_SOLEMNITY;
+            case Celebration.RANK_SOLEMNITY:
+            case Celebration.RANK_PROPER_SOLEMNITY:
+                return OFFICE_SOLEMNITY;
+            case Celebration.RANK_FEAST_OF_THE_LORD:
+            case Celebration.RANK_FEAST:
+            case Celebration.RANK_PROPER_FEAST:
+                return OFFICE_FEAST;
+            case Celebration.RANK_SUNDAY:
+                return OFFICE_SUNDAY;
+            case Celebration.RANK_MEMORIAL:
+            case Celebration.RANK_PROPER_MEMORIAL:
+                return OFFICE_MEMORIAL;
+            case Celebration.RANK_OPTIONAL_MEMORIAL:
+                return OFFICE_OPTIONAL_MEMORIAL;
+            default:
+                // Ferias y celebraciones sin rango conocido
+                return isSunday ? OFFICE_SUNDAY : OFFICE_WEEKDAY;
+        }
+    }
+
+    /**
+     * @return Si una celebración tiene I Vísperas, antes de compararlas con las II Vísperas del día anterior
+     */
+    static boolean hasFirstVespers(int theOffice, int theRank, boolean isSunday) {
+        return theOffice == OFFICE_SUNDAY || theOffice == OFFICE_SOLEMNITY
+                || (isSunday && theRank == Celebration.RANK_FEAST_OF_THE_LORD);
+    }
+
+    /**
+     * @param theRank     Rango del día, con las celebraciones sin rango conocido después de las ferias
+     * @param theNextRank Rango del día siguiente, igual que <code>theRank</code>
+     * @return Si las I Vísperas del día siguiente prevalecen sobre las II Vísperas del día
+     */
+    static boolean yieldsVespers(int theRank, int theNextRank, boolean hasNextFirstVespers, boolean isNextSunday) {
+        return hasNextFirstVespers && (theNextRank < theRank
+                || (theNextRank == theRank && theRank == Celebration.RANK_PRIVILEGED && isNextSunday));
+    }
+}
@@ -0,0 +1,132 @@
+package app.liturgiaplus;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * <p>Ciclos del Leccionario: el ciclo dominical (A, B, C) y el ciclo ferial (I, II).</p>
+ * <p>Ambos dependen sólo del año litúrgico, que empieza el Primer Domingo de Adviento
+ * y se nombra por el año civil en el que termina: el año litúrgico 2023 empieza el
+ * 27 de Noviembre de 2022, tiene ciclo dominical A (2023 mod 3 = 1) y ciclo ferial I (año impar).</p>
+ * <p>Los cálculos son aritméticos, sobre días contados desde 1970-01-01 (epoch day).
+ * {@link #fillCycles(LocalDate, LocalDate, byte[], byte[], int)} rellena un rango de fechas calculando
+ * el comienzo del año litúrgico una sola vez por año, no por día.</p>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class Lectionary {
+    public static final int SUNDAY_CYCLE_A = 1;
+    public static final int SUNDAY_CYCLE_B = 2;
+    public static final int SUNDAY_CYCLE_C = 3;
+
+    public static final int WEEKDAY_CYCLE_I = 1;
+    public static final int WEEKDAY_CYCLE_II = 2;
+
+    private static final String[] SUNDAY_CYCLE_NAMES = {null, "A", "B", "C"};
+    private static final String[] WEEKDAY_CYCLE_NAMES = {null, "I", "II"};
+
+    private Lectionary() {
+    }
+
+    /**
+     * El Primer Domingo de Adviento es el Domingo que cae entre el 27 de Noviembre y el 3 de Diciembre
+     * (ver {@link LiturgicalCalendar#getPrimaAdventu()})
+     *
+     * @return El día del Primer Domingo de Adviento de un año civil, contado desde 1970-01-01
+     */
+    public static long primaAdventu(int theYear) {
+        return EpochDays.nextOrSame(EpochDays.of(theYear, 11, 27), EpochDays.SUNDAY);
+    }
+
+    /**
+     * @return El año litúrgico de una fecha: el año civil en el que termina
+     */
+    public static int liturgicalYearOf(LocalDate theDate) {
+        int theYear = theDate.getYear();
+        return theDate.toEpochDay() >= primaAdventu(theYear) ? theYear + 1 : theYear;
+    }
+
+    /**
+     * @return El ciclo dominical ({@link #SUNDAY_CYCLE_A}, {@link #SUNDAY_CYCLE_B} o {@link #SUNDAY_CYCLE_C})
+     * de un año litúrgico
+     */
+    public static int sundayCycle(int theLiturgicalYear) {
+        int r = Math.floorMod(theLiturgicalYear, 3);
+        return r == 0 ? SUNDAY_CYCLE_C : r;
+    }
+
+    /**
+     * @return El ciclo ferial ({@link #WEEKDAY_CYCLE_I} en los años impares, {@link #WEEKDAY_CYCLE_II}
+     * en los pares) de un año litúrgico
+     */
+    public static int weekdayCycle(int theLiturgicalYear) {
+        return (theLiturgicalYear & 1) == 1 ? WEEKDAY_CYCLE_I : WEEKDAY_CYCLE_II;
+    }
+
+    public static int sundayCycle(LocalDate theDate) {
+        return sundayCycle(liturgicalYearOf(theDate));
+    }
+
+    public static int weekdayCycle(LocalDate theDate) {
+        return weekdayCycle(liturgicalYearOf(theDate));
+    }
+
+    /**
+     * @return <code>"A"</code>, <code>"B"</code> o <code>"C"</code>
+     */
+    public static String sundayCycleName(int theCycle) {
+        return SUNDAY_CYCLE_NAMES[theCycle];
+    }
+
+    /**
+     * @return <code>"I"</code> o <code>"II"</code>
+     */
+    public static String weekdayCycleName(int theCycle) {
+        return WEEKDAY_CYCLE_NAMES[theCycle];
+    }
+
+    /**
+     * Rellena los ciclos de cada día de un rango de fechas.
+     *
+     * @param theFrom          Primer día, incluido
+     * @param theTo            Último día, incluido
+     * @param theSundayCycles  Ciclo dominical de cada día, o <code>null</code> si no se necesita
+     * @param theWeekdayCycles Ciclo ferial de cada día, o <code>null</code> si no se necesita
+     * @param theOffset        Posición de <code>theFrom</code> en los arreglos
+     * @return El número de días rellenados
+     */
+    public static int fillCycles(LocalDate theFrom, LocalDate theTo,
+                                 byte[] theSundayCycles, byte[] theWeekdayCycles, int theOffset) {
+        long theFirst = theFrom.toEpochDay();
+        long theLast = theTo.toEpochDay();
+        if (theLast < theFirst) {
+            throw new IllegalArgumentException(theTo + " es anterior a " + theFrom);
+        }
+        int theCivilYear = theFrom.getYear();
+        long theAdvent = primaAdventu(theCivilYear);
+        int theLiturgicalYear = theFirst >= theAdvent ? theCivilYear + 1 : theCivilYear;
+        // El año litúrgico termina el día antes del Adviento del año civil con su mismo número
+        long theBoundary = primaAdventu(theLiturgicalYear);
+
+        long theDay = theFirst;
+        int i = theOffset;
+        while (theDay <= theLast) {
+            long theEnd = Math.min(theBoundary, theLast + 1);
+            byte theSunday = (byte) sundayCycle(theLiturgicalYear);
+            byte theWeekday = (byte) weekdayCycle(theLiturgicalYear);
+            int n = (int) (theEnd - theDay);
+            if (theSundayCycles != null) {
+                Arrays.fill(theSundayCycles, i, i + n, theSunday);
+            }
+            if (theWeekdayCycles != null) {
+                Arrays.fill(theWeekdayCycles, i, i + n, theWeekday);
+            }
+            i += n;
+            theDay = theEnd;
+            theLiturgicalYear++;
+            theBoundary = primaAdventu(theLiturgicalYear);
+        }
+        return i - theOffset;
+    }
+}
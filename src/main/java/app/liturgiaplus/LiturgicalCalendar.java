@@ -1,21 +1,10 @@
 package app.liturgiaplus;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.Period;
-import java.time.temporal.ChronoUnit;
-import java.time.temporal.TemporalAdjuster;
-import java.time.temporal.TemporalAdjusters;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+import static app.liturgiaplus.Celebration.*;
 import static java.time.DayOfWeek.*;
-import static java.time.temporal.TemporalAdjusters.next;
 
 /**
  * <p>Esta clase Java generará el Calendario Litúrgico de un año determinado.
@@ -36,39 +25,135 @@ import static java.time.temporal.TemporalAdjusters.next;
  * @version beta
  */
 public final class LiturgicalCalendar {
+    /**
+     * Clave de configuración: la Epifanía se celebra el Domingo entre el 2 y el 8 de Enero
+     */
+    public static final String EPIPHANY_ON_SUNDAY = "EpiphanyOnSunday";
+
+    /**
+     * Clave de configuración: la Ascensión se celebra el Jueves de la Sexta Semana de Pascua
+     */
+    public static final String ASCENSION_ORIGINAL = "AscensionOriginal";
+
+    /**
+     * Clave de configuración: el Corpus Christi se celebra el Jueves posterior a la Santísima Trinidad
+     */
+    public static final String CORPUS_ORIGINAL = "CorpusOriginal";
+
+    /**
+     * Clave de configuración: la Inmaculada Concepción prevalece sobre el Domingo de Adviento
+     */
+    public static final String IMMACULATE_PREVAILS = "ImmaculatePrevails";
+
+    /**
+     * Clave de configuración: la Pascua se calcula con el calendario juliano ({@link EasterComputus#JULIAN})
+     */
+    public static final String JULIAN_EASTER = "JulianEaster";
+
+    /**
+     * Clave de configuración: la Pascua se calcula con el algoritmo de Gauss ({@link EasterComputus#GAUSS}).
+     * No tiene efecto si {@link #JULIAN_EASTER} es <code>true</code>
+     */
+    public static final String GAUSS_EASTER = "GaussEaster";
+
+    /**
+     * Todas las claves de configuración reconocidas
+     */
+    public static final List<String> SETTINGS_KEYS = List.of(
+            EPIPHANY_ON_SUNDAY, ASCENSION_ORIGINAL, CORPUS_ORIGINAL, IMMACULATE_PREVAILS, JULIAN_EASTER, GAUSS_EASTER);
+
+    /**
+     * Último calendario generado mediante {@link #generateYearlyCalendar(int, HashMap)}.
+     * Se conserva para los métodos estáticos {@link #getCalendar()} y {@link #printCalendar()}.
+     */
+    private static volatile LiturgicalCalendar sLastCalendar;
+
+    /**
+     * Orden de las celebraciones por fecha.
+     * Es una clase y no una referencia a método para no pagar el arranque de las lambdas en cada proceso.
+     */
+    private static final Comparator<Celebration> BY_DATE = new Comparator<Celebration>() {
+        @Override
+        public int compare(Celebration a, Celebration b) {
+            return a.getDate().compareTo(b.getDate());
+        }
+    };
+
     /**
      * Año del calendario que se quiere generar
      */
-    private static int mYear;
+    private final int mYear;
 
     /**
      * Configuración del calendario. Aquí se indicarán elementos propios del lugar, por ejemplo:<br>
      * - Si la Epifanía se celebra el 6 de Enero, la clave <code>"EpiphanyOnSunday"</code> será <code>false</code>,
      * o no existirá, si dicha clave es <code>true</code> la Epifanía se celebra el Domingo.
      */
-    private static HashMap<String, Boolean> mSettings;
+    private final Map<String, Boolean> mSettings;
 
+    /**
+     * Cómputo de la Pascua que indica la configuración
+     */
+    private final EasterComputus mComputus;
 
     /**
      * Lista de objetos {@link Celebration} del año dado
      */
-    private static final ArrayList<Celebration> mCalendar = new ArrayList<>();
+    private final ArrayList<Celebration> mCalendar = new ArrayList<>();
+
+    /**
+     * Celebraciones generadas por cada segmento del año.
+     * Pueden ser compartidas con otros calendarios del mismo año (ver {@link #newCalendars(int, List)}).
+     */
+    private final EnumMap<Segment, List<Celebration>> mSegments = new EnumMap<>(Segment.class);
+
+    /**
+     * Vista indexada por día, se construye la primera vez que se pide
+     */
+    private volatile LiturgicalYear mLiturgicalYear;
 
     /**
      * Referencia a la fecha de la Pascua
      * La guardamos una sola vez para no volver a usar el algoritmo
      */
-    private static LocalDate diesPaschae;
+    private final LocalDate diesPaschae;
 
     /**
      * Referencia a la fecha del Jueves Santo
      */
-    private static LocalDate coenaeDomini;
+    private final LocalDate coenaeDomini;
+
+    /*
+        Fechas ancla del año como días desde 1970-01-01 (ver EpochDays), calculadas una vez en el constructor
+     */
+    private final int mAdventDay;
+    private final int mEpiphanyDay;
+    private final int mBaptismDay;
+
+    /**
+     * Cada instancia contiene el calendario de un solo año con una configuración dada,
+     * de modo que varios años pueden generarse a la vez en hilos distintos.
+     *
+     * @param theYear     El año cuyo calendario se quiere generar
+     * @param theSettings Configuración del calendario (se copia, no se conserva la referencia)
+     */
+    private LiturgicalCalendar(int theYear, Map<String, Boolean> theSettings) {
+        mYear = theYear;
+        mSettings = new HashMap<>(theSettings);
+        mComputus = EasterComputus.of(mSettings);
+        diesPaschae = LocalDate.ofEpochDay(mComputus.easter(mYear));
+        coenaeDomini = diesPaschae.minusDays(3);
+        mAdventDay = (int) Lectionary.primaAdventu(mYear);
+        boolean onSunday = isEnabled(EPIPHANY_ON_SUNDAY);
+        mEpiphanyDay = epiphanyDay(mYear, onSunday);
+        mBaptismDay = baptismDay(mYear, onSunday, mEpiphanyDay);
+    }
 
 
     /**
      * Obtiene la fecha de Pascua de un año dado.
-     * Se usa el algoritmo de <a href="https://fr.wikipedia.org/wiki/Calcul_de_la_date_de_P%C3%A2ques">Butcher-Meeus</a>
+     * Se usa el algoritmo de <a href="https://fr.wikipedia.org/wiki/Calcul_de_la_date_de_P%C3%A2ques">Butcher-Meeus</a>;
+     * para otros cómputos ver {@link EasterComputus#getDiePaschae(int)}
      *
      * @param theYear El año cuyo calendario se quiere generar
      * @return Un objeto <code>LocalDate</code> {@link LocalDate LD} con la fecha de Pascua en formato yyyymmdd
@@ -76,247 +161,303 @@ public final class LiturgicalCalendar {
 
 
     public static LocalDate getDiePaschae(int theYear) {
-        int a = theYear % 19;
-        int b = theYear / 100;
-        int c = theYear % 100;
-        int d = b / 4;
-        int e = b % 4;
-        int f = (b + 8) / 25;
-        int g = (b - f + 1) / 3;
-        int h = (19 * a + b - d - g + 15) % 30;
-        int i = c / 4;
-        int k = c % 4;
-        int l = (32 + 2 * e + 2 * i - h - k) % 7;
-        int m = (a + 11 * h + 22 * l) / 451;
-        int theMonth = (h + l - 7 * m + 114) / 31;
-        int p = (h + l - 7 * m + 114) % 31;
-        int theDay = p + 1;
-        return LocalDate.of(theYear, theMonth, theDay);
-        //return String.format("%04d%02d%02d", theYear, easterMonth, easterDay);
+        return LocalDate.ofEpochDay(Computus.easter(theYear));
     }
 
     /**
+     * Genera el calendario de un año y lo conserva para {@link #getCalendar()} y {@link #printCalendar()}.
+     *
      * @param theYear     El año cuyo calendario se quiere obtener
      * @param theSettings Configuración del calendario (pe Epifanía el domingo o no)
      */
     public static void generateYearlyCalendar(int theYear, HashMap<String, Boolean> theSettings) {
-        mSettings = theSettings;
-        mYear = theYear;
-        diesPaschae = getDiePaschae(mYear);
-        coenaeDomini = diesPaschae.minusDays(3);
-
-        //fillPerAnnum();
-        //fillFeriaeAdventus();
-        //fillPreviousEpiphany(mYear);
-        //fillPostEpiphany();
-        //getAdventFirst();
-        /*
-        fillChristusRex();
-        fillDominicisAdventus();
-        fillFeriaeAdventusMaiorem();
-        fillNativitate();
-        */
-        fillDeiGenitricisMarie();
-        fillPreviousEpiphany(mYear);
-        fillPostEpiphany();
-
-
-        fillTriduum();
-        fillDominicisQuadragesima();
-        fillFeriaeCeneri();
-        fillFeriaeQuadragesima();
-        fillHebdomadaSancta();
-        fillOctavamPaschae();
-        fillDominicisPaschae();
-        fillFeriaePaschae();
-
-        fillTrinitatis();
-        fillCorpus();
-
-        fillDominicisPerAnnum();
-        fillFeriaePerAnnum();
-
-/*
-        fillSanIoseph();
-        fillAnnuntiatione();
-        fillImmaculata();
-        fillAscensione();
-        System.out.println("TOTAL: " + mCalendar.size());
-*/
+        sLastCalendar = newCalendar(theYear, theSettings);
     }
 
-
-    private static LocalDate addDaysNew(LocalDate theDay, int daysToAdd) {
-        return theDay.plusDays(daysToAdd);
+    /**
+     * Genera el calendario de un año sin tocar ningún estado compartido.
+     * Puede invocarse desde varios hilos a la vez.
+     *
+     * @param theYear     El año cuyo calendario se quiere obtener
+     * @param theSettings Configuración del calendario (pe Epifanía el domingo o no)
+     * @return El calendario generado
+     */
+    public static LiturgicalCalendar newCalendar(int theYear, Map<String, Boolean> theSettings) {
+        LiturgicalCalendar theCalendar = new LiturgicalCalendar(theYear, theSettings);
+        theCalendar.generate();
+        return theCalendar;
     }
 
-
-    private static String addDays(String mDate, String mFormat, int mDays) {
-        SimpleDateFormat sdf = new SimpleDateFormat(mFormat);
-        Calendar c = Calendar.getInstance();
-        try {
-            c.setTime(sdf.parse(mDate));
-        } catch (ParseException e) {
-            e.printStackTrace();
+    /**
+     * Genera el calendario de un mismo año para varios perfiles de configuración (regiones).
+     * <p>Los segmentos del año que no dependen de la configuración (Adviento, Octava de Navidad)
+     * se calculan una sola vez, y los que dependen de ella se calculan una vez por cada combinación
+     * distinta de las claves de las que dependen ({@link Segment#getSettingsKeys()}).
+     * Los calendarios resultantes comparten las mismas listas de segmento y los mismos objetos {@link Celebration},
+     * que son inmutables.</p>
+     *
+     * @param theYear     El año cuyo calendario se quiere obtener
+     * @param theProfiles Las configuraciones de cada perfil
+     * @return Un calendario por perfil, en el mismo orden que <code>theProfiles</code>
+     */
+    public static List<LiturgicalCalendar> newCalendars(int theYear, List<? extends Map<String, Boolean>> theProfiles) {
+        HashMap<Integer, List<Celebration>> theShared = new HashMap<>();
+        List<LiturgicalCalendar> theCalendars = new ArrayList<>(theProfiles.size());
+        for (Map<String, Boolean> theSettings : theProfiles) {
+            LiturgicalCalendar theCalendar = new LiturgicalCalendar(theYear, theSettings);
+            theCalendar.generate(theShared);
+            theCalendars.add(theCalendar);
         }
-        c.add(Calendar.DAY_OF_MONTH, mDays);
-        SimpleDateFormat sdf1 = new SimpleDateFormat("MM-dd-yyyy");
-        String output = sdf.format(c.getTime());
-        //System.out.println("Fecha: "+mDate+" Calendario: "+output+c.getTime());
-        return output;
+        return theCalendars;
     }
 
-    public static LocalDate getAdventTest(int mYear) {
-
-        LocalDate mDate = LocalDate.of(mYear, 12, 25);
-        LocalDate prevSunday = mDate.with(TemporalAdjusters.previousOrSame(SUNDAY));
-        LocalDate ref;
-        if (mDate.getDayOfWeek() != SUNDAY) {
-            ref =
-                    mDate.with(TemporalAdjusters.previous(SUNDAY));
-        } else {
-            ref = mDate;
+    /**
+     * Genera el año de varios calendarios propios (naciones, diócesis...).
+     * <p>Los propios con la misma configuración comparten un único año universal, y cada uno
+     * guarda sólo los días que su santoral modifica (ver {@link LiturgicalYear#withProper(ProperCalendar)}).</p>
+     *
+     * @return Un año por propio, en el mismo orden que <code>thePropers</code>
+     */
+    public static List<LiturgicalYear> newLiturgicalYears(int theYear, List<ProperCalendar> thePropers) {
+        HashMap<Map<String, Boolean>, Integer> theProfileIndex = new HashMap<>();
+        List<Map<String, Boolean>> theProfiles = new ArrayList<>();
+        for (ProperCalendar theProper : thePropers) {
+            if (!theProfileIndex.containsKey(theProper.getSettings())) {
+                theProfileIndex.put(theProper.getSettings(), theProfiles.size());
+                theProfiles.add(theProper.getSettings());
+            }
+        }
+        List<LiturgicalCalendar> theCalendars = newCalendars(theYear, theProfiles);
+        List<LiturgicalYear> theYears = new ArrayList<>(thePropers.size());
+        for (ProperCalendar theProper : thePropers) {
+            LiturgicalCalendar theCalendar = theCalendars.get(theProfileIndex.get(theProper.getSettings()));
+            theYears.add(theCalendar.getLiturgicalYear().withProper(theProper));
         }
-        System.out.println(prevSunday.toString() + "...");
+        return theYears;
+    }
 
-        LocalDate f = prevSunday.minusWeeks(3);
-        //LocalDate d=mDate.minusWeeks(4);
-        System.out.println(f);
-        return prevSunday;
+    private void generate() {
+        generate(null);
     }
 
     /**
-     * Obtiene la fecha del Primer Domingo de Adviento
+     * Rellena el calendario segmento a segmento.
      *
-     * @return Un objeto {@link LocalDate} con la fecha del Primer Domingo de Adviento
+     * @param theShared Segmentos ya calculados para este mismo año, indexados por {@link #segmentKey(Segment)}.
+     *                  Los que falten se calculan y se agregan. Puede ser <code>null</code>.
      */
-    public static LocalDate getPrimaAdventu() {
-        LocalDate mDate = LocalDate.of(mYear, 12, 25);
-        int weekDay = mDate.getDayOfWeek().getValue();
-        LocalDate primaAdventu;
-        switch (weekDay) {
-            case 7: // Domingo
-                primaAdventu = LocalDate.of(mYear, 11, 27);
-                break;
-            case 1: // Lunes
-                primaAdventu = LocalDate.of(mYear, 12, 3);
-                break;
-
-            case 2: // Martes
-                primaAdventu = LocalDate.of(mYear, 12, 2);
-                break;
-
-            case 3: // Miércoles
-                primaAdventu = LocalDate.of(mYear, 12, 1);
-                break;
-
-            case 4: // Jueves
-                primaAdventu = LocalDate.of(mYear, 11, 30);
-                break;
-
-            case 5: // Viernes
-                primaAdventu = LocalDate.of(mYear, 11, 29);
-                break;
-
-            default:
-                // Sábado
-                primaAdventu = LocalDate.of(mYear, 11, 28);
-                break;
+    private void generate(Map<Integer, List<Celebration>> theShared) {
+        for (Segment theSegment : Segment.VALUES) {
+            Integer theKey = segmentKey(theSegment);
+            List<Celebration> theEntries = theShared == null ? null : theShared.get(theKey);
+            if (theEntries == null) {
+                int from = mCalendar.size();
+                theSegment.fill(this);
+                theEntries = Collections.unmodifiableList(new ArrayList<>(mCalendar.subList(from, mCalendar.size())));
+                if (theShared != null) {
+                    theShared.put(theKey, theEntries);
+                }
+            } else {
+                mCalendar.addAll(theEntries);
+            }
+            mSegments.put(theSegment, theEntries);
         }
-        return primaAdventu;
+        mCalendar.sort(BY_DATE);
     }
 
-    private static LocalDate getNativitate() {
-        return LocalDate.of(mYear, 12, 25);
+    /**
+     * Clave de un segmento: su ordinal y el estado (ausente, <code>false</code> o <code>true</code>)
+     * de cada una de las claves de configuración de las que depende.
+     */
+    private int segmentKey(Segment theSegment) {
+        int theKey = theSegment.ordinal();
+        int shift = 8;
+        for (String theSetting : theSegment.getSettingsKeys()) {
+            Boolean theValue = mSettings.get(theSetting);
+            theKey |= (theValue == null ? 0 : theValue ? 2 : 1) << shift;
+            shift += 2;
+        }
+        return theKey;
     }
 
+    /**
+     * Deriva un calendario nuevo a partir de este, cambiando sólo algunas claves de configuración.
+     * <p>Sólo se vuelven a calcular los segmentos que dependen de alguna clave cuyo valor cambia
+     * (por ejemplo, cambiar <code>"EpiphanyOnSunday"</code> sólo recalcula {@link Segment#NATIVITAS}
+     * y {@link Segment#PER_ANNUM_I}); el resto se comparte con este calendario.</p>
+     * <p>Los días que cambian se obtienen comparando los {@link DayRecord registros} de los dos años
+     * ({@link #getLiturgicalYear()}), como en {@link CalendarDiff}: sólo cuentan los días cuya celebración
+     * principal cambia, no los de un Domingo o feria que sigue oculto bajo una solemnidad o un santo.</p>
+     *
+     * @param theDelta Las claves que cambian. Un valor <code>null</code> elimina la clave.
+     * @return El calendario derivado y los días que han cambiado respecto de este
+     */
+    public Update derive(Map<String, Boolean> theDelta) {
+        HashMap<String, Boolean> theSettings = new HashMap<>(mSettings);
+        for (Map.Entry<String, Boolean> theEntry : theDelta.entrySet()) {
+            if (theEntry.getValue() == null) {
+                theSettings.remove(theEntry.getKey());
+            } else {
+                theSettings.put(theEntry.getKey(), theEntry.getValue());
+            }
+        }
+        /*
+            Los segmentos de este calendario se ofrecen como ya calculados.
+            Como la clave de cada segmento incluye el estado de sus claves de configuración,
+            sólo se reutilizan aquellos cuyas claves no han cambiado.
+         */
+        HashMap<Integer, List<Celebration>> theShared = new HashMap<>();
+        for (Segment theSegment : Segment.VALUES) {
+            theShared.put(segmentKey(theSegment), mSegments.get(theSegment));
+        }
+        LiturgicalCalendar theCalendar = new LiturgicalCalendar(mYear, theSettings);
+        theCalendar.generate(theShared);
 
-    private static TemporalAdjuster addPeriod(int mDays) {
-        return t -> t.plus(Period.ofDays(mDays));
+        EnumSet<Segment> theRecomputed = EnumSet.noneOf(Segment.class);
+        for (Segment theSegment : Segment.VALUES) {
+            if (mSegments.get(theSegment) != theCalendar.mSegments.get(theSegment)) {
+                theRecomputed.add(theSegment);
+            }
+        }
+        TreeSet<LocalDate> theChangedDays = new TreeSet<>();
+        if (!theRecomputed.isEmpty()) {
+            LiturgicalYear before = getLiturgicalYear();
+            LiturgicalYear after = theCalendar.getLiturgicalYear();
+            for (int i = 0; i < before.length(); i++) {
+                if (before.getRecord(i) != after.getRecord(i)) {
+                    theChangedDays.add(before.dateOf(i));
+                }
+            }
+        }
+        return new Update(theCalendar, theRecomputed, theChangedDays);
     }
 
-    private static void getAdventFirstOld(int mYear) {
-        /*
-            Para calcular el 1er domingo de Adviento
-            tomamos como referencia la fecha de Navidad
-            Verificamos si Navidad NO cae en domingo
-            en cuyo caso hay que restar sólo 21 días
-            para obtener la fecha del 1er Domingo de Adviento
-            En los otros casos se restan 28 días
+    /**
+     * Resultado de {@link #derive(Map)}
+     */
+    public static final class Update {
+        private final LiturgicalCalendar mCalendar;
+        private final Set<Segment> mRecomputed;
+        private final SortedSet<LocalDate> mChangedDays;
+
+        private Update(LiturgicalCalendar theCalendar, Set<Segment> theRecomputed, SortedSet<LocalDate> theChangedDays) {
+            mCalendar = theCalendar;
+            mRecomputed = Collections.unmodifiableSet(theRecomputed);
+            mChangedDays = Collections.unmodifiableSortedSet(theChangedDays);
+        }
+
+        /**
+         * @return El calendario derivado
+         */
+        public LiturgicalCalendar getCalendar() {
+            return mCalendar;
+        }
+
+        /**
+         * @return Los segmentos que se han vuelto a calcular
          */
-        Calendar calRef = getNativity(mYear);
-        int daysDiff = -28;
-        if (calRef.get(Calendar.DAY_OF_WEEK) != Calendar.SUNDAY) {
-            daysDiff = -21;
-            calRef.add(Calendar.DAY_OF_WEEK, -(calRef.get(Calendar.DAY_OF_WEEK) - 1));
+        public Set<Segment> getRecomputedSegments() {
+            return mRecomputed;
         }
-        calRef.add(Calendar.DAY_OF_MONTH, daysDiff);
-        //mCalendar.add(new Celebration(4, "ADV01-01", "1", StringUtils.dateFromCalendar(calRef)));
 
-        calRef.add(Calendar.DAY_OF_WEEK, 7);
-        //mCalendar.add(new Celebration(4, "ADV02-01", "1", StringUtils.dateFromCalendar(calRef)));
+        /**
+         * @return Los días cuyas celebraciones han cambiado, en orden
+         */
+        public SortedSet<LocalDate> getChangedDays() {
+            return mChangedDays;
+        }
+    }
+
+    /**
+     * @return Las celebraciones generadas por un segmento del año, sin ordenar por fecha
+     */
+    public List<Celebration> getSegment(Segment theSegment) {
+        return mSegments.get(theSegment);
+    }
+
+    public int getYear() {
+        return mYear;
+    }
 
-        calRef.add(Calendar.DAY_OF_WEEK, 7);
-        //mCalendar.add(new Celebration(4, "ADV03-01*", "1", StringUtils.dateFromCalendar(calRef)));
+    /**
+     * @return Una copia de la configuración con la que se generó el calendario
+     */
+    public Map<String, Boolean> getSettings() {
+        return new HashMap<>(mSettings);
+    }
 
-        calRef.add(Calendar.DAY_OF_WEEK, 7);
-        //mCalendar.add(new Celebration(4, "ADV04-01*", "1", StringUtils.dateFromCalendar(calRef)));
+    /**
+     * @return El cómputo de la Pascua de este calendario
+     */
+    public EasterComputus getComputus() {
+        return mComputus;
+    }
+
+    /**
+     * Indica si una clave de configuración está activa.
+     * Una clave que no existe equivale a <code>false</code>.
+     */
+    private boolean isEnabled(String theKey) {
+        return Boolean.TRUE.equals(mSettings.get(theKey));
     }
 
 
-    public static Calendar getNativity(int mYear) {
-        Calendar c = Calendar.getInstance();
-        c.set(Calendar.YEAR, mYear);
-        c.set(Calendar.MONTH, Calendar.DECEMBER);
-        c.set(Calendar.DAY_OF_MONTH, 25);
-        return c;
+    /**
+     * Obtiene la fecha del Primer Domingo de Adviento
+     *
+     * @return Un objeto {@link LocalDate} con la fecha del Primer Domingo de Adviento
+     */
+    public LocalDate getPrimaAdventu() {
+        return LocalDate.ofEpochDay(mAdventDay);
+    }
+
+    private LocalDate getNativitate() {
+        return LocalDate.of(mYear, 12, 25);
     }
 
     /*
         Devuelve la fecha de la Epifanía,
         según la configuración en Settings:
-        Si JAN06 es igual a true se celebra el 6 de enero,
-        de lo contrario, se celebra en domingo
-     */
-    public static LocalDate getEpiphania() {
-        if (!mSettings.get("EpiphanyOnSunday") || !mSettings.containsKey("EpiphanyOnSunday")) {
-            return LocalDate.of(mYear, 1, 6);
-        } else {
-            LocalDate mDate = LocalDate.of(mYear, 1, 2);
-            DayOfWeek dayOfWeek = mDate.getDayOfWeek();
-            if (dayOfWeek != SUNDAY) {
-                mDate = getNextSunday(mDate);
-            }
-            return mDate;
-        }
+        Si EpiphanyOnSunday es igual a true se celebra en domingo,
+        de lo contrario, el 6 de enero
+     */
+    public LocalDate getEpiphania() {
+        return LocalDate.ofEpochDay(mEpiphanyDay);
+    }
+
+    public LocalDate getBaptismum() {
+        return LocalDate.ofEpochDay(mBaptismDay);
+    }
 
+    /**
+     * @param onSunday Si la Epifanía se celebra el Domingo ({@link #EPIPHANY_ON_SUNDAY})
+     * @return El día de la Epifanía: el 6 de Enero, o el Domingo entre el 2 y el 8 de Enero
+     */
+    private static int epiphanyDay(int theYear, boolean onSunday) {
+        return onSunday
+                ? EpochDays.nextOrSame(EpochDays.of(theYear, 1, 2), EpochDays.SUNDAY)
+                : EpochDays.of(theYear, 1, 6);
     }
 
-    public static LocalDate getBaptismum() {
-        if (!mSettings.get("EpiphanyOnSunday")) {
-            return getNextSunday(getEpiphania());
-        } else {
-/*
+    /*
         El Bautismo del Señor se celebra el Domingo posterior a la Epifanía
         Hay excepciones:
             Si la Epifanía se celebra el Domingo entre el 2 y el 8 de Enero
             y el 8 o el 7 de enero cae en Domingo,
             el Bautismo del Señor se traslada al lunes siguiente a dicho domingo.
             De lo contrario, se celebra el Domingo siguiente a la Epifanía
-             */
-            LocalDate dateSeven = LocalDate.of(mYear, 1, 7);
-            LocalDate dateEight = LocalDate.of(mYear, 1, 8);
-
-            if (isSunday(dateSeven)) {
-                return getNextMonday(dateSeven);
-            } else if (isSunday(dateEight)) {
-                return getNextMonday(dateEight);
-            } else {
-                return getNextSunday(getEpiphania());
+     */
+    private static int baptismDay(int theYear, boolean onSunday, int theEpiphany) {
+        if (onSunday) {
+            int theSeventh = EpochDays.of(theYear, 1, 7);
+            if (EpochDays.dayOfWeek(theSeventh) == EpochDays.SUNDAY) {
+                return theSeventh + 1;
+            }
+            if (EpochDays.dayOfWeek(theSeventh + 1) == EpochDays.SUNDAY) {
+                return theSeventh + 2;
             }
-
         }
-
+        return EpochDays.next(theEpiphany, EpochDays.SUNDAY);
     }
 
     /**
@@ -325,8 +466,8 @@ public final class LiturgicalCalendar {
      *
      * @return Un objeto {@link LocalDate} con la fecha del Miércoles de Ceniza
      */
-    public static LocalDate getQuartaCinerum() {
-        return (diesPaschae.with(addPeriod(-46)));
+    public LocalDate getQuartaCinerum() {
+        return (diesPaschae.minusDays(46));
     }
 
     /**
@@ -335,7 +476,7 @@ public final class LiturgicalCalendar {
      *
      * @return Un objeto {@link LocalDate} con la fecha del Domingo I de Cuaresma
      */
-    public static LocalDate getPrimaQuadragesima() {
+    public LocalDate getPrimaQuadragesima() {
         //return (getQuartaCinerum().with(addPeriod(3)));
         return (getQuartaCinerum().plusDays(4));
 
@@ -347,7 +488,7 @@ public final class LiturgicalCalendar {
      *
      * @return Un objeto {@link LocalDate} con la fecha del Domingo V de Cuaresma
      */
-    public static LocalDate getQuintaQuadragesima() {
+    public LocalDate getQuintaQuadragesima() {
         return (getPrimaQuadragesima().plusWeeks(4));
     }
 
@@ -358,34 +499,30 @@ public final class LiturgicalCalendar {
      * Se calcula agregando en cada caso la/las semanas correspondientes
      * al primer Domingo de Adviento.</p>
      */
-    private static void fillDominicisAdventus() {
+    private void fillDominicisAdventus() {
         LocalDate primaAdventu = getPrimaAdventu();
-        mCalendar.add(new Celebration(1, primaAdventu, "\tADV-01-01", 1, 1, 1));
-        mCalendar.add(new Celebration(1, primaAdventu.plusWeeks(1), "\t*ADV-02-01", 1, 1, 2));
-
-        //mCalendar.add(new Celebration(1, primaAdventu.plusWeeks(2), "\tADV-02-01", 1, 1,2));
-        mCalendar.add(new Celebration(1, primaAdventu.plusWeeks(3), "\tADV-03-01", 1, 1, 3));
-        mCalendar.add(new Celebration(1, primaAdventu.plusWeeks(4), "\tADV-04-01", 1, 1, 4));
+        for (int week = 1; week <= 4; week++) {
+            // El Domingo III (Gaudete) admite el color rosa
+            mCalendar.add(new Celebration(1, primaAdventu.plusWeeks(week - 1),
+                    "ADV0" + week + "01", 1, week == 3 ? COLOR_ROSE : COLOR_VIOLET, week, RANK_PRIVILEGED));
+        }
     }
 
     /**
      * Agrega al calendario los domingos de Cuaresma
      */
-    private static void fillDominicisQuadragesima() {
+    private void fillDominicisQuadragesima() {
         LocalDate start = getQuartaCinerum();
-        AtomicInteger n = new AtomicInteger(1);
-
-        Stream.iterate(start, date -> date.plusDays(1))
-                .limit(ChronoUnit.DAYS.between(start, diesPaschae.minusWeeks(1)))
-                .filter(d -> d.getDayOfWeek() == SUNDAY)
-                //.filter(ld->ld.getDayOfWeek().equals(1))
-                .forEach(e ->
-                {
-                    int week = n.getAndIncrement();
-                    mCalendar.add(new Celebration(1, e,
-                            String.format("CUA0%d\t01", week), 1, 1, week));
-                });
-        //.forEach(System.out::println);
+        LocalDate end = diesPaschae.minusWeeks(1);
+        int week = 1;
+        for (LocalDate e = start; e.isBefore(end); e = e.plusDays(1)) {
+            if (e.getDayOfWeek() == SUNDAY) {
+                // El Domingo IV (Laetare) admite el color rosa
+                mCalendar.add(new Celebration(1, e,
+                        "CUA0" + week + "\t01", 1, week == 4 ? COLOR_ROSE : COLOR_VIOLET, week, RANK_PRIVILEGED));
+                week++;
+            }
+        }
     }
 
     /**
@@ -393,16 +530,14 @@ public final class LiturgicalCalendar {
      * <p>Para registrar el día de la semana suma 1 al valor obtenido con
      * {@link LocalDate#getDayOfWeek()}.</p>
      */
-    private static void fillFeriaeCeneri() {
+    private void fillFeriaeCeneri() {
         LocalDate start = getQuartaCinerum();
-        Stream.iterate(start, date -> date.plusDays(1))
-                .limit(ChronoUnit.DAYS.between(start, start.plusDays(4)))
-                .forEach(e ->
-                {
-                    mCalendar.add(new Celebration(1, e,
-                            String.format("CUA0%d0%d", 0, e.getDayOfWeek().getValue() + 1), 1, 1, 4));
-                });
-        //.forEach(System.out::println);
+        LocalDate end = start.plusDays(4);
+        for (LocalDate e = start; e.isBefore(end); e = e.plusDays(1)) {
+            mCalendar.add(new Celebration(1, e,
+                    "CUA000" + (e.getDayOfWeek().getValue() + 1), 1, COLOR_VIOLET, 4,
+                    e.equals(start) ? RANK_PRIVILEGED : RANK_PRIVILEGED_WEEKDAY));
+        }
     }
 
     /**
@@ -411,72 +546,69 @@ public final class LiturgicalCalendar {
      * <p>Para registrar el día de la semana suma 1 al valor obtenido con
      * {@link LocalDate#getDayOfWeek()}.</p>
      */
-    private static void fillFeriaeQuadragesima() {
+    private void fillFeriaeQuadragesima() {
         LocalDate start = getQuartaCinerum().plusDays(5);
-        AtomicInteger m = new AtomicInteger(1);
-        Stream.iterate(start, date -> date.plusDays(1))
-                .limit(ChronoUnit.DAYS.between(start, diesPaschae.minusWeeks(1)))
-                .filter(d -> d.getDayOfWeek() != SUNDAY)
-                .forEach(e ->
-                {
-                    mCalendar.add(new Celebration(1, e, String.format("_CUA0%d0%d", m.get(), e.getDayOfWeek().getValue() + 1), 1, 1, m.get()));
-
-                    if (e.getDayOfWeek() == SATURDAY) {
-                        m.getAndIncrement();
-                    }
-                });
-        //.forEach(System.out::println);
+        LocalDate end = diesPaschae.minusWeeks(1);
+        int m = 1;
+        for (LocalDate e = start; e.isBefore(end); e = e.plusDays(1)) {
+            if (e.getDayOfWeek() == SUNDAY) {
+                continue;
+            }
+            mCalendar.add(new Celebration(1, e, "_CUA0" + m + "0" + (e.getDayOfWeek().getValue() + 1), 1, COLOR_VIOLET, m, RANK_PRIVILEGED_WEEKDAY));
+
+            if (e.getDayOfWeek() == SATURDAY) {
+                m++;
+            }
+        }
     }
 
     /**
      * <p>Agrega al calendario la Semana Santa.
      * Desde el Domingo de Ramos hasta el Sábado Santo.</p>
      */
-    private static void fillHebdomadaSancta() {
+    private void fillHebdomadaSancta() {
         LocalDate start = diesPaschae.minusWeeks(1);
-        mCalendar.add(new Celebration(1, start, "SES01RAMOS", 1, 1));
-        AtomicInteger n = new AtomicInteger(1);
-        Stream.iterate(start, date -> date.plusDays(1))
-                .limit(ChronoUnit.DAYS.between(start, diesPaschae.minusDays(3)))
-                .filter(d -> d.getDayOfWeek() != SUNDAY)
-                .forEach(e -> mCalendar.add(new Celebration(1, e,
-                        String.format("SES%d", e.getDayOfWeek().getValue() + 1), 1, 1)));
+        mCalendar.add(new Celebration(1, start, "SES01RAMOS", 1, COLOR_RED, 0, RANK_PRIVILEGED));
+        for (LocalDate e = start.plusDays(1); e.isBefore(coenaeDomini); e = e.plusDays(1)) {
+            mCalendar.add(new Celebration(1, e,
+                    "SES" + (e.getDayOfWeek().getValue() + 1), 1, COLOR_VIOLET, 0, RANK_PRIVILEGED));
+        }
     }
 
     /**
      * <p>Agrega al calendario la Octava de Pascua.
      * La Octava de Pascua son los ocho días entre el Día de Pascua
-     * y el Domingo siguiente llamado "De la Divina Misericordia".</p>
+     * y el Domingo siguiente llamado "De la Divina Misericordia".
+     * Aquí se agregan del Lunes al Sábado; el Domingo lo agrega {@link #fillDominicisPaschae()}.</p>
      */
-    private static void fillOctavamPaschae() {
+    private void fillOctavamPaschae() {
         LocalDate start = diesPaschae.plusDays(1);
-        AtomicInteger n = new AtomicInteger(1);
-        Stream.iterate(start, date -> date.plusDays(1))
-                .limit(ChronoUnit.DAYS.between(start, diesPaschae.plusDays(8)))
-                //.filter(d->d.getDayOfWeek() != SUNDAY)
-                .forEach(e -> mCalendar.add(new Celebration(1, e,
-                        String.format("PAS*01-%d", e.getDayOfWeek().getValue()), 1, 1, 1)));
+        LocalDate end = diesPaschae.plusDays(7);
+        for (LocalDate e = start; e.isBefore(end); e = e.plusDays(1)) {
+            mCalendar.add(new Celebration(1, e,
+                    "PAS*01-" + e.getDayOfWeek().getValue(), 1, COLOR_WHITE, 1, RANK_PRIVILEGED));
+        }
     }
 
     /**
      * <p>Agrega al calendario los otros Domingos de Pascua.
-     * En {@link #fillOctavamPaschae()} ya incluimos el 1er y 2do Domingos
-     * por lo que aquí agregamos los otros domingos a partir del Tercero.
+     * El Domingo de Pascua lo agrega {@link #fillTriduum()},
+     * por lo que aquí agregamos los otros domingos a partir del Segundo (de la Divina Misericordia).
      * La fecha de inicio en este método se calcula
      * agregando una semana a {@link #diesPaschae}.</p>
      */
-    private static void fillDominicisPaschae() {
+    private void fillDominicisPaschae() {
         LocalDate start = diesPaschae.plusWeeks(1);
-        AtomicInteger n = new AtomicInteger(2);
-        Stream.iterate(start, date -> date.plusDays(1))
-                .limit(ChronoUnit.DAYS.between(start, diesPaschae.plusDays(50)))
-                .filter(d -> d.getDayOfWeek() == SUNDAY)
-                .forEach(e ->
-                {
-                    int week = n.getAndIncrement();
-                    mCalendar.add(new Celebration(1, e,
-                            String.format("?PAS0%d01", week), 1, 1, week));
-                });
+        LocalDate end = diesPaschae.plusDays(50);
+        int week = 2;
+        for (LocalDate e = start; e.isBefore(end); e = e.plusWeeks(1)) {
+            // El Domingo VIII es Pentecostés; el VII, si no, la Ascensión (ver fillAscensione)
+            if (week != 7 || isEnabled(ASCENSION_ORIGINAL)) {
+                mCalendar.add(new Celebration(1, e,
+                        "?PAS0" + week + "01", 1, week == 8 ? COLOR_RED : COLOR_WHITE, week, RANK_PRIVILEGED));
+            }
+            week++;
+        }
     }
 
     /**
@@ -484,116 +616,47 @@ public final class LiturgicalCalendar {
      * En {@link #fillDominicisPaschae()} y en {@link #fillOctavamPaschae()}
      * ya incluimos los Domingos de Pascua.</p>
      */
-    private static void fillFeriaePaschae() {
+    private void fillFeriaePaschae() {
         LocalDate start = diesPaschae.plusWeeks(1);
-        AtomicInteger week = new AtomicInteger(2);
-        Stream.iterate(start, date -> date.plusDays(1))
-                .limit(ChronoUnit.DAYS.between(start, diesPaschae.plusDays(50)))
-                .filter(d -> d.getDayOfWeek() != SUNDAY)
-                .forEach(e ->
-                {
-                    mCalendar.add(new Celebration(1, e, String.format("!PAS0%d0%d", week.get(), e.getDayOfWeek().getValue() + 1), 1, 1, week.get()));
-
-                    if (e.getDayOfWeek() == SATURDAY) {
-                        week.getAndIncrement();
-                    }
-                });
-
-    }
+        LocalDate end = diesPaschae.plusDays(50);
+        int week = 2;
+        for (LocalDate e = start; e.isBefore(end); e = e.plusDays(1)) {
+            if (e.getDayOfWeek() == SUNDAY) {
+                continue;
+            }
+            mCalendar.add(new Celebration(1, e, "!PAS0" + week + "0" + (e.getDayOfWeek().getValue() + 1), 1, COLOR_WHITE, week, RANK_WEEKDAY));
 
+            if (e.getDayOfWeek() == SATURDAY) {
+                week++;
+            }
+        }
 
-    /**
-     * <p>Agrega al calendario la Octava de Pascua.
-     * La Octava de Pascua son los ocho días entre el Día de Pascua
-     * y el Domingo siguiente llamado "De la Divina Misericordia".</p>
-     */
-    private static void fillOctavamPaschaes() {
-        LocalDate start = diesPaschae;
-        AtomicInteger n = new AtomicInteger(1);
-        Stream.iterate(start, date -> date.plusDays(1))
-                .limit(ChronoUnit.DAYS.between(start, diesPaschae.plusDays(8)))
-                //.filter(d->d.getDayOfWeek() != SUNDAY)
-                .forEach(e -> mCalendar.add(new Celebration(1, e,
-                        String.format("PAS010%d", e.getDayOfWeek().getValue()), 1, 1)));
     }
 
+
     /**
-     * <p>Agrega las ferias de Adviento anteriores al 17-12
-     * TODO: Verificar con Stream si la fecha existe en mCalendar
+     * <p>Agrega al calendario las ferias de Adviento, desde el Lunes I de Adviento hasta el 24 de Diciembre.
      * Ver: https://github.com/romcal/romcal/blob/ea5af7afb20915de2a4e3b754dbca4f8f4a6892c/lib/utils/dates.ts#L215</p>
+     * <p>Las ferias del 17 al 24 de Diciembre (ferias mayores) tienen formulario propio según la fecha,
+     * que puede caer tanto en la 3ª como en la 4ª semana, y preceden a las memorias obligatorias.</p>
      */
-    private static void fillFeriaeAdventus() {
-        LocalDate start = getPrimaAdventu();
+    private void fillFeriaeAdventus() {
+        LocalDate start = getPrimaAdventu().plusDays(1);
         LocalDate end = getNativitate();
-        List<LocalDate> dates = Stream.iterate(start, date -> date.plusDays(1))
-                .limit(ChronoUnit.DAYS.between(start, end))
-                .filter(d -> d.getDayOfWeek() != SUNDAY)
-
-                .filter(date -> !mCalendar.stream()
-                        .anyMatch(mCelebration ->
-                                mCelebration.getDate().equals(date)))
-                .collect(Collectors.toList());
-
-        AtomicInteger n = new AtomicInteger(1);
-        String s = "ADV-04-%s";
-        //final String args="";
-        AtomicReference<String> args = new AtomicReference<>();
-        dates.forEach(e -> {
-            if (e.getMonthValue() == 12 && e.getDayOfMonth() > 16) {
-                args.set(String.valueOf(n.getAndIncrement()));
-            } else {
-                args.set(String.valueOf(e.getDayOfMonth()));
+        int week = 1;
+        for (LocalDate e = start; e.isBefore(end); e = e.plusDays(1)) {
+            if (e.getDayOfWeek() == SUNDAY) {
+                week++;
+                continue;
             }
-
-
-            mCalendar.add(new Celebration(
-                    n.getAndIncrement(),
-                    e,
-                    String.format(s, args.get()),
-                    1, 4));
-            //}
-            //System.out.println(e);
-        });
-    }
-
-    /*
-     * Agrega al calendario las ferias de Adviento anteriores al 17-12
-     * TODO: Verificar con Stream si la fecha existe en mCalendar
-     *  TODO: Verificar la semana de Adviento, pues las ferias mayores
-     *   podrían caer tanto en la 3ª como en la 4ª semana
-     */
-    private static void fillFeriaeAdventusMaiorem() {
-        LocalDate start = getPrimaAdventu();
-        LocalDate end = getNativitate();
-        List<LocalDate> dates = Stream.iterate(start, date -> date.plusDays(1))
-                .limit(ChronoUnit.DAYS.between(start, end))
-                .filter(d -> d.getDayOfWeek() != SUNDAY)
-
-                .filter(date -> !mCalendar.stream()
-                        .anyMatch(mCelebration ->
-                                mCelebration.getDate().equals(date)))
-                .collect(Collectors.toList());
-
-        AtomicInteger n = new AtomicInteger(1);
-        String s = "ADV-04-%s";
-        //final String args="";
-        AtomicReference<String> args = new AtomicReference<>();
-        dates.forEach(e -> {
             if (e.getMonthValue() == 12 && e.getDayOfMonth() > 16) {
-                mCalendar.add(new Celebration(
-                        n.getAndIncrement(),
-                        e,
-                        String.format(s, e.getDayOfMonth()),
-                        1, 4));
-                //args.set(String.valueOf(n.getAndIncrement()));
+                mCalendar.add(new Celebration(1, e,
+                        "ADV12-" + e.getDayOfMonth(), 1, COLOR_VIOLET, week, RANK_PRIVILEGED_WEEKDAY));
             } else {
-                //args.set(String.valueOf(e.getDayOfMonth()));
+                mCalendar.add(new Celebration(1, e,
+                        "ADV0" + week + "0" + (e.getDayOfWeek().getValue() + 1), 1, COLOR_VIOLET, week, RANK_WEEKDAY));
             }
-
-
-            //}
-            //System.out.println(e);
-        });
+        }
     }
 
     /**
@@ -604,41 +667,35 @@ public final class LiturgicalCalendar {
      *
      * @see #getNextSunday(LocalDate)
      */
-    public static void fillNativitate() {
-        LocalDate nativitateDie = LocalDate.of(mYear, 12, 25);
+    public void fillNativitate() {
+        LocalDate nativitateDie = getNativitate();
 
-        mCalendar.add(new Celebration(4, nativitateDie, "NAV-01-01*", 2,
-                1));
+        mCalendar.add(new Celebration(1, nativitateDie, "NAV01-01", 1, COLOR_WHITE, 0, RANK_PRIVILEGED));
         /*
             Si Navidad cae en Domingo,
             la Sagrada Familia se celebra el 30-12.
             De lo contrario, el Domingo que sigue al día 12-25
          */
-        if (isSunday(nativitateDie)) {
-            mCalendar.add(new Celebration(4,
-                    LocalDate.of(mYear, 12, 30),
-                    "FAM-01-01*", 1, 1));
-        } else {
-            mCalendar.add(new Celebration(4,
-                    getNextSunday(nativitateDie),
-                    "FAM-01-01*", 1, 1));
-        }
+        LocalDate sacraFamilia = isSunday(nativitateDie) ? LocalDate.of(mYear, 12, 30) : getNextSunday(nativitateDie);
+        mCalendar.add(new Celebration(1, sacraFamilia, "NAV01-FAM", 1, COLOR_WHITE, 0, RANK_FEAST_OF_THE_LORD));
 
-        /**
-         * Días de la Octava de Navidad
+        /*
+            Días de la Octava de Navidad hasta el 31-12; el octavo día (1-1)
+            es Santa María, Madre de Dios, del año siguiente (ver fillDeiGenitricisMarie)
          */
-        AtomicInteger n = new AtomicInteger(1);
-        nativitateDie.datesUntil(nativitateDie.plusDays(8), Period.ofDays(1))
-                .forEach(e -> {
-                    mCalendar.add(new Celebration(1, e, String.format("OCT-01+N %d de la Octava", n.getAndIncrement()), 1, 1));
-                });
+        for (int n = 2; n <= 7; n++) {
+            LocalDate e = nativitateDie.plusDays(n - 1);
+            if (!e.equals(sacraFamilia)) {
+                mCalendar.add(new Celebration(1, e, "NAV01-0" + n, 1, COLOR_WHITE, 0, RANK_PRIVILEGED_WEEKDAY));
+            }
+        }
     }
 
     /*
         Determina las celebraciones previas a la Epifanía
         Determina también si hay un Domingo II de Navidad
      */
-    public static void fillPreviousEpiphany(int mYear) {
+    public void fillPreviousEpiphany(int mYear) {
         LocalDate dateEpiphany = getEpiphania();
         /*
             Si la Epifanía se celebra el 6 de Enero:
@@ -650,132 +707,24 @@ public final class LiturgicalCalendar {
                    "* día posterior a la Epifanía"
                 f. El Bautismo del Señor se celebra el Domingo que sigue al 6 de Enero
                 g. El Tiempo Ordinario empieza el día siguiente al Bautismo del Señor
+            Si la Epifanía se celebra el Domingo entre el 2 y el 8 de Enero
+            no hay Domingo II de Navidad: los días anteriores son todos ferias.
          */
-        if (mSettings.get("EpiphanyOnSunday")) {
-            int n = 0;
-            LocalDate start = LocalDate.of(mYear, 1, 2);
-            LocalDate end = LocalDate.of(mYear, 1, 6);
-
-            List<LocalDate> dates = Stream.iterate(start, date -> date.plusDays(1))
-                    .limit(ChronoUnit.DAYS.between(start, end))
-                    .collect(Collectors.toList());
-
-            dates.forEach(e -> {
-                System.out.println(e);
-                //counter.getAndIncrement();
-                if (isSunday(e)) {
-                    /*mCalendar.add(new Celebration(1, "NAV02-01",
-                            "*II Navidad", e.toString()));*/
-                } else {
-                    /*mCalendar.add(new Celebration(1, "NAV02-01",
-                            e.toString(),
-                            String.format("*Día %d anterior a la Epifanía %s", 0, e.getDayOfWeek())));
-                */
-                }
-            });
-
-            for (int i = 2; i < 6; i++) {
-                n++;
-                LocalDate tmpDate = LocalDate.of(mYear, 1, i);
-                if (isSunday(tmpDate)) {
-                    //mCalendar.add(new Celebration(1, "NAV02-01", "II Navidad", tmpDate.toString()));
-                } else {
-                    /*mCalendar.add(new Celebration(i, "NAV02-01",
-                            tmpDate.toString(),
-                            String.format("*Día %d anterior a la Epifanía %s", n, tmpDate.getDayOfWeek())));
-                */
-                }
-            }
-            //mCalendar.add(new Celebration(1, "NAV02-01", mDate.toString(), "Epifanía"));
-
-            LocalDate sunAfterEpiphany = getNextSunday(LocalDate.of(mYear, 1, 6));
-            int dayOfMonth = sunAfterEpiphany.getDayOfMonth();
-
-            if (dayOfMonth != 7) {
-                n = 0;
-                for (int i = 7; i < dayOfMonth; i++) {
-                    n++;
-                    //mCalendar.add(new Celebration(i, "NAV02-01", String.format("*Día %d posterior a la Epifanía", n), LocalDate.of(mYear, 1, i).toString()));
-
-                }
-            }
-
-            //return mDate;
-        } else {
-
-            int epiphanyDay = dateEpiphany.getDayOfMonth();
-
-            int n = 0;
-            String text = "*Día %d anterior a la Epifanía %s";
-            for (int i = 2; i < epiphanyDay; i++) {
-                n++;
-                LocalDate tmpDate = LocalDate.of(mYear, 1, i);
-
+        for (LocalDate e = LocalDate.of(mYear, 1, 2); e.isBefore(dateEpiphany); e = e.plusDays(1)) {
+            if (isSunday(e)) {
+                mCalendar.add(new Celebration(1, e, "NAV02-01", 1, COLOR_WHITE, 0, RANK_SUNDAY));
+            } else {
+                mCalendar.add(new Celebration(1, e, "NAV02-0" + e.getDayOfMonth(), 1, COLOR_WHITE, 0, RANK_WEEKDAY));
             }
-            /*
-                Si la Epifanía podría tener lugar el 6 de Enero o antes
-                entonces, los días siguientes a la Epifanía son llamados
-                "* día posterior a la Epifanía"
-             */
-
         }
-
+        mCalendar.add(new Celebration(1, dateEpiphany, "NAV03-01", 1, COLOR_WHITE, 0, RANK_PRIVILEGED));
     }
 
-    public static void fillPostEpiphany() {
-        LocalDate mDate = LocalDate.of(mYear, 1, 6);
-        if (!mSettings.get("EpiphanyOnSunday")) {
-            /*
-                Si hay un domingo entre el 2 y el 5 de enero
-                este será el Domingo II de Navidad.
-                Los días entre el 2 y el 5 de enero se llaman
-                "N día antes de la Epifanía" o "weekDay ...."
-             */
-            int n = 0;
-
-
-            /*
-                Los días desde el 7 de enero hasta el domingo siguiente
-                son llamados "* día posterior a la Epifanía"
-                Obtenemos el Domingo que sigue a la Epifanía
-                y determinamos si ese día no es el día 7
-             */
-            LocalDate sunAfterEpiphany = getNextSunday(LocalDate.of(mYear, 1, 6));
-            int dayOfMonth = sunAfterEpiphany.getDayOfMonth();
-
-            if (dayOfMonth != 7) {
-                n = 0;
-                for (int i = 7; i < dayOfMonth; i++) {
-                    n++;
-                    LocalDate tmpDate = LocalDate.of(mYear, 1, i);
-                }
-            }
-
-        } else {
-            mDate = LocalDate.of(mYear, 1, 2);
-            DayOfWeek dayOfWeek = mDate.getDayOfWeek();
-            if (dayOfWeek != SUNDAY) {
-                mDate = getNextSunday(mDate);
-            }
-            int epiphanyDay = mDate.getDayOfMonth();
-
-
-            /*
-                Si la Epifanía podría tener lugar el 6 de Enero o antes
-                entonces, los días siguientes a la Epifanía son llamados
-                "* día posterior a la Epifanía"
-             */
-            if (epiphanyDay < 7) {
-                LocalDate nextSunday = getNextSunday(mDate);
-                int dayOfMonth = nextSunday.getDayOfMonth();
-                int n = 0;
-                for (int i = epiphanyDay + 1; i < dayOfMonth; i++) {
-                    LocalDate tmpDate = LocalDate.of(mYear, 1, i);
-                    n++;
-                }
-            }
-
-            /*
+    /*
+        Determina los días posteriores a la Epifanía y el Bautismo del Señor
+     */
+    public void fillPostEpiphany() {
+        /*
     II.
     5. FIESTAS DEL SEÑOR INSCRITAS EN EL CALENDARIO GENERAL
         El Bautismo del Señor se celebra el Domingo posterior a la Epifanía
@@ -784,26 +733,19 @@ public final class LiturgicalCalendar {
             y el 8 o el 7 de enero cae en Domingo,
             el Bautismo del Señor se traslada al lunes siguiente a dicho domingo.
             De lo contrario, se celebra el Domingo siguiente a la Epifanía
-             */
-            LocalDate dateSeven = LocalDate.of(mYear, 1, 7);
-            LocalDate dateEight = LocalDate.of(mYear, 1, 8);
-
-            if (isSunday(dateSeven)) {
-
-                mCalendar.add(new Celebration(1, getNextMonday(dateSeven),
-                        "NAV04-01", 1, 1));
-//        if (!mSettings.get("EpiphanyOnSunday")) {
-            } else if (isSunday(dateEight)) {
-                mCalendar.add(new Celebration(1, getNextMonday(dateEight),
-                        "NAV04-01", 1, 1));
-                //mCalendar.add(new Celebration(1, "NAV04-01", "Bautismo Lunes", getNextMonday(dateEight).toString()));
-            } else {
-                mCalendar.add(new Celebration(1, getNextSunday(mDate),
-                        "NAV04-01", 1, 1));
-            }
+            (ver getBaptismum)
+         */
+        LocalDate diesBaptismum = getBaptismum();
 
+        /*
+            Los días desde la Epifanía hasta el Bautismo
+            son llamados "* día posterior a la Epifanía"
+         */
+        for (LocalDate e = getEpiphania().plusDays(1); e.isBefore(diesBaptismum); e = e.plusDays(1)) {
+            mCalendar.add(new Celebration(1, e,
+                    "NAV03-0" + (e.getDayOfWeek().getValue() + 1), 1, COLOR_WHITE, 0, RANK_WEEKDAY));
         }
-
+        mCalendar.add(new Celebration(1, diesBaptismum, "NAV04-01", 1, COLOR_WHITE, 0, RANK_FEAST_OF_THE_LORD));
     }
 
     /**
@@ -811,66 +753,51 @@ public final class LiturgicalCalendar {
      * Hay dos bloques del Tiempo Ordinario:
      * 1. Después del Bautismo del Señor hasta el martes antes del Miércoles de Ceniza
      * 2. Después de Pentecostés hasta el 1er Domingo de Adviento.
-     * En el cálculo excluimos el último Domingo del Tiempo Ordinario (Cristo Rey), que tendrá
-     * su propio método: {@link #fillChristusRex()}
+     * Este método agrega el primer bloque, el segundo lo agrega {@link #fillDominicisPerAnnumPostPentecosten()}.
      */
-    private static void fillDominicisPerAnnum() {
+    private void fillDominicisPerAnnum() {
         LocalDate postBaptismum = getBaptismum().plusDays(1);
-        AtomicInteger n = new AtomicInteger(2);
-
-        Stream.iterate(postBaptismum, date -> date.plusDays(1))
-                .limit(ChronoUnit.DAYS.between(postBaptismum, getQuartaCinerum()))
-                .filter(d -> d.getDayOfWeek() == SUNDAY)
-                .forEach(e ->
-                {
-                    int week=n.getAndIncrement();
-                    mCalendar.add(new Celebration(1, e,
-                            String.format("\tORD0%d01 1ª Parte", week), 1, 1,week));
-                    if(e.getDayOfWeek()==SATURDAY){
-                        //week.getAndIncrement();
-                    }
-                });
-
-        LocalDate lateOrdinary = getCorpus();
-        LocalDate christusRex=getPrimaAdventu().minusWeeks(1);
-        AtomicInteger lateWeek = new AtomicInteger(34);
-        Stream.iterate(christusRex, date -> date.minusDays(1))
-                .limit(ChronoUnit.DAYS.between(lateOrdinary,christusRex))
-                .filter(d -> d.getDayOfWeek().equals(SUNDAY))
-                .forEach(e ->
-                        {
-                            int week=lateWeek.getAndDecrement();
-                            mCalendar.add(new Celebration(1, e,
-                                    String.format("\tORD0%d01 2ª parte", week), 1, 1,week));}
-                );
-
-
-    }
-
-    private static LocalDate getLateOrdinary() {
-        if (mSettings.containsKey("CorpusOriginal") &&
-                mSettings.get("CorpusOriginal")) {
-            return diesPaschae.plusDays(64);
-
+        LocalDate quartaCinerum = getQuartaCinerum();
+        int week = 2;
+        for (LocalDate e = postBaptismum; e.isBefore(quartaCinerum); e = e.plusDays(1)) {
+            if (e.getDayOfWeek() == SUNDAY) {
+                mCalendar.add(new Celebration(1, e,
+                        "\tORD0" + week + "01 1ª Parte", 1, COLOR_GREEN, week, RANK_SUNDAY));
+                week++;
+            }
         }
-        return diesPaschae.plusDays(57);
+
     }
 
     /**
-     * Agrega al calendario el último Domingo del Tiempo Ordinario (Cristo, Rey del Universo).
+     * Agrega al calendario los Domingos del segundo bloque del Tiempo Ordinario.
+     * Se recorre hacia atrás desde Cristo Rey (semana 34) hasta el día siguiente al Corpus.
      */
-    private static void fillChristusRex() {
-        mCalendar.add(new Celebration(1, getPrimaAdventu().minusWeeks(1),
-                "ORD3401", 1, 1));
+    private void fillDominicisPerAnnumPostPentecosten() {
+        LocalDate lateOrdinary = getCorpus();
+        LocalDate christusRex = getPrimaAdventu().minusWeeks(1);
+        int lateWeek = 34;
+        for (LocalDate e = christusRex; e.isAfter(lateOrdinary); e = e.minusDays(1)) {
+            if (e.getDayOfWeek() == SUNDAY) {
+                // El Domingo XXXIV es la Solemnidad de Cristo Rey
+                mCalendar.add(new Celebration(1, e,
+                        "\tORD0" + lateWeek + "01 2ª parte", 1,
+                        lateWeek == 34 ? COLOR_WHITE : COLOR_GREEN, lateWeek,
+                        lateWeek == 34 ? RANK_SOLEMNITY : RANK_SUNDAY));
+                lateWeek--;
+            }
+        }
+
+
     }
 
     /**
      * Agrega al calendario la Solemnidad de Santa María, Madre de Dios
      * que tiene lugar el 1 de Enero (Octava de Navidad).
      */
-    private static void fillDeiGenitricisMarie() {
+    private void fillDeiGenitricisMarie() {
         mCalendar.add(new Celebration(1, LocalDate.of(mYear, 1, 1),
-                "NAV01-08", 1, 1));
+                "NAV01-08", 1, COLOR_WHITE, 0, RANK_SOLEMNITY));
     }
 
     /**
@@ -882,7 +809,7 @@ public final class LiturgicalCalendar {
      * </ul>
      * </p>
      */
-    private static void fillSanIoseph() {
+    private void fillSanIoseph() {
         LocalDate theDate = LocalDate.of(mYear, 3, 19);
 
         if (isSunday(theDate) &&
@@ -894,7 +821,7 @@ public final class LiturgicalCalendar {
         }
 
         mCalendar.add(new Celebration(1, theDate,
-                "PST03-19", 1, 1));
+                "PST03-19", 1, COLOR_WHITE, 0, RANK_SOLEMNITY));
     }
 
     /**
@@ -907,8 +834,8 @@ public final class LiturgicalCalendar {
      * </ul>
      * </p>
      */
-    private static void fillAnnuntiatione() {
-        LocalDate theDate = LocalDate.of(mYear, 3, 21);
+    private void fillAnnuntiatione() {
+        LocalDate theDate = LocalDate.of(mYear, 3, 25);
         LocalDate inPalmis = diesPaschae.minusWeeks(1);
 
         if ((isBetween(theDate, inPalmis, inPalmis.plusWeeks(2)))) {
@@ -919,7 +846,7 @@ public final class LiturgicalCalendar {
         }
 
         mCalendar.add(new Celebration(1, theDate,
-                "PST03-25", 1, 1));
+                "PST03-25", 1, COLOR_WHITE, 0, RANK_SOLEMNITY));
     }
 
     /**
@@ -933,21 +860,25 @@ public final class LiturgicalCalendar {
      * </ul>
      * </p>
      */
-    private static void fillImmaculata() {
+    private void fillImmaculata() {
         LocalDate theDate = LocalDate.of(mYear, 12, 8);
+        int theRank = RANK_SOLEMNITY;
 
-        if (isSunday(theDate) &&
-                mSettings.containsKey("ImmaculatePrevails") &&
-                !mSettings.get("ImmaculatePrevails")
-        ) {
-            theDate = theDate.plusDays(1);
+        if (isSunday(theDate)) {
+            if (isEnabled(IMMACULATE_PREVAILS)) {
+                // El mismo rango que el Domingo de Adviento, sobre el que prevalece al combinar el año
+                // por no tener semana del tiempo (ver LiturgicalYear#of), sea cual sea el orden de los segmentos
+                theRank = RANK_PRIVILEGED;
+            } else {
+                theDate = theDate.plusDays(1);
+            }
         }
         mCalendar.add(new Celebration(1, theDate,
-                "PST12-08", 1, 1));
+                "PST12-08", 1, COLOR_WHITE, 0, theRank));
     }
 
     /**
-     * Agrega al calendario la Solemnidad de la Ascensión del Señor (40 días después de la Pascua)
+     * Fecha de la Solemnidad de la Ascensión del Señor (40 días después de la Pascua)
      * <p>
      * En la tradición bíblica-litúrgica la Ascensión ocurrió cuarenta días después de Pascua.
      * Por tanto, la fecha propia de celebración de este día sería el Jueves de la Sexta Semana de Pascua.
@@ -956,36 +887,33 @@ public final class LiturgicalCalendar {
      * <ul>
      *     <li>La Ascensión se calcula por defecto para el Domingo VII de Pascua.</li>
      *     <li>En los lugares donde la Ascensión se celebra el Jueves, {@link #mSettings}
-     *      * tendra una entrada: <code>"AscensionOriginal"</code> con valor <code>true</code>.
+     *      tendrá una entrada: <code>"AscensionOriginal"</code> con valor <code>true</code>.
      *      En este caso, el Domingo siguiente será el Domingo VII de Pascua.</li>
      * </ul>
-     * </p>
+     * <p>El Jueves conserva su feria de Pascua, sobre la que prevalece la Ascensión; el Domingo,
+     * {@link #fillDominicisPaschae()} no agrega el Domingo VII.</p>
      */
-    private static void fillAscensione() {
-        //LocalDate theDate = LocalDate.of(mYear, 12, 8);
-        LocalDate theDate = diesPaschae.plusDays(39);
-
-        if (mSettings.containsKey("AscensionOriginal") &&
-                mSettings.get("AscensionOriginal")) {
-            mCalendar.add(new Celebration(1, theDate,
-                    "PAS-06-ASCJUE", 1, 1));
-            mCalendar.add(new Celebration(1, theDate.plusDays(3),
-                    "PAS-07-01", 1, 1));
-        } else {
-            mCalendar.add(new Celebration(1, theDate,
-                    "PAS-06-05", 1, 1));
-            mCalendar.add(new Celebration(1, theDate.plusDays(3),
-                    "PAS-06-ASCDOM", 1, 1));
-
+    public LocalDate getAscensione() {
+        if (isEnabled(ASCENSION_ORIGINAL)) {
+            return diesPaschae.plusDays(39);
         }
+        return diesPaschae.plusDays(42);
+    }
+
+    /**
+     * Agrega al calendario la Solemnidad de la Ascensión del Señor en la fecha de {@link #getAscensione()}
+     */
+    private void fillAscensione() {
+        mCalendar.add(new Celebration(1, getAscensione(),
+                isEnabled(ASCENSION_ORIGINAL) ? "PAS-06-ASCJUE" : "PAS-06-ASCDOM", 1, COLOR_WHITE, 0, RANK_PRIVILEGED));
     }
 
     /**
      * Agrega al calendario la Solemnidad de la Santísima Trinidad (Domingo Posterior a Pentecostés)
      * <p>Esta solemnidad se calcula agregando 8 semanas (56 días) a la fecha de Pascua ({@link #diesPaschae})</p>
      */
-    private static void fillTrinitatis() {
-        mCalendar.add(new Celebration(1, diesPaschae.plusWeeks(8), "\tORD-35-TRI", 1, 1));
+    private void fillTrinitatis() {
+        mCalendar.add(new Celebration(1, diesPaschae.plusWeeks(8), "\tORD-35-TRI", 1, COLOR_WHITE, 0, RANK_SOLEMNITY));
     }
 
     /**
@@ -1005,16 +933,14 @@ public final class LiturgicalCalendar {
      * </p>
      */
 
-    public static LocalDate getCorpus() {
-        if (mSettings.containsKey("CorpusOriginal") &&
-                mSettings.get("CorpusOriginal")) {
+    public LocalDate getCorpus() {
+        if (isEnabled(CORPUS_ORIGINAL)) {
             return diesPaschae.plusDays(60);
         }
         return diesPaschae.plusDays(63);
     }
-    private static void fillCorpus() {
-        LocalDate theDate = diesPaschae.plusDays(63);
-        mCalendar.add(new Celebration(1, getCorpus(), "\tORD-36-CORPUS", 1, 1));
+    private void fillCorpus() {
+        mCalendar.add(new Celebration(1, getCorpus(), "\tORD-36-CORPUS", 1, COLOR_WHITE, 0, RANK_SOLEMNITY));
     }
 
     /**
@@ -1027,12 +953,7 @@ public final class LiturgicalCalendar {
      * </p>
      */
     private static boolean isBetween(LocalDate theDate, LocalDate dateFrom, LocalDate dateUntil) {
-        System.out.println("---" + theDate.isAfter(dateFrom));
-        System.out.println("---" + theDate.isBefore(dateUntil));
-        boolean b = ((theDate.isAfter(dateFrom.minusDays(1))) &&
-                (theDate.isBefore(dateUntil.plusDays(1))));
-        System.out.printf("Verificando si %s está entre %s y %s => %s\n", theDate, dateFrom, dateUntil, b);
-        return b;
+        return !theDate.isBefore(dateFrom) && !theDate.isAfter(dateUntil);
     }
 
     /**
@@ -1042,59 +963,44 @@ public final class LiturgicalCalendar {
      *     <li>Entre el día siguiente al Bautismo del Señor y el día anterior al Miércoles de Ceniza (se usa  {@link #getBaptismum()} y {@link #getQuartaCinerum()} para el cálculo)</li>
      *     <li>Entre el día siguiente a Pentecostés y el día anterior al Primer Domingo de Adviento (usamos <code>{@link #diesPaschae} + 50</code> y el método {@link #getPrimaAdventu()} para el cálculo)</li>
      * </ol>
+     * Este método agrega el primer bloque, el segundo lo agrega {@link #fillFeriaePerAnnumPostPentecosten()}.
      * </p>
      */
-    private static void fillFeriaePerAnnum() {
+    private void fillFeriaePerAnnum() {
         LocalDate diesBaptismum = getBaptismum().plusDays(1);
-        AtomicInteger m = new AtomicInteger(1);
-        Stream.iterate(diesBaptismum, date -> date.plusDays(1))
-                .limit(ChronoUnit.DAYS.between(diesBaptismum, getQuartaCinerum()))
-                .filter(d -> d.getDayOfWeek() != SUNDAY)
-                .forEach(e ->
-                {
-                    mCalendar.add(new Celebration(1, e,
-                            String.format("ORD0[%d]*0%d F1", m.get(), e.getDayOfWeek().plus(1).getValue()), 1, 1, m.get()));
-                    if (e.getDayOfWeek() == SATURDAY) {
-                        m.getAndIncrement();
-                    }
-                });
-        LocalDate postPentecostes = diesPaschae.plusDays(50);
-        LocalDate preAdventu=getPrimaAdventu().minusDays(1);
-        AtomicInteger i = new AtomicInteger(34);
-        Stream.iterate(preAdventu, date -> date.minusDays(1))
-                .limit(ChronoUnit.DAYS.between(postPentecostes, preAdventu))
-                .filter(d -> d.getDayOfWeek() != SUNDAY)
-                .forEach(e -> {
-                    int week=i.get();
-
-                    if (e.getDayOfWeek() == MONDAY) {
-                        i.getAndDecrement();
-                    }
-                    mCalendar.add(new Celebration(1, e,
-                            String.format("ORD0[%d]0%d \tF2", week, e.getDayOfWeek().plus(1).getValue()), 1, 1,week));
-
-                });
+        LocalDate quartaCinerum = getQuartaCinerum();
+        int m = 1;
+        for (LocalDate e = diesBaptismum; e.isBefore(quartaCinerum); e = e.plusDays(1)) {
+            if (e.getDayOfWeek() == SUNDAY) {
+                continue;
+            }
+            mCalendar.add(new Celebration(1, e,
+                    "ORD0[" + m + "]*0" + e.getDayOfWeek().plus(1).getValue() + " F1", 1, COLOR_GREEN, m, RANK_WEEKDAY));
+            if (e.getDayOfWeek() == SATURDAY) {
+                m++;
+            }
+        }
     }
 
     /**
-     * @Deprecated Se usarán los métodos fillDominicis y fillFeriae
-     * @since beta
+     * Agrega al calendario las ferias del segundo bloque del Tiempo Ordinario (ver {@link #fillFeriaePerAnnum()}).
      */
-
-    public static void fillPerAnnum() {
-        LocalDate start = getBaptismum().plusDays(1);
-        LocalDate end = getQuartaCinerum();
-
-        List<LocalDate> dates = Stream.iterate(start, date -> date.plusDays(1))
-                .limit(ChronoUnit.DAYS.between(start, end))
-                .collect(Collectors.toList());
-
-        dates.forEach(e -> {
-            System.out.println(e);
-        });
+    private void fillFeriaePerAnnumPostPentecosten() {
+        LocalDate pentecostes = diesPaschae.plusDays(49);
+        LocalDate preAdventu = getPrimaAdventu().minusDays(1);
+        int week = 34;
+        for (LocalDate e = preAdventu; e.isAfter(pentecostes); e = e.minusDays(1)) {
+            if (e.getDayOfWeek() == SUNDAY) {
+                continue;
+            }
+            mCalendar.add(new Celebration(1, e,
+                    "ORD0[" + week + "]0" + e.getDayOfWeek().plus(1).getValue() + " \tF2", 1, COLOR_GREEN, week, RANK_WEEKDAY));
+            if (e.getDayOfWeek() == MONDAY) {
+                week--;
+            }
+        }
     }
 
-
     /**
      * <p>Agrega al calendario los días del Triduo Pascual y el día de Pascua.</p>
      * <p>Para determinar los días del Triduo Pascual, simplemente resta los días a la fecha de Pascua:
@@ -1105,144 +1011,269 @@ public final class LiturgicalCalendar {
      * </ul>
      * </p>
      */
-    private static void fillTriduum() {
-        mCalendar.add(new Celebration(1, coenaeDomini, "TRI01-05", 1, 1));
-        mCalendar.add(new Celebration(1, diesPaschae.minusDays(2), "TRI01-06", 1, 1));
-        mCalendar.add(new Celebration(1, diesPaschae.minusDays(1), "TRI01-07", 1, 1));
-        mCalendar.add(new Celebration(1, diesPaschae, "PAS01-01", 1, 1));
+    private void fillTriduum() {
+        mCalendar.add(new Celebration(1, coenaeDomini, "TRI01-05", 1, COLOR_WHITE, 0, RANK_TRIDUUM));
+        mCalendar.add(new Celebration(1, diesPaschae.minusDays(2), "TRI01-06", 1, COLOR_RED, 0, RANK_TRIDUUM));
+        mCalendar.add(new Celebration(1, diesPaschae.minusDays(1), "TRI01-07", 1, COLOR_VIOLET, 0, RANK_TRIDUUM));
+        mCalendar.add(new Celebration(1, diesPaschae, "PAS01-01", 1, COLOR_WHITE, 0, RANK_TRIDUUM));
     }
 
 
-    public static LocalDate manageEpiphany(int mYear) {
-        LocalDate mDate = LocalDate.of(mYear, 1, 6);
-        if (mSettings.get("JAN06")) {
-            /*
-                Si hay un domingo entre el 2 y el 5 de enero
-                este será el Domingo II de Navidad.
-                Los días entre el 2 y el 5 de enero se llaman
-                "N día antes de la Epifanía" o "weekDay ...."
-             */
-            int n = 0;
-            for (int i = 2; i < 5; i++) {
-                n++;
-                LocalDate tmpDate = LocalDate.of(mYear, 1, i);
-                if (isSunday(tmpDate)) {
-                    //mCalendar.add(new Celebration(1, "NAV02-01", "II Navidad", tmpDate.toString()));
-                } else {
-                    //mCalendar.add(new Celebration(i, "NAV02-01", String.format("*Día %d anterior a la Epifanía", n), tmpDate.toString()));
-                }
-            }
-            //mCalendar.add(new Celebration(1, "NAV02-01", mDate.toString(), "Epifanía"));
-
-            /*
-                Los días desde el 7 de enero hasta el domingo siguiente
-                son llamados "* día posterior a la Epifanía"
-             */
-            LocalDate sunAfterEpiphany = getNextSunday(LocalDate.of(mYear, 1, 6));
-            int dayOfMonth = sunAfterEpiphany.getDayOfMonth();
-            System.out.println("POST: " + dayOfMonth + " " + sunAfterEpiphany.toString());
-
-            if (dayOfMonth != 7) {
-                n = 0;
-                for (int i = 7; i < dayOfMonth; i++) {
-                    n++;
-                    //mCalendar.add(new Celebration(i, "NAV02-01", String.format("*Día %d posterior a la Epifanía", n), LocalDate.of(mYear, 1, i).toString()));
-
-                }
-            }
-
-            return mDate;
-        } else {
-            mDate = LocalDate.of(mYear, 1, 2);
-            DayOfWeek dayOfWeek = mDate.getDayOfWeek();
-            if (dayOfWeek != SUNDAY) {
-                mDate = getNextSunday(mDate);
-            }
-            int epiphanyDay = mDate.getDayOfMonth();
-
-            int n = 0;
-            for (int i = 2; i < epiphanyDay; i++) {
-                n++;
-                //mCalendar.add(new Celebration(1, "A", mDate.toString(), String.format("Día %d anterior a la Epifanía", n)));
-            }
-            /*
-                Si la Epifanía podría tener lugar el 6 de Enero o antes
-                entonces, los días siguientes a la Epifanía son llamados
-                "* día posterior a la Epifanía"
-             */
-
-            if (epiphanyDay < 7) {
-                LocalDate nextSunday = getNextSunday(mDate);
-                int dayOfMonth = nextSunday.getDayOfMonth();
-                n = 0;
-                for (int i = epiphanyDay + 1; i < dayOfMonth; i++) {
-                    n++;
-                    //mCalendar.add(new Celebration(i, "NAV03-01", String.format("*Día %d posterior a la Epifanía", i), LocalDate.of(mYear, 1, i).toString()));
-                }
-            }
-
-            /*
-    II.
-    5. FIESTAS DEL SEÑOR INSCRITAS EN EL CALENDARIO GENERAL
-        El Bautismo del Señor se celebra el Domingo posterior a la Epifanía
-        Hay excepciones:
-            Si la Epifanía se celebra el Domingo entre el 2 y el 8 de Enero
-            y el 8 o el 7 de enero cae en Domingo,
-            el Bautismo del Señor se traslada al lunes siguiente a dicho domingo
-             */
-            LocalDate dateSeven = LocalDate.of(mYear, 1, 7);
-            LocalDate dateEight = LocalDate.of(mYear, 1, 8);
-
-            if (isSunday(dateSeven)) {
-
-                //mCalendar.add(new Celebration(1, "NAV04-01", getNextMonday(dateSeven).toString(), "Bautismo Lunes"));
-
-            } else if (isSunday(dateEight)) {
-                //mCalendar.add(new Celebration(1, "NAV04-01", getNextMonday(dateEight).toString(), "Bautismo Lunes"));
-            }
-
-        }
-        return mDate;
-
-    }
-
     /*
         Determina si una fecha dada es Domingo
      */
     private static boolean isSunday(LocalDate mDate) {
-        DayOfWeek dayOfWeek = mDate.getDayOfWeek();
-        return (dayOfWeek == SUNDAY);
+        return EpochDays.dayOfWeek((int) mDate.toEpochDay()) == EpochDays.SUNDAY;
     }
 
     /*
         Obtiene el Domingo posterior a una fecha dada
      */
     private static LocalDate getNextSunday(LocalDate mDate) {
-        return mDate.with(next(SUNDAY));
+        return LocalDate.ofEpochDay(EpochDays.next((int) mDate.toEpochDay(), EpochDays.SUNDAY));
     }
 
-    /*
-        Obtiene el Lunes posterior a una fecha dada
-    TODO: Ver la posibilidad de unificarlo con getNextSunday
-    ¿Se puede pasar una constante DayOfWeek?
+    /**
+     * La semana del salterio de cada día del año, contada de forma continua en cada tiempo desde las fechas ancla
+     * (ver {@link HoursRecord}): también la de los días cuyas celebraciones no tienen semana del tiempo
+     * (Navidad, Triduo, Santísima Trinidad...)
+     *
+     * @return Un <code>byte</code> de 1 a 4 por día (0 = 1 de Enero)
+     */
+    byte[] getPsalterWeeks() {
+        int theFirst = EpochDays.of(mYear, 1, 1);
+        int theEaster = (int) diesPaschae.toEpochDay();
+        int theAshes = theEaster - 46;
+        int theLent = theAshes + 4;
+        int thePreviousAdvent = (int) Lectionary.primaAdventu(mYear - 1);
+        // La semana I del Tiempo Ordinario empieza el Domingo de la Epifanía o del Bautismo
+        int theOrdinary = EpochDays.previousOrSame(mBaptismDay, EpochDays.SUNDAY);
+        byte[] theWeeks = new byte[EpochDays.lengthOfYear(mYear)];
+        for (int i = 0; i < theWeeks.length; i++) {
+            int theDay = theFirst + i;
+            // Semanas completas desde el comienzo del tiempo
+            int theWeek;
+            if (theDay < theOrdinary) {
+                // Tiempo de Navidad: sigue la cuenta del Adviento del año anterior
+                theWeek = (EpochDays.previousOrSame(theDay, EpochDays.SUNDAY) - thePreviousAdvent) / 7;
+            } else if (theDay < theAshes) {
+                theWeek = (theDay - theOrdinary) / 7;
+            } else if (theDay < theLent) {
+                theWeek = 3;
+            } else if (theDay < theEaster) {
+                theWeek = (theDay - theLent) / 7;
+            } else if (theDay < theEaster + 50) {
+                theWeek = (theDay - theEaster) / 7;
+            } else if (theDay < mAdventDay) {
+                // Se cuenta hacia atrás desde la semana XXXIV, la de Cristo Rey
+                theWeek = 33 - (mAdventDay - 1 - theDay) / 7;
+            } else {
+                theWeek = (EpochDays.previousOrSame(theDay, EpochDays.SUNDAY) - mAdventDay) / 7;
+            }
+            theWeeks[i] = (byte) (theWeek % 4 + 1);
+        }
+        return theWeeks;
+    }
+
+    /**
+     * @return La vista del calendario indexada por día del año, con el santoral universal ya combinado
      */
-    private static LocalDate getNextMonday(LocalDate mDate) {
-        return mDate.with(next(MONDAY));
+    public LiturgicalYear getLiturgicalYear() {
+        LiturgicalYear theYear = mLiturgicalYear;
+        if (theYear == null) {
+            theYear = LiturgicalYear.of(mYear, mCalendar, Sanctorale.universal(), getPsalterWeeks(),
+                    (int) diesPaschae.toEpochDay());
+            mLiturgicalYear = theYear;
+        }
+        return theYear;
+    }
+
+    /**
+     * @return La vista indexada por día del año con el santoral de un calendario propio, que debería
+     * tener la misma configuración que este calendario (ver {@link ProperCalendar#getSettings()})
+     */
+    public LiturgicalYear getLiturgicalYear(ProperCalendar theProper) {
+        return getLiturgicalYear().withProper(theProper);
     }
 
-    public static ArrayList<Celebration> getCalendar() {
-        mCalendar.sort(Comparator.comparing(Celebration::getDate));
-        return mCalendar;
+    /**
+     * Los calendarios generados con {@link #newCalendars(int, List)} o {@link #derive(Map)} comparten
+     * las celebraciones de los segmentos comunes, que son inmutables.
+     *
+     * @return La lista ordenada por fecha de las celebraciones del temporal de este calendario, no modificable
+     */
+    public List<Celebration> getCelebrations() {
+        return Collections.unmodifiableList(mCalendar);
+    }
+
+    /**
+     * @return Las celebraciones del último calendario generado (ver {@link #getCelebrations()})
+     */
+    public static List<Celebration> getCalendar() {
+        LiturgicalCalendar theCalendar = sLastCalendar;
+        return theCalendar == null ? List.of() : theCalendar.getCelebrations();
     }
 
     public static void printCalendar() {
-        mCalendar.sort(Comparator.comparing(Celebration::getDate));
         //mList=new Ob
         //mCalendar.add(new Celebration(mCalendar.size(),diesPaschae,"",mCalendar.size(),11));
-        for (Celebration mCelebration : mCalendar) {
+        for (Celebration mCelebration : getCalendar()) {
             //mList.add(mCelebration);
             System.out.println(mCelebration.toString());
         }
 
     }
+
+    /**
+     * <p>Segmentos en que se divide la generación del año.</p>
+     * <p>Cada segmento declara las claves de configuración de las que dependen sus fechas,
+     * de modo que dos configuraciones que coinciden en esas claves producen el mismo segmento.
+     * El orden de los valores es el orden de generación.</p>
+     */
+    public enum Segment {
+        /**
+         * Las solemnidades de fecha fija con reglas de traslado propias:
+         * San José, la Anunciación y la Inmaculada Concepción
+         */
+        SOLLEMNITATES(IMMACULATE_PREVAILS, JULIAN_EASTER, GAUSS_EASTER) {
+            @Override
+            void fill(LiturgicalCalendar c) {
+                c.fillSanIoseph();
+                c.fillAnnuntiatione();
+                c.fillImmaculata();
+            }
+        },
+        /**
+         * Santa María, Madre de Dios, los días hasta la Epifanía y el Bautismo del Señor
+         */
+        NATIVITAS(EPIPHANY_ON_SUNDAY) {
+            @Override
+            void fill(LiturgicalCalendar c) {
+                c.fillDeiGenitricisMarie();
+                c.fillPreviousEpiphany(c.mYear);
+                c.fillPostEpiphany();
+            }
+        },
+        /**
+         * Jueves Santo, Viernes Santo, Sábado Santo y Domingo de Pascua
+         */
+        TRIDUUM(JULIAN_EASTER, GAUSS_EASTER) {
+            @Override
+            void fill(LiturgicalCalendar c) {
+                c.fillTriduum();
+            }
+        },
+        /**
+         * Desde el Miércoles de Ceniza hasta el Miércoles Santo
+         */
+        QUADRAGESIMA(JULIAN_EASTER, GAUSS_EASTER) {
+            @Override
+            void fill(LiturgicalCalendar c) {
+                c.fillDominicisQuadragesima();
+                c.fillFeriaeCeneri();
+                c.fillFeriaeQuadragesima();
+                c.fillHebdomadaSancta();
+            }
+        },
+        /**
+         * Desde el Lunes de la Octava de Pascua hasta Pentecostés
+         */
+        PASCHA(ASCENSION_ORIGINAL, JULIAN_EASTER, GAUSS_EASTER) {
+            @Override
+            void fill(LiturgicalCalendar c) {
+                c.fillOctavamPaschae();
+                c.fillDominicisPaschae();
+                c.fillFeriaePaschae();
+            }
+        },
+        /**
+         * La Ascensión del Señor, el Jueves o el Domingo según la configuración
+         */
+        ASCENSIO(ASCENSION_ORIGINAL, JULIAN_EASTER, GAUSS_EASTER) {
+            @Override
+            void fill(LiturgicalCalendar c) {
+                c.fillAscensione();
+            }
+        },
+        /**
+         * La Santísima Trinidad
+         */
+        TRINITAS(JULIAN_EASTER, GAUSS_EASTER) {
+            @Override
+            void fill(LiturgicalCalendar c) {
+                c.fillTrinitatis();
+            }
+        },
+        /**
+         * El Corpus Christi, el Jueves o el Domingo según la configuración
+         */
+        CORPUS(CORPUS_ORIGINAL, JULIAN_EASTER, GAUSS_EASTER) {
+            @Override
+            void fill(LiturgicalCalendar c) {
+                c.fillCorpus();
+            }
+        },
+        /**
+         * El Tiempo Ordinario desde el Bautismo del Señor hasta el Miércoles de Ceniza
+         */
+        PER_ANNUM_I(EPIPHANY_ON_SUNDAY, JULIAN_EASTER, GAUSS_EASTER) {
+            @Override
+            void fill(LiturgicalCalendar c) {
+                c.fillDominicisPerAnnum();
+                c.fillFeriaePerAnnum();
+            }
+        },
+        /**
+         * El Tiempo Ordinario desde Pentecostés hasta el Primer Domingo de Adviento
+         */
+        PER_ANNUM_II(CORPUS_ORIGINAL, JULIAN_EASTER, GAUSS_EASTER) {
+            @Override
+            void fill(LiturgicalCalendar c) {
+                c.fillDominicisPerAnnumPostPentecosten();
+                c.fillFeriaePerAnnumPostPentecosten();
+            }
+        },
+        /**
+         * Los Domingos y ferias de Adviento, hasta el 24 de Diciembre
+         */
+        ADVENTUS {
+            @Override
+            void fill(LiturgicalCalendar c) {
+                c.fillDominicisAdventus();
+                c.fillFeriaeAdventus();
+            }
+        },
+        /**
+         * Navidad, la Sagrada Familia y los días de la Octava hasta el 31 de Diciembre
+         */
+        OCTAVA_NATIVITATIS {
+            @Override
+            void fill(LiturgicalCalendar c) {
+                c.fillNativitate();
+            }
+        };
+
+        /**
+         * Copia de {@link #values()} para no crear un arreglo nuevo en cada generación
+         */
+        static final Segment[] VALUES = values();
+
+        private final List<String> mSettingsKeys;
+
+        Segment(String... theSettingsKeys) {
+            mSettingsKeys = List.of(theSettingsKeys);
+        }
+
+        /**
+         * @return Las claves de configuración de las que depende este segmento
+         */
+        public List<String> getSettingsKeys() {
+            return mSettingsKeys;
+        }
+
+        /**
+         * Agrega al calendario las celebraciones de este segmento
+         */
+        abstract void fill(LiturgicalCalendar c);
+    }
 }
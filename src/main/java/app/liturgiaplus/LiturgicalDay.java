@@ -0,0 +1,80 @@
+package app.liturgiaplus;
+
+import java.time.LocalDate;
+
+/**
+ * <p>Un día del calendario: su fecha, su celebración principal y su {@link DayRecord registro compacto}.</p>
+ * <p>Es inmutable. Los campos de la celebración (color, rango, semana del salterio, ciclos del Leccionario)
+ * se leen del registro, sin volver a calcularlos.</p>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class LiturgicalDay {
+    private final LocalDate mDate;
+    private final Celebration mCelebration;
+    private final int mRecord;
+
+    LiturgicalDay(LocalDate theDate, Celebration theCelebration, int theRecord) {
+        mDate = theDate;
+        mCelebration = theCelebration;
+        mRecord = theRecord;
+    }
+
+    /**
+     * @return El día <code>theIndex</code> de un año (0 = 1 de Enero)
+     */
+    static LiturgicalDay of(LiturgicalYear theYear, int theIndex) {
+        return new LiturgicalDay(theYear.dateOf(theIndex), theYear.getCelebration(theIndex), theYear.getRecord(theIndex));
+    }
+
+    public LocalDate getDate() {
+        return mDate;
+    }
+
+    /**
+     * @return La celebración principal del día, inmutable y compartida con su año, o <code>null</code> si no tiene
+     */
+    public Celebration getCelebration() {
+        return mCelebration;
+    }
+
+    /**
+     * @return El registro compacto del día, o {@link DayRecord#EMPTY} si no tiene celebración
+     */
+    public int getRecord() {
+        return mRecord;
+    }
+
+    /**
+     * @return El código de la celebración principal, o <code>null</code> si no tiene
+     */
+    public String getCode() {
+        return DayRecord.codeName(mRecord);
+    }
+
+    public int getColor() {
+        return DayRecord.color(mRecord);
+    }
+
+    public int getRank() {
+        return DayRecord.rank(mRecord);
+    }
+
+    public int getPsalterWeek() {
+        return DayRecord.psalterWeek(mRecord);
+    }
+
+    public int getSundayCycle() {
+        return DayRecord.sundayCycle(mRecord);
+    }
+
+    public int getWeekdayCycle() {
+        return DayRecord.weekdayCycle(mRecord);
+    }
+
+    @Override
+    public String toString() {
+        return mDate + " - " + getCode() + " - " + getColor() + " PSalter: " + getPsalterWeek();
+    }
+}
@@ -0,0 +1,489 @@
+package app.liturgiaplus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Vista de un calendario generado indexada por día del año (0 = 1 de Enero).</p>
+ * <p>Para cada día guarda la celebración principal y su {@link DayRecord registro compacto}:
+ * la de menor rango entre las del temporal y las del {@link Sanctorale santoral} de ese día.</p>
+ * <p>Es inmutable; se obtiene con {@link LiturgicalCalendar#getLiturgicalYear()}.</p>
+ * <p>El año de un {@link ProperCalendar calendario propio} ({@link #withProper(ProperCalendar)}) comparte
+ * los arreglos del año universal y sólo guarda los días que cambian: un mapa de bits de los días
+ * modificados y, por cada palabra del mapa, el número de días modificados anteriores.
+ * Así el acceso a un día sigue siendo O(1) y un propio ocupa unas decenas de bytes por año.</p>
+ * <p>También guarda los datos de la Liturgia de las Horas de cada día ({@link HoursRecord}), calculados
+ * al generar el año; un propio guarda en su parche, con un byte por día, los de los días que modifica.
+ * Como un día que cambia puede cambiar las vísperas de sus vecinos, el parche incluye también los días
+ * que sólo cambian en la Liturgia de las Horas.</p>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class LiturgicalYear {
+    private final int mYear;
+    private final long mFirstEpochDay;
+
+    /**
+     * Índice del Primer Domingo de Adviento, primer día del año litúrgico siguiente
+     */
+    private final int mAdventIndex;
+
+    /**
+     * Día de Pascua contado desde 1970-01-01, según el cómputo del calendario ({@link EasterComputus})
+     */
+    private final int mEaster;
+    private final int[] mRecords;
+    private final Celebration[] mCelebrations;
+
+    /**
+     * La celebración del temporal de mayor rango de cada día, para recalcular los días de los propios
+     */
+    private final Celebration[] mTemporale;
+
+    /**
+     * Datos de la Liturgia de las Horas de cada día del año universal ({@link HoursRecord})
+     */
+    private final byte[] mHours;
+
+    private final ProperCalendar mProper;
+
+    /**
+     * Días modificados por el propio (su registro o sus datos de la Liturgia de las Horas),
+     * <code>null</code> en el año universal
+     */
+    private final long[] mPatchBits;
+
+    /**
+     * Número de días modificados antes de cada palabra de {@link #mPatchBits}
+     */
+    private final int[] mPatchBase;
+    private final int[] mPatchRecords;
+    private final Celebration[] mPatchCelebrations;
+
+    /**
+     * Datos de la Liturgia de las Horas de los días modificados por el propio, en el orden de {@link #mPatchRecords}
+     */
+    private final byte[] mPatchHours;
+
+    private LiturgicalYear(int theYear, int theEaster, int[] theRecords, Celebration[] theCelebrations,
+                           Celebration[] theTemporale, byte[] theHours) {
+        mYear = theYear;
+        mFirstEpochDay = LocalDate.of(theYear, 1, 1).toEpochDay();
+        mAdventIndex = (int) (Lectionary.primaAdventu(theYear) - mFirstEpochDay);
+        mEaster = theEaster;
+        mRecords = theRecords;
+        mCelebrations = theCelebrations;
+        mTemporale = theTemporale;
+        mHours = theHours;
+        mProper = ProperCalendar.universal();
+        mPatchBits = null;
+        mPatchBase = null;
+        mPatchRecords = null;
+        mPatchCelebrations = null;
+        mPatchHours = null;
+    }
+
+    private LiturgicalYear(LiturgicalYear theBase, ProperCalendar theProper, long[] thePatchBits,
+                           int[] thePatchRecords, Celebration[] thePatchCelebrations, byte[] thePatchHours) {
+        mYear = theBase.mYear;
+        mFirstEpochDay = theBase.mFirstEpochDay;
+        mAdventIndex = theBase.mAdventIndex;
+        mEaster = theBase.mEaster;
+        mRecords = theBase.mRecords;
+        mCelebrations = theBase.mCelebrations;
+        mTemporale = theBase.mTemporale;
+        mHours = theBase.mHours;
+        mProper = theProper;
+        mPatchBits = thePatchBits;
+        mPatchBase = new int[thePatchBits.length];
+        for (int w = 1; w < thePatchBits.length; w++) {
+            mPatchBase[w] = mPatchBase[w - 1] + Long.bitCount(thePatchBits[w - 1]);
+        }
+        mPatchRecords = thePatchRecords;
+        mPatchCelebrations = thePatchCelebrations;
+        mPatchHours = thePatchHours;
+    }
+
+    /**
+     * Combina el temporal generado con el santoral en una sola pasada: los días del año,
+     * las celebraciones del temporal y las del santoral se recorren a la vez, en orden.
+     * En cada día prevalece la celebración de menor {@link Celebration#getRank() rango};
+     * a igualdad de rango, la del temporal y, dentro del temporal, la que no tiene semana del tiempo
+     * (una solemnidad, como la Inmaculada que prevalece sobre el Domingo de Adviento) sobre el Domingo o la feria,
+     * y si no, la primera generada.
+     *
+     * @param theCelebrations Celebraciones del año ordenadas por fecha (estable respecto al orden de generación)
+     * @param theSanctorale   Santoral que se combina con el temporal
+     * @param thePsalterWeeks La semana del salterio de cada día (ver {@link LiturgicalCalendar#getPsalterWeeks()}),
+     *                        que se guarda en los registros en lugar de la de cada celebración
+     * @param theEaster       El día de Pascua del calendario, contado desde 1970-01-01
+     */
+    static LiturgicalYear of(int theYear, List<Celebration> theCelebrations, Sanctorale theSanctorale,
+                             byte[] thePsalterWeeks, int theEaster) {
+        int length = LocalDate.of(theYear, 1, 1).lengthOfYear();
+        boolean isLeap = length == 366;
+        long theFirstDay = LocalDate.of(theYear, 1, 1).toEpochDay();
+        int[] theRecords = new int[length];
+        Celebration[] theDays = new Celebration[length];
+        Celebration[] theTemporaleDays = new Celebration[length];
+        // El año litúrgico cambia una sola vez en el año civil, el Primer Domingo de Adviento
+        long theAdvent = Lectionary.primaAdventu(theYear);
+        int t = 0;
+        int s = 0;
+        int tSize = theCelebrations.size();
+        int sSize = theSanctorale.size();
+        while (t < tSize && theCelebrations.get(t).getDate().toEpochDay() < theFirstDay) {
+            t++;
+        }
+        for (int i = 0; i < length; i++) {
+            long theEpochDay = theFirstDay + i;
+            Celebration theTemporale = null;
+            int theRank = Integer.MAX_VALUE;
+            for (; t < tSize; t++) {
+                Celebration mCelebration = theCelebrations.get(t);
+                if (mCelebration.getDate().toEpochDay() != theEpochDay) {
+                    break;
+                }
+                int r = rankOf(mCelebration.getRank());
+                if (r < theRank || (r == theRank && mCelebration.getTimeWeek() == 0
+                        && theTemporale.getTimeWeek() > 0)) {
+                    theTemporale = mCelebration;
+                    theRank = r;
+                }
+            }
+
+            int theSlot = Sanctorale.slotOf(i, isLeap);
+            while (s < sSize && theSanctorale.getSlot(s) < theSlot) {
+                s++;
+            }
+            // Dentro de un día el santoral está ordenado por rango: sólo compite el primero que no esté suprimido
+            int theSaint = -1;
+            for (; s < sSize && theSanctorale.getSlot(s) == theSlot; s++) {
+                if (theSaint < 0 && theSanctorale.getRank(s) != Sanctorale.SUPPRESSED) {
+                    theSaint = s;
+                }
+            }
+
+            Celebration theDay = principal(theEpochDay, theTemporale, theSanctorale, theSaint);
+            theTemporaleDays[i] = theTemporale;
+            if (theDay != null) {
+                int theLiturgicalYear = theEpochDay < theAdvent ? theYear : theYear + 1;
+                theDays[i] = theDay;
+                theRecords[i] = DayRecord.of(theDay, thePsalterWeeks[i],
+                        Lectionary.sundayCycle(theLiturgicalYear), Lectionary.weekdayCycle(theLiturgicalYear));
+            }
+        }
+        return new LiturgicalYear(theYear, theEaster, theRecords, theDays, theTemporaleDays,
+                hoursOf(theEaster, theFirstDay, theRecords, thePsalterWeeks));
+    }
+
+    /**
+     * Calcula los datos de la Liturgia de las Horas de cada día a partir de los registros del año.
+     * Se supone que el 31 de Diciembre del año anterior es un día de la Octava de Navidad y que el 1 de Enero
+     * del año siguiente es la solemnidad de Santa María, Madre de Dios
+     */
+    private static byte[] hoursOf(int theEaster, long theFirstDay, int[] theRecords, byte[] thePsalterWeeks) {
+        int length = theRecords.length;
+        int[] theOffices = new int[length];
+        boolean[] hasFirstVespers = new boolean[length];
+        for (int i = 0; i < length; i++) {
+            int theDay = (int) (theFirstDay + i);
+            boolean isSunday = EpochDays.dayOfWeek(theDay) == EpochDays.SUNDAY;
+            int theRank = DayRecord.rank(theRecords[i]);
+            theOffices[i] = theRecords[i] == DayRecord.EMPTY ? 0
+                    : HoursRecord.officeOf(theRank, isSunday, theDay - theEaster);
+            hasFirstVespers[i] = HoursRecord.hasFirstVespers(theOffices[i], theRank, isSunday);
+        }
+        byte[] theHours = new byte[length];
+        int theRank = Celebration.RANK_PRIVILEGED_WEEKDAY;
+        for (int i = 0; i < length; i++) {
+            boolean isNextSunday = EpochDays.dayOfWeek((int) (theFirstDay + i + 1)) == EpochDays.SUNDAY;
+            int theNextRank = i + 1 < length ? rankOf(DayRecord.rank(theRecords[i + 1])) : Celebration.RANK_SOLEMNITY;
+            boolean hasNextFirstVespers = i + 1 >= length || hasFirstVespers[i + 1];
+            int theDayRank = rankOf(DayRecord.rank(theRecords[i]));
+            boolean isFirstVespers = HoursRecord.yieldsVespers(theRank, theDayRank, hasFirstVespers[i],
+                    EpochDays.dayOfWeek((int) (theFirstDay + i)) == EpochDays.SUNDAY);
+            theHours[i] = HoursRecord.pack(thePsalterWeeks[i], theOffices[i],
+                    HoursRecord.yieldsVespers(theDayRank, theNextRank, hasNextFirstVespers, isNextSunday),
+                    isFirstVespers);
+            theRank = theDayRank;
+        }
+        return theHours;
+    }
+
+    /**
+     * @param theSaint La celebración del santoral del día, o <code>-1</code> si no tiene
+     * @return La celebración principal de un día
+     */
+    private static Celebration principal(long theEpochDay, Celebration theTemporale,
+                                         Sanctorale theSanctorale, int theSaint) {
+        if (theSaint < 0 || (theTemporale != null
+                && theSanctorale.getRank(theSaint) >= rankOf(theTemporale.getRank()))) {
+            return theTemporale;
+        }
+        return new Celebration(1, LocalDate.ofEpochDay(theEpochDay), theSanctorale.getCode(theSaint),
+                theTemporale == null ? 1 : theTemporale.getTime(),
+                theSanctorale.getColor(theSaint),
+                theTemporale == null ? 0 : theTemporale.getTimeWeek(),
+                theSanctorale.getRank(theSaint));
+    }
+
+    /**
+     * Aplica un calendario propio sobre este año. Sólo se recalculan los días en los que el santoral
+     * del propio difiere del universal, y sólo se guardan los que cambian de celebración principal
+     * y los que, por ellos, cambian en la Liturgia de las Horas (p.e. las vísperas de la víspera).
+     *
+     * @return El año del propio, que comparte los arreglos de este año
+     */
+    public LiturgicalYear withProper(ProperCalendar theProper) {
+        if (theProper == mProper) {
+            return this;
+        }
+        if (theProper == ProperCalendar.universal()) {
+            return base();
+        }
+        LiturgicalYear theBase = base();
+        boolean isLeap = isLeap();
+        Sanctorale theSanctorale = theProper.getSanctorale();
+        long[] theBits = new long[(mRecords.length + 63) >>> 6];
+        int[] theRecords = new int[theProper.getChangedSlotCount()];
+        Celebration[] theDays = new Celebration[theRecords.length];
+        int[] theYearRecords = null;
+        int n = 0;
+        for (int k = 0; k < theProper.getChangedSlotCount(); k++) {
+            int i = Sanctorale.indexOf(theProper.getChangedSlot(k), isLeap);
+            if (i < 0) {
+                continue;
+            }
+            Celebration theDay = principal(mFirstEpochDay + i, mTemporale[i],
+                    theSanctorale, theSanctorale.indexOfSlot(theProper.getChangedSlot(k)));
+            int theLiturgicalYear = getLiturgicalYear(i);
+            int theRecord = theDay == null ? DayRecord.EMPTY : DayRecord.of(theDay, HoursRecord.psalterWeek(mHours[i]),
+                    Lectionary.sundayCycle(theLiturgicalYear), Lectionary.weekdayCycle(theLiturgicalYear));
+            if (theRecord != mRecords[i]) {
+                // Las posiciones cambiadas están ordenadas, y con ellas los días
+                if (theYearRecords == null) {
+                    theYearRecords = mRecords.clone();
+                }
+                theYearRecords[i] = theRecord;
+                theBits[i >>> 6] |= 1L << i;
+                theRecords[n] = theRecord;
+                theDays[n] = theDay;
+                n++;
+            }
+        }
+        if (n == 0) {
+            return new LiturgicalYear(theBase, theProper, theBits, new int[0], new Celebration[0], new byte[0]);
+        }
+
+        // Se recalcula la Liturgia de las Horas del año y se añaden al parche los días en que cambia
+        byte[] thePsalterWeeks = new byte[mHours.length];
+        for (int i = 0; i < thePsalterWeeks.length; i++) {
+            thePsalterWeeks[i] = (byte) HoursRecord.psalterWeek(mHours[i]);
+        }
+        byte[] theHours = hoursOf(mEaster, mFirstEpochDay, theYearRecords, thePsalterWeeks);
+        long[] thePatchBits = theBits.clone();
+        int theSize = n;
+        for (int i = 0; i < theHours.length; i++) {
+            if (theHours[i] != mHours[i] && (thePatchBits[i >>> 6] & 1L << i) == 0) {
+                thePatchBits[i >>> 6] |= 1L << i;
+                theSize++;
+            }
+        }
+        int[] thePatchRecords = new int[theSize];
+        Celebration[] thePatchDays = new Celebration[theSize];
+        byte[] thePatchHours = new byte[theSize];
+        int p = 0;
+        int k = 0;
+        for (int i = 0; i < theHours.length; i++) {
+            if ((thePatchBits[i >>> 6] & 1L << i) == 0) {
+                continue;
+            }
+            if ((theBits[i >>> 6] & 1L << i) != 0) {
+                thePatchRecords[p] = theRecords[k];
+                thePatchDays[p] = theDays[k];
+                k++;
+            } else {
+                thePatchRecords[p] = mRecords[i];
+                thePatchDays[p] = mCelebrations[i];
+            }
+            thePatchHours[p] = theHours[i];
+            p++;
+        }
+        return new LiturgicalYear(theBase, theProper, thePatchBits, thePatchRecords, thePatchDays, thePatchHours);
+    }
+
+    private LiturgicalYear base() {
+        return mPatchBits == null ? this : new LiturgicalYear(mYear, mEaster, mRecords, mCelebrations, mTemporale, mHours);
+    }
+
+    /**
+     * @return La posición del día en el parche del propio, o <code>-1</code> si no está modificado
+     */
+    private int patchIndex(int theIndex) {
+        if (mPatchBits == null) {
+            return -1;
+        }
+        int w = theIndex >>> 6;
+        long theBit = 1L << theIndex;
+        if ((mPatchBits[w] & theBit) == 0) {
+            return -1;
+        }
+        return mPatchBase[w] + Long.bitCount(mPatchBits[w] & (theBit - 1));
+    }
+
+    /**
+     * @return El calendario propio de este año ({@link ProperCalendar#universal()} si no tiene)
+     */
+    public ProperCalendar getProper() {
+        return mProper;
+    }
+
+    /**
+     * @return El número de días que el propio modifica respecto al año universal, en su registro
+     * o en la Liturgia de las Horas
+     */
+    public int getPatchSize() {
+        return mPatchRecords == null ? 0 : mPatchRecords.length;
+    }
+
+    /**
+     * Las celebraciones sin rango conocido ceden ante cualquier otra
+     */
+    private static int rankOf(int theRank) {
+        return theRank == 0 ? Celebration.RANK_WEEKDAY + 1 : theRank;
+    }
+
+    public int getYear() {
+        return mYear;
+    }
+
+    /**
+     * @return El número de días del año (365 o 366)
+     */
+    public int length() {
+        return mRecords.length;
+    }
+
+    public boolean isLeap() {
+        return mRecords.length == 366;
+    }
+
+    /**
+     * @return El índice de una fecha de este año (0 = 1 de Enero)
+     */
+    public int indexOf(LocalDate theDate) {
+        if (theDate.getYear() != mYear) {
+            throw new IllegalArgumentException(theDate + " no pertenece al año " + mYear);
+        }
+        return theDate.getDayOfYear() - 1;
+    }
+
+    public LocalDate dateOf(int theIndex) {
+        return LocalDate.ofEpochDay(mFirstEpochDay + theIndex);
+    }
+
+    /**
+     * @return El día del 1 de Enero de este año, contado desde 1970-01-01
+     */
+    public long getFirstEpochDay() {
+        return mFirstEpochDay;
+    }
+
+    /**
+     * @return El registro compacto de un día, o {@link DayRecord#EMPTY} si no tiene celebración
+     */
+    public int getRecord(int theIndex) {
+        int p = patchIndex(theIndex);
+        return p < 0 ? mRecords[theIndex] : mPatchRecords[p];
+    }
+
+    /**
+     * @return La celebración principal de un día, o <code>null</code> si no tiene
+     */
+    public Celebration getCelebration(int theIndex) {
+        int p = patchIndex(theIndex);
+        return p < 0 ? mCelebrations[theIndex] : mPatchCelebrations[p];
+    }
+
+    public Celebration getCelebration(LocalDate theDate) {
+        return getCelebration(indexOf(theDate));
+    }
+
+    /**
+     * @return Las celebraciones principales del año, una por día, ordenadas por fecha
+     */
+    public List<Celebration> getCelebrations() {
+        List<Celebration> theList = new ArrayList<>(mCelebrations.length);
+        for (int i = 0; i < mCelebrations.length; i++) {
+            Celebration mCelebration = getCelebration(i);
+            if (mCelebration != null) {
+                theList.add(mCelebration);
+            }
+        }
+        return theList;
+    }
+
+    /**
+     * @return El ciclo dominical del Leccionario de un día (ver {@link Lectionary})
+     */
+    public int getSundayCycle(int theIndex) {
+        return Lectionary.sundayCycle(getLiturgicalYear(theIndex));
+    }
+
+    /**
+     * @return El ciclo ferial del Leccionario de un día (ver {@link Lectionary})
+     */
+    public int getWeekdayCycle(int theIndex) {
+        return Lectionary.weekdayCycle(getLiturgicalYear(theIndex));
+    }
+
+    /**
+     * @return El año litúrgico de un día: este año hasta la víspera del Primer Domingo de Adviento, el siguiente después
+     */
+    public int getLiturgicalYear(int theIndex) {
+        return theIndex < mAdventIndex ? mYear : mYear + 1;
+    }
+
+    /**
+     * Copia los registros de un rango de días en <code>theTarget</code>
+     */
+    public void copyRecords(int theFrom, int[] theTarget, int theOffset, int theLength) {
+        System.arraycopy(mRecords, theFrom, theTarget, theOffset, theLength);
+        if (mPatchBits != null) {
+            for (int i = theFrom; i < theFrom + theLength; i++) {
+                int p = patchIndex(i);
+                if (p >= 0) {
+                    theTarget[theOffset + i - theFrom] = mPatchRecords[p];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Los datos de la Liturgia de las Horas de un día ({@link HoursRecord})
+     */
+    public byte getHours(int theIndex) {
+        int p = patchIndex(theIndex);
+        return p < 0 ? mHours[theIndex] : mPatchHours[p];
+    }
+
+    /**
+     * Copia los datos de la Liturgia de las Horas ({@link HoursRecord}) de un rango de días en <code>theTarget</code>,
+     * p.e. los de un mes
+     */
+    public void copyHours(int theFrom, byte[] theTarget, int theOffset, int theLength) {
+        System.arraycopy(mHours, theFrom, theTarget, theOffset, theLength);
+        if (mPatchBits != null) {
+            for (int i = theFrom; i < theFrom + theLength; i++) {
+                int p = patchIndex(i);
+                if (p >= 0) {
+                    theTarget[theOffset + i - theFrom] = mPatchHours[p];
+                }
+            }
+        }
+    }
+}
@@ -1,41 +1,372 @@
 package app.liturgiaplus;
 
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * <p>Generación por lotes del calendario desde la línea de comandos.</p>
+ * <p>Genera un rango de años para uno o varios perfiles de configuración (regiones) en una sola
+ * invocación. Los años se generan en paralelo y se escriben en orden, a medida que están listos,
+ * a través de un <code>Writer</code> con búfer. Dentro de un año, los perfiles comparten
+ * los segmentos del calendario que no dependen de su configuración.</p>
+ *
+ * <pre>
+ * java -jar CatholicPerpetualCalendar.jar --from 2020 --to 2030 \
+ *     --profile universal: \
+ *     --profile es:EpiphanyOnSunday=false,ImmaculatePrevails=true \
+ *     --format csv --output calendario.csv
+ * </pre>
+ * <p>Con <code>--format sqlite</code> los años se escriben en una base de datos SQLite
+ * con {@link SqliteExporter}; el controlador JDBC debe estar en el classpath (tarea <code>exportSqlite</code>).</p>
+ */
 public class Main {
+    /**
+     * Claves de configuración que admite <code>--set</code>: sólo las que cambian algún segmento del año
+     */
+    private static final List<String> KEYS = generatorKeys();
+
+    private static final String USAGE = String.join("\n",
+            "Uso: Main [opciones]",
+            "  --year <año>                  Genera un solo año (por defecto, el año actual)",
+            "  --from <año> --to <año>       Genera un rango de años, ambos incluidos",
+            "  --set <clave>=<valor>         Configuración del perfil por defecto (repetible)",
+            "  --profile <nombre>:<k>=<v>,.. Perfil de configuración con nombre (repetible)",
+            "  --format text|csv|jsonl|sqlite Formato de salida (por defecto text); sqlite necesita --output",
+            "  --output <fichero>            Fichero de salida (por defecto la salida estándar)",
+            "  --threads <n>                 Hilos de generación (por defecto, los procesadores disponibles)",
+            "Claves de configuración: " + String.join(", ", KEYS));
+
+    /**
+     * Primer año en el que se aplica el calendario gregoriano (y el cómputo de Butcher-Meeus)
+     */
+    private static final int MIN_YEAR = 1583;
+    private static final int MAX_YEAR = 9999;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
     public static void main(String[] args) {
-        setData();
-    }
-
-    public static void setData() {
-        HashMap<String, Boolean> mMapA=new HashMap();
-        mMapA.put("EpiphanyOnSunday",true);
-        HashMap<String, Boolean> mMapB=new HashMap();
-        mMapB.put("EpiphanyOnSunday",false);
-        //mMapB.put("ImmaculatePrevails",false);
-        mMapB.put("AscensionOriginal",true);
-        //mMapB.put("CorpusOriginal",true);
-        LiturgicalCalendar.generateYearlyCalendar(2022,mMapB);
-        //System.out.println("\n---\n----- 2022 -----\n---");
-        //LiturgicalCalendar.generateYearlyCalendar(2022);
-        LiturgicalCalendar.printCalendar();
-        //listView.setItems(items);
-
-        //System.out.println(LiturgicalCalendar.getCalendar().get(0).getName());
-        //System.out.println(LiturgicalCalendar.getAdventTest3(2022).toString());
-        //LiturgicalCalendar.getAdventTest(2022).toString();
-/*
-        LiturgicalCalendar.getAdventTest(2016).toString();
-        LiturgicalCalendar.getAdventTest(2017).toString();
-        LiturgicalCalendar.getAdventTest(2018).toString();
-        LiturgicalCalendar.getAdventTest(2019).toString();
-        LiturgicalCalendar.getAdventTest(2020).toString();
-        LiturgicalCalendar.getAdventTest(2021).toString();
-        LiturgicalCalendar.getAdventTest(2022).toString();
-        LiturgicalCalendar.getAdventTest(2023).toString();
-*/
-    }
-
-}
\ No newline at end of file
+        Options theOptions;
+        try {
+            theOptions = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            run(theOptions);
+        } catch (IOException e) {
+            System.err.println("Error de escritura: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Genera todos los años de todos los perfiles y los escribe en orden (año, perfil).
+     * <p>Como mucho se mantienen en memoria <code>2 × hilos</code> años renderizados:
+     * el siguiente año se encola a medida que el más antiguo se escribe.</p>
+     */
+    static void run(Options theOptions) throws IOException {
+        if (theOptions.sqlite) {
+            writeSqlite(theOptions);
+            return;
+        }
+        OutputStream theStream = theOptions.output == null
+                ? System.out
+                : new FileOutputStream(theOptions.output);
+        Writer out = new BufferedWriter(new OutputStreamWriter(theStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        try {
+            theOptions.format.writeHeader(out);
+            if (theOptions.from == theOptions.to || theOptions.threads == 1) {
+                writeSequential(theOptions, out);
+            } else {
+                writeParallel(theOptions, out);
+            }
+        } finally {
+            if (theOptions.output == null) {
+                out.flush();
+            } else {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Genera todos los años en un {@link CalendarStore} y los escribe en una base de datos SQLite
+     */
+    private static void writeSqlite(Options theOptions) throws IOException {
+        List<ProperCalendar> thePropers = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Boolean>> theProfile : theOptions.profiles.entrySet()) {
+            thePropers.add(ProperCalendar.of(theProfile.getKey(), theProfile.getValue()));
+        }
+        CalendarStore theStore = CalendarStore.build(theOptions.from, theOptions.to, thePropers, theOptions.threads);
+        try (Connection theConnection = SqliteExporter.open(theOptions.output)) {
+            new SqliteExporter(theConnection).export(theStore);
+        } catch (SQLException e) {
+            throw new IOException("Error de la base de datos: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Camino de arranque rápido: un solo año, o un solo hilo, se genera en el hilo principal
+     * sin crear el pool de generación.
+     */
+    private static void writeSequential(Options theOptions, Writer out) throws IOException {
+        for (int theYear = theOptions.from; theYear <= theOptions.to; theYear++) {
+            writeYear(out, theYear, theOptions);
+        }
+    }
+
+    private static void writeParallel(Options theOptions, Writer out) throws IOException {
+        ExecutorService thePool = Executors.newFixedThreadPool(theOptions.threads);
+        try {
+            ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+            int window = 2 * theOptions.threads;
+            for (int theYear = theOptions.from; theYear <= theOptions.to; theYear++) {
+                if (pending.size() >= window) {
+                    out.write(await(pending.poll()));
+                }
+                pending.add(thePool.submit(new YearJob(theYear, theOptions)));
+            }
+            while (!pending.isEmpty()) {
+                out.write(await(pending.poll()));
+            }
+        } finally {
+            thePool.shutdownNow();
+        }
+    }
+
+    private static String await(Future<String> theFuture) throws IOException {
+        try {
+            return theFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Generación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error generando el calendario", e.getCause());
+        }
+    }
+
+    /**
+     * Genera un año para todos los perfiles con {@link LiturgicalCalendar#newCalendars(int, List)},
+     * que calcula una sola vez los segmentos comunes a todos ellos, y lo escribe perfil a perfil.
+     */
+    private static void writeYear(Appendable out, int theYear, Options theOptions) throws IOException {
+        List<LiturgicalCalendar> theCalendars = LiturgicalCalendar.newCalendars(theYear,
+                new ArrayList<>(theOptions.profiles.values()));
+        int i = 0;
+        for (String theProfile : theOptions.profiles.keySet()) {
+            theOptions.format.writeYear(out, theProfile, theYear, theCalendars.get(i++).getLiturgicalYear().getCelebrations());
+        }
+    }
+
+    /**
+     * @return Las claves de {@link LiturgicalCalendar#SETTINGS_KEYS} de las que depende algún segmento, en el mismo orden
+     */
+    private static List<String> generatorKeys() {
+        List<String> theKeys = new ArrayList<>();
+        for (String theKey : LiturgicalCalendar.SETTINGS_KEYS) {
+            for (LiturgicalCalendar.Segment theSegment : LiturgicalCalendar.Segment.VALUES) {
+                if (theSegment.getSettingsKeys().contains(theKey)) {
+                    theKeys.add(theKey);
+                    break;
+                }
+            }
+        }
+        return List.copyOf(theKeys);
+    }
+
+    /**
+     * Genera y renderiza un año de todos los perfiles. Se ejecuta en el pool de generación.
+     */
+    private static final class YearJob implements Callable<String> {
+        private final int mYear;
+        private final Options mOptions;
+
+        YearJob(int theYear, Options theOptions) {
+            mYear = theYear;
+            mOptions = theOptions;
+        }
+
+        @Override
+        public String call() throws IOException {
+            StringBuilder sb = new StringBuilder(32 * 1024 * mOptions.profiles.size());
+            writeYear(sb, mYear, mOptions);
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Opciones de la línea de comandos
+     */
+    static final class Options {
+        int from;
+        int to;
+        boolean hasYears;
+        CalendarFormat format = CalendarFormat.TEXT;
+        boolean sqlite;
+        String output;
+        int threads = Runtime.getRuntime().availableProcessors();
+        final Map<String, Map<String, Boolean>> profiles = new LinkedHashMap<>();
+
+        static Options parse(String[] args) {
+            Options theOptions = new Options();
+            HashMap<String, Boolean> defaultSettings = new HashMap<>();
+            for (int i = 0; i < args.length; i++) {
+                String theArg = args[i];
+                switch (theArg) {
+                    case "--year":
+                        theOptions.from = parseYear(value(args, ++i, theArg));
+                        theOptions.to = theOptions.from;
+                        theOptions.hasYears = true;
+                        break;
+                    case "--from":
+                        theOptions.from = parseYear(value(args, ++i, theArg));
+                        if (!theOptions.hasYears) {
+                            theOptions.to = theOptions.from;
+                        }
+                        theOptions.hasYears = true;
+                        break;
+                    case "--to":
+                        theOptions.to = parseYear(value(args, ++i, theArg));
+                        if (!theOptions.hasYears) {
+                            theOptions.from = theOptions.to;
+                        }
+                        theOptions.hasYears = true;
+                        break;
+                    case "--set":
+                        parseSetting(value(args, ++i, theArg), defaultSettings);
+                        break;
+                    case "--profile":
+                        parseProfile(value(args, ++i, theArg), theOptions.profiles);
+                        break;
+                    case "--format":
+                        String theFormat = value(args, ++i, theArg);
+                        theOptions.sqlite = theFormat.equalsIgnoreCase("sqlite");
+                        if (!theOptions.sqlite) {
+                            theOptions.format = parseFormat(theFormat);
+                        }
+                        break;
+                    case "--output":
+                        theOptions.output = value(args, ++i, theArg);
+                        break;
+                    case "--threads":
+                        theOptions.threads = parsePositive(value(args, ++i, theArg), theArg);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opción desconocida: " + theArg);
+                }
+            }
+            if (!theOptions.hasYears) {
+                // Sólo se consulta la zona horaria si no se ha indicado ningún año
+                theOptions.from = LocalDate.now().getYear();
+                theOptions.to = theOptions.from;
+            }
+            if (theOptions.from > theOptions.to) {
+                throw new IllegalArgumentException(
+                        String.format("Rango de años vacío: %d > %d", theOptions.from, theOptions.to));
+            }
+            if (theOptions.sqlite && theOptions.output == null) {
+                throw new IllegalArgumentException("--format sqlite necesita --output");
+            }
+            if (theOptions.profiles.isEmpty()) {
+                theOptions.profiles.put("default", defaultSettings);
+            } else if (!defaultSettings.isEmpty()) {
+                throw new IllegalArgumentException("--set no puede combinarse con --profile");
+            }
+            return theOptions;
+        }
+
+        private static String value(String[] args, int i, String theOption) {
+            if (i >= args.length) {
+                throw new IllegalArgumentException("Falta el valor de " + theOption);
+            }
+            return args[i];
+        }
+
+        private static int parseYear(String theValue) {
+            int theYear = parsePositive(theValue, "año");
+            if (theYear < MIN_YEAR || theYear > MAX_YEAR) {
+                throw new IllegalArgumentException(
+                        String.format("Año fuera de rango (%d-%d): %d", MIN_YEAR, MAX_YEAR, theYear));
+            }
+            return theYear;
+        }
+
+        private static int parsePositive(String theValue, String theName) {
+            try {
+                int n = Integer.parseInt(theValue);
+                if (n > 0) {
+                    return n;
+                }
+            } catch (NumberFormatException ignored) {
+            }
+            throw new IllegalArgumentException(String.format("Valor no válido para %s: %s", theName, theValue));
+        }
+
+        private static CalendarFormat parseFormat(String theValue) {
+            try {
+                return CalendarFormat.valueOf(theValue.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato desconocido: " + theValue);
+            }
+        }
+
+        /**
+         * <code>nombre:clave=valor,clave=valor</code>. La lista de claves puede estar vacía.
+         */
+        private static void parseProfile(String theValue, Map<String, Map<String, Boolean>> theProfiles) {
+            int colon = theValue.indexOf(':');
+            String theName = colon < 0 ? theValue : theValue.substring(0, colon);
+            if (theName.isEmpty()) {
+                throw new IllegalArgumentException("Perfil sin nombre: " + theValue);
+            }
+            HashMap<String, Boolean> theSettings = new HashMap<>();
+            if (colon >= 0) {
+                for (String theSetting : theValue.substring(colon + 1).split(",")) {
+                    if (!theSetting.isEmpty()) {
+                        parseSetting(theSetting, theSettings);
+                    }
+                }
+            }
+            if (theProfiles.put(theName, theSettings) != null) {
+                throw new IllegalArgumentException("Perfil repetido: " + theName);
+            }
+        }
+
+        private static void parseSetting(String theValue, Map<String, Boolean> theSettings) {
+            int eq = theValue.indexOf('=');
+            String theKey = eq < 0 ? theValue : theValue.substring(0, eq);
+            if (!KEYS.contains(theKey)) {
+                throw new IllegalArgumentException("Clave de configuración desconocida: " + theKey);
+            }
+            String theFlag = eq < 0 ? "true" : theValue.substring(eq + 1);
+            if (!theFlag.equals("true") && !theFlag.equals("false")) {
+                throw new IllegalArgumentException(
+                        String.format("Valor no válido para %s: %s", theKey, theFlag));
+            }
+            theSettings.put(theKey, Boolean.valueOf(theFlag));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package app.liturgiaplus;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * <p>Un mes en una rejilla de 6 semanas por 7 días, con los días finales del mes anterior
+ * y los iniciales del siguiente (aunque sean de otro año) para completar las semanas.</p>
+ * <p>Se obtiene de {@link CalendarViews#getMonth(int, int)}, que la conserva en caché.</p>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class MonthView extends DayGrid {
+    public static final int WEEKS = 6;
+    public static final int CELLS = WEEKS * 7;
+
+    private final int mYear;
+    private final int mMonth;
+    private final DayOfWeek mFirstDayOfWeek;
+    private final int mFirstCell;
+    private final int mLength;
+
+    MonthView(int theYear, int theMonth, DayOfWeek theFirstDayOfWeek, long theFirstEpochDay, int[] theRecords) {
+        super(theFirstEpochDay, theRecords);
+        mYear = theYear;
+        mMonth = theMonth;
+        mFirstDayOfWeek = theFirstDayOfWeek;
+        LocalDate theFirst = LocalDate.of(theYear, theMonth, 1);
+        mFirstCell = (int) (theFirst.toEpochDay() - theFirstEpochDay);
+        mLength = theFirst.lengthOfMonth();
+    }
+
+    /**
+     * @return El día en que empieza la rejilla de un mes: el primer día de la semana anterior o igual al día 1
+     */
+    static long firstEpochDay(int theYear, int theMonth, DayOfWeek theFirstDayOfWeek) {
+        LocalDate theFirst = LocalDate.of(theYear, theMonth, 1);
+        int theLeading = (theFirst.getDayOfWeek().getValue() - theFirstDayOfWeek.getValue() + 7) % 7;
+        return theFirst.toEpochDay() - theLeading;
+    }
+
+    public int getYear() {
+        return mYear;
+    }
+
+    /**
+     * @return El mes, de 1 (Enero) a 12
+     */
+    public int getMonth() {
+        return mMonth;
+    }
+
+    /**
+     * @return El día de la semana de la primera columna
+     */
+    public DayOfWeek getFirstDayOfWeek() {
+        return mFirstDayOfWeek;
+    }
+
+    /**
+     * @return La celda del día 1 del mes
+     */
+    public int getFirstCell() {
+        return mFirstCell;
+    }
+
+    /**
+     * @return La celda del último día del mes
+     */
+    public int getLastCell() {
+        return mFirstCell + mLength - 1;
+    }
+
+    /**
+     * @return Si la celda es del mes, y no de los meses vecinos
+     */
+    public boolean isInMonth(int theCell) {
+        return theCell >= mFirstCell && theCell < mFirstCell + mLength;
+    }
+
+    @Override
+    public String toString() {
+        return "MonthView " + mYear + "-" + mMonth + " desde " + getDate(0);
+    }
+}
@@ -0,0 +1,166 @@
+package app.liturgiaplus;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Calendario propio de una región (nación, diócesis...): un parche sobre el de su calendario padre.</p>
+ * <p>Un propio se compone de un santoral parcial (ver {@link Sanctorale#overlay(Sanctorale)}: fiestas nuevas,
+ * cambios de rango y traslados) y de las claves de configuración de {@link LiturgicalCalendar} que cambian
+ * respecto al padre (p.e. {@link LiturgicalCalendar#IMMACULATE_PREVAILS} en España).
+ * Un propio diocesano tiene como padre el de su nación, y éste el {@link #universal() universal}.</p>
+ * <p>El santoral efectivo y las posiciones mes-día en las que difiere del universal se calculan una vez
+ * por propio, no por año. Con ellas, {@link LiturgicalYear#withProper(ProperCalendar)} construye el año
+ * de la región como un parche sobre el año universal, sin copiarlo.</p>
+ *
+ * <pre>
+ * ProperCalendar spain = ProperCalendar.load("es", ProperCalendar.universal(),
+ *         Map.of(LiturgicalCalendar.IMMACULATE_PREVAILS, true), "proper-es.txt");
+ * ProperCalendar madrid = ProperCalendar.load("es-madrid", spain, Map.of(), "/propios/madrid.txt");
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class ProperCalendar {
+    private final String mName;
+    private final ProperCalendar mParent;
+    private final Map<String, Boolean> mSettings;
+    private final Sanctorale mSanctorale;
+
+    /**
+     * Posiciones mes-día en las que la celebración principal del santoral efectivo difiere de la del universal
+     */
+    private final short[] mChangedSlots;
+
+    private ProperCalendar(String theName, ProperCalendar theParent, Map<String, Boolean> theSettings,
+                           Sanctorale theSanctorale, short[] theChangedSlots) {
+        mName = theName;
+        mParent = theParent;
+        mSettings = theSettings;
+        mSanctorale = theSanctorale;
+        mChangedSlots = theChangedSlots;
+    }
+
+    private static final class Universal {
+        static final ProperCalendar INSTANCE = new ProperCalendar("universal", null,
+                Map.of(), Sanctorale.universal(), new short[0]);
+    }
+
+    /**
+     * @return El Calendario Romano General, sin propios
+     */
+    public static ProperCalendar universal() {
+        return Universal.INSTANCE;
+    }
+
+    /**
+     * @param theSettings Claves de configuración que cambian respecto al padre
+     * @param thePatch    Santoral propio, aplicado sobre el santoral efectivo del padre
+     */
+    public static ProperCalendar of(String theName, ProperCalendar theParent,
+                                    Map<String, Boolean> theSettings, Sanctorale thePatch) {
+        HashMap<String, Boolean> theMerged = new HashMap<>(theParent.mSettings);
+        theMerged.putAll(theSettings);
+        Sanctorale theSanctorale = theParent.mSanctorale.overlay(thePatch);
+        return new ProperCalendar(theName, theParent, Map.copyOf(theMerged), theSanctorale,
+                changedSlots(Sanctorale.universal(), theSanctorale));
+    }
+
+    /**
+     * Un calendario raíz con un santoral completo en lugar del universal, p.e. el santoral universal
+     * vuelto a leer sin reiniciar el proceso (ver {@link CalendarSnapshots}). Sus años se construyen,
+     * como los de cualquier propio, recalculando sólo los días en que difiere del universal,
+     * y sus hijos se crean con {@link #of(String, ProperCalendar, Map, Sanctorale)}.
+     *
+     * @param theSanctorale El santoral completo, no un parche
+     */
+    public static ProperCalendar root(String theName, Map<String, Boolean> theSettings, Sanctorale theSanctorale) {
+        return new ProperCalendar(theName, null, Map.copyOf(theSettings), theSanctorale,
+                changedSlots(Sanctorale.universal(), theSanctorale));
+    }
+
+    /**
+     * @return Un perfil con el santoral universal y otra configuración (p.e. la Epifanía en Domingo)
+     */
+    public static ProperCalendar of(String theName, Map<String, Boolean> theSettings) {
+        return new ProperCalendar(theName, universal(), Map.copyOf(theSettings),
+                Sanctorale.universal(), new short[0]);
+    }
+
+    /**
+     * Como {@link #of(String, ProperCalendar, Map, Sanctorale)}, con el santoral propio leído
+     * de un recurso (ver {@link Sanctorale#load(String)})
+     */
+    public static ProperCalendar load(String theName, ProperCalendar theParent,
+                                      Map<String, Boolean> theSettings, String theResource) {
+        return of(theName, theParent, theSettings, Sanctorale.load(theResource));
+    }
+
+    /**
+     * Recorre los dos santorales a la vez y anota las posiciones cuya celebración principal cambia
+     */
+    private static short[] changedSlots(Sanctorale a, Sanctorale b) {
+        short[] theSlots = new short[Sanctorale.SLOTS];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size() || j < b.size()) {
+            int theSlot = Math.min(i < a.size() ? a.getSlot(i) : Integer.MAX_VALUE,
+                    j < b.size() ? b.getSlot(j) : Integer.MAX_VALUE);
+            int x = i < a.size() && a.getSlot(i) == theSlot ? i : -1;
+            int y = j < b.size() && b.getSlot(j) == theSlot ? j : -1;
+            if (x < 0 || y < 0 || a.getCodeId(x) != b.getCodeId(y)
+                    || a.getRank(x) != b.getRank(y) || a.getColor(x) != b.getColor(y)) {
+                theSlots[n++] = (short) theSlot;
+            }
+            while (i < a.size() && a.getSlot(i) == theSlot) {
+                i++;
+            }
+            while (j < b.size() && b.getSlot(j) == theSlot) {
+                j++;
+            }
+        }
+        short[] theResult = new short[n];
+        System.arraycopy(theSlots, 0, theResult, 0, n);
+        return theResult;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * @return El calendario padre, o <code>null</code> para el universal y los {@link #root raíz}
+     */
+    public ProperCalendar getParent() {
+        return mParent;
+    }
+
+    /**
+     * @return La configuración efectiva: la del padre con los cambios de este propio
+     */
+    public Map<String, Boolean> getSettings() {
+        return mSettings;
+    }
+
+    /**
+     * @return El santoral efectivo: el universal con los propios de toda la cadena aplicados
+     */
+    public Sanctorale getSanctorale() {
+        return mSanctorale;
+    }
+
+    int getChangedSlotCount() {
+        return mChangedSlots.length;
+    }
+
+    int getChangedSlot(int i) {
+        return mChangedSlots[i];
+    }
+
+    @Override
+    public String toString() {
+        return mParent == null ? mName : mParent + "/" + mName;
+    }
+}
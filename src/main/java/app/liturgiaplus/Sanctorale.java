@@ -0,0 +1,291 @@
+package app.liturgiaplus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * <p>Santoral: las celebraciones de fecha fija (mes y día) con su rango, color y código.</p>
+ * <p>Se lee de un recurso de texto con una celebración por línea:</p>
+ * <pre>
+ * # comentario
+ * MM-DD rango color CÓDIGO  # nombre
+ * 01-24 10 1 PST01-24        # San Francisco de Sales
+ * </pre>
+ * <p>El santoral universal ({@link #universal()}) se carga una sola vez, la primera vez que se usa.
+ * Los propios nacionales y diocesanos se cargan con {@link #load(String)} o {@link #read(Reader)}
+ * y se aplican sobre otro santoral con {@link #overlay(Sanctorale)}.</p>
+ * <p>En un propio, una línea con el código de una celebración del santoral base la reemplaza
+ * (cambio de rango, de color o traslado a otra fecha), y el rango <code>0</code> la suprime.</p>
+ * <p>Las celebraciones se guardan en columnas de primitivos ordenadas por posición mes-día
+ * (la del día en un año bisiesto, 0 = 1 de Enero) y, dentro de un mismo día, por rango,
+ * de modo que se pueden recorrer a la vez que los días del año (ver {@link LiturgicalYear}).</p>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class Sanctorale {
+    /**
+     * Número de posiciones mes-día: los días de un año bisiesto
+     */
+    static final int SLOTS = 366;
+
+    /**
+     * Posición del 29 de Febrero
+     */
+    static final int LEAP_DAY = 59;
+
+    /**
+     * Rango de una línea de un propio que suprime la celebración del santoral base
+     */
+    public static final int SUPPRESSED = 0;
+
+    private static final String UNIVERSAL = "sanctorale.txt";
+
+    /**
+     * Días acumulados al comienzo de cada mes en un año bisiesto
+     */
+    private static final int[] MONTH_START = {0, 31, 60, 91, 121, 152, 182, 213, 244, 274, 305, 335};
+
+    private static final int[] MONTH_LENGTH = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private final short[] mSlots;
+    private final byte[] mRanks;
+    private final byte[] mColors;
+    private final int[] mCodes;
+
+    private Sanctorale(short[] theSlots, byte[] theRanks, byte[] theColors, int[] theCodes) {
+        mSlots = theSlots;
+        mRanks = theRanks;
+        mColors = theColors;
+        mCodes = theCodes;
+    }
+
+    private static final class Universal {
+        static final Sanctorale INSTANCE = load(UNIVERSAL);
+    }
+
+    /**
+     * @return El santoral del Calendario Romano General
+     */
+    public static Sanctorale universal() {
+        return Universal.INSTANCE;
+    }
+
+    /**
+     * @return Un santoral sin celebraciones, p.e. el parche de un propio que sólo cambia la configuración
+     */
+    public static Sanctorale empty() {
+        return new Sanctorale(new short[0], new byte[0], new byte[0], new int[0]);
+    }
+
+    /**
+     * Carga un santoral de un recurso del paquete <code>app.liturgiaplus</code>
+     * (o de una ruta absoluta del classpath si empieza por <code>/</code>)
+     */
+    public static Sanctorale load(String theResource) {
+        InputStream in = Sanctorale.class.getResourceAsStream(theResource);
+        if (in == null) {
+            throw new IllegalArgumentException("No se encuentra el santoral " + theResource);
+        }
+        try (Reader theReader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return read(theReader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Sanctorale read(Reader theReader) throws IOException {
+        BufferedReader in = new BufferedReader(theReader);
+        short[] theSlots = new short[256];
+        byte[] theRanks = new byte[256];
+        byte[] theColors = new byte[256];
+        int[] theCodes = new int[256];
+        int n = 0;
+        int lineNumber = 0;
+        String theLine;
+        while ((theLine = in.readLine()) != null) {
+            lineNumber++;
+            int theComment = theLine.indexOf('#');
+            if (theComment >= 0) {
+                theLine = theLine.substring(0, theComment);
+            }
+            theLine = theLine.trim();
+            if (theLine.isEmpty()) {
+                continue;
+            }
+            String[] theFields = theLine.split("\\s+");
+            if (theFields.length != 4) {
+                throw new IllegalArgumentException("Línea " + lineNumber + ": se esperaba 'MM-DD rango color código'");
+            }
+            if (n == theSlots.length) {
+                theSlots = Arrays.copyOf(theSlots, n * 2);
+                theRanks = Arrays.copyOf(theRanks, n * 2);
+                theColors = Arrays.copyOf(theColors, n * 2);
+                theCodes = Arrays.copyOf(theCodes, n * 2);
+            }
+            try {
+                theSlots[n] = (short) slotOf(theFields[0]);
+                theRanks[n] = (byte) Integer.parseInt(theFields[1]);
+                theColors[n] = (byte) Integer.parseInt(theFields[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Línea " + lineNumber + ": " + e.getMessage());
+            }
+            if (theRanks[n] < SUPPRESSED || theRanks[n] > Celebration.RANK_WEEKDAY) {
+                throw new IllegalArgumentException("Línea " + lineNumber + ": rango no válido " + theFields[1]);
+            }
+            theCodes[n] = CelebrationCodes.idOf(theFields[3]);
+            n++;
+        }
+        return sorted(theSlots, theRanks, theColors, theCodes, n);
+    }
+
+    /**
+     * Ordena por posición y rango, conservando el orden del recurso entre iguales
+     */
+    private static Sanctorale sorted(short[] theSlots, byte[] theRanks, byte[] theColors, int[] theCodes, int n) {
+        long[] theKeys = new long[n];
+        for (int i = 0; i < n; i++) {
+            theKeys[i] = (long) theSlots[i] << 40 | (long) theRanks[i] << 32 | i;
+        }
+        Arrays.sort(theKeys);
+        short[] theSortedSlots = new short[n];
+        byte[] theSortedRanks = new byte[n];
+        byte[] theSortedColors = new byte[n];
+        int[] theSortedCodes = new int[n];
+        for (int i = 0; i < n; i++) {
+            int j = (int) theKeys[i];
+            theSortedSlots[i] = theSlots[j];
+            theSortedRanks[i] = theRanks[j];
+            theSortedColors[i] = theColors[j];
+            theSortedCodes[i] = theCodes[j];
+        }
+        return new Sanctorale(theSortedSlots, theSortedRanks, theSortedColors, theSortedCodes);
+    }
+
+    /**
+     * @param theMonthDay Mes y día en la forma <code>MM-DD</code>
+     * @return La posición mes-día (0-365)
+     */
+    static int slotOf(String theMonthDay) {
+        if (theMonthDay.length() != 5 || theMonthDay.charAt(2) != '-') {
+            throw new NumberFormatException("fecha no válida " + theMonthDay);
+        }
+        int theMonth = Integer.parseInt(theMonthDay.substring(0, 2));
+        int theDay = Integer.parseInt(theMonthDay.substring(3));
+        if (theMonth < 1 || theMonth > 12 || theDay < 1 || theDay > MONTH_LENGTH[theMonth - 1]) {
+            throw new NumberFormatException("fecha no válida " + theMonthDay);
+        }
+        return MONTH_START[theMonth - 1] + theDay - 1;
+    }
+
+    /**
+     * @return Un santoral nuevo: éste con las celebraciones de <code>thePatch</code> añadidas o reemplazadas
+     * por código, sin las suprimidas
+     */
+    public Sanctorale overlay(Sanctorale thePatch) {
+        BitSet thePatched = new BitSet();
+        for (int i = 0; i < thePatch.size(); i++) {
+            thePatched.set(thePatch.mCodes[i]);
+        }
+        int n = size() + thePatch.size();
+        short[] theSlots = new short[n];
+        byte[] theRanks = new byte[n];
+        byte[] theColors = new byte[n];
+        int[] theCodes = new int[n];
+        n = 0;
+        for (int i = 0; i < size(); i++) {
+            if (!thePatched.get(mCodes[i])) {
+                theSlots[n] = mSlots[i];
+                theRanks[n] = mRanks[i];
+                theColors[n] = mColors[i];
+                theCodes[n] = mCodes[i];
+                n++;
+            }
+        }
+        for (int i = 0; i < thePatch.size(); i++) {
+            if (thePatch.mRanks[i] != SUPPRESSED) {
+                theSlots[n] = thePatch.mSlots[i];
+                theRanks[n] = thePatch.mRanks[i];
+                theColors[n] = thePatch.mColors[i];
+                theCodes[n] = thePatch.mCodes[i];
+                n++;
+            }
+        }
+        return sorted(theSlots, theRanks, theColors, theCodes, n);
+    }
+
+    /**
+     * @return La primera celebración (la de menor rango) de una posición mes-día, o <code>-1</code> si no tiene
+     */
+    public int indexOfSlot(int theSlot) {
+        int i = Arrays.binarySearch(mSlots, (short) theSlot);
+        if (i < 0) {
+            return -1;
+        }
+        while (i > 0 && mSlots[i - 1] == theSlot) {
+            i--;
+        }
+        while (i < mSlots.length && mSlots[i] == theSlot && mRanks[i] == SUPPRESSED) {
+            i++;
+        }
+        return i < mSlots.length && mSlots[i] == theSlot ? i : -1;
+    }
+
+    /**
+     * @return El índice del día (0 = 1 de Enero) de una posición mes-día en un año,
+     * o <code>-1</code> para el 29 de Febrero de un año que no es bisiesto
+     */
+    static int indexOf(int theSlot, boolean isLeap) {
+        if (isLeap || theSlot < LEAP_DAY) {
+            return theSlot;
+        }
+        return theSlot == LEAP_DAY ? -1 : theSlot - 1;
+    }
+
+    /**
+     * @return La posición mes-día del día <code>theIndex</code> (0 = 1 de Enero) de un año
+     */
+    static int slotOf(int theIndex, boolean isLeap) {
+        return isLeap || theIndex < LEAP_DAY ? theIndex : theIndex + 1;
+    }
+
+    /**
+     * @return El número de celebraciones
+     */
+    public int size() {
+        return mSlots.length;
+    }
+
+    /**
+     * @return La posición mes-día de la celebración <code>i</code> (la del día en un año bisiesto)
+     */
+    public int getSlot(int i) {
+        return mSlots[i];
+    }
+
+    public int getRank(int i) {
+        return mRanks[i];
+    }
+
+    public int getColor(int i) {
+        return mColors[i];
+    }
+
+    /**
+     * @return El identificador del código de la celebración <code>i</code> (ver {@link CelebrationCodes})
+     */
+    public int getCodeId(int i) {
+        return mCodes[i];
+    }
+
+    public String getCode(int i) {
+        return CelebrationCodes.codeOf(mCodes[i]);
+    }
+}
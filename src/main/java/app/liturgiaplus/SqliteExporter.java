@@ -0,0 +1,239 @@
+package app.liturgiaplus;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.HashMap;
+
+/**
+ * <p>Escribe los días de un {@link CalendarStore} en una base de datos SQLite, para el modo sin conexión
+ * de la aplicación.</p>
+ * <p>El esquema está normalizado: cada código y cada celebración (código, color, rango, semana del salterio
+ * y tiempo) se guardan una vez, y cada día de cada región apunta a su celebración.</p>
+ * <pre>
+ *  codes         (id, code)
+ *  regions       (id, name, parent)
+ *  celebrations  (id, code, color, rank, psalter_week, time)
+ *  days          (region, day, celebration, sunday_cycle, weekday_cycle)   day = días desde 1970-01-01
+ *  calendar      vista con una fila legible por región y fecha
+ * </pre>
+ * <p>Las tablas anteriores se sustituyen. Los días se cargan con sentencias preparadas enviadas por lotes,
+ * en una transacción por perfil y rango de {@link #YEARS_PER_TRANSACTION} años, y los índices se crean
+ * después de cargar las filas, que es mucho más rápido que mantenerlos fila a fila. Si la exportación
+ * falla, la base de datos queda a medias y hay que generarla de nuevo.</p>
+ * <p>Sólo usa <code>java.sql</code>: el controlador JDBC de SQLite (p.e. <code>org.xerial:sqlite-jdbc</code>)
+ * debe estar en el classpath al ejecutar (ver la tarea <code>exportSqlite</code>).</p>
+ *
+ * <pre>
+ * CalendarStore theStore = CalendarStore.build(2000, 2199, thePropers, 8);
+ * try (Connection theConnection = SqliteExporter.open("calendario.db")) {
+ *     new SqliteExporter(theConnection).export(theStore);
+ * }
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class SqliteExporter {
+    public static final int SCHEMA_VERSION = 1;
+
+    /**
+     * Años de un perfil que se cargan en cada transacción
+     */
+    public static final int YEARS_PER_TRANSACTION = 50;
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final String[] DROP = {
+            "DROP VIEW IF EXISTS calendar",
+            "DROP TABLE IF EXISTS days",
+            "DROP TABLE IF EXISTS celebrations",
+            "DROP TABLE IF EXISTS regions",
+            "DROP TABLE IF EXISTS codes",
+            "DROP TABLE IF EXISTS meta"
+    };
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE meta (key TEXT PRIMARY KEY, value TEXT NOT NULL)",
+            "CREATE TABLE codes (id INTEGER PRIMARY KEY, code TEXT NOT NULL)",
+            "CREATE TABLE regions (id INTEGER PRIMARY KEY, name TEXT NOT NULL, parent TEXT)",
+            "CREATE TABLE celebrations (id INTEGER PRIMARY KEY, code INTEGER NOT NULL REFERENCES codes (id),"
+                    + " color INTEGER NOT NULL, rank INTEGER NOT NULL, psalter_week INTEGER NOT NULL,"
+                    + " time INTEGER NOT NULL)",
+            "CREATE TABLE days (region INTEGER NOT NULL REFERENCES regions (id), day INTEGER NOT NULL,"
+                    + " celebration INTEGER REFERENCES celebrations (id),"
+                    + " sunday_cycle INTEGER NOT NULL, weekday_cycle INTEGER NOT NULL)"
+    };
+
+    private static final String[] INDEXES = {
+            "CREATE UNIQUE INDEX codes_code ON codes (code)",
+            "CREATE UNIQUE INDEX regions_name ON regions (name)",
+            "CREATE UNIQUE INDEX days_region_day ON days (region, day)",
+            "CREATE INDEX days_celebration ON days (celebration)",
+            "CREATE INDEX celebrations_code ON celebrations (code)",
+            "CREATE VIEW calendar AS SELECT r.name AS region, date(d.day * 86400, 'unixepoch') AS date,"
+                    + " k.code AS code, c.color AS color, c.rank AS rank, c.psalter_week AS psalter_week,"
+                    + " c.time AS time, d.sunday_cycle AS sunday_cycle, d.weekday_cycle AS weekday_cycle"
+                    + " FROM days d JOIN regions r ON r.id = d.region"
+                    + " LEFT JOIN celebrations c ON c.id = d.celebration LEFT JOIN codes k ON k.id = c.code",
+            "ANALYZE"
+    };
+
+    private final Connection mConnection;
+
+    public SqliteExporter(Connection theConnection) {
+        mConnection = theConnection;
+    }
+
+    /**
+     * @param theFile Ruta del archivo de la base de datos; se crea si no existe
+     */
+    public static Connection open(String theFile) throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + theFile);
+    }
+
+    /**
+     * Sustituye el contenido de la base de datos por todos los días de todos los perfiles del almacén
+     *
+     * @return El número de días escritos
+     */
+    public long export(CalendarStore theStore) throws SQLException {
+        try (Statement theStatement = mConnection.createStatement()) {
+            // Base de datos de sólo lectura que se genera de nuevo si falla: no hace falta esperar al disco
+            theStatement.execute("PRAGMA synchronous = OFF");
+            theStatement.execute("PRAGMA journal_mode = MEMORY");
+        }
+        boolean wasAutoCommit = mConnection.getAutoCommit();
+        mConnection.setAutoCommit(false);
+        long theDays;
+        try {
+            execute(DROP);
+            execute(SCHEMA);
+            writeMeta(theStore);
+            writeRegions(theStore);
+            mConnection.commit();
+            theDays = writeDays(theStore);
+            execute(INDEXES);
+            mConnection.commit();
+        } catch (SQLException | RuntimeException e) {
+            mConnection.rollback();
+            throw e;
+        } finally {
+            mConnection.setAutoCommit(wasAutoCommit);
+        }
+        return theDays;
+    }
+
+    private void execute(String[] theSql) throws SQLException {
+        try (Statement theStatement = mConnection.createStatement()) {
+            for (String theLine : theSql) {
+                theStatement.execute(theLine);
+            }
+        }
+    }
+
+    private void writeMeta(CalendarStore theStore) throws SQLException {
+        try (PreparedStatement theInsert = mConnection.prepareStatement("INSERT INTO meta VALUES (?, ?)")) {
+            addMeta(theInsert, "schema_version", String.valueOf(SCHEMA_VERSION));
+            addMeta(theInsert, "from_year", String.valueOf(theStore.getFromYear()));
+            addMeta(theInsert, "to_year", String.valueOf(theStore.getToYear()));
+            theInsert.executeBatch();
+        }
+    }
+
+    private static void addMeta(PreparedStatement theInsert, String theKey, String theValue) throws SQLException {
+        theInsert.setString(1, theKey);
+        theInsert.setString(2, theValue);
+        theInsert.addBatch();
+    }
+
+    private void writeRegions(CalendarStore theStore) throws SQLException {
+        try (PreparedStatement theInsert = mConnection.prepareStatement("INSERT INTO regions VALUES (?, ?, ?)")) {
+            for (int p = 0; p < theStore.getProfileCount(); p++) {
+                ProperCalendar theProper = theStore.getProfile(p);
+                theInsert.setInt(1, p + 1);
+                theInsert.setString(2, theProper.getName());
+                theInsert.setString(3, theProper.getParent() == null ? null : theProper.getParent().getName());
+                theInsert.addBatch();
+            }
+            theInsert.executeBatch();
+        }
+    }
+
+    /**
+     * Escribe los días perfil a perfil, en una transacción por rango de años,
+     * y cada código y celebración la primera vez que aparecen
+     */
+    private long writeDays(CalendarStore theStore) throws SQLException {
+        HashMap<Integer, Integer> theCodes = new HashMap<>();
+        HashMap<Integer, Integer> theCelebrations = new HashMap<>();
+        int[] theRecords = new int[YEARS_PER_TRANSACTION * 366];
+        long theCount = 0;
+        try (PreparedStatement theCode = mConnection.prepareStatement("INSERT INTO codes VALUES (?, ?)");
+             PreparedStatement theCelebration = mConnection.prepareStatement(
+                     "INSERT INTO celebrations VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement theDay = mConnection.prepareStatement("INSERT INTO days VALUES (?, ?, ?, ?, ?)")) {
+            for (int p = 0; p < theStore.getProfileCount(); p++) {
+                for (int theYear = theStore.getFromYear(); theYear <= theStore.getToYear();
+                     theYear += YEARS_PER_TRANSACTION) {
+                    int theLastYear = Math.min(theYear + YEARS_PER_TRANSACTION - 1, theStore.getToYear());
+                    long theFirst = EpochDays.of(theYear, 1, 1);
+                    int theLength = (int) (EpochDays.of(theLastYear + 1, 1, 1) - theFirst);
+                    theStore.copyRecords(p, theFirst, theRecords, 0, theLength);
+                    for (int i = 0; i < theLength; i++) {
+                        int theRecord = theRecords[i];
+                        theDay.setInt(1, p + 1);
+                        theDay.setLong(2, theFirst + i);
+                        if (theRecord == DayRecord.EMPTY) {
+                            theDay.setNull(3, Types.INTEGER);
+                        } else {
+                            Integer theId = theCelebrations.get(theRecord & DayRecord.CELEBRATION_MASK);
+                            if (theId == null) {
+                                Integer theCodeId = theCodes.get(DayRecord.code(theRecord));
+                                if (theCodeId == null) {
+                                    theCodeId = theCodes.size() + 1;
+                                    theCodes.put(DayRecord.code(theRecord), theCodeId);
+                                    theCode.setInt(1, theCodeId);
+                                    theCode.setString(2, DayRecord.codeName(theRecord));
+                                    theCode.addBatch();
+                                }
+                                theId = theCelebrations.size() + 1;
+                                theCelebrations.put(theRecord & DayRecord.CELEBRATION_MASK, theId);
+                                theCelebration.setInt(1, theId);
+                                theCelebration.setInt(2, theCodeId);
+                                theCelebration.setInt(3, DayRecord.color(theRecord));
+                                theCelebration.setInt(4, DayRecord.rank(theRecord));
+                                theCelebration.setInt(5, DayRecord.psalterWeek(theRecord));
+                                theCelebration.setInt(6, DayRecord.time(theRecord));
+                                theCelebration.addBatch();
+                            }
+                            theDay.setInt(3, theId);
+                        }
+                        theDay.setInt(4, DayRecord.sundayCycle(theRecord));
+                        theDay.setInt(5, DayRecord.weekdayCycle(theRecord));
+                        theDay.addBatch();
+                        if (++theCount % BATCH_SIZE == 0) {
+                            executeBatches(theCode, theCelebration, theDay);
+                        }
+                    }
+                    executeBatches(theCode, theCelebration, theDay);
+                    mConnection.commit();
+                }
+            }
+        }
+        return theCount;
+    }
+
+    /**
+     * Las celebraciones y los códigos a los que apuntan los días van antes que ellos
+     */
+    private static void executeBatches(PreparedStatement theCode, PreparedStatement theCelebration,
+                                       PreparedStatement theDay) throws SQLException {
+        theCode.executeBatch();
+        theCelebration.executeBatch();
+        theDay.executeBatch();
+    }
+}
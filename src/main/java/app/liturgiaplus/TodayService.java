@@ -0,0 +1,366 @@
+package app.liturgiaplus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.ZoneId;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>El día litúrgico de hoy en cada zona horaria, sin generar calendarios al atender la consulta.</p>
+ * <p>Para cada par (zona, calendario propio) consultado se conserva el día de hoy y el de mañana.
+ * Al llegar la medianoche local, la siguiente consulta pasa mañana a hoy y lee el nuevo mañana
+ * de un año ya generado: el cambio de día no genera nada.
+ * Los años generados se comparten entre todas las zonas con el mismo calendario propio.</p>
+ * <p>Con {@link #start(Duration)}, un hilo de fondo repasa periódicamente los pares conocidos:
+ * adelanta el cambio de día en las zonas que ya han pasado la medianoche, prepara el día de mañana
+ * y, en Diciembre, genera el año siguiente antes de que ninguna zona llegue al 1 de Enero.
+ * Sólo la primera consulta de un par nuevo genera su año en el hilo que consulta;
+ * {@link #getRequestGenerations()} cuenta esas generaciones.</p>
+ * <p>Los pares que no se consultan durante {@link #EVICT_AFTER_PASSES} repasos se dejan de mantener,
+ * y con ellos los años de sus calendarios propios: p.e. los de los propios sustituidos por
+ * {@link CalendarSnapshots#reload}, que ya nadie consulta.</p>
+ *
+ * <pre>
+ * TodayService theService = new TodayService();
+ * theService.start(Duration.ofMinutes(10));
+ * LiturgicalDay theToday = theService.getToday(ZoneId.of("America/Lima"), spain);
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class TodayService implements AutoCloseable {
+    /**
+     * Mes desde el que se genera por adelantado el año siguiente
+     */
+    private static final Month PREWARM_NEXT_YEAR_FROM = Month.DECEMBER;
+
+    /**
+     * Repasos sin consultas tras los que un par (zona, calendario propio) se deja de mantener
+     */
+    public static final int EVICT_AFTER_PASSES = 6;
+
+    private final Clock mClock;
+    private final Map<TodayKey, Snapshot> mSnapshots = new ConcurrentHashMap<>();
+    /*
+        Un FutureTask por año: se genera fuera de la tabla, y quien lo pide a la vez espera al mismo resultado
+     */
+    private final Map<YearKey, FutureTask<LiturgicalYear>> mYears = new ConcurrentHashMap<>();
+    private final AtomicLong mPasses = new AtomicLong();
+    private final AtomicLong mGenerations = new AtomicLong();
+    private final AtomicLong mRequestGenerations = new AtomicLong();
+    private final AtomicLong mFailedPasses = new AtomicLong();
+    private volatile Throwable mLastFailure;
+    private ScheduledExecutorService mScheduler;
+
+    public TodayService() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * @param theClock Reloj del que se toma el instante actual; su zona no se usa
+     */
+    public TodayService(Clock theClock) {
+        mClock = Objects.requireNonNull(theClock);
+    }
+
+    /**
+     * Arranca el hilo de fondo que prepara los días y los años por adelantado
+     *
+     * @param thePeriod Intervalo entre repasos; debe ser bastante menor que un día
+     */
+    public synchronized void start(Duration thePeriod) {
+        if (mScheduler != null) {
+            throw new IllegalStateException("El servicio ya está arrancado");
+        }
+        long theMillis = thePeriod.toMillis();
+        if (theMillis <= 0) {
+            throw new IllegalArgumentException("Intervalo no válido: " + thePeriod);
+        }
+        mScheduler = Executors.newSingleThreadScheduledExecutor(new PrewarmThreadFactory());
+        mScheduler.scheduleWithFixedDelay(new PrewarmTask(this), 0, theMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (mScheduler != null) {
+            mScheduler.shutdownNow();
+            mScheduler = null;
+        }
+    }
+
+    /**
+     * @return El día litúrgico de hoy en una zona horaria
+     */
+    public LiturgicalDay getToday(ZoneId theZone, ProperCalendar theProper) {
+        return snapshot(theZone, theProper, true).mToday;
+    }
+
+    /**
+     * @return El día litúrgico de mañana en una zona horaria
+     */
+    public LiturgicalDay getTomorrow(ZoneId theZone, ProperCalendar theProper) {
+        return snapshot(theZone, theProper, true).mTomorrow;
+    }
+
+    /**
+     * Hace un repaso como los del hilo de fondo: deja de mantener los pares sin consultas recientes,
+     * cambia de día los que han pasado la medianoche, genera los años de mañana y, en Diciembre,
+     * los del año siguiente, y descarta los años ya pasados o de calendarios propios que ya no se mantienen
+     */
+    public void prewarm() {
+        long thePass = mPasses.incrementAndGet();
+        for (Map.Entry<TodayKey, Snapshot> theEntry : mSnapshots.entrySet()) {
+            if (thePass - theEntry.getValue().mQueriedPass > EVICT_AFTER_PASSES) {
+                mSnapshots.remove(theEntry.getKey(), theEntry.getValue());
+            }
+        }
+        IdentityHashMap<ProperCalendar, Integer> theOldest = new IdentityHashMap<>();
+        for (TodayKey theKey : mSnapshots.keySet()) {
+            Snapshot theSnapshot = snapshot(theKey.mZone, theKey.mProper, false);
+            LocalDate theTomorrow = theSnapshot.mTomorrow.getDate();
+            if (theTomorrow.getMonth().compareTo(PREWARM_NEXT_YEAR_FROM) >= 0) {
+                year(theKey.mProper, theTomorrow.getYear() + 1, false);
+            }
+            theOldest.merge(theKey.mProper, theSnapshot.mToday.getDate().getYear(), Math::min);
+        }
+        for (YearKey theKey : mYears.keySet()) {
+            Integer theYear = theOldest.get(theKey.mProper);
+            if (theYear == null || theKey.mYear < theYear) {
+                mYears.remove(theKey);
+            }
+        }
+    }
+
+    /**
+     * @return Los años generados desde que se creó el servicio
+     */
+    public long getGenerations() {
+        return mGenerations.get();
+    }
+
+    /**
+     * @return Los años generados en el hilo de una consulta, porque el repaso no los tenía preparados
+     */
+    public long getRequestGenerations() {
+        return mRequestGenerations.get();
+    }
+
+    /**
+     * @return Los repasos del hilo de fondo que han terminado con una excepción
+     */
+    public long getFailedPasses() {
+        return mFailedPasses.get();
+    }
+
+    /**
+     * @return La excepción del último repaso fallido del hilo de fondo, o <code>null</code> si no ha fallado ninguno
+     */
+    public Throwable getLastFailure() {
+        return mLastFailure;
+    }
+
+    /**
+     * @return Los pares (zona, calendario propio) que se mantienen al día
+     */
+    public int getTrackedCount() {
+        return mSnapshots.size();
+    }
+
+    private void failed(Throwable theFailure) {
+        mLastFailure = theFailure;
+        mFailedPasses.incrementAndGet();
+    }
+
+    private Snapshot snapshot(ZoneId theZone, ProperCalendar theProper, boolean onRequest) {
+        TodayKey theKey = new TodayKey(theZone, theProper);
+        long theToday = LocalDate.now(mClock.withZone(theZone)).toEpochDay();
+        Snapshot theSnapshot = mSnapshots.get(theKey);
+        if (theSnapshot != null && theSnapshot.mEpochDay == theToday) {
+            if (onRequest) {
+                theSnapshot.queried(mPasses.get());
+            }
+            return theSnapshot;
+        }
+        LiturgicalDay theDay = theSnapshot != null && theSnapshot.mEpochDay + 1 == theToday
+                ? theSnapshot.mTomorrow
+                : day(theProper, theToday, onRequest);
+        Snapshot theNext = new Snapshot(theToday, theDay, day(theProper, theToday + 1, onRequest),
+                onRequest || theSnapshot == null ? mPasses.get() : theSnapshot.mQueriedPass);
+        // Si otro hilo ya ha cambiado de día, cualquiera de los dos valores es correcto
+        mSnapshots.put(theKey, theNext);
+        return theNext;
+    }
+
+    private LiturgicalDay day(ProperCalendar theProper, long theEpochDay, boolean onRequest) {
+        LocalDate theDate = LocalDate.ofEpochDay(theEpochDay);
+        LiturgicalYear theYear = year(theProper, theDate.getYear(), onRequest);
+        return LiturgicalDay.of(theYear, theDate.getDayOfYear() - 1);
+    }
+
+    /**
+     * Genera el año, si no lo está ya, en el hilo que lo pide y fuera de la tabla de años,
+     * que no queda bloqueada mientras tanto; los demás hilos que lo pidan esperan a ese resultado
+     */
+    private LiturgicalYear year(ProperCalendar theProper, int theYear, boolean onRequest) {
+        YearKey theKey = new YearKey(theProper, theYear);
+        FutureTask<LiturgicalYear> theTask = mYears.get(theKey);
+        if (theTask == null) {
+            FutureTask<LiturgicalYear> theNew = new FutureTask<>(new YearJob(theKey));
+            theTask = mYears.putIfAbsent(theKey, theNew);
+            if (theTask == null) {
+                theTask = theNew;
+                mGenerations.incrementAndGet();
+                if (onRequest) {
+                    mRequestGenerations.incrementAndGet();
+                }
+                theNew.run();
+            }
+        }
+        try {
+            return theTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generación interrumpida", e);
+        } catch (ExecutionException e) {
+            // Se quita para que la siguiente consulta lo vuelva a intentar
+            mYears.remove(theKey, theTask);
+            throw new IllegalStateException("Error generando el calendario", e.getCause());
+        }
+    }
+
+    /**
+     * El día de hoy y el de mañana de un par (zona, calendario propio), inmutables,
+     * y el último repaso en el que se consultó el par
+     */
+    private static final class Snapshot {
+        private final long mEpochDay;
+        private final LiturgicalDay mToday;
+        private final LiturgicalDay mTomorrow;
+        private volatile long mQueriedPass;
+
+        Snapshot(long theEpochDay, LiturgicalDay theToday, LiturgicalDay theTomorrow, long theQueriedPass) {
+            mEpochDay = theEpochDay;
+            mToday = theToday;
+            mTomorrow = theTomorrow;
+            mQueriedPass = theQueriedPass;
+        }
+
+        /**
+         * Sólo escribe si cambia el repaso, para que las consultas frecuentes no escriban en memoria compartida
+         */
+        void queried(long thePass) {
+            if (mQueriedPass != thePass) {
+                mQueriedPass = thePass;
+            }
+        }
+    }
+
+    private static final class TodayKey {
+        private final ZoneId mZone;
+        private final ProperCalendar mProper;
+
+        TodayKey(ZoneId theZone, ProperCalendar theProper) {
+            mZone = Objects.requireNonNull(theZone);
+            mProper = Objects.requireNonNull(theProper);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TodayKey)) {
+                return false;
+            }
+            TodayKey theKey = (TodayKey) o;
+            return mZone.equals(theKey.mZone) && mProper == theKey.mProper;
+        }
+
+        @Override
+        public int hashCode() {
+            return mZone.hashCode() * 31 + System.identityHashCode(mProper);
+        }
+    }
+
+    private static final class YearKey {
+        private final ProperCalendar mProper;
+        private final int mYear;
+
+        YearKey(ProperCalendar theProper, int theYear) {
+            mProper = theProper;
+            mYear = theYear;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof YearKey)) {
+                return false;
+            }
+            YearKey theKey = (YearKey) o;
+            return mYear == theKey.mYear && mProper == theKey.mProper;
+        }
+
+        @Override
+        public int hashCode() {
+            return mYear * 31 + System.identityHashCode(mProper);
+        }
+    }
+
+    private static final class YearJob implements Callable<LiturgicalYear> {
+        private final YearKey mKey;
+
+        YearJob(YearKey theKey) {
+            mKey = theKey;
+        }
+
+        @Override
+        public LiturgicalYear call() {
+            return LiturgicalCalendar.newCalendar(mKey.mYear, mKey.mProper.getSettings())
+                    .getLiturgicalYear(mKey.mProper);
+        }
+    }
+
+    private static final class PrewarmTask implements Runnable {
+        private final TodayService mService;
+
+        PrewarmTask(TodayService theService) {
+            mService = theService;
+        }
+
+        /**
+         * Un repaso fallido no cancela los siguientes: las consultas generan lo que falte.
+         * Un {@link Error} se anota y se relanza, lo que detiene los repasos del hilo de fondo
+         */
+        @Override
+        public void run() {
+            try {
+                mService.prewarm();
+            } catch (RuntimeException e) {
+                mService.failed(e);
+            } catch (Error e) {
+                mService.failed(e);
+                throw e;
+            }
+        }
+    }
+
+    private static final class PrewarmThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(Runnable theTask) {
+            Thread theThread = new Thread(theTask, "today-prewarm");
+            theThread.setDaemon(true);
+            return theThread;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package app.liturgiaplus;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * <p>Una semana en una tira de 7 días, que puede abarcar dos meses o dos años.</p>
+ * <p>Se obtiene de {@link CalendarViews#getWeek(LocalDate)}, que la conserva en caché.</p>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class WeekView extends DayGrid {
+    public static final int CELLS = 7;
+
+    WeekView(long theFirstEpochDay, int[] theRecords) {
+        super(theFirstEpochDay, theRecords);
+    }
+
+    /**
+     * @return El día en que empieza la semana de una fecha
+     */
+    static long firstEpochDay(LocalDate theDate, DayOfWeek theFirstDayOfWeek) {
+        int theLeading = (theDate.getDayOfWeek().getValue() - theFirstDayOfWeek.getValue() + 7) % 7;
+        return theDate.toEpochDay() - theLeading;
+    }
+
+    public DayOfWeek getFirstDayOfWeek() {
+        return getDate(0).getDayOfWeek();
+    }
+
+    @Override
+    public String toString() {
+        return "WeekView desde " + getDate(0);
+    }
+}
@@ -0,0 +1,279 @@
+package app.liturgiaplus;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * <p>Codificación binaria compacta de un año generado, para replicarlo entre procesos
+ * o guardarlo en una caché en disco. Un año ocupa unos 3 KB, frente a unos 35 KB en JSON.</p>
+ * <p>Los identificadores de {@link CelebrationCodes} son propios de cada proceso, así que los códigos
+ * viajan como texto, pero cada código distinto una sola vez y sólo con lo que lo distingue del último código
+ * nuevo de su familia (el que empieza por el mismo carácter): p.e. <code>ORD0[12]*03 F1</code> tras
+ * <code>ORD0[12]*02 F1</code> se reduce a <code>3</code>. Los atributos de cada día (color, rango, semana
+ * del salterio y tiempo) se toman casi siempre de una lista de los últimos usados.
+ * Los días son consecutivos, así que sus fechas no se guardan, y los ciclos del Leccionario
+ * se vuelven a calcular al decodificar.</p>
+ * <pre>
+ *  cabecera  "LY" (short), versión (byte), año (varint zigzag), días (varint)
+ *  por día   etiqueta (varint) = referencia &lt;&lt; 3 | atributos
+ *              referencia 0: día sin celebración
+ *              referencia 1: código nuevo, seguido de su primer byte, del prefijo y el sufijo comunes con el
+ *                            último código nuevo de su familia (varint prefijo | sufijo &lt;&lt; 5),
+ *                            de la longitud del resto (varint) y del resto en UTF-8
+ *              referencia n &gt; 1: el código nuevo número n - 2 de este año
+ *              atributos 0-6: posición en la lista de los últimos atributos usados, que se mueven al principio
+ *              atributos 7: atributos nuevos a continuación (varint), bits 14-27 del {@link DayRecord registro}
+ * </pre>
+ * <p>La decodificación escribe registros de {@link DayRecord} en un arreglo que el llamante puede reutilizar.</p>
+ *
+ * <pre>
+ * ByteBuffer theBuffer = ByteBuffer.allocate(16 * 1024);
+ * YearCodec.encode(theYear, theBuffer);
+ * theBuffer.flip();
+ * int[] theRecords = new int[366];
+ * int theYearNumber = YearCodec.decode(theBuffer, theRecords);
+ * </pre>
+ *
+ * @author A. Cedano
+ * @version beta
+ */
+public final class YearCodec {
+    public static final int VERSION = 1;
+
+    private static final short MAGIC = 0x4C59;
+    private static final int ATTRIBUTES_SHIFT = 14;
+    private static final int ATTRIBUTES_MASK = 0x3FFF;
+    private static final int REF_EMPTY = 0;
+    private static final int REF_NEW = 1;
+    private static final int REF_FIRST = 2;
+    /**
+     * Atributos recordados, y valor de la etiqueta para atributos nuevos
+     */
+    private static final int RECENT = 7;
+    /**
+     * Máximo prefijo y sufijo comunes que se aprovechan, y máscara del prefijo
+     */
+    private static final int MAX_AFFIX = 31;
+
+    private YearCodec() {
+    }
+
+    /**
+     * Codifica un año a partir de la posición actual de <code>theTarget</code>, que avanza
+     *
+     * @return Los bytes escritos
+     * @throws BufferOverflowException Si el año no cabe en <code>theTarget</code>
+     */
+    public static int encode(LiturgicalYear theYear, ByteBuffer theTarget) {
+        int[] theRecords = new int[theYear.length()];
+        theYear.copyRecords(0, theRecords, 0, theRecords.length);
+        return encode(theYear.getYear(), theRecords, theTarget);
+    }
+
+    /**
+     * @param theRecords Los registros de todos los días del año, desde el 1 de Enero
+     */
+    public static int encode(int theYear, int[] theRecords, ByteBuffer theTarget) {
+        int theDays = LocalDate.of(theYear, 1, 1).lengthOfYear();
+        if (theRecords.length < theDays) {
+            throw new IllegalArgumentException("Faltan días del año " + theYear + ": " + theRecords.length);
+        }
+        int start = theTarget.position();
+        theTarget.putShort(MAGIC).put((byte) VERSION);
+        putVarint(theTarget, theYear << 1 ^ theYear >> 31);
+        putVarint(theTarget, theDays);
+
+        // Posición de cada código en el diccionario del año, por tabla hash abierta sobre su identificador
+        int[] theKeys = new int[1024];
+        int[] thePositions = new int[1024];
+        int theDictionary = 0;
+        byte[][] theFamilies = new byte[256][];
+        int[] theRecent = new int[RECENT];
+        Arrays.fill(theRecent, -1);
+        for (int i = 0; i < theDays; i++) {
+            int theRecord = theRecords[i];
+            int theCode = DayRecord.code(theRecord);
+            int theAttributes = theRecord >>> ATTRIBUTES_SHIFT & ATTRIBUTES_MASK;
+            int theSlot = indexOf(theRecent, theAttributes);
+            promote(theRecent, theSlot, theAttributes);
+            if (theCode == CelebrationCodes.NONE) {
+                putVarint(theTarget, REF_EMPTY << 3 | theSlot);
+            } else {
+                int h = slot(theKeys, theCode);
+                if (theKeys[h] == theCode) {
+                    putVarint(theTarget, (REF_FIRST + thePositions[h]) << 3 | theSlot);
+                } else {
+                    theKeys[h] = theCode;
+                    thePositions[h] = theDictionary++;
+                    byte[] theBytes = CelebrationCodes.codeOf(theCode).getBytes(StandardCharsets.UTF_8);
+                    int theFamily = theBytes[0] & 0xFF;
+                    byte[] theLast = theFamilies[theFamily];
+                    int thePrefix = 0;
+                    int theSuffix = 0;
+                    if (theLast != null) {
+                        thePrefix = Math.min(commonPrefix(theLast, theBytes), MAX_AFFIX);
+                        theSuffix = Math.min(commonSuffix(theLast, theBytes, Math.max(thePrefix, 1)), MAX_AFFIX);
+                    }
+                    int theRest = theBytes.length - Math.max(thePrefix, 1) - theSuffix;
+                    putVarint(theTarget, REF_NEW << 3 | theSlot);
+                    theTarget.put(theBytes[0]);
+                    putVarint(theTarget, thePrefix | theSuffix << 5);
+                    putVarint(theTarget, theRest);
+                    theTarget.put(theBytes, Math.max(thePrefix, 1), theRest);
+                    theFamilies[theFamily] = theBytes;
+                }
+            }
+            if (theSlot == RECENT) {
+                putVarint(theTarget, theAttributes);
+            }
+        }
+        return theTarget.position() - start;
+    }
+
+    /**
+     * Decodifica un año desde la posición actual de <code>theSource</code>, que avanza hasta el final del año
+     *
+     * @param theRecords Arreglo reutilizable de al menos 366 posiciones; recibe los registros
+     *                   de cada día desde el 1 de Enero, con los identificadores de este proceso
+     * @return El año decodificado
+     */
+    public static int decode(ByteBuffer theSource, int[] theRecords) {
+        if (theSource.getShort() != MAGIC) {
+            throw new IllegalArgumentException("No es un año codificado");
+        }
+        int theVersion = theSource.get();
+        if (theVersion != VERSION) {
+            throw new IllegalArgumentException("Versión de año codificado no soportada: " + theVersion);
+        }
+        int theZigZag = getVarint(theSource);
+        int theYear = theZigZag >>> 1 ^ -(theZigZag & 1);
+        int theDays = getVarint(theSource);
+        if (theDays != LocalDate.of(theYear, 1, 1).lengthOfYear() || theRecords.length < theDays) {
+            throw new IllegalArgumentException("Número de días no válido para " + theYear + ": " + theDays);
+        }
+
+        long theFirst = LocalDate.of(theYear, 1, 1).toEpochDay();
+        int theAdvent = (int) (Lectionary.primaAdventu(theYear) - theFirst);
+        int[] theDictionary = new int[theDays];
+        int theSize = 0;
+        byte[][] theFamilies = new byte[256][];
+        int[] theRecent = new int[RECENT];
+        for (int i = 0; i < theDays; i++) {
+            int theTag = getVarint(theSource);
+            int theRef = theTag >>> 3;
+            int theId;
+            if (theRef == REF_EMPTY) {
+                theId = CelebrationCodes.NONE;
+            } else if (theRef == REF_NEW) {
+                byte theFirstByte = theSource.get();
+                int theAffixes = getVarint(theSource);
+                int thePrefix = theAffixes & MAX_AFFIX;
+                int theSuffix = theAffixes >>> 5;
+                int theRest = getVarint(theSource);
+                byte[] theLast = theFamilies[theFirstByte & 0xFF];
+                int theStart = Math.max(thePrefix, 1);
+                if (theSize == theDays || theSuffix > MAX_AFFIX
+                        || (thePrefix | theSuffix) != 0 && (theLast == null || Math.max(thePrefix, theSuffix) > theLast.length)) {
+                    throw new IllegalArgumentException("Año codificado corrupto en el día " + i);
+                }
+                byte[] theBytes = new byte[theStart + theRest + theSuffix];
+                theBytes[0] = theFirstByte;
+                if (theLast != null) {
+                    System.arraycopy(theLast, 0, theBytes, 0, thePrefix);
+                    System.arraycopy(theLast, theLast.length - theSuffix, theBytes, theStart + theRest, theSuffix);
+                }
+                theSource.get(theBytes, theStart, theRest);
+                theFamilies[theFirstByte & 0xFF] = theBytes;
+                theId = CelebrationCodes.idOf(new String(theBytes, StandardCharsets.UTF_8));
+                theDictionary[theSize++] = theId;
+            } else {
+                int p = theRef - REF_FIRST;
+                if (p >= theSize) {
+                    throw new IllegalArgumentException("Año codificado corrupto en el día " + i);
+                }
+                theId = theDictionary[p];
+            }
+            int theSlot = theTag & RECENT;
+            int theAttributes = theSlot == RECENT ? getVarint(theSource) : theRecent[theSlot];
+            promote(theRecent, theSlot, theAttributes);
+            if (theId == CelebrationCodes.NONE) {
+                theRecords[i] = DayRecord.EMPTY;
+            } else {
+                int theLiturgicalYear = i < theAdvent ? theYear : theYear + 1;
+                theRecords[i] = theId | theAttributes << ATTRIBUTES_SHIFT
+                        | DayRecord.pack(0, 0, 0, 0, 0,
+                        Lectionary.sundayCycle(theLiturgicalYear), Lectionary.weekdayCycle(theLiturgicalYear));
+            }
+        }
+        return theYear;
+    }
+
+    private static int slot(int[] theKeys, int theCode) {
+        int h = (theCode * 0x9E3779B9) >>> 22;
+        while (theKeys[h] != 0 && theKeys[h] != theCode) {
+            h = (h + 1) & (theKeys.length - 1);
+        }
+        return h;
+    }
+
+    private static int indexOf(int[] theRecent, int theAttributes) {
+        for (int i = 0; i < RECENT; i++) {
+            if (theRecent[i] == theAttributes) {
+                return i;
+            }
+        }
+        return RECENT;
+    }
+
+    /**
+     * Mueve al principio los atributos de la posición <code>theSlot</code>, o los añade si es {@link #RECENT}
+     */
+    private static void promote(int[] theRecent, int theSlot, int theAttributes) {
+        System.arraycopy(theRecent, 0, theRecent, 1, Math.min(theSlot, RECENT - 1));
+        theRecent[0] = theAttributes;
+    }
+
+    private static int commonPrefix(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < n && a[i] == b[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return Los bytes finales comunes, sin contar los <code>theFrom</code> primeros de <code>b</code>
+     */
+    private static int commonSuffix(byte[] a, byte[] b, int theFrom) {
+        int n = Math.min(a.length, b.length - theFrom);
+        int i = 0;
+        while (i < n && a[a.length - 1 - i] == b[b.length - 1 - i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static void putVarint(ByteBuffer theTarget, int theValue) {
+        while ((theValue & ~0x7F) != 0) {
+            theTarget.put((byte) (theValue & 0x7F | 0x80));
+            theValue >>>= 7;
+        }
+        theTarget.put((byte) theValue);
+    }
+
+    private static int getVarint(ByteBuffer theSource) {
+        int theValue = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = theSource.get();
+            theValue |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return theValue;
+            }
+        }
+        throw new IllegalArgumentException("Varint demasiado largo");
+    }
+}
@@ -0,0 +1,97 @@
+package app.liturgiaplus;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.temporal.TemporalAdjusters;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnchorTableTest {
+    private static final int FROM = 1583;
+    private static final int TO = 4099;
+
+    @Test
+    void columnsMatchTheCalendar() {
+        AnchorTable theTable = AnchorTable.get();
+        for (int theYear = AnchorTable.FIRST_YEAR; theYear <= AnchorTable.LAST_YEAR; theYear++) {
+            LocalDate theJanuary = LocalDate.of(theYear, 1, 1);
+            assertEquals(LiturgicalCalendar.getDiePaschae(theYear), theTable.getEasterDate(theYear));
+            assertEquals(theJanuary.getDayOfWeek(), theTable.getJanuaryFirst(theYear));
+            assertEquals(theJanuary.isLeapYear(), theTable.isLeap(theYear));
+            assertEquals(advent(theYear).getDayOfYear(), theTable.getAdvent(theYear), String.valueOf(theYear));
+        }
+    }
+
+    @Test
+    void easterOnAGivenDate() {
+        int[] theYears = AnchorTable.query().between(FROM, TO).easter(MonthDay.of(4, 25)).years();
+        assertArrayEquals(scan(y -> LiturgicalCalendar.getDiePaschae(y).equals(LocalDate.of(y, 4, 25))), theYears);
+        assertTrue(contains(theYears, 1886) && contains(theYears, 1943) && contains(theYears, 2038));
+
+        // La Pascua más temprana posible
+        assertArrayEquals(new int[]{1598, 1693, 1761, 1818, 2285, 2353, 2437, 2505, 2972, 3029, 3401, 3496, 3564, 3648, 3716},
+                AnchorTable.query().between(FROM, TO).easter(MonthDay.of(3, 22)).years());
+
+        int[] theLate = AnchorTable.query().between(FROM, TO)
+                .easterBetween(MonthDay.of(4, 20), MonthDay.of(4, 25)).years();
+        assertArrayEquals(scan(y -> {
+            LocalDate theEaster = LiturgicalCalendar.getDiePaschae(y);
+            return !theEaster.isBefore(LocalDate.of(y, 4, 20)) && !theEaster.isAfter(LocalDate.of(y, 4, 25));
+        }), theLate);
+    }
+
+    @Test
+    void weekdayOfAMonthDay() {
+        assertArrayEquals(scan(y -> LocalDate.of(y, 12, 25).getDayOfWeek() == DayOfWeek.SUNDAY),
+                AnchorTable.query().between(FROM, TO).weekday(MonthDay.of(12, 25), DayOfWeek.SUNDAY).years());
+        // El 29 de Febrero sólo existe en los años bisiestos
+        int[] theLeapDays = AnchorTable.query().between(FROM, TO).weekday(MonthDay.of(2, 29), DayOfWeek.MONDAY).years();
+        assertArrayEquals(scan(y -> LocalDate.of(y, 1, 1).isLeapYear()
+                && LocalDate.of(y, 2, 29).getDayOfWeek() == DayOfWeek.MONDAY), theLeapDays);
+        assertEquals(theLeapDays.length, AnchorTable.query().between(FROM, TO)
+                .weekday(MonthDay.of(2, 29), DayOfWeek.MONDAY).leap(true).count());
+    }
+
+    @Test
+    void monthDayInHolyWeek() {
+        int[] theYears = AnchorTable.query().between(FROM, TO).fromEaster(MonthDay.of(3, 19), -7, -1).years();
+        assertArrayEquals(scan(y -> {
+            LocalDate theEaster = LiturgicalCalendar.getDiePaschae(y);
+            LocalDate theJoseph = LocalDate.of(y, 3, 19);
+            return !theJoseph.isBefore(theEaster.minusDays(7)) && theJoseph.isBefore(theEaster);
+        }), theYears);
+        assertTrue(contains(theYears, 2008));
+    }
+
+    @Test
+    void adventAndCustomFilters() {
+        assertArrayEquals(scan(y -> advent(y).equals(LocalDate.of(y, 12, 3))),
+                AnchorTable.query().between(FROM, TO).advent(MonthDay.of(12, 3)).years());
+
+        // Pascua en Abril y año bisiesto, con un filtro propio
+        assertArrayEquals(scan(y -> LocalDate.of(y, 1, 1).isLeapYear()
+                        && LiturgicalCalendar.getDiePaschae(y).getMonthValue() == 4),
+                AnchorTable.query().between(FROM, TO).leap(true)
+                        .where((theYear, theEaster, theJanuaryFirst, isLeap, theAdvent) ->
+                                theEaster > 31 + 29 + 31).years());
+    }
+
+    private static LocalDate advent(int theYear) {
+        return LocalDate.of(theYear, 12, 25).with(TemporalAdjusters.previous(DayOfWeek.SUNDAY)).minusWeeks(3);
+    }
+
+    private static int[] scan(IntPredicate theTest) {
+        return IntStream.rangeClosed(FROM, TO).filter(theTest).toArray();
+    }
+
+    private static boolean contains(int[] theYears, int theYear) {
+        return IntStream.of(theYears).anyMatch(y -> y == theYear);
+    }
+}
@@ -0,0 +1,56 @@
+package app.liturgiaplus;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CalendarDiffTest {
+    private static final ProperCalendar SPAIN = ProperCalendar.load("es", ProperCalendar.universal(),
+            Map.of(LiturgicalCalendar.IMMACULATE_PREVAILS, true), "proper-es.txt");
+
+    @Test
+    void comparesTheProperSanctorale() {
+        // 2024: el 8 de Diciembre es el II Domingo de Adviento
+        CalendarDiff theDiff = CalendarDiff.diff(2024, ProperCalendar.universal(), 2024, SPAIN);
+
+        assertEquals(6, theDiff.size(), theDiff.toString());
+        assertChange(theDiff, 0, "05-10", "PST05-10", "PST05-10");
+        assertChange(theDiff, 1, "05-15", "!PAS0704", "PST05-15");
+        assertChange(theDiff, 2, "07-25", "PST07-25", "PST07-25");
+        assertChange(theDiff, 3, "10-12", "ORD0[27]07 \tF2", "PST10-12");
+        assertChange(theDiff, 4, "12-08", "ADV0201", "PST12-08");
+        assertChange(theDiff, 5, "12-09", "PST12-08", "PST12-09");
+        assertEquals(LocalDate.of(2024, 12, 8), theDiff.getDateA(4));
+        assertEquals(LocalDate.of(2024, 12, 8), theDiff.getDateB(4));
+    }
+
+    @Test
+    void settingsOnlyDiffIgnoresTheProperSanctorale() {
+        CalendarDiff theDiff = CalendarDiff.diff(2024, ProperCalendar.universal().getSettings(),
+                2024, SPAIN.getSettings());
+
+        assertEquals(2, theDiff.size(), theDiff.toString());
+        assertChange(theDiff, 0, "12-08", "ADV0201", "PST12-08");
+        assertChange(theDiff, 1, "12-09", "PST12-08", "PST12-09");
+    }
+
+    @Test
+    void immaculateOnAWeekdayOnlyDiffersInTheSanctorale() {
+        CalendarDiff theDiff = CalendarDiff.diff(2023, ProperCalendar.universal(), 2023, SPAIN);
+
+        assertEquals(4, theDiff.size(), theDiff.toString());
+        assertEquals(MonthDay.of(10, 12), theDiff.getMonthDay(3));
+        assertTrue(CalendarDiff.diff(2023, SPAIN, 2023, SPAIN).isEmpty());
+    }
+
+    private static void assertChange(CalendarDiff theDiff, int i, String theMonthDay, String theCodeA, String theCodeB) {
+        assertEquals(MonthDay.parse("--" + theMonthDay), theDiff.getMonthDay(i));
+        assertEquals(theCodeA, theDiff.getCodeA(i), theMonthDay);
+        assertEquals(theCodeB, theDiff.getCodeB(i), theMonthDay);
+    }
+}
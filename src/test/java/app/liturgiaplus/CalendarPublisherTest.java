@@ -0,0 +1,187 @@
+package app.liturgiaplus;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CalendarPublisherTest {
+    @Test
+    void requestFromOnNextCrossesYearsWithoutRecursion() {
+        LocalDate theFrom = LocalDate.of(2023, 12, 29);
+        LocalDate theTo = LocalDate.of(2024, 1, 3);
+        List<Integer> theDepths = new ArrayList<>();
+        Recorder theRecorder = new Recorder(1) {
+            @Override
+            public void onNext(LiturgicalDay theDay) {
+                super.onNext(theDay);
+                theDepths.add(Thread.currentThread().getStackTrace().length);
+                mSubscription.request(1);
+            }
+        };
+        CalendarPublisher.of(theFrom, theTo).subscribe(theRecorder);
+
+        assertEquals(6, theRecorder.mDays.size());
+        assertEquals(1, theRecorder.mCompleted);
+        assertNull(theRecorder.mError);
+        for (int i = 0; i < theRecorder.mDays.size(); i++) {
+            LiturgicalDay theDay = theRecorder.mDays.get(i);
+            LocalDate theDate = theFrom.plusDays(i);
+            LiturgicalYear theYear = LiturgicalCalendar.newCalendar(theDate.getYear(), Map.of()).getLiturgicalYear();
+            assertEquals(theDate, theDay.getDate());
+            assertEquals(theYear.getRecord(theYear.indexOf(theDate)), theDay.getRecord());
+            assertEquals(theDepths.get(0), theDepths.get(i), "Entrega recursiva en " + theDate);
+        }
+    }
+
+    @Test
+    void nonPositiveRequestSignalsError() {
+        Recorder theRecorder = new Recorder(0);
+        CalendarPublisher.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)).subscribe(theRecorder);
+
+        assertTrue(theRecorder.mDays.isEmpty());
+        assertInstanceOf(IllegalArgumentException.class, theRecorder.mError);
+        assertEquals(0, theRecorder.mCompleted);
+
+        theRecorder.mSubscription.request(1);
+        assertTrue(theRecorder.mDays.isEmpty());
+        assertEquals(1, theRecorder.mErrors);
+    }
+
+    @Test
+    void nonPositiveRequestFromOnNextStopsDelivery() {
+        Recorder theRecorder = new Recorder(10) {
+            @Override
+            public void onNext(LiturgicalDay theDay) {
+                super.onNext(theDay);
+                if (mDays.size() == 3) {
+                    mSubscription.request(-1);
+                }
+            }
+        };
+        CalendarPublisher.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)).subscribe(theRecorder);
+
+        assertEquals(3, theRecorder.mDays.size());
+        assertInstanceOf(IllegalArgumentException.class, theRecorder.mError);
+    }
+
+    @Test
+    void unboundedDemandDeliversTheWholeRange() {
+        Recorder theRecorder = new Recorder(Long.MAX_VALUE) {
+            @Override
+            public void onNext(LiturgicalDay theDay) {
+                super.onNext(theDay);
+                // Sumar a la demanda ilimitada no la desborda
+                mSubscription.request(Long.MAX_VALUE);
+            }
+        };
+        CalendarPublisher.of(LocalDate.of(2023, 1, 1), LocalDate.of(2024, 12, 31)).subscribe(theRecorder);
+
+        assertEquals(365 + 366, theRecorder.mDays.size());
+        assertEquals(LocalDate.of(2024, 12, 31), theRecorder.mDays.get(365 + 365).getDate());
+        assertEquals(1, theRecorder.mCompleted);
+        assertNull(theRecorder.mError);
+    }
+
+    @Test
+    void cancelPartwayThroughAYearStopsAllSignals() {
+        Recorder theRecorder = new Recorder(100) {
+            @Override
+            public void onNext(LiturgicalDay theDay) {
+                super.onNext(theDay);
+                if (mDays.size() == 5) {
+                    mSubscription.cancel();
+                }
+            }
+        };
+        CalendarPublisher.of(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 12, 31)).subscribe(theRecorder);
+        CalendarPublisher.DaySubscription theSubscription = (CalendarPublisher.DaySubscription) theRecorder.mSubscription;
+
+        assertEquals(5, theRecorder.mDays.size());
+        assertNull(theSubscription.getYear());
+        theSubscription.request(10);
+        theSubscription.request(0);
+        theSubscription.cancel();
+        assertEquals(5, theRecorder.mDays.size());
+        assertEquals(0, theRecorder.mCompleted);
+        assertEquals(0, theRecorder.mErrors);
+    }
+
+    @Test
+    void completesWithoutOutstandingDemand() {
+        Recorder theRecorder = new Recorder(3);
+        CalendarPublisher.of(LocalDate.of(2024, 12, 30), LocalDate.of(2025, 1, 1)).subscribe(theRecorder);
+
+        assertEquals(3, theRecorder.mDays.size());
+        assertEquals(1, theRecorder.mCompleted);
+        assertNull(((CalendarPublisher.DaySubscription) theRecorder.mSubscription).getYear());
+    }
+
+    @Test
+    void holdsAtMostTheYearOfTheLastDay() {
+        Recorder theRecorder = new Recorder(1);
+        CalendarPublisher.of(LocalDate.of(2023, 12, 31), LocalDate.of(2025, 1, 1)).subscribe(theRecorder);
+        CalendarPublisher.DaySubscription theSubscription = (CalendarPublisher.DaySubscription) theRecorder.mSubscription;
+
+        // Entregado el 31 de Diciembre y sin demanda, el año siguiente todavía no se ha generado
+        assertEquals(1, theRecorder.mDays.size());
+        assertEquals(2023, theSubscription.getYear().getYear());
+        LiturgicalYear thePrevious = theSubscription.getYear();
+        theSubscription.request(1);
+        assertEquals(2024, theSubscription.getYear().getYear());
+        assertTrue(thePrevious != theSubscription.getYear());
+        theSubscription.request(365);
+        assertEquals(2024, theSubscription.getYear().getYear());
+        theSubscription.request(1);
+        assertEquals(LocalDate.of(2025, 1, 1), theRecorder.mDays.get(theRecorder.mDays.size() - 1).getDate());
+        assertEquals(1, theRecorder.mCompleted);
+        assertNull(theSubscription.getYear());
+    }
+
+    /**
+     * Anota las señales recibidas y pide <code>theInitial</code> días en onSubscribe
+     */
+    private static class Recorder implements Flow.Subscriber<LiturgicalDay> {
+        private final long mInitial;
+        final List<LiturgicalDay> mDays = new ArrayList<>();
+        Flow.Subscription mSubscription;
+        Throwable mError;
+        int mErrors;
+        int mCompleted;
+
+        Recorder(long theInitial) {
+            mInitial = theInitial;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription theSubscription) {
+            mSubscription = theSubscription;
+            mSubscription.request(mInitial);
+        }
+
+        @Override
+        public void onNext(LiturgicalDay theDay) {
+            assertEquals(0, mCompleted + mErrors, "onNext después de terminar");
+            mDays.add(theDay);
+        }
+
+        @Override
+        public void onError(Throwable theError) {
+            mError = theError;
+            mErrors++;
+        }
+
+        @Override
+        public void onComplete() {
+            mCompleted++;
+        }
+    }
+}
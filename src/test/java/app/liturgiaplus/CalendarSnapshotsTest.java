@@ -0,0 +1,87 @@
+package app.liturgiaplus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CalendarSnapshotsTest {
+    private static final long TIMEOUT = 60;
+
+    @Test
+    void publishesReloadsInRequestOrder() throws Exception {
+        try (CalendarSnapshots theSnapshots = CalendarSnapshots.create(CalendarSnapshot.builder())) {
+            assertEquals(1, theSnapshots.current().getVersion());
+            List<CompletableFuture<CalendarSnapshot>> theReloads = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                theReloads.add(theSnapshots.reload(CalendarSnapshot.builder()
+                        .profile("p" + i, null, Map.of(), null)));
+            }
+            for (int i = 0; i < theReloads.size(); i++) {
+                CalendarSnapshot theSnapshot = theReloads.get(i).get(TIMEOUT, TimeUnit.SECONDS);
+                assertEquals(i + 2, theSnapshot.getVersion());
+                assertEquals("p" + i, theSnapshot.getProfile("p" + i).getName());
+            }
+            assertSame(theReloads.get(theReloads.size() - 1).get(), theSnapshots.current());
+        }
+    }
+
+    @Test
+    void failedBuildKeepsTheCurrentSnapshot() throws Exception {
+        try (CalendarSnapshots theSnapshots = CalendarSnapshots.create(CalendarSnapshot.builder())) {
+            CalendarSnapshot theFirst = theSnapshots.current();
+            CompletableFuture<CalendarSnapshot> theFailed = theSnapshots.reload(CalendarSnapshot.builder()
+                    .profile("es", "missing", Map.of(), null));
+
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> theFailed.get(TIMEOUT, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            assertSame(theFirst, theSnapshots.current());
+
+            // La versión fallida no se consume
+            CalendarSnapshot theNext = theSnapshots.reload(CalendarSnapshot.builder()).get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(2, theNext.getVersion());
+            assertSame(theNext, theSnapshots.current());
+        }
+    }
+
+    @Test
+    void closeCancelsPendingReloads() throws Exception {
+        CalendarSnapshots theSnapshots = CalendarSnapshots.create(CalendarSnapshot.builder());
+        // Una recarga lenta ocupa el hilo mientras las siguientes esperan en la cola
+        CompletableFuture<CalendarSnapshot> theRunning = theSnapshots.reload(CalendarSnapshot.builder()
+                .years(1583, 4099, 1));
+        List<CompletableFuture<CalendarSnapshot>> theQueued = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            theQueued.add(theSnapshots.reload(CalendarSnapshot.builder()));
+        }
+        theSnapshots.close();
+
+        for (CompletableFuture<CalendarSnapshot> theReload : theQueued) {
+            assertThrows(CancellationException.class, () -> theReload.get(TIMEOUT, TimeUnit.SECONDS));
+        }
+        // La recarga en curso termina de un modo u otro, sin quedarse colgada
+        try {
+            theRunning.get(TIMEOUT, TimeUnit.SECONDS);
+        } catch (CancellationException | ExecutionException e) {
+            assertTrue(theRunning.isDone());
+        }
+        assertTrue(theSnapshots.current().getVersion() <= 2);
+
+        CompletableFuture<CalendarSnapshot> theLate = theSnapshots.reload(CalendarSnapshot.builder());
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> theLate.get(TIMEOUT, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+}
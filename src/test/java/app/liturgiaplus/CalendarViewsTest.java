@@ -0,0 +1,98 @@
+package app.liturgiaplus;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CalendarViewsTest {
+    private static final ProperCalendar SPAIN = ProperCalendar.load("es", ProperCalendar.universal(),
+            Map.of(LiturgicalCalendar.IMMACULATE_PREVAILS, true), "proper-es.txt");
+
+    private final Map<Integer, LiturgicalYear> mYears = new HashMap<>();
+
+    @Test
+    void firstCellStartsOnTheConfiguredWeekday() {
+        for (DayOfWeek theFirstDayOfWeek : DayOfWeek.values()) {
+            CalendarViews theViews = CalendarViews.of(SPAIN, theFirstDayOfWeek);
+            for (int theMonth = 1; theMonth <= 12; theMonth++) {
+                MonthView theView = theViews.getMonth(2024, theMonth);
+                String theCase = theFirstDayOfWeek + " " + theMonth;
+                assertEquals(theFirstDayOfWeek, theView.getDate(0).getDayOfWeek(), theCase);
+                assertTrue(theView.getFirstCell() < 7, theCase);
+                assertEquals(LocalDate.of(2024, theMonth, 1), theView.getDate(theView.getFirstCell()), theCase);
+                assertEquals(LocalDate.of(2024, theMonth, 1).lengthOfMonth(),
+                        theView.getLastCell() - theView.getFirstCell() + 1, theCase);
+                assertTrue(theView.isInMonth(theView.getFirstCell()) && !theView.isInMonth(theView.getLastCell() + 1),
+                        theCase);
+            }
+            WeekView theWeek = theViews.getWeek(LocalDate.of(2024, 5, 15));
+            assertEquals(theFirstDayOfWeek, theWeek.getDate(0).getDayOfWeek());
+            assertTrue(theWeek.indexOf(LocalDate.of(2024, 5, 15)) >= 0);
+        }
+    }
+
+    @Test
+    void monthGridsCrossTheYearBoundaries() {
+        CalendarStore theStore = CalendarStore.build(2023, 2025, List.of(ProperCalendar.universal(), SPAIN), 1);
+        for (CalendarViews theViews : List.of(CalendarViews.of(SPAIN, DayOfWeek.SUNDAY),
+                CalendarViews.of(theStore, 1, DayOfWeek.SUNDAY))) {
+            // Enero de 2024 empieza en Lunes: la rejilla empieza el Domingo 31 de Diciembre de 2023
+            MonthView theJanuary = theViews.getMonth(2024, 1);
+            assertEquals(LocalDate.of(2023, 12, 31), theJanuary.getDate(0));
+            assertEquals(1, theJanuary.getFirstCell());
+            assertRecords(theJanuary);
+
+            // Diciembre de 2024 termina en Martes: la rejilla sigue hasta el 11 de Enero de 2025
+            MonthView theDecember = theViews.getMonth(2024, 12);
+            assertEquals(LocalDate.of(2024, 12, 1), theDecember.getDate(0));
+            assertEquals(LocalDate.of(2025, 1, 11), theDecember.getDate(MonthView.CELLS - 1));
+            assertRecords(theDecember);
+        }
+    }
+
+    @Test
+    void weekOfTheLastIsoWeekCrossesIntoTheNextYear() {
+        LocalDate theDate = LocalDate.of(2020, 12, 31);
+        assertEquals(53, theDate.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+        WeekView theWeek = CalendarViews.of(SPAIN).getWeek(theDate);
+        assertEquals(LocalDate.of(2020, 12, 28), theWeek.getDate(0));
+        assertEquals(LocalDate.of(2021, 1, 3), theWeek.getDate(WeekView.CELLS - 1));
+        assertEquals(3, theWeek.indexOf(theDate));
+        assertRecords(theWeek);
+    }
+
+    @Test
+    void returnsTheCachedViews() {
+        CalendarViews theViews = CalendarViews.of(SPAIN);
+        MonthView theMonth = theViews.getMonth(2024, 4);
+        assertSame(theMonth, theViews.getMonth(2024, 4));
+        assertSame(theMonth, theViews.getMonth(LocalDate.of(2024, 4, 30)));
+        assertNotSame(theMonth, theViews.getMonth(2025, 4));
+
+        WeekView theWeek = theViews.getWeek(LocalDate.of(2024, 4, 15));
+        assertSame(theWeek, theViews.getWeek(LocalDate.of(2024, 4, 21)));
+        assertNotSame(theWeek, theViews.getWeek(LocalDate.of(2024, 4, 22)));
+
+        // Otras vistas del mismo propio tienen su propia caché
+        assertNotSame(theMonth, CalendarViews.of(SPAIN).getMonth(2024, 4));
+    }
+
+    private void assertRecords(DayGrid theGrid) {
+        for (int i = 0; i < theGrid.size(); i++) {
+            LocalDate theDate = theGrid.getDate(i);
+            LiturgicalYear theYear = mYears.computeIfAbsent(theDate.getYear(),
+                    y -> LiturgicalCalendar.newCalendar(y, SPAIN.getSettings()).getLiturgicalYear(SPAIN));
+            assertEquals(theYear.getRecord(theYear.indexOf(theDate)), theGrid.getRecord(i), theDate.toString());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package app.liturgiaplus;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CodeIndexTest {
+    private static final ProperCalendar SPAIN = ProperCalendar.load("es", ProperCalendar.universal(),
+            Map.of(LiturgicalCalendar.IMMACULATE_PREVAILS, true), "proper-es.txt");
+
+    @Test
+    void matchesAScanOfTheStore() {
+        CalendarStore theStore = CalendarStore.build(1990, 2030, List.of(ProperCalendar.universal(), SPAIN), 1);
+        for (int p = 0; p < theStore.getProfileCount(); p++) {
+            Map<String, List<Integer>> theScan = scan(theStore, p);
+            CodeIndex theIndex = theStore.getCodeIndex(p);
+            for (Map.Entry<String, List<Integer>> theEntry : theScan.entrySet()) {
+                assertArrayEquals(toArray(theEntry.getValue()), theIndex.getDays(theEntry.getKey()),
+                        p + " " + theEntry.getKey());
+            }
+
+            // Un santo, una fiesta móvil y una solemnidad que se traslada
+            for (String theCode : new String[]{"PST01-24", "ORD-36-CORPUS", "PST12-08"}) {
+                assertTrue(theScan.containsKey(theCode), theCode);
+                LocalDate theFrom = LocalDate.of(2001, 3, 1);
+                LocalDate theTo = LocalDate.of(2024, 12, 8);
+                List<Integer> theExpected = new ArrayList<>();
+                for (int theDay : theScan.get(theCode)) {
+                    if (theDay >= theFrom.toEpochDay() && theDay <= theTo.toEpochDay()) {
+                        theExpected.add(theDay);
+                    }
+                }
+                assertArrayEquals(toArray(theExpected), theIndex.getDays(theCode, theFrom, theTo), theCode);
+                assertEquals(theExpected.size(), theIndex.count(theCode, theFrom, theTo), theCode);
+                assertEquals(LocalDate.ofEpochDay(theExpected.get(0)), theIndex.next(theCode, theFrom), theCode);
+                assertTrue(theIndex.contains(theCode, LocalDate.ofEpochDay(theExpected.get(1))), theCode);
+            }
+        }
+        // 2024: la Inmaculada pasa al Lunes en el calendario universal, pero no en el de España
+        CodeIndex theUniversal = theStore.getCodeIndex(0);
+        CodeIndex theSpain = theStore.getCodeIndex(1);
+        assertTrue(theUniversal.contains("PST12-08", LocalDate.of(2024, 12, 9)));
+        assertFalse(theUniversal.contains("PST12-08", LocalDate.of(2024, 12, 8)));
+        assertTrue(theSpain.contains("PST12-08", LocalDate.of(2024, 12, 8)));
+        assertNull(theSpain.next("PST12-08", LocalDate.of(2030, 12, 9)));
+        assertEquals(0, theSpain.getDays("SIN-CODIGO").length);
+    }
+
+    @Test
+    void buildsOneIndexUnderConcurrentFirstAccess() throws Exception {
+        CalendarStore theStore = CalendarStore.build(2000, 2040, List.of(ProperCalendar.universal()), 1);
+        int theThreads = 8;
+        ExecutorService thePool = Executors.newFixedThreadPool(theThreads);
+        try {
+            CountDownLatch theStart = new CountDownLatch(1);
+            List<Future<CodeIndex>> theIndexes = new ArrayList<>();
+            for (int t = 0; t < theThreads; t++) {
+                Callable<CodeIndex> theQuery = () -> {
+                    theStart.await();
+                    return theStore.getCodeIndex(0);
+                };
+                theIndexes.add(thePool.submit(theQuery));
+            }
+            theStart.countDown();
+            CodeIndex theFirst = theIndexes.get(0).get();
+            for (Future<CodeIndex> theIndex : theIndexes) {
+                assertSame(theFirst, theIndex.get());
+            }
+            assertSame(theFirst, theStore.getCodeIndex(0));
+            assertArrayEquals(toArray(scan(theStore, 0).get("PAS01-01")), theFirst.getDays("PAS01-01"));
+        } finally {
+            thePool.shutdownNow();
+        }
+    }
+
+    /**
+     * Recorre todos los días del almacén y anota los días de cada código
+     */
+    private static Map<String, List<Integer>> scan(CalendarStore theStore, int theProfile) {
+        Map<String, List<Integer>> theDays = new HashMap<>();
+        for (int i = 0; i < theStore.getDays(); i++) {
+            long theDay = theStore.getFirstEpochDay() + i;
+            String theCode = theStore.getCode(theProfile, theDay);
+            if (theCode != null) {
+                theDays.computeIfAbsent(theCode, k -> new ArrayList<>()).add((int) theDay);
+            }
+        }
+        return theDays;
+    }
+
+    private static int[] toArray(List<Integer> theDays) {
+        return theDays.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,113 @@
+package app.liturgiaplus;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContentStoreTest {
+    @TempDir
+    Path mDirectory;
+
+    @Test
+    void roundTripsTextsByCodeAndWeek() throws IOException {
+        Path thePath = mDirectory.resolve("liturgia.lpcs");
+        new ContentStore.Writer()
+                .add("PST01-24", 0, "Natividad de San Juan Bautista")
+                .add("ORD0[1]*02 F1", 1, "Feria, semana I")
+                .add("ORD0[1]*02 F1", 2, "Feria, semana II")
+                .add("CUA0004", 0, "Miércoles de Ceniza: «Convertíos»")
+                .write(thePath);
+
+        try (ContentStore theStore = ContentStore.open(thePath)) {
+            assertEquals(4, theStore.size());
+            assertEquals("Natividad de San Juan Bautista", theStore.getText("PST01-24", 0));
+            // Un texto de semana 0 vale para cualquier semana
+            assertEquals("Natividad de San Juan Bautista", theStore.getText("PST01-24", 3));
+            assertEquals("Feria, semana I", theStore.getText("ORD0[1]*02 F1", 1));
+            assertEquals("Feria, semana II", theStore.getText("ORD0[1]*02 F1", 2));
+            assertNull(theStore.getText("ORD0[1]*02 F1", 3));
+            assertEquals("Miércoles de Ceniza: «Convertíos»", theStore.getText("CUA0004", 4));
+            assertNull(theStore.getText("PST01-25", 0));
+            assertEquals(theStore.getText("PST01-24", 0).getBytes(StandardCharsets.UTF_8).length,
+                    theStore.getBytes("PST01-24", 0).remaining());
+        }
+    }
+
+    @Test
+    void looksUpTheDaysOfAYear() throws IOException {
+        LiturgicalYear theYear = LiturgicalCalendar.newCalendar(2024, Map.of()).getLiturgicalYear();
+        ContentStore.Writer theWriter = new ContentStore.Writer();
+        Set<String> theKeys = new HashSet<>();
+        for (int i = 0; i < theYear.length(); i++) {
+            int theRecord = theYear.getRecord(i);
+            String theCode = DayRecord.codeName(theRecord);
+            int theWeek = DayRecord.psalterWeek(theRecord);
+            if (theKeys.add(theWeek + " " + theCode)) {
+                theWriter.add(theCode, theWeek, theCode + "/" + theWeek);
+            }
+        }
+        Path thePath = mDirectory.resolve("year.lpcs");
+        theWriter.write(thePath);
+
+        try (ContentStore theStore = ContentStore.open(thePath)) {
+            assertEquals(theKeys.size(), theStore.size());
+            for (int i = 0; i < theYear.length(); i++) {
+                int theRecord = theYear.getRecord(i);
+                String theExpected = DayRecord.codeName(theRecord) + "/" + DayRecord.psalterWeek(theRecord);
+                assertEquals(theExpected, theStore.getText(theYear, i));
+                assertEquals(theExpected, theStore.getText(LiturgicalDay.of(theYear, i)));
+            }
+        }
+    }
+
+    @Test
+    void rejectsDuplicateKeys() {
+        ContentStore.Writer theWriter = new ContentStore.Writer().add("PST01-24", 0, "a").add("PST01-24", 1, "b");
+        assertThrows(IllegalArgumentException.class, () -> theWriter.add("PST01-24", 0, "c"));
+    }
+
+    @Test
+    void rejectsTruncatedAndCorruptFiles() throws IOException {
+        Path thePath = mDirectory.resolve("liturgia.lpcs");
+        new ContentStore.Writer()
+                .add("PST01-24", 0, "Natividad de San Juan Bautista")
+                .add("PST06-29", 0, "San Pedro y San Pablo")
+                .write(thePath);
+        byte[] theBytes = Files.readAllBytes(thePath);
+
+        assertRejected(Arrays.copyOf(theBytes, 6));
+        // El índice entero, pero sin los datos
+        assertRejected(Arrays.copyOf(theBytes, 12 + 2 * 24));
+        assertRejected(Arrays.copyOf(theBytes, theBytes.length - 1));
+
+        byte[] theBadCount = theBytes.clone();
+        ByteBuffer.wrap(theBadCount).putInt(8, 1000);
+        assertRejected(theBadCount);
+
+        byte[] theBadOffset = theBytes.clone();
+        ByteBuffer.wrap(theBadOffset).putInt(12 + 16, theBytes.length);
+        assertRejected(theBadOffset);
+
+        byte[] theBadMagic = theBytes.clone();
+        theBadMagic[0] = 'X';
+        assertRejected(theBadMagic);
+    }
+
+    private void assertRejected(byte[] theBytes) throws IOException {
+        Path thePath = Files.write(mDirectory.resolve("bad.lpcs"), theBytes);
+        assertThrows(IllegalArgumentException.class, () -> ContentStore.open(thePath).close());
+    }
+}
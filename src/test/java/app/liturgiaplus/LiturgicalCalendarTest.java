@@ -0,0 +1,113 @@
+package app.liturgiaplus;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LiturgicalCalendarTest {
+    private static final String[] KEYS = {
+            LiturgicalCalendar.EPIPHANY_ON_SUNDAY,
+            LiturgicalCalendar.ASCENSION_ORIGINAL,
+            LiturgicalCalendar.CORPUS_ORIGINAL,
+            LiturgicalCalendar.IMMACULATE_PREVAILS
+    };
+
+    /**
+     * 2024 y 2013 tienen el 8 de Diciembre en Domingo; 2023 y 2025 no
+     */
+    private static final int[] YEARS = {2013, 2023, 2024, 2025};
+
+    @Test
+    void deriveMatchesAFreshCalendarForEachKey() {
+        for (int theYear : YEARS) {
+            for (String theKey : KEYS) {
+                for (boolean theBase : new boolean[]{false, true}) {
+                    Map<String, Boolean> theBefore = Map.of(theKey, theBase);
+                    Map<String, Boolean> theAfter = Map.of(theKey, !theBase);
+                    String theCase = theYear + " " + theKey + "=" + !theBase;
+
+                    LiturgicalCalendar.Update theUpdate = LiturgicalCalendar.newCalendar(theYear, theBefore)
+                            .derive(Map.of(theKey, !theBase));
+                    LiturgicalYear theDerived = theUpdate.getCalendar().getLiturgicalYear();
+                    LiturgicalYear theFresh = LiturgicalCalendar.newCalendar(theYear, theAfter).getLiturgicalYear();
+                    assertRecords(theFresh, theDerived, theCase);
+
+                    LiturgicalYear theOld = LiturgicalCalendar.newCalendar(theYear, theBefore).getLiturgicalYear();
+                    assertEquals(changedDays(theOld, theFresh), theUpdate.getChangedDays(), theCase);
+                    assertEquals(theAfter, theUpdate.getCalendar().getSettings(), theCase);
+                }
+            }
+        }
+    }
+
+    @Test
+    void deriveReportsTheDaysThatMove() {
+        // 2024: la Epifanía pasa del Sábado 6 de Enero al Domingo 7, y el Bautismo al Lunes 8
+        SortedSet<LocalDate> theDays = LiturgicalCalendar.newCalendar(2024, Map.of())
+                .derive(Map.of(LiturgicalCalendar.EPIPHANY_ON_SUNDAY, true)).getChangedDays();
+        assertTrue(theDays.contains(LocalDate.of(2024, 1, 6)), theDays.toString());
+        assertTrue(theDays.contains(LocalDate.of(2024, 1, 7)), theDays.toString());
+        assertTrue(theDays.first().getMonthValue() == 1 && theDays.last().getMonthValue() == 1, theDays.toString());
+
+        // 2024: la Inmaculada prevalece sobre el II Domingo de Adviento en lugar de pasar al Lunes
+        theDays = LiturgicalCalendar.newCalendar(2024, Map.of())
+                .derive(Map.of(LiturgicalCalendar.IMMACULATE_PREVAILS, true)).getChangedDays();
+        assertEquals(new TreeSet<>(List.of(LocalDate.of(2024, 12, 8), LocalDate.of(2024, 12, 9))), theDays);
+
+        // 2023: el 8 de Diciembre es Viernes y la clave no cambia nada
+        LiturgicalCalendar.Update theUpdate = LiturgicalCalendar.newCalendar(2023, Map.of())
+                .derive(Map.of(LiturgicalCalendar.IMMACULATE_PREVAILS, true));
+        assertTrue(theUpdate.getChangedDays().isEmpty());
+        assertFalse(theUpdate.getRecomputedSegments().isEmpty());
+    }
+
+    @Test
+    void deriveWithoutChangesSharesEverySegment() {
+        LiturgicalCalendar theCalendar = LiturgicalCalendar.newCalendar(2024,
+                Map.of(LiturgicalCalendar.CORPUS_ORIGINAL, true));
+        LiturgicalCalendar.Update theUpdate = theCalendar.derive(Map.of(LiturgicalCalendar.CORPUS_ORIGINAL, true));
+        assertTrue(theUpdate.getRecomputedSegments().isEmpty());
+        assertTrue(theUpdate.getChangedDays().isEmpty());
+        for (LiturgicalCalendar.Segment theSegment : LiturgicalCalendar.Segment.values()) {
+            assertSame(theCalendar.getSegment(theSegment), theUpdate.getCalendar().getSegment(theSegment));
+        }
+    }
+
+    @Test
+    void deriveRemovesKeysWithNullValues() {
+        Map<String, Boolean> theDelta = new HashMap<>();
+        theDelta.put(LiturgicalCalendar.ASCENSION_ORIGINAL, null);
+        LiturgicalCalendar.Update theUpdate = LiturgicalCalendar.newCalendar(2024,
+                Map.of(LiturgicalCalendar.ASCENSION_ORIGINAL, true)).derive(theDelta);
+        assertTrue(theUpdate.getCalendar().getSettings().isEmpty());
+        assertRecords(LiturgicalCalendar.newCalendar(2024, Map.of()).getLiturgicalYear(),
+                theUpdate.getCalendar().getLiturgicalYear(), "2024 sin AscensionOriginal");
+    }
+
+    private static SortedSet<LocalDate> changedDays(LiturgicalYear theBefore, LiturgicalYear theAfter) {
+        SortedSet<LocalDate> theDays = new TreeSet<>();
+        for (int i = 0; i < theBefore.length(); i++) {
+            if (theBefore.getRecord(i) != theAfter.getRecord(i)) {
+                theDays.add(theBefore.dateOf(i));
+            }
+        }
+        return theDays;
+    }
+
+    private static void assertRecords(LiturgicalYear theExpected, LiturgicalYear theActual, String theCase) {
+        assertEquals(theExpected.length(), theActual.length(), theCase);
+        for (int i = 0; i < theExpected.length(); i++) {
+            assertEquals(theExpected.getRecord(i), theActual.getRecord(i), theCase + " " + theExpected.dateOf(i));
+        }
+    }
+}
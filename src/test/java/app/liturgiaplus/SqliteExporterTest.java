@@ -0,0 +1,130 @@
+package app.liturgiaplus;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqliteExporterTest {
+    @TempDir
+    Path mDirectory;
+
+    /**
+     * Tres rangos de {@link SqliteExporter#YEARS_PER_TRANSACTION} años, el último incompleto, y dos perfiles
+     */
+    private static CalendarStore store() {
+        List<ProperCalendar> theProfiles = List.of(ProperCalendar.universal(),
+                ProperCalendar.load("es", ProperCalendar.universal(), Map.of("ImmaculatePrevails", true),
+                        "proper-es.txt"));
+        return CalendarStore.build(1990, 2110, theProfiles, 2);
+    }
+
+    @Test
+    void exportsEveryDayOfEveryProfile() throws SQLException {
+        CalendarStore theStore = store();
+        try (Connection theConnection = SqliteExporter.open(mDirectory.resolve("calendario.db").toString())) {
+            long theDays = new SqliteExporter(theConnection).export(theStore);
+
+            assertEquals(2L * theStore.getDays(), theDays);
+            assertEquals(theDays, count(theConnection, "SELECT count(*) FROM days"));
+            assertEquals(theDays, count(theConnection, "SELECT count(*) FROM calendar"));
+            assertEquals(2, count(theConnection, "SELECT count(*) FROM regions"));
+            assertEquals(count(theConnection, "SELECT count(DISTINCT code) FROM celebrations"),
+                    count(theConnection, "SELECT count(*) FROM codes"));
+            assertEquals("es", query(theConnection, "SELECT name FROM regions WHERE parent = 'universal'"));
+            assertEquals("1990", query(theConnection, "SELECT value FROM meta WHERE key = 'from_year'"));
+            assertEquals("2110", query(theConnection, "SELECT value FROM meta WHERE key = 'to_year'"));
+            assertMatchesStore(theConnection, theStore);
+        }
+    }
+
+    @Test
+    void secondExportReplacesTheTables() throws SQLException {
+        try (Connection theConnection = SqliteExporter.open(mDirectory.resolve("calendario.db").toString())) {
+            new SqliteExporter(theConnection).export(store());
+
+            CalendarStore theStore = CalendarStore.build(2024, 2024, List.of(ProperCalendar.universal()), 1);
+            long theDays = new SqliteExporter(theConnection).export(theStore);
+
+            assertEquals(366, theDays);
+            assertEquals(366, count(theConnection, "SELECT count(*) FROM days"));
+            assertEquals(1, count(theConnection, "SELECT count(*) FROM regions"));
+            assertEquals("2024", query(theConnection, "SELECT value FROM meta WHERE key = 'from_year'"));
+            assertEquals(0, count(theConnection, "SELECT count(*) FROM celebrations WHERE id NOT IN"
+                    + " (SELECT celebration FROM days WHERE celebration IS NOT NULL)"));
+            assertMatchesStore(theConnection, theStore);
+        }
+    }
+
+    @Test
+    void mainWritesSqlite() throws Exception {
+        String theFile = mDirectory.resolve("main.db").toString();
+        Main.run(Main.Options.parse(new String[]{"--from", "2023", "--to", "2024",
+                "--profile", "universal:", "--profile", "sunday:EpiphanyOnSunday=true",
+                "--format", "sqlite", "--output", theFile}));
+
+        try (Connection theConnection = SqliteExporter.open(theFile)) {
+            assertEquals(2 * (365 + 366), count(theConnection, "SELECT count(*) FROM days"));
+            // Con la Epifanía en Domingo cambian los días entre el 2 y el 8 de Enero
+            assertTrue(count(theConnection, "SELECT count(*) FROM calendar u JOIN calendar s ON s.date = u.date"
+                    + " WHERE u.region = 'universal' AND s.region = 'sunday' AND u.code <> s.code") > 0);
+        }
+    }
+
+    /**
+     * Cada fila de la vista <code>calendar</code> tiene la fecha y los campos del registro del almacén
+     */
+    private static void assertMatchesStore(Connection theConnection, CalendarStore theStore) throws SQLException {
+        for (int p = 0; p < theStore.getProfileCount(); p++) {
+            String theRegion = theStore.getProfile(p).getName();
+            try (PreparedStatement theQuery = theConnection.prepareStatement("SELECT region, date, code, color, rank,"
+                    + " psalter_week, sunday_cycle, weekday_cycle FROM calendar WHERE region = ? ORDER BY date")) {
+                theQuery.setString(1, theRegion);
+                ResultSet theRows = theQuery.executeQuery();
+                for (long theDay = theStore.getFirstEpochDay(); theStore.contains(theDay); theDay++) {
+                    assertTrue(theRows.next(), "Faltan filas en " + theRegion);
+                    int theRecord = theStore.getRecord(p, theDay);
+                    String theDate = LocalDate.ofEpochDay(theDay).toString();
+                    assertEquals(theRegion, theRows.getString(1));
+                    assertEquals(theDate, theRows.getString(2));
+                    if (theRecord == DayRecord.EMPTY) {
+                        assertNull(theRows.getString(3), theDate);
+                    } else {
+                        assertEquals(DayRecord.codeName(theRecord), theRows.getString(3), theDate);
+                        assertEquals(DayRecord.color(theRecord), theRows.getInt(4), theDate);
+                        assertEquals(DayRecord.rank(theRecord), theRows.getInt(5), theDate);
+                        assertEquals(DayRecord.psalterWeek(theRecord), theRows.getInt(6), theDate);
+                    }
+                    assertEquals(DayRecord.sundayCycle(theRecord), theRows.getInt(7), theDate);
+                    assertEquals(DayRecord.weekdayCycle(theRecord), theRows.getInt(8), theDate);
+                }
+                assertFalse(theRows.next());
+            }
+        }
+    }
+
+    private static long count(Connection theConnection, String theSql) throws SQLException {
+        return Long.parseLong(query(theConnection, theSql));
+    }
+
+    private static String query(Connection theConnection, String theSql) throws SQLException {
+        try (Statement theStatement = theConnection.createStatement();
+             ResultSet theRows = theStatement.executeQuery(theSql)) {
+            theRows.next();
+            return theRows.getString(1);
+        }
+    }
+}
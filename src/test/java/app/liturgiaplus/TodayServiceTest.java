@@ -0,0 +1,200 @@
+package app.liturgiaplus;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TodayServiceTest {
+    private static final ZoneId UTC = ZoneOffset.UTC;
+    private static final ZoneId KIRITIMATI = ZoneId.of("Pacific/Kiritimati");
+
+    @Test
+    void rollsOverNewYearWithoutGeneratingOnRequest() {
+        TestClock theClock = new TestClock(Instant.parse("2024-12-30T00:00:00Z"));
+        ProperCalendar theProper = ProperCalendar.universal();
+        try (TodayService theService = new TodayService(theClock)) {
+            assertEquals(LocalDate.of(2024, 12, 30), theService.getToday(UTC, theProper).getDate());
+            assertEquals(LocalDate.of(2024, 12, 30), theService.getToday(KIRITIMATI, theProper).getDate());
+            assertEquals(1, theService.getRequestGenerations());
+
+            // En Diciembre el repaso genera el año siguiente
+            theService.prewarm();
+            assertEquals(2, theService.getGenerations());
+
+            // Medianoche en Kiritimati (UTC+14), todavía 31 de Diciembre en UTC
+            theClock.set(Instant.parse("2024-12-31T10:00:00Z"));
+            assertDay(LocalDate.of(2025, 1, 1), theService.getToday(KIRITIMATI, theProper));
+            assertDay(LocalDate.of(2025, 1, 2), theService.getTomorrow(KIRITIMATI, theProper));
+            assertDay(LocalDate.of(2024, 12, 31), theService.getToday(UTC, theProper));
+            theService.prewarm();
+
+            theClock.set(Instant.parse("2025-01-01T00:00:00Z"));
+            assertDay(LocalDate.of(2025, 1, 1), theService.getToday(UTC, theProper));
+            assertDay(LocalDate.of(2025, 1, 2), theService.getTomorrow(UTC, theProper));
+            theService.prewarm();
+
+            assertEquals(1, theService.getRequestGenerations());
+            assertEquals(2, theService.getGenerations());
+        }
+    }
+
+    @Test
+    void rollsOverInPrewarmBeforeTheFirstQuery() {
+        TestClock theClock = new TestClock(Instant.parse("2024-12-31T09:00:00Z"));
+        ProperCalendar theProper = ProperCalendar.universal();
+        try (TodayService theService = new TodayService(theClock)) {
+            theService.getToday(UTC, theProper);
+            theService.getToday(KIRITIMATI, theProper);
+            long theRequests = theService.getRequestGenerations();
+            theService.prewarm();
+
+            theClock.set(Instant.parse("2025-01-01T00:00:01Z"));
+            theService.prewarm();
+            assertDay(LocalDate.of(2025, 1, 1), theService.getToday(UTC, theProper));
+            assertDay(LocalDate.of(2025, 1, 2), theService.getTomorrow(UTC, theProper));
+            assertDay(LocalDate.of(2025, 1, 1), theService.getToday(KIRITIMATI, theProper));
+            assertEquals(theRequests, theService.getRequestGenerations());
+        }
+    }
+
+    @Test
+    void stopsTrackingPairsThatAreNoLongerQueried() {
+        TestClock theClock = new TestClock(Instant.parse("2024-06-15T12:00:00Z"));
+        // Como tras CalendarSnapshots.reload: otro propio con la misma configuración
+        ProperCalendar theOld = ProperCalendar.of("es", Map.of());
+        ProperCalendar theNew = ProperCalendar.of("es", Map.of());
+        try (TodayService theService = new TodayService(theClock)) {
+            theService.getToday(UTC, theOld);
+            theService.getToday(UTC, theNew);
+            assertEquals(2, theService.getTrackedCount());
+
+            for (int i = 0; i <= TodayService.EVICT_AFTER_PASSES; i++) {
+                theService.getToday(UTC, theNew);
+                theService.prewarm();
+            }
+            assertEquals(1, theService.getTrackedCount());
+
+            // En Diciembre sólo se genera por adelantado el año siguiente del propio que se consulta
+            theClock.set(Instant.parse("2024-12-01T12:00:00Z"));
+            long theGenerations = theService.getGenerations();
+            theService.getToday(UTC, theNew);
+            theService.prewarm();
+            assertEquals(theGenerations + 1, theService.getGenerations());
+        }
+    }
+
+    @Test
+    void generatesEachYearOnceUnderConcurrentRequests() throws Exception {
+        TestClock theClock = new TestClock(Instant.parse("2024-06-15T12:00:00Z"));
+        ProperCalendar theProper = ProperCalendar.universal();
+        ExecutorService thePool = Executors.newFixedThreadPool(8);
+        try (TodayService theService = new TodayService(theClock)) {
+            List<Future<LiturgicalDay>> theDays = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                Callable<LiturgicalDay> theQuery = () -> theService.getToday(UTC, theProper);
+                theDays.add(thePool.submit(theQuery));
+            }
+            for (Future<LiturgicalDay> theDay : theDays) {
+                assertDay(LocalDate.of(2024, 6, 15), theDay.get());
+            }
+            assertEquals(1, theService.getGenerations());
+            assertSame(theService.getToday(UTC, theProper), theService.getToday(UTC, theProper));
+        } finally {
+            thePool.shutdownNow();
+        }
+    }
+
+    @Test
+    void countsFailedPassesAndKeepsPrewarming() throws Exception {
+        TestClock theClock = new TestClock(Instant.parse("2024-06-15T12:00:00Z"));
+        ProperCalendar theProper = ProperCalendar.universal();
+        try (TodayService theService = new TodayService(theClock)) {
+            theService.getToday(UTC, theProper);
+            assertNull(theService.getLastFailure());
+
+            theClock.set(null);
+            theService.start(Duration.ofMillis(5));
+            long theDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (theService.getFailedPasses() < 3 && System.nanoTime() < theDeadline) {
+                Thread.sleep(5);
+            }
+            // Los repasos siguen tras el primer fallo
+            assertTrue(theService.getFailedPasses() >= 3);
+            assertInstanceOf(IllegalStateException.class, theService.getLastFailure());
+        }
+    }
+
+    private static void assertDay(LocalDate theDate, LiturgicalDay theDay) {
+        LiturgicalYear theYear = LiturgicalCalendar.newCalendar(theDate.getYear(), Map.of()).getLiturgicalYear();
+        assertEquals(theDate, theDay.getDate());
+        assertEquals(theYear.getRecord(theYear.indexOf(theDate)), theDay.getRecord(), theDate.toString());
+    }
+
+    /**
+     * Reloj que sólo avanza cuando la prueba lo pide; sin instante, falla
+     */
+    private static final class TestClock extends Clock {
+        private volatile Instant mInstant;
+
+        TestClock(Instant theInstant) {
+            mInstant = theInstant;
+        }
+
+        void set(Instant theInstant) {
+            mInstant = theInstant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId theZone) {
+            return new Clock() {
+                @Override
+                public ZoneId getZone() {
+                    return theZone;
+                }
+
+                @Override
+                public Clock withZone(ZoneId theOther) {
+                    return TestClock.this.withZone(theOther);
+                }
+
+                @Override
+                public Instant instant() {
+                    return TestClock.this.instant();
+                }
+            };
+        }
+
+        @Override
+        public Instant instant() {
+            Instant theInstant = mInstant;
+            if (theInstant == null) {
+                throw new IllegalStateException("Reloj parado");
+            }
+            return theInstant;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package app.liturgiaplus;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YearCodecTest {
+    private static final ProperCalendar SPAIN = ProperCalendar.load("es", ProperCalendar.universal(),
+            Map.of(LiturgicalCalendar.IMMACULATE_PREVAILS, true), "proper-es.txt");
+
+    @Test
+    void roundTripsLeapAndCommonYearsWithAndWithoutProper() {
+        int[] theDecoded = new int[366];
+        ByteBuffer theBuffer = ByteBuffer.allocate(16 * 1024);
+        for (int theYear : new int[]{2023, 2024, 2100, 2000}) {
+            for (LiturgicalYear theLiturgicalYear : LiturgicalCalendar.newLiturgicalYears(theYear,
+                    List.of(ProperCalendar.universal(), SPAIN))) {
+                theBuffer.clear();
+                int theSize = YearCodec.encode(theLiturgicalYear, theBuffer);
+                assertEquals(theBuffer.position(), theSize);
+                assertTrue(theSize < 4 * 1024, "Año " + theYear + " de " + theSize + " bytes");
+                theBuffer.flip();
+
+                assertEquals(theYear, YearCodec.decode(theBuffer, theDecoded));
+                assertFalse(theBuffer.hasRemaining());
+                int[] theRecords = new int[theLiturgicalYear.length()];
+                theLiturgicalYear.copyRecords(0, theRecords, 0, theRecords.length);
+                int[] theDays = new int[theRecords.length];
+                System.arraycopy(theDecoded, 0, theDays, 0, theDays.length);
+                assertArrayEquals(theRecords, theDays, theYear + " " + theLiturgicalYear.getProper().getName());
+            }
+        }
+    }
+
+    @Test
+    void decodesConsecutiveYearsFromOneBuffer() {
+        ByteBuffer theBuffer = ByteBuffer.allocate(16 * 1024);
+        YearCodec.encode(LiturgicalCalendar.newCalendar(2024, Map.of()).getLiturgicalYear(), theBuffer);
+        YearCodec.encode(LiturgicalCalendar.newCalendar(2025, Map.of()).getLiturgicalYear(), theBuffer);
+        theBuffer.flip();
+        int[] theRecords = new int[366];
+        assertEquals(2024, YearCodec.decode(theBuffer, theRecords));
+        assertEquals(2025, YearCodec.decode(theBuffer, theRecords));
+        assertFalse(theBuffer.hasRemaining());
+    }
+
+    @Test
+    void rejectsWrongMagic() {
+        ByteBuffer theBuffer = encoded(2024);
+        theBuffer.put(0, (byte) 'X');
+        assertThrows(IllegalArgumentException.class, () -> YearCodec.decode(theBuffer, new int[366]));
+    }
+
+    @Test
+    void rejectsUnsupportedVersion() {
+        ByteBuffer theBuffer = encoded(2024);
+        theBuffer.put(2, (byte) (YearCodec.VERSION + 1));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> YearCodec.decode(theBuffer, new int[366]));
+        assertTrue(e.getMessage().contains(String.valueOf(YearCodec.VERSION + 1)));
+    }
+
+    @Test
+    void rejectsTruncatedBuffer() {
+        ByteBuffer theBuffer = encoded(2024);
+        theBuffer.limit(theBuffer.limit() / 2);
+        assertThrows(BufferUnderflowException.class, () -> YearCodec.decode(theBuffer, new int[366]));
+    }
+
+    @Test
+    void rejectsTooSmallRecordArray() {
+        ByteBuffer theBuffer = encoded(2024);
+        assertThrows(IllegalArgumentException.class, () -> YearCodec.decode(theBuffer, new int[365]));
+    }
+
+    @Test
+    void overflowsTooSmallTarget() {
+        LiturgicalYear theYear = LiturgicalCalendar.newCalendar(2024, Map.of()).getLiturgicalYear();
+        assertThrows(BufferOverflowException.class, () -> YearCodec.encode(theYear, ByteBuffer.allocate(64)));
+    }
+
+    private static ByteBuffer encoded(int theYear) {
+        ByteBuffer theBuffer = ByteBuffer.allocate(16 * 1024);
+        YearCodec.encode(LiturgicalCalendar.newCalendar(theYear, Map.of()).getLiturgicalYear(), theBuffer);
+        theBuffer.flip();
+        return theBuffer;
+    }
+}
@@ -0,0 +1,539 @@
+package app.liturgiaplus;
+
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>Verifica exhaustivamente la generación del calendario: todos los años de un rango (por defecto 1583-4099)
+ * con todas las combinaciones de {@link LiturgicalCalendar#SETTINGS_KEYS}, en paralelo. La clave
+ * {@link LiturgicalCalendar#GAUSS_EASTER} no se combina: se comprueba que su Pascua es la gregoriana.</p>
+ * <p>Cada año se compara con lo que se deduce sólo de las fechas ancla ({@link Computus},
+ * {@link Lectionary#primaAdventu(int)}, {@link AnchorTable}), sin usar los métodos que se verifican:</p>
+ * <ul>
+ *     <li>Pascua, Miércoles de Ceniza (Pascua - 46), Primer Domingo de Adviento, Epifanía y Bautismo del Señor;
+ *     la Pascua de las tablas de {@link EasterComputus} es la calculada año a año y cae en Domingo</li>
+ *     <li>Cada día del año tiene exactamente una celebración principal,
+ *     y ningún segmento genera dos celebraciones en el mismo día</li>
+ *     <li>La semana de cada Domingo o feria coincide con la semana de su tiempo litúrgico,
+ *     y la semana del salterio con la semana del tiempo</li>
+ *     <li>El Tiempo Ordinario tiene 33 o 34 semanas, consecutivas en cada uno de sus dos bloques</li>
+ *     <li>Los ciclos del Leccionario de cada registro son los de su año litúrgico</li>
+ *     <li>El año codificado con {@link YearCodec} se decodifica con los mismos registros</li>
+ *     <li>Cada celebración tiene nombre en todos los idiomas de {@link CelebrationNames#LOCALES}</li>
+ *     <li>La semana del salterio de la Liturgia de las Horas ({@link HoursRecord}) es la del registro y la de la
+ *     semana del tiempo, cada día tiene un oficio, y las Vísperas de cada día pertenecen a un solo día</li>
+ * </ul>
+ * <p>Termina con código de salida distinto de cero si algún año no cumple, de modo que sirve
+ * de red para los cambios de rendimiento del generador.</p>
+ *
+ * <pre>gradle verifyCalendar</pre>
+ */
+public class CalendarVerifier {
+    private static final int MAX_REPORTED = 20;
+
+    /**
+     * Códigos con nombre ya comprobado (posición del idioma en los 32 bits altos); cada código se comprueba una vez
+     */
+    private static final Set<Long> sNamed = ConcurrentHashMap.newKeySet();
+
+    public static void main(String[] args) throws InterruptedException {
+        int theFrom = args.length > 0 ? Integer.parseInt(args[0]) : 1583;
+        int theTo = args.length > 1 ? Integer.parseInt(args[1]) : 4099;
+        int theThreads = Runtime.getRuntime().availableProcessors();
+        List<Map<String, Boolean>> theProfiles = allSettings();
+
+        long start = System.nanoTime();
+        ExecutorService thePool = Executors.newFixedThreadPool(theThreads);
+        List<String> theFailures = new ArrayList<>();
+        int theCount = 0;
+        try {
+            ArrayDeque<Future<List<String>>> pending = new ArrayDeque<>();
+            int window = 2 * theThreads;
+            for (int theYear = theFrom; theYear <= theTo; theYear++) {
+                if (pending.size() >= window) {
+                    theCount += collect(pending.poll(), theFailures);
+                }
+                pending.add(thePool.submit(new YearJob(theYear, theProfiles)));
+            }
+            while (!pending.isEmpty()) {
+                theCount += collect(pending.poll(), theFailures);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error generando el calendario", e.getCause());
+        } finally {
+            thePool.shutdownNow();
+        }
+
+        System.out.printf("%d años x %d configuraciones verificados en %.1f s (%d hilos)%n",
+                theTo - theFrom + 1, theProfiles.size(), (System.nanoTime() - start) / 1e9, theThreads);
+        if (theCount > 0) {
+            for (String theFailure : theFailures) {
+                System.out.println(theFailure);
+            }
+            System.out.println(theCount + " errores");
+            System.exit(1);
+        }
+    }
+
+    private static int collect(Future<List<String>> theFuture, List<String> theFailures)
+            throws InterruptedException, ExecutionException {
+        List<String> theYearFailures = theFuture.get();
+        for (String theFailure : theYearFailures) {
+            if (theFailures.size() < MAX_REPORTED) {
+                theFailures.add(theFailure);
+            }
+        }
+        return theYearFailures.size();
+    }
+
+    /**
+     * @return Todas las combinaciones de valores de las claves de configuración, salvo la del cómputo de Gauss
+     */
+    private static List<Map<String, Boolean>> allSettings() {
+        List<String> theKeys = new ArrayList<>(LiturgicalCalendar.SETTINGS_KEYS);
+        theKeys.remove(LiturgicalCalendar.GAUSS_EASTER);
+        List<Map<String, Boolean>> theProfiles = new ArrayList<>();
+        for (int p = 0; p < 1 << theKeys.size(); p++) {
+            Map<String, Boolean> theSettings = new HashMap<>();
+            for (int k = 0; k < theKeys.size(); k++) {
+                theSettings.put(theKeys.get(k), (p & 1 << k) != 0);
+            }
+            theProfiles.add(theSettings);
+        }
+        return theProfiles;
+    }
+
+    private static final class YearJob implements Callable<List<String>> {
+        private final int mYear;
+        private final List<Map<String, Boolean>> mProfiles;
+
+        YearJob(int theYear, List<Map<String, Boolean>> theProfiles) {
+            mYear = theYear;
+            mProfiles = theProfiles;
+        }
+
+        @Override
+        public List<String> call() {
+            List<String> theFailures = new ArrayList<>();
+            List<LiturgicalCalendar> theCalendars = LiturgicalCalendar.newCalendars(mYear, mProfiles);
+            for (LiturgicalCalendar theCalendar : theCalendars) {
+                new YearCheck(theCalendar, theFailures).run();
+            }
+            return theFailures;
+        }
+    }
+
+    /**
+     * Las verificaciones de un año con una configuración
+     */
+    private static final class YearCheck {
+        private final LiturgicalCalendar mCalendar;
+        private final List<String> mFailures;
+        private final int mYear;
+        private final long mEaster;
+        private final long mAshes;
+        private final long mAdvent;
+        private final long mEpiphany;
+        private final long mBaptism;
+
+        YearCheck(LiturgicalCalendar theCalendar, List<String> theFailures) {
+            mCalendar = theCalendar;
+            mFailures = theFailures;
+            mYear = theCalendar.getYear();
+            mEaster = theCalendar.getComputus().compute(mYear);
+            mAshes = mEaster - 46;
+            mAdvent = Lectionary.primaAdventu(mYear);
+            if (Boolean.TRUE.equals(theCalendar.getSettings().get(LiturgicalCalendar.EPIPHANY_ON_SUNDAY))) {
+                // El Domingo entre el 2 y el 8 de Enero; si es el 7 o el 8, el Bautismo pasa al Lunes
+                mEpiphany = nextSunday(LocalDate.of(mYear, 1, 1).toEpochDay());
+                int theDay = LocalDate.ofEpochDay(mEpiphany).getDayOfMonth();
+                mBaptism = theDay >= 7 ? mEpiphany + 1 : mEpiphany + 7;
+            } else {
+                mEpiphany = LocalDate.of(mYear, 1, 6).toEpochDay();
+                mBaptism = nextSunday(mEpiphany);
+            }
+        }
+
+        void run() {
+            checkAnchors();
+            checkSegments();
+            checkDays();
+            checkOrdinaryWeeks();
+            checkCovered();
+            checkCodec();
+            checkNames();
+            checkHours();
+        }
+
+        private void checkAnchors() {
+            long theGregorian = Computus.easterEpochDay(mYear);
+            expect("Pascua", LiturgicalCalendar.getDiePaschae(mYear).toEpochDay(), theGregorian);
+            expect("Pascua (Gauss)", EasterComputus.GAUSS.easterEpochDay(mYear), theGregorian);
+            expect("Pascua (" + mCalendar.getComputus() + ")", mCalendar.getComputus().easterEpochDay(mYear), mEaster);
+            if (!isSunday(mEaster)) {
+                fail("Pascua en " + LocalDate.ofEpochDay(mEaster).getDayOfWeek());
+            }
+            if (mYear <= AnchorTable.LAST_YEAR) {
+                expect("Pascua (tabla)", AnchorTable.get().getEasterDate(mYear).toEpochDay(), theGregorian);
+                expect("Adviento (tabla)", LocalDate.ofYearDay(mYear, AnchorTable.get().getAdvent(mYear)).toEpochDay(), mAdvent);
+            }
+            expect("Miércoles de Ceniza", mCalendar.getQuartaCinerum().toEpochDay(), mAshes);
+            expect("Miércoles de Ceniza en Miércoles", mCalendar.getQuartaCinerum().getDayOfWeek().getValue(),
+                    DayOfWeek.WEDNESDAY.getValue());
+            expect("Primer Domingo de Adviento", mCalendar.getPrimaAdventu().toEpochDay(), mAdvent);
+            long theNovember27 = LocalDate.of(mYear, 11, 27).toEpochDay();
+            if (mAdvent < theNovember27 || mAdvent > theNovember27 + 6 || !isSunday(mAdvent)) {
+                fail("Primer Domingo de Adviento fuera del 27-11 al 3-12: " + LocalDate.ofEpochDay(mAdvent));
+            }
+            expect("Epifanía", mCalendar.getEpiphania().toEpochDay(), mEpiphany);
+            expect("Bautismo del Señor", mCalendar.getBaptismum().toEpochDay(), mBaptism);
+        }
+
+        /**
+         * Ningún segmento genera dos celebraciones el mismo día, y la semana de cada una es la de su tiempo
+         */
+        private void checkSegments() {
+            for (LiturgicalCalendar.Segment theSegment : LiturgicalCalendar.Segment.values()) {
+                HashSet<LocalDate> theDates = new HashSet<>();
+                for (Celebration mCelebration : mCalendar.getSegment(theSegment)) {
+                    if (!theDates.add(mCelebration.getDate())) {
+                        fail(theSegment + " genera dos celebraciones el " + mCelebration.getDate());
+                    }
+                    int theWeek = mCelebration.getTimeWeek();
+                    if (theWeek == 0) {
+                        continue;
+                    }
+                    int theExpected = seasonWeek(mCelebration.getDate().toEpochDay());
+                    if (theWeek != theExpected) {
+                        fail(mCelebration.getCode().trim() + " del " + mCelebration.getDate()
+                                + " en la semana " + theWeek + ", se esperaba " + theExpected);
+                    }
+                    if (mCelebration.getPsalterWeek() != (theWeek - 1) % 4 + 1) {
+                        fail(mCelebration.getCode().trim() + " del " + mCelebration.getDate()
+                                + " con semana del salterio " + mCelebration.getPsalterWeek() + " en la semana " + theWeek);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Cada día tiene una celebración principal, con un registro válido y los ciclos de su año litúrgico
+         */
+        private void checkDays() {
+            LiturgicalYear theYear = mCalendar.getLiturgicalYear();
+            for (int i = 0; i < theYear.length(); i++) {
+                Celebration mCelebration = theYear.getCelebration(i);
+                int theRecord = theYear.getRecord(i);
+                if (mCelebration == null || theRecord == DayRecord.EMPTY) {
+                    fail("Día sin celebración: " + theYear.dateOf(i));
+                    continue;
+                }
+                if (!mCelebration.getDate().equals(theYear.dateOf(i))) {
+                    fail("Celebración del " + mCelebration.getDate() + " en el día " + theYear.dateOf(i));
+                }
+                int theColor = DayRecord.color(theRecord);
+                int theRank = DayRecord.rank(theRecord);
+                if (theColor < Celebration.COLOR_WHITE || theColor > Celebration.COLOR_BLACK
+                        || theRank < Celebration.RANK_TRIDUUM || theRank > Celebration.RANK_WEEKDAY) {
+                    fail("Color o rango no válido el " + theYear.dateOf(i) + ": " + theColor + "/" + theRank);
+                }
+                int theLiturgicalYear = theYear.getFirstEpochDay() + i < mAdvent ? mYear : mYear + 1;
+                if (DayRecord.sundayCycle(theRecord) != Lectionary.sundayCycle(theLiturgicalYear)
+                        || DayRecord.weekdayCycle(theRecord) != Lectionary.weekdayCycle(theLiturgicalYear)) {
+                    fail("Ciclos del Leccionario del " + theYear.dateOf(i));
+                }
+            }
+        }
+
+        /**
+         * Las semanas de cada bloque del Tiempo Ordinario son consecutivas y suman 33 o 34
+         */
+        private void checkOrdinaryWeeks() {
+            int theFirstBlock = maxWeek(LiturgicalCalendar.Segment.PER_ANNUM_I);
+            int theSecondBlock = minWeek(LiturgicalCalendar.Segment.PER_ANNUM_II);
+            int theWeeks = theFirstBlock + 35 - theSecondBlock;
+            if (theWeeks != 33 && theWeeks != 34) {
+                fail("El Tiempo Ordinario tiene " + theWeeks + " semanas (1-" + theFirstBlock
+                        + ", " + theSecondBlock + "-34)");
+            }
+        }
+
+        /**
+         * Cada día que pertenece a una semana de algún tiempo tiene un único Domingo o feria de ese tiempo,
+         * salvo los Domingos de la Santísima Trinidad y del Corpus, que ocupan el lugar del Domingo del Tiempo Ordinario,
+         * y el de la Ascensión, que ocupa el del Domingo VII de Pascua. La Ascensión y el Corpus prevalecen sobre
+         * el Domingo o la feria de su día.
+         * Con {@link LiturgicalCalendar#CORPUS_ORIGINAL} el Corpus cae en Jueves, que conserva su feria:
+         * el Domingo siguiente tiene su Domingo del Tiempo Ordinario y el Jueves prevalece el Corpus
+         */
+        private void checkCovered() {
+            long theFirst = LocalDate.of(mYear, 1, 1).toEpochDay();
+            int[] theCounts = new int[LocalDate.of(mYear, 1, 1).lengthOfYear()];
+            for (LiturgicalCalendar.Segment theSegment : LiturgicalCalendar.Segment.values()) {
+                for (Celebration mCelebration : mCalendar.getSegment(theSegment)) {
+                    if (mCelebration.getTimeWeek() > 0) {
+                        theCounts[(int) (mCelebration.getDate().toEpochDay() - theFirst)]++;
+                    }
+                }
+            }
+            long theTrinity = mEaster + 56;
+            boolean isCorpusOnThursday = Boolean.TRUE.equals(
+                    mCalendar.getSettings().get(LiturgicalCalendar.CORPUS_ORIGINAL));
+            if (isCorpusOnThursday) {
+                checkCorpusOnThursday();
+            }
+            boolean isAscensionOnThursday = Boolean.TRUE.equals(
+                    mCalendar.getSettings().get(LiturgicalCalendar.ASCENSION_ORIGINAL));
+            long theAscension = isAscensionOnThursday ? mEaster + 39 : mEaster + 42;
+            expect("Ascensión", mCalendar.getAscensione().toEpochDay(), theAscension);
+            checkPrincipal(LiturgicalCalendar.Segment.ASCENSIO, theAscension);
+            checkImmaculata();
+            checkLateran();
+            for (int i = 0; i < theCounts.length; i++) {
+                long theDay = theFirst + i;
+                int theExpected = seasonWeek(theDay) == 0 || theDay == theTrinity
+                        || (!isCorpusOnThursday && theDay == mEaster + 63)
+                        || (!isAscensionOnThursday && theDay == theAscension) ? 0 : 1;
+                if (theCounts[i] != theExpected) {
+                    fail(theCounts[i] + " Domingos o ferias el " + LocalDate.ofEpochDay(theDay)
+                            + ", se esperaba " + theExpected);
+                }
+            }
+        }
+
+        /**
+         * El Jueves posterior a la Santísima Trinidad tiene el Corpus y la feria del Tiempo Ordinario,
+         * y el Corpus, de rango más alto, es la celebración principal
+         */
+        private void checkCorpusOnThursday() {
+            LocalDate theThursday = LocalDate.ofEpochDay(mEaster + 60);
+            Celebration theCorpus = mCalendar.getSegment(LiturgicalCalendar.Segment.CORPUS).get(0);
+            expect("Corpus en Jueves", theCorpus.getDate().toEpochDay(), theThursday.toEpochDay());
+            Celebration theWeekday = null;
+            for (Celebration mCelebration : mCalendar.getSegment(LiturgicalCalendar.Segment.PER_ANNUM_II)) {
+                if (mCelebration.getDate().equals(theThursday)) {
+                    theWeekday = mCelebration;
+                }
+            }
+            if (theWeekday == null) {
+                fail("Sin feria del Tiempo Ordinario el Jueves del Corpus " + theThursday);
+            } else if (theCorpus.getRank() >= theWeekday.getRank()) {
+                fail("El Corpus no prevalece sobre " + theWeekday.getCode().trim() + " el " + theThursday);
+            }
+            checkPrincipal(LiturgicalCalendar.Segment.CORPUS, theThursday.toEpochDay());
+        }
+
+        /**
+         * La Inmaculada (8-Diciembre) que cae en Domingo de Adviento pasa al Lunes, salvo con
+         * {@link LiturgicalCalendar#IMMACULATE_PREVAILS}: entonces se queda en Domingo, con el mismo rango
+         * que el Domingo de Adviento, y es la celebración principal
+         */
+        private void checkImmaculata() {
+            long theDay = LocalDate.of(mYear, 12, 8).toEpochDay();
+            boolean isPrevailing = Boolean.TRUE.equals(
+                    mCalendar.getSettings().get(LiturgicalCalendar.IMMACULATE_PREVAILS));
+            if (isSunday(theDay) && !isPrevailing) {
+                theDay++;
+            }
+            LocalDate theDate = LocalDate.ofEpochDay(theDay);
+            Celebration thePrincipal = mCalendar.getLiturgicalYear().getCelebration(theDate);
+            if (thePrincipal == null || !"PST12-08".equals(thePrincipal.getCode())) {
+                fail("Celebración principal del " + theDate + " (Inmaculada): "
+                        + (thePrincipal == null ? null : thePrincipal.getCode().trim()));
+            } else if (isSunday(theDay) && thePrincipal.getRank() != Celebration.RANK_PRIVILEGED) {
+                fail("La Inmaculada en Domingo con rango " + thePrincipal.getRank());
+            }
+        }
+
+        /**
+         * La Dedicación de la Basílica de Letrán (9-Noviembre) es fiesta del Señor: es la celebración principal
+         * de su día, también cuando cae en Domingo del Tiempo Ordinario (p.e. el 9-11-2025, Domingo XXXII)
+         */
+        private void checkLateran() {
+            LocalDate theDate = LocalDate.of(mYear, 11, 9);
+            Celebration thePrincipal = mCalendar.getLiturgicalYear().getCelebration(theDate);
+            if (thePrincipal == null || !"PST11-09".equals(thePrincipal.getCode())) {
+                fail("Celebración principal del " + theDate + " (Letrán): "
+                        + (thePrincipal == null ? null : thePrincipal.getCode().trim()));
+            } else if (thePrincipal.getRank() != Celebration.RANK_FEAST_OF_THE_LORD) {
+                fail("La Dedicación de Letrán con rango " + thePrincipal.getRank());
+            }
+        }
+
+        /**
+         * La única celebración de un segmento cae en un día y es la celebración principal de ese día
+         */
+        private void checkPrincipal(LiturgicalCalendar.Segment theSegment, long theDay) {
+            List<Celebration> theEntries = mCalendar.getSegment(theSegment);
+            LocalDate theDate = LocalDate.ofEpochDay(theDay);
+            if (theEntries.size() != 1 || !theEntries.get(0).getDate().equals(theDate)) {
+                fail(theSegment + " no genera sólo el " + theDate);
+                return;
+            }
+            Celebration thePrincipal = mCalendar.getLiturgicalYear().getCelebration(theDate);
+            if (thePrincipal == null || !thePrincipal.getCode().equals(theEntries.get(0).getCode())) {
+                fail("Celebración principal del " + theDate + " (" + theSegment + "): "
+                        + (thePrincipal == null ? null : thePrincipal.getCode().trim()));
+            }
+        }
+
+        /**
+         * El año codificado con {@link YearCodec} se decodifica con los mismos registros
+         */
+        private void checkCodec() {
+            LiturgicalYear theYear = mCalendar.getLiturgicalYear();
+            int[] theRecords = new int[theYear.length()];
+            theYear.copyRecords(0, theRecords, 0, theRecords.length);
+            ByteBuffer theBuffer = ByteBuffer.allocate(16 * 1024);
+            YearCodec.encode(theYear, theBuffer);
+            theBuffer.flip();
+            int[] theDecoded = new int[366];
+            expect("Año decodificado", YearCodec.decode(theBuffer, theDecoded), mYear);
+            expect("Bytes sin decodificar", theBuffer.remaining(), 0);
+            for (int i = 0; i < theRecords.length; i++) {
+                if (theDecoded[i] != theRecords[i]) {
+                    fail("Registro decodificado distinto el " + theYear.dateOf(i) + ": "
+                            + DayRecord.codeName(theDecoded[i]) + " / " + DayRecord.codeName(theRecords[i]));
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Cada celebración del año tiene nombre en todos los idiomas del paquete, sin usar el código como nombre
+         */
+        private void checkNames() {
+            LiturgicalYear theYear = mCalendar.getLiturgicalYear();
+            for (int l = 0; l < CelebrationNames.LOCALES.size(); l++) {
+                Locale theLocale = CelebrationNames.LOCALES.get(l);
+                CelebrationNames theNames = CelebrationNames.of(theLocale);
+                for (int i = 0; i < theYear.length(); i++) {
+                    int theRecord = theYear.getRecord(i);
+                    long theKey = (long) l << 32 | DayRecord.code(theRecord);
+                    if (theRecord == DayRecord.EMPTY || sNamed.contains(theKey)) {
+                        continue;
+                    }
+                    if (theNames.hasName(DayRecord.code(theRecord))) {
+                        sNamed.add(theKey);
+                    } else {
+                        fail("Sin nombre en " + theLocale + " el " + theYear.dateOf(i) + ": "
+                                + DayRecord.codeName(theRecord));
+                    }
+                }
+            }
+        }
+
+        /**
+         * La semana del salterio de cada día es la de su registro y, si la celebración tiene semana del tiempo,
+         * la que corresponde a esa semana; las Vísperas cedidas al día siguiente son sus I Vísperas
+         */
+        private void checkHours() {
+            LiturgicalYear theYear = mCalendar.getLiturgicalYear();
+            byte[] theHours = new byte[theYear.length()];
+            theYear.copyHours(0, theHours, 0, theHours.length);
+            for (int i = 0; i < theHours.length; i++) {
+                int theWeek = HoursRecord.psalterWeek(theHours[i]);
+                Celebration mCelebration = theYear.getCelebration(i);
+                if (theWeek < 1 || theWeek > 4 || theWeek != DayRecord.psalterWeek(theYear.getRecord(i))) {
+                    fail("Semana del salterio " + theWeek + " el " + theYear.dateOf(i));
+                } else if (mCelebration != null && mCelebration.getTimeWeek() > 0
+                        && theWeek != mCelebration.getPsalterWeek()) {
+                    fail(mCelebration.getCode() + " del " + theYear.dateOf(i) + " con semana del salterio "
+                            + theWeek + " en la semana " + mCelebration.getTimeWeek());
+                }
+                if (HoursRecord.office(theHours[i]) == 0) {
+                    fail("Día sin oficio: " + theYear.dateOf(i));
+                }
+                if (HoursRecord.isVespersOfNextDay(theHours[i]) && i + 1 < theHours.length
+                        && !HoursRecord.hasFirstVespers(theHours[i + 1])) {
+                    fail("Vísperas del " + theYear.dateOf(i) + " sin I Vísperas al día siguiente");
+                }
+                if (HoursRecord.hasFirstVespers(theHours[i]) && i > 0
+                        && !HoursRecord.isVespersOfNextDay(theHours[i - 1])) {
+                    fail("I Vísperas del " + theYear.dateOf(i) + " sin ceder las Vísperas del día anterior");
+                }
+            }
+        }
+
+        private int maxWeek(LiturgicalCalendar.Segment theSegment) {
+            int theWeek = 0;
+            for (Celebration mCelebration : mCalendar.getSegment(theSegment)) {
+                theWeek = Math.max(theWeek, mCelebration.getTimeWeek());
+            }
+            return theWeek;
+        }
+
+        private int minWeek(LiturgicalCalendar.Segment theSegment) {
+            int theWeek = 35;
+            for (Celebration mCelebration : mCalendar.getSegment(theSegment)) {
+                if (mCelebration.getTimeWeek() > 0) {
+                    theWeek = Math.min(theWeek, mCelebration.getTimeWeek());
+                }
+            }
+            return theWeek;
+        }
+
+        /**
+         * @return La semana del tiempo litúrgico de un día, deducida de las fechas ancla,
+         * o <code>0</code> si el día no pertenece a una semana de ningún tiempo
+         */
+        private int seasonWeek(long theDay) {
+            long theChristmas = LocalDate.of(mYear, 12, 25).toEpochDay();
+            if (theDay > mBaptism && theDay < mAshes) {
+                // La semana I del Tiempo Ordinario empieza el Domingo de la Epifanía o del Bautismo
+                long theSunday = isSunday(mBaptism) ? mBaptism : mBaptism - 1;
+                return (int) (1 + (theDay - theSunday) / 7);
+            } else if (theDay >= mAshes && theDay < mAshes + 4) {
+                // Del Miércoles de Ceniza al Sábado se usa la semana IV del salterio
+                return 4;
+            } else if (theDay >= mAshes + 4 && theDay < mEaster - 7) {
+                return (int) (1 + (theDay - (mAshes + 4)) / 7);
+            } else if (theDay > mEaster && theDay <= mEaster + 49) {
+                return (int) (1 + (theDay - mEaster) / 7);
+            } else if (theDay > mEaster + 49 && theDay < mAdvent) {
+                // Se cuenta hacia atrás desde la semana XXXIV, la de Cristo Rey
+                return (int) (34 - (mAdvent - 1 - theDay) / 7);
+            } else if (theDay >= mAdvent && theDay < theChristmas) {
+                return (int) (1 + (theDay - mAdvent) / 7);
+            }
+            return 0;
+        }
+
+        private void expect(String theName, long theActual, long theExpected) {
+            if (theActual != theExpected) {
+                fail(theName + ": " + theActual + ", se esperaba " + theExpected);
+            }
+        }
+
+        private void fail(String theMessage) {
+            mFailures.add(mYear + " " + mCalendar.getSettings() + ": " + theMessage);
+        }
+    }
+
+    private static boolean isSunday(long theEpochDay) {
+        // 1970-01-01 fue Jueves: con Lunes = 0, el día de la semana es (epochDay + 3) mod 7
+        return Math.floorMod(theEpochDay + 3, 7L) == 6;
+    }
+
+    /**
+     * @return El primer Domingo posterior a un día
+     */
+    private static long nextSunday(long theEpochDay) {
+        return theEpochDay + 7 - Math.floorMod(theEpochDay + 4, 7L);
+    }
+}